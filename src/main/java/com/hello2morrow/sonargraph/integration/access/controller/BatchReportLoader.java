@@ -0,0 +1,191 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.persistence.MetaDataRegistry;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+/**
+ * Loads many reports concurrently, each into its own controller. All loads of a loader share one {@link MetaDataRegistry}, so issue types,
+ * metric ids, levels and categories that are identical across the reports exist only once in memory.
+ * Reports are read in {@link ReportReadMode#STREAMING} mode.
+ */
+public final class BatchReportLoader
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchReportLoader.class);
+
+    public static final class LoadedReport
+    {
+        private final File reportFile;
+        private final Result result;
+        private final ISonargraphSystemController controller;
+
+        LoadedReport(final File reportFile, final Result result, final ISonargraphSystemController controller)
+        {
+            assert reportFile != null : "Parameter 'reportFile' of method 'LoadedReport' must not be null";
+            assert result != null : "Parameter 'result' of method 'LoadedReport' must not be null";
+            this.reportFile = reportFile;
+            this.result = result;
+            this.controller = controller;
+        }
+
+        public File getReportFile()
+        {
+            return reportFile;
+        }
+
+        public Result getResult()
+        {
+            return result;
+        }
+
+        /**
+         * @return the controller holding the loaded system, empty if loading failed.
+         */
+        public Optional<ISonargraphSystemController> getController()
+        {
+            return Optional.ofNullable(controller);
+        }
+    }
+
+    private final int parallelism;
+    private final ReportLoadOptions options;
+    private final MetaDataRegistry metaDataRegistry = new MetaDataRegistry();
+
+    /**
+     * @param parallelism Maximum number of reports read at the same time.
+     */
+    public BatchReportLoader(final int parallelism)
+    {
+        this(parallelism, new ReportLoadOptions());
+    }
+
+    /**
+     * @param parallelism Maximum number of reports read at the same time.
+     * @param options Sections of the reports that are not needed.
+     */
+    public BatchReportLoader(final int parallelism, final ReportLoadOptions options)
+    {
+        assert parallelism > 0 : "Parameter 'parallelism' of method 'BatchReportLoader' must be positive: " + parallelism;
+        assert options != null : "Parameter 'options' of method 'BatchReportLoader' must not be null";
+        this.parallelism = parallelism;
+        this.options = options;
+    }
+
+    public MetaDataRegistry getMetaDataRegistry()
+    {
+        return metaDataRegistry;
+    }
+
+    /**
+     * Blocks until all reports have been loaded. If the calling thread is interrupted, pending loads are canceled and reported with
+     * {@link ResultCause#CANCELED}.
+     * @return one entry per report file, in the order of the given files.
+     */
+    public List<LoadedReport> load(final List<File> reportFiles)
+    {
+        assert reportFiles != null : "Parameter 'reportFiles' of method 'load' must not be null";
+        if (reportFiles.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, reportFiles.size()), createThreadFactory());
+        try
+        {
+            final List<Future<LoadedReport>> futures = new ArrayList<>(reportFiles.size());
+            for (final File nextFile : reportFiles)
+            {
+                futures.add(executor.submit(() -> load(nextFile)));
+            }
+
+            final List<LoadedReport> loaded = new ArrayList<>(reportFiles.size());
+            for (int i = 0; i < futures.size(); i++)
+            {
+                loaded.add(getLoadedReport(reportFiles.get(i), futures.get(i)));
+            }
+            return Collections.unmodifiableList(loaded);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private LoadedReport load(final File reportFile)
+    {
+        final SonargraphSystemControllerImpl controller = new SonargraphSystemControllerImpl();
+        final Result result = controller.loadSystemReport(reportFile, options, metaDataRegistry);
+        return new LoadedReport(reportFile, result, result.isSuccess() ? controller : null);
+    }
+
+    private static LoadedReport getLoadedReport(final File reportFile, final Future<LoadedReport> future)
+    {
+        final Result result = new Result("Load data from '" + reportFile.getAbsolutePath() + "'");
+        if (Thread.currentThread().isInterrupted())
+        {
+            future.cancel(true);
+            result.addError(ResultCause.CANCELED);
+            return new LoadedReport(reportFile, result, null);
+        }
+        try
+        {
+            return future.get();
+        }
+        catch (final InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            result.addError(ResultCause.CANCELED);
+        }
+        catch (final ExecutionException ex)
+        {
+            LOGGER.error("Failed to load report '" + reportFile.getAbsolutePath() + "'", ex.getCause());
+            result.addError(ResultCause.READ_ERROR, ex.getCause());
+        }
+        return new LoadedReport(reportFile, result, null);
+    }
+
+    private static ThreadFactory createThreadFactory()
+    {
+        final AtomicInteger counter = new AtomicInteger();
+        return r ->
+        {
+            final Thread thread = new Thread(r, "BatchReportLoader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
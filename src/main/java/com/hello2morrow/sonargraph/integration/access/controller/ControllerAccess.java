@@ -17,6 +17,16 @@
  */
 package com.hello2morrow.sonargraph.integration.access.controller;
 
+import java.io.File;
+import java.util.Optional;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystemInfo;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportSnapshotCache;
+import com.hello2morrow.sonargraph.integration.access.persistence.XmlAccess;
+import com.hello2morrow.sonargraph.integration.access.persistence.XmlReportHeaderReader;
+
 public final class ControllerAccess
 {
     private ControllerAccess()
@@ -29,8 +39,48 @@ public final class ControllerAccess
         return new SonargraphSystemControllerImpl();
     }
 
+    /**
+     * Creates a controller that keeps binary snapshots of the loaded reports in the given directory.
+     * Loading a report again - e.g. after a restart or in another process sharing the directory - reads the snapshot instead of parsing
+     * the XML. Snapshots are keyed by report path, size, modification time and library version, so changed reports are parsed again.
+     * Snapshots are written in the background after loading.
+     * @param snapshotDirectory Created on demand, might be the directory containing the reports.
+     */
+    public static ISonargraphSystemController createController(final File snapshotDirectory)
+    {
+        assert snapshotDirectory != null : "Parameter 'snapshotDirectory' of method 'createController' must not be null";
+        return new SonargraphSystemControllerImpl(new ReportSnapshotCache(snapshotDirectory));
+    }
+
     public static IMetaDataController createMetaDataController()
     {
         return new MetaDataControllerImpl();
     }
+
+    /**
+     * Reads only the root element of the report, much faster than loading it when only the system id, name, version or timestamp are
+     * needed, e.g. to catalog many reports.
+     */
+    public static ResultWithOutcome<ISoftwareSystemInfo> peekReportInfo(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'peekReportInfo' must not be null";
+        final ResultWithOutcome<ISoftwareSystemInfo> result = new ResultWithOutcome<>("Peek report info of '" + reportFile.getAbsolutePath() + "'");
+        if (!reportFile.exists())
+        {
+            result.addError(ResultCause.FILE_NOT_FOUND);
+            return result;
+        }
+        final Optional<ISoftwareSystemInfo> info = new XmlReportHeaderReader().readReportInfo(reportFile, result);
+        info.ifPresent(result::setOutcome);
+        return result;
+    }
+
+    /**
+     * Initializes the JAXB contexts and schemas that are shared by all controllers.
+     * Optional - call it at application startup to avoid the initialization cost on the first load.
+     */
+    public static void prewarm()
+    {
+        XmlAccess.prewarm();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricIdImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+/**
+ * Computes derived metrics of a loaded system from a {@link MetricExpression}.
+ * The references of the expression are resolved once per level to primitive arrays aligned with the rows of the system on that level, the
+ * expression is then evaluated for all rows in parallel. The results are stored as double values under a new derived metric id of the
+ * 'Derived' provider and category, so that they are available through all metric queries.
+ */
+final class DerivedMetricCalculator
+{
+    private static final String DERIVED = "Derived";
+    private final SoftwareSystemImpl softwareSystem;
+
+    DerivedMetricCalculator(final SoftwareSystemImpl softwareSystem)
+    {
+        assert softwareSystem != null : "Parameter 'softwareSystem' of method 'DerivedMetricCalculator' must not be null";
+        this.softwareSystem = softwareSystem;
+    }
+
+    ResultWithOutcome<IMetricId> addDerivedMetric(final String metricIdName, final String presentationName, final MetricExpression expression,
+            final List<String> levelNames)
+    {
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'addDerivedMetric' must not be empty";
+        assert presentationName != null && presentationName.length() > 0 : "Parameter 'presentationName' of method 'addDerivedMetric' must not be empty";
+        assert expression != null : "Parameter 'expression' of method 'addDerivedMetric' must not be null";
+        assert levelNames != null && !levelNames.isEmpty() : "Parameter 'levelNames' of method 'addDerivedMetric' must not be empty";
+
+        final ResultWithOutcome<IMetricId> result = new ResultWithOutcome<>("Add derived metric '" + metricIdName + "'");
+        //Prevents concurrent additions of the same metric id name
+        synchronized (softwareSystem)
+        {
+            if (softwareSystem.getMetricIds().containsKey(metricIdName))
+            {
+                result.addError(ResultCause.METRIC_ID_ALREADY_EXISTS, "%s", metricIdName);
+                return result;
+            }
+
+            final Map<String, IMetricLevel> allLevels = softwareSystem.getAllMetricLevels();
+            final List<IMetricLevel> levels = new ArrayList<>(levelNames.size());
+            for (final String next : levelNames)
+            {
+                final IMetricLevel level = allLevels.get(next);
+                if (level == null)
+                {
+                    result.addError(ResultCause.INVALID_METRIC_EXPRESSION, "Unknown metric level '%s'", next);
+                }
+                else if (!levels.contains(level))
+                {
+                    levels.add(level);
+                }
+            }
+            if (result.isFailure())
+            {
+                return result;
+            }
+
+            final Map<IMetricLevel, double[]> valuesPerLevel = new LinkedHashMap<>();
+            for (final IMetricLevel next : levels)
+            {
+                final int[] rows = softwareSystem.getMetricValueRows(next);
+                if (rows.length == 0)
+                {
+                    continue;
+                }
+                final double[][] slots = resolve(result, expression, next, rows);
+                if (slots != null)
+                {
+                    final double[] values = new double[rows.length];
+                    IntStream.range(0, rows.length).parallel().forEach(i -> values[i] = expression.evaluate(slots, i));
+                    valuesPerLevel.put(next, values);
+                }
+            }
+            if (result.isFailure())
+            {
+                return result;
+            }
+
+            final IMetricProvider existingProvider = softwareSystem.getMetricProviders().get(DERIVED);
+            final IMetricCategory existingCategory = softwareSystem.getMetricCategories().get(DERIVED);
+            final MetricIdImpl metricId = new MetricIdImpl(metricIdName, presentationName, expression.getText(),
+                    Collections.singletonList(existingCategory != null ? existingCategory : new MetricCategoryImpl(DERIVED, DERIVED, Integer.MAX_VALUE)),
+                    levels, existingProvider != null ? existingProvider : new MetricProviderImpl(DERIVED, DERIVED), true, Double.NaN, Double.NaN,
+                    true);
+            softwareSystem.addDerivedMetric(metricId, valuesPerLevel);
+            result.setOutcome(metricId);
+        }
+        return result;
+    }
+
+    /**
+     * @return the values of the references of the expression aligned with the rows or null if a reference cannot be resolved.
+     */
+    private double[][] resolve(final ResultWithOutcome<IMetricId> result, final MetricExpression expression, final IMetricLevel level,
+            final int[] rows)
+    {
+        final Map<String, IMetricId> metricIds = softwareSystem.getMetricIds();
+        final List<MetricExpression.Reference> references = expression.getReferences();
+        final double[][] slots = new double[references.size()][];
+        boolean resolved = true;
+        for (final MetricExpression.Reference next : references)
+        {
+            final IMetricId metricId = metricIds.get(next.getMetricIdName());
+            final String levelName = next.getLevelName() != null ? next.getLevelName() : level.getName();
+            if (metricId == null)
+            {
+                result.addError(ResultCause.INVALID_METRIC_EXPRESSION, "Unknown metric id '%s'", next.getMetricIdName());
+                resolved = false;
+            }
+            else if (metricId.getLevels().stream().noneMatch(l -> l.getName().equals(levelName)))
+            {
+                result.addError(ResultCause.INVALID_METRIC_EXPRESSION, "Metric id '%s' is not available on level '%s'", metricId.getName(),
+                        levelName);
+                resolved = false;
+            }
+            else if (next.getLevelName() == null)
+            {
+                slots[next.getSlot()] = softwareSystem.getMetricValuesForRows(level, metricId, rows);
+            }
+            else if (IMetricLevel.SYSTEM.equals(next.getLevelName()))
+            {
+                final double[] values = new double[rows.length];
+                Arrays.fill(values, softwareSystem.getSystemMetricValue(metricId).map(v -> v.getValue().doubleValue()).orElse(Double.NaN));
+                slots[next.getSlot()] = values;
+            }
+            else
+            {
+                assert IMetricLevel.MODULE.equals(next.getLevelName()) : "Unexpected level: " + next.getLevelName();
+                slots[next.getSlot()] = getModuleValues(level, metricId, rows);
+            }
+        }
+        return resolved ? slots : null;
+    }
+
+    /**
+     * @return the value of the module containing the element of each row, NaN for elements not contained in a module.
+     */
+    private double[] getModuleValues(final IMetricLevel level, final IMetricId metricId, final int[] rows)
+    {
+        final double[] values = new double[rows.length];
+        Arrays.fill(values, Double.NaN);
+        final IMetricLevel moduleLevel = softwareSystem.getAllMetricLevels().get(IMetricLevel.MODULE);
+        if (moduleLevel == null)
+        {
+            return values;
+        }
+        for (final IModule next : softwareSystem.getModules().values())
+        {
+            final IMetricValue moduleValue = ((ModuleImpl) next).getMetricValues(moduleLevel, metricId).get(next);
+            if (moduleValue == null)
+            {
+                continue;
+            }
+            final double value = moduleValue.getValue().doubleValue();
+            for (final int nextRow : ((ModuleImpl) next).getMetricValueRows(level))
+            {
+                final int index = Arrays.binarySearch(rows, nextRow);
+                if (index >= 0)
+                {
+                    values[index] = value;
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -29,6 +29,7 @@ import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
 import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
 import com.hello2morrow.sonargraph.integration.access.model.IResolution;
 import com.hello2morrow.sonargraph.integration.access.model.IThresholdViolationIssue;
+import com.hello2morrow.sonargraph.integration.access.model.MetricValueOrder;
 
 public interface IInfoProcessor
 {
@@ -78,5 +79,19 @@ public interface IInfoProcessor
 
     public Map<INamedElement, IMetricValue> getMetricValues(String levelName, String metricIdName);
 
+    /**
+     * @return Unmodifiable map of the n elements with the highest or lowest values of the metric on the level, best value first.
+     *         The elements are selected with a bounded heap over the primitive values, the complete value map is not created.
+     */
+    public Map<INamedElement, IMetricValue> getTopElements(String levelName, String metricIdName, int n, MetricValueOrder order);
+
+    /**
+     * @param filter restricts the elements considered, e.g. to an element kind with <code>e -> e.getKind().equals("JavaFile")</code> - must
+     *        not be 'null'
+     * @return Unmodifiable map of the n matching elements with the highest or lowest values of the metric on the level, best value first.
+     */
+    public Map<INamedElement, IMetricValue> getTopElements(String levelName, String metricIdName, int n, MetricValueOrder order,
+            Predicate<INamedElement> filter);
+
     public Optional<IMetricValue> getMetricValue(String metricName);
 }
\ No newline at end of file
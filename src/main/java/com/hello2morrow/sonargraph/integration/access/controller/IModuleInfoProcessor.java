@@ -26,6 +26,9 @@ import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
 import com.hello2morrow.sonargraph.integration.access.model.IResolution;
 import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
 
+/**
+ * Queries on a module of a loaded software system. Safe for unsynchronized concurrent use like {@link ISystemInfoProcessor}.
+ */
 public interface IModuleInfoProcessor extends IInfoProcessor
 {
     public boolean isElementContainedInModule(INamedElement element);
@@ -17,6 +17,8 @@
  */
 package com.hello2morrow.sonargraph.integration.access.controller;
 
+import java.util.concurrent.Executor;
+
 import com.hello2morrow.sonargraph.integration.access.model.IReportDelta;
 import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
 
@@ -25,4 +27,11 @@ public interface IReportDifferenceProcessor
     public ISoftwareSystem getSoftwareSystem();
 
     public IReportDelta createReportDelta(final ISystemInfoProcessor systemInfoProcessor);
+
+    /**
+     * Creates the same delta as {@link #createReportDelta(ISystemInfoProcessor)}, but computes independent parts of it - e.g. the issues
+     * of different elements - as tasks of the given executor (e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}).
+     * The calling thread blocks until the delta is complete.
+     */
+    public IReportDelta createReportDelta(final ISystemInfoProcessor systemInfoProcessor, final Executor executor);
 }
\ No newline at end of file
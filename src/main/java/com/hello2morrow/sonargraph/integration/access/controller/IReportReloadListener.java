@@ -0,0 +1,43 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.io.File;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+
+/**
+ * Notified by a {@link ReportDirectoryWatcher} about reports of the watched directory. Calls happen on the thread loading the report.
+ */
+public interface IReportReloadListener
+{
+    /**
+     * The report has been (re)loaded, the (read-only) controller now provides the new system.
+     */
+    public void reloaded(File reportFile, ISonargraphSystemController controller);
+
+    /**
+     * The report could not be loaded, the controller (if the report has been loaded before) still provides the previous system.
+     */
+    public void reloadFailed(File reportFile, Result result);
+
+    /**
+     * The report has been deleted from the watched directory.
+     */
+    public void removed(File reportFile);
+}
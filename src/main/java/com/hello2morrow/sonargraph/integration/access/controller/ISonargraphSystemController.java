@@ -18,30 +18,124 @@
 package com.hello2morrow.sonargraph.integration.access.controller;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
 import com.hello2morrow.sonargraph.integration.access.model.IModule;
 import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.persistence.IReportLoadListener;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
 
 public interface ISonargraphSystemController
 {
     /**
-     * Loads an XML report file.
+     * Loads an XML report file. Gzip compressed reports and zip archives containing the report are decompressed while reading.
      * @param systemReportFile
      * @return {@link Result} containing info about any errors.
      */
     public Result loadSystemReport(File systemReportFile);
 
+    /**
+     * Loads an XML report file.
+     * @param systemReportFile
+     * @param readMode {@link ReportReadMode#STREAMING} creates the model while reading without holding the complete XML tree in memory.
+     * @return {@link Result} containing info about any errors.
+     */
+    public Result loadSystemReport(File systemReportFile, ReportReadMode readMode);
+
+    /**
+     * Loads an XML report file without the sections excluded by the options. The report is always read in
+     * {@link ReportReadMode#STREAMING} mode, excluded sections are skipped while reading.
+     * @param systemReportFile
+     * @param options Sections of the report that are not needed.
+     * @return {@link Result} containing info about any errors.
+     */
+    public Result loadSystemReport(File systemReportFile, ReportLoadOptions options);
+
+    /**
+     * Loads an XML report from a stream in {@link ReportReadMode#STREAMING} mode. Gzip compressed content and zip archives are detected
+     * and decompressed while reading, of a zip archive the first entry with the extension '.xml' is loaded.
+     * @param inputStream Provides the report, it is not closed.
+     * @param identifier Identifies the source in messages, e.g. the name of the archive.
+     * @return {@link Result} containing info about any errors.
+     */
+    public Result loadSystemReport(InputStream inputStream, String identifier);
+
+    /**
+     * Same as {@link #loadSystemReport(InputStream, String)}, without the sections excluded by the options.
+     */
+    public Result loadSystemReport(InputStream inputStream, String identifier, ReportLoadOptions options);
+
+    /**
+     * Same as {@link #loadSystemReport(InputStream, String, ReportLoadOptions)} for a channel, e.g. of a remote artifact. The channel is
+     * not closed.
+     */
+    public Result loadSystemReport(ReadableByteChannel channel, String identifier, ReportLoadOptions options);
+
+    /**
+     * Loads an XML report file in {@link ReportReadMode#STREAMING} mode on the given executor.
+     * @param systemReportFile
+     * @param executor Runs the load, e.g. a pool dedicated to report loading.
+     * @return Future completed with the {@link Result} of the load, see {@link #loadSystemReportAsync(File, ReportLoadOptions, Executor, IReportLoadListener)}.
+     */
+    public CompletableFuture<Result> loadSystemReportAsync(File systemReportFile, Executor executor);
+
+    /**
+     * Loads an XML report file in {@link ReportReadMode#STREAMING} mode on the given executor.
+     * The software system of this controller is only replaced once the load has completed successfully, queries must not be issued while
+     * the load is running.
+     * Canceling the returned future stops reading at the start of the next section of the report and keeps the previously loaded system.
+     * @param systemReportFile
+     * @param options Sections of the report that are not needed.
+     * @param executor Runs the load, e.g. a pool dedicated to report loading.
+     * @param listener Notified on the loading thread about the progress.
+     * @return Future completed with the {@link Result} of the load.
+     */
+    public CompletableFuture<Result> loadSystemReportAsync(File systemReportFile, ReportLoadOptions options, Executor executor,
+            IReportLoadListener listener);
+
     public boolean hasSoftwareSystem();
 
     public ISoftwareSystem getSoftwareSystem();
 
     public IModuleInfoProcessor createModuleInfoProcessor(IModule module);
 
+    /**
+     * Creates the info processors of all modules at once. The issues, resolutions and source file mappings of the system are distributed
+     * to the modules in one parallel pass, the returned processors answer their requests from these precomputed lists.
+     * @return unmodifiable map of module to processor in the order of {@link ISoftwareSystem#getModules()}.
+     */
+    public Map<IModule, IModuleInfoProcessor> createModuleInfoProcessors();
+
     public ISystemInfoProcessor createSystemInfoProcessor();
 
     /**
      * Creates a difference processor based on the software system previously loaded by the controller.
      */
     public IReportDifferenceProcessor createReportDifferenceProcessor();
+
+    /**
+     * @return the metric aggregator of the software system previously loaded by the controller, its results are cached until another
+     *         report is loaded.
+     */
+    public MetricAggregator getMetricAggregator();
+
+    /**
+     * Evaluates the expression for all elements of the given levels of the software system previously loaded by the controller and adds the
+     * results under a new metric id flagged as derived ({@link IMetricId#isDerived()}). The values are available through the same queries as
+     * the metric values of the report. Derived metrics can be referenced by subsequent expressions.
+     * The values and the metric id are published at once, queries running concurrently see either none or all of them. Controllers shared
+     * between callers (see {@link ReportRepository}) reject this call.
+     * @param levelNames names of the metric levels to compute values for, e.g. 'SourceFile'
+     * @return the new metric id, or a failure if the name is already used or the expression references unknown metric ids or levels.
+     */
+    public ResultWithOutcome<IMetricId> addDerivedMetric(String metricIdName, String presentationName, MetricExpression expression,
+            List<String> levelNames);
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
  */
 package com.hello2morrow.sonargraph.integration.access.controller;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,9 +34,18 @@ import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
 import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
 import com.hello2morrow.sonargraph.integration.access.model.IMetricProvider;
 import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
 import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
 import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.model.IThresholdViolationIssue;
+import com.hello2morrow.sonargraph.integration.access.model.MetricValueOrder;
 
+/**
+ * Queries on a loaded software system. The system is frozen once loading has completed, so processors created by
+ * {@link ISonargraphSystemController} are safe for unsynchronized concurrent use by any number of threads. Loading another report into
+ * the controller does not affect existing processors, they keep answering for the system they have been created for.
+ */
 public interface ISystemInfoProcessor extends IInfoProcessor
 {
     public ISoftwareSystem getSoftwareSystem();
@@ -66,6 +76,12 @@ public interface ISystemInfoProcessor extends IInfoProcessor
 
     public boolean hasIssue(Predicate<IIssue> filter);
 
+    /**
+     * @param query the structured query - must not be 'null'. Answered from issue indexes that are created on first use.
+     * @return Unmodifiable list of issues matching the query, in the same order as returned by {@link #getIssues(Predicate)}.
+     */
+    public List<IIssue> queryIssues(IssueQuery query);
+
     public Map<String, IModule> getModules();
 
     public List<IIssueCategory> getIssueCategories();
@@ -73,4 +89,20 @@ public interface ISystemInfoProcessor extends IInfoProcessor
     public List<IMetricThreshold> getMetricThresholds();
 
     public List<String> getElementKinds();
+
+    /**
+     * @param modules restricts the elements considered to the elements of these modules - must not be 'null'
+     * @return Unmodifiable map of the n matching elements with the highest or lowest values of the metric on the level, best value first.
+     */
+    public Map<INamedElement, IMetricValue> getTopElements(String levelName, String metricIdName, int n, MetricValueOrder order,
+            Collection<IModule> modules, Predicate<INamedElement> filter);
+
+    /**
+     * Evaluates the thresholds against all stored metric values of the system, e.g. to try a stricter quality model without running
+     * another analysis. Thresholds are matched to the system's levels and metric ids by name, so thresholds of other systems can be used.
+     * @param thresholds e.g. {@link #getMetricThresholds()} or user defined ones - must not be 'null'
+     * @return Unmodifiable list of violations (values outside of the range from lower to upper threshold), grouped by threshold in the
+     *         given order. The violations are not added to the system's issues.
+     */
+    public List<IThresholdViolationIssue> evaluateThresholds(List<IMetricThreshold> thresholds);
 }
\ No newline at end of file
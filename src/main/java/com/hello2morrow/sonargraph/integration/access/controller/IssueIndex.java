@@ -0,0 +1,364 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
+import com.hello2morrow.sonargraph.integration.access.model.ResolutionType;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SourceFileImpl;
+
+/**
+ * Immutable secondary indexes over the issues of a loaded software system.
+ * Issues are numbered in the order of {@link SoftwareSystemImpl#getIssues()}, each index maps a key to the ascending numbers of the
+ * issues having that key (posting list). Every index is created on first use and may be shared between threads.
+ */
+final class IssueIndex
+{
+    private final SoftwareSystemImpl softwareSystem;
+    private final Postings<IIssueType> byType = new Postings<>((issue, keys) -> keys.accept(issue.getIssueType()));
+    private final Postings<IIssueCategory> byCategory = new Postings<>((issue, keys) -> keys.accept(issue.getIssueType().getCategory()));
+    private final Postings<IIssueProvider> byProvider = new Postings<>((issue, keys) -> keys.accept(issue.getIssueProvider()));
+    private final Postings<Severity> bySeverity = new Postings<>((issue, keys) -> keys.accept(issue.getIssueType().getSeverity()));
+    private final Postings<ResolutionType> byResolutionType = new Postings<>((issue, keys) -> keys.accept(issue.getResolutionType()));
+    private final Postings<INamedElement> byAffectedElement = new Postings<>(
+            (issue, keys) -> issue.getAffectedNamedElements().forEach(keys));
+    private final Postings<ISourceFile> bySourceFile = new Postings<>(this::collectSourceFiles);
+    private final Postings<Class<?>> byClass = new Postings<>((issue, keys) -> keys.accept(issue.getClass()));
+    private volatile List<IIssue> issues;
+
+    IssueIndex(final SoftwareSystemImpl softwareSystem)
+    {
+        assert softwareSystem != null : "Parameter 'softwareSystem' of method 'IssueIndex' must not be null";
+        this.softwareSystem = softwareSystem;
+    }
+
+    /**
+     * @return unmodifiable list of all issues
+     */
+    List<IIssue> getIssues()
+    {
+        List<IIssue> result = issues;
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = issues;
+                if (result == null)
+                {
+                    //The number of issues stated in the report does not necessarily match the number of issues read
+                    final List<IIssue> all = new ArrayList<>(softwareSystem.getIssues().values().stream().mapToInt(List::size).sum());
+                    softwareSystem.getIssues().values().forEach(all::addAll);
+                    result = Collections.unmodifiableList(Arrays.asList(all.toArray(new IIssue[all.size()])));
+                    issues = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    List<IIssue> getIssues(final IssueQuery query)
+    {
+        assert query != null : "Parameter 'query' of method 'getIssues' must not be null";
+
+        final List<int[]> constraints = new ArrayList<>();
+        addConstraint(constraints, byType, query.getIssueTypes());
+        addConstraint(constraints, byCategory, query.getCategories());
+        addConstraint(constraints, byProvider, query.getProviders());
+        addConstraint(constraints, bySeverity, query.getSeverities());
+        addConstraint(constraints, byResolutionType, query.getResolutionTypes());
+        addConstraint(constraints, byAffectedElement, query.getAffectedElements());
+        addConstraint(constraints, bySourceFile, query.getSourceFiles());
+
+        final Predicate<IIssue> filter = query.getFilter();
+        if (constraints.isEmpty())
+        {
+            final List<IIssue> all = getIssues();
+            return filter == null ? all : select(all, filter);
+        }
+
+        constraints.sort((c1, c2) -> Integer.compare(c1.length, c2.length));
+        int[] matching = constraints.get(0);
+        for (int i = 1; i < constraints.size() && matching.length > 0; i++)
+        {
+            matching = intersect(matching, constraints.get(i));
+        }
+        return toIssues(matching, filter);
+    }
+
+    /**
+     * @return the issues whose category has the given name
+     */
+    List<IIssue> getIssuesOfCategory(final String categoryName, final Predicate<IIssue> filter)
+    {
+        assert categoryName != null && categoryName.length() > 0 : "Parameter 'categoryName' of method 'getIssuesOfCategory' must not be empty";
+        final Map<IIssueCategory, int[]> postings = byCategory.get();
+        final List<IIssueCategory> categories = new ArrayList<>();
+        postings.keySet().stream().filter(c -> categoryName.equals(c.getName())).forEach(categories::add);
+        return toIssues(union(postings, categories), filter);
+    }
+
+    /**
+     * @return the issues that are instances of the given class
+     */
+    List<IIssue> getIssuesOfClass(final Class<?> issueClass, final Predicate<IIssue> filter)
+    {
+        assert issueClass != null : "Parameter 'issueClass' of method 'getIssuesOfClass' must not be null";
+        final Map<Class<?>, int[]> postings = byClass.get();
+        final List<Class<?>> classes = new ArrayList<>();
+        postings.keySet().stream().filter(issueClass::isAssignableFrom).forEach(classes::add);
+        return toIssues(union(postings, classes), filter);
+    }
+
+    private void collectSourceFiles(final IIssue issue, final Consumer<ISourceFile> keys)
+    {
+        for (final INamedElement next : issue.getAffectedNamedElements())
+        {
+            final Optional<SourceFileImpl> sourceFile = softwareSystem.getSourceFile(next);
+            if (sourceFile.isPresent())
+            {
+                keys.accept(sourceFile.get());
+            }
+            else if (next instanceof ISourceFile)
+            {
+                keys.accept((ISourceFile) next);
+            }
+        }
+    }
+
+    private static <K> void addConstraint(final List<int[]> constraints, final Postings<K> postings, final Collection<K> keys)
+    {
+        if (!keys.isEmpty())
+        {
+            constraints.add(union(postings.get(), keys));
+        }
+    }
+
+    private List<IIssue> toIssues(final int[] numbers, final Predicate<IIssue> filter)
+    {
+        final List<IIssue> all = getIssues();
+        final List<IIssue> result = new ArrayList<>(numbers.length);
+        for (final int next : numbers)
+        {
+            final IIssue issue = all.get(next);
+            if (filter == null || filter.test(issue))
+            {
+                result.add(issue);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static List<IIssue> select(final List<IIssue> issues, final Predicate<IIssue> filter)
+    {
+        final List<IIssue> result = new ArrayList<>();
+        for (final IIssue next : issues)
+        {
+            if (filter.test(next))
+            {
+                result.add(next);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static <K> int[] union(final Map<K, int[]> postings, final Collection<K> keys)
+    {
+        int[] result = null;
+        for (final K next : keys)
+        {
+            final int[] list = postings.get(next);
+            if (list != null)
+            {
+                result = result == null ? list : merge(result, list);
+            }
+        }
+        return result != null ? result : new int[0];
+    }
+
+    private static int[] merge(final int[] first, final int[] second)
+    {
+        final int[] result = new int[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < first.length || j < second.length)
+        {
+            final int next;
+            if (j == second.length || i < first.length && first[i] < second[j])
+            {
+                next = first[i++];
+            }
+            else if (i == first.length || second[j] < first[i])
+            {
+                next = second[j++];
+            }
+            else
+            {
+                next = first[i++];
+                j++;
+            }
+            result[size++] = next;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Intersects two ascending posting lists, the first one is expected to be the shorter one.
+     */
+    private static int[] intersect(final int[] shorter, final int[] longer)
+    {
+        final int[] result = new int[shorter.length];
+        int size = 0;
+        if (shorter.length * 8 < longer.length)
+        {
+            //Very different sizes - binary search in the longer list
+            int from = 0;
+            for (final int next : shorter)
+            {
+                final int index = Arrays.binarySearch(longer, from, longer.length, next);
+                if (index >= 0)
+                {
+                    result[size++] = next;
+                    from = index + 1;
+                }
+                else
+                {
+                    from = -index - 1;
+                }
+            }
+        }
+        else
+        {
+            int i = 0;
+            int j = 0;
+            while (i < shorter.length && j < longer.length)
+            {
+                if (shorter[i] < longer[j])
+                {
+                    i++;
+                }
+                else if (shorter[i] > longer[j])
+                {
+                    j++;
+                }
+                else
+                {
+                    result[size++] = shorter[i++];
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Lazily created posting lists of one index.
+     */
+    private final class Postings<K>
+    {
+        private final BiConsumer<IIssue, Consumer<K>> keyExtractor;
+        private volatile Map<K, int[]> postings;
+
+        Postings(final BiConsumer<IIssue, Consumer<K>> keyExtractor)
+        {
+            this.keyExtractor = keyExtractor;
+        }
+
+        Map<K, int[]> get()
+        {
+            Map<K, int[]> result = postings;
+            if (result == null)
+            {
+                synchronized (this)
+                {
+                    result = postings;
+                    if (result == null)
+                    {
+                        result = create();
+                        postings = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        private Map<K, int[]> create()
+        {
+            final Map<K, IntList> lists = new HashMap<>();
+            final List<IIssue> all = getIssues();
+            for (int i = 0; i < all.size(); i++)
+            {
+                final int number = i;
+                keyExtractor.accept(all.get(i), key ->
+                {
+                    if (key != null)
+                    {
+                        lists.computeIfAbsent(key, k -> new IntList()).add(number);
+                    }
+                });
+            }
+
+            final Map<K, int[]> result = new HashMap<>(lists.size() * 2);
+            lists.forEach((key, list) -> result.put(key, list.toArray()));
+            return Collections.unmodifiableMap(result);
+        }
+    }
+
+    private static final class IntList
+    {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(final int value)
+        {
+            if (size > 0 && values[size - 1] == value)
+            {
+                //Same key reported twice for one issue
+                return;
+            }
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray()
+        {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
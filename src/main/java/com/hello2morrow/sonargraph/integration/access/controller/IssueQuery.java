@@ -0,0 +1,159 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
+import com.hello2morrow.sonargraph.integration.access.model.ResolutionType;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+
+/**
+ * Structured issue query answered from the indexes of {@link ISystemInfoProcessor#queryIssues(IssueQuery)}.
+ * Values given for the same criterion are or-combined, the different criteria are and-combined.
+ * An empty query matches all issues.
+ */
+public final class IssueQuery
+{
+    private final Set<IIssueType> issueTypes = new LinkedHashSet<>();
+    private final Set<IIssueCategory> categories = new LinkedHashSet<>();
+    private final Set<IIssueProvider> providers = new LinkedHashSet<>();
+    private final Set<Severity> severities = new LinkedHashSet<>();
+    private final Set<ResolutionType> resolutionTypes = new LinkedHashSet<>();
+    private final Set<INamedElement> affectedElements = new LinkedHashSet<>();
+    private final Set<ISourceFile> sourceFiles = new LinkedHashSet<>();
+    private Predicate<IIssue> filter;
+
+    public IssueQuery()
+    {
+        super();
+    }
+
+    public IssueQuery withIssueType(final IIssueType issueType)
+    {
+        assert issueType != null : "Parameter 'issueType' of method 'withIssueType' must not be null";
+        issueTypes.add(issueType);
+        return this;
+    }
+
+    public IssueQuery withCategory(final IIssueCategory category)
+    {
+        assert category != null : "Parameter 'category' of method 'withCategory' must not be null";
+        categories.add(category);
+        return this;
+    }
+
+    public IssueQuery withProvider(final IIssueProvider provider)
+    {
+        assert provider != null : "Parameter 'provider' of method 'withProvider' must not be null";
+        providers.add(provider);
+        return this;
+    }
+
+    public IssueQuery withSeverity(final Severity severity)
+    {
+        assert severity != null : "Parameter 'severity' of method 'withSeverity' must not be null";
+        severities.add(severity);
+        return this;
+    }
+
+    public IssueQuery withResolutionType(final ResolutionType resolutionType)
+    {
+        assert resolutionType != null : "Parameter 'resolutionType' of method 'withResolutionType' must not be null";
+        resolutionTypes.add(resolutionType);
+        return this;
+    }
+
+    /**
+     * Matches issues having the element in {@link IIssue#getAffectedNamedElements()}.
+     */
+    public IssueQuery withAffectedElement(final INamedElement element)
+    {
+        assert element != null : "Parameter 'element' of method 'withAffectedElement' must not be null";
+        affectedElements.add(element);
+        return this;
+    }
+
+    /**
+     * Matches issues with an affected element located in the source file (or being the source file itself).
+     */
+    public IssueQuery withSourceFile(final ISourceFile sourceFile)
+    {
+        assert sourceFile != null : "Parameter 'sourceFile' of method 'withSourceFile' must not be null";
+        sourceFiles.add(sourceFile);
+        return this;
+    }
+
+    /**
+     * @param filter additional predicate applied to the issues selected by the indexed criteria - replaces a previously set filter.
+     */
+    public IssueQuery withFilter(final Predicate<IIssue> filter)
+    {
+        assert filter != null : "Parameter 'filter' of method 'withFilter' must not be null";
+        this.filter = filter;
+        return this;
+    }
+
+    Set<IIssueType> getIssueTypes()
+    {
+        return Collections.unmodifiableSet(issueTypes);
+    }
+
+    Set<IIssueCategory> getCategories()
+    {
+        return Collections.unmodifiableSet(categories);
+    }
+
+    Set<IIssueProvider> getProviders()
+    {
+        return Collections.unmodifiableSet(providers);
+    }
+
+    Set<Severity> getSeverities()
+    {
+        return Collections.unmodifiableSet(severities);
+    }
+
+    Set<ResolutionType> getResolutionTypes()
+    {
+        return Collections.unmodifiableSet(resolutionTypes);
+    }
+
+    Set<INamedElement> getAffectedElements()
+    {
+        return Collections.unmodifiableSet(affectedElements);
+    }
+
+    Set<ISourceFile> getSourceFiles()
+    {
+        return Collections.unmodifiableSet(sourceFiles);
+    }
+
+    Predicate<IIssue> getFilter()
+    {
+        return filter;
+    }
+}
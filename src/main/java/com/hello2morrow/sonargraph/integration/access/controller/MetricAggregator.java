@@ -0,0 +1,213 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricStatistics;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.MetricQuantileSketch;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricStatisticsImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementContainerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+/**
+ * Computes count, sum, min, max, mean, standard deviation and percentiles of a metric on a level, for the whole system or per module.
+ * For distributions across systems mergeable {@link MetricQuantileSketch} instances can be created.
+ * The values are read as primitives from the metric value columns, modules are aggregated in parallel.
+ * Results are cached for the loaded system, an aggregator is obtained from {@link ISonargraphSystemController#getMetricAggregator()}
+ * and stays valid for the system it has been created for. Instances may be shared between threads.
+ */
+public final class MetricAggregator
+{
+    private static final class Key
+    {
+        private final NamedElementContainerImpl container;
+        private final IMetricLevel level;
+        private final IMetricId metricId;
+
+        Key(final NamedElementContainerImpl container, final IMetricLevel level, final IMetricId metricId)
+        {
+            this.container = container;
+            this.level = level;
+            this.metricId = metricId;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(container, level, metricId);
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return container == other.container && level.equals(other.level) && metricId.equals(other.metricId);
+        }
+    }
+
+    //Optional.empty() is cached for containers without values
+    private final Map<Key, Optional<IMetricStatistics>> cache = new ConcurrentHashMap<>();
+    private final SoftwareSystemImpl softwareSystem;
+
+    MetricAggregator(final SoftwareSystemImpl softwareSystem)
+    {
+        assert softwareSystem != null : "Parameter 'softwareSystem' of method 'MetricAggregator' must not be null";
+        this.softwareSystem = softwareSystem;
+    }
+
+    /**
+     * @return the statistics over the values of all elements of the system, empty if the level or metric id is unknown or there are no values.
+     */
+    public Optional<IMetricStatistics> getSystemStatistics(final String levelName, final String metricIdName)
+    {
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'getSystemStatistics' must not be empty";
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'getSystemStatistics' must not be empty";
+
+        final IMetricLevel level = softwareSystem.getAllMetricLevels().get(levelName);
+        final IMetricId metricId = softwareSystem.getMetricIds().get(metricIdName);
+        if (level == null || metricId == null)
+        {
+            return Optional.empty();
+        }
+
+        //The system contains the values of all module elements as well
+        return getStatistics(softwareSystem, level, metricId);
+    }
+
+    /**
+     * @return the statistics over the values of the elements of the module, empty if the level or metric id is unknown or there are no values.
+     */
+    public Optional<IMetricStatistics> getModuleStatistics(final IModule module, final String levelName, final String metricIdName)
+    {
+        assert module != null : "Parameter 'module' of method 'getModuleStatistics' must not be null";
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'getModuleStatistics' must not be empty";
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'getModuleStatistics' must not be empty";
+        assert softwareSystem.getModules().get(module.getName()) == module : "Module '" + module.getName() + "' does not belong to the system";
+
+        final IMetricLevel level = softwareSystem.getAllMetricLevels().get(levelName);
+        final IMetricId metricId = softwareSystem.getMetricIds().get(metricIdName);
+        if (level == null || metricId == null)
+        {
+            return Optional.empty();
+        }
+        return getStatistics((ModuleImpl) module, level, metricId);
+    }
+
+    /**
+     * @return unmodifiable map of module to statistics in the order of {@link SoftwareSystemImpl#getModules()}, modules without values
+     *         are not contained.
+     */
+    public Map<IModule, IMetricStatistics> getStatisticsPerModule(final String levelName, final String metricIdName)
+    {
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'getStatisticsPerModule' must not be empty";
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'getStatisticsPerModule' must not be empty";
+
+        final IMetricLevel level = softwareSystem.getAllMetricLevels().get(levelName);
+        final IMetricId metricId = softwareSystem.getMetricIds().get(metricIdName);
+        if (level == null || metricId == null)
+        {
+            return Collections.emptyMap();
+        }
+        return getStatisticsPerModule(level, metricId);
+    }
+
+    /**
+     * @return a new sketch of the values of all elements of the system, to be merged with sketches of other systems. The sketch is empty if
+     *         the level or metric id is unknown.
+     */
+    public MetricQuantileSketch createSketch(final String levelName, final String metricIdName, final int k)
+    {
+        return createContainerSketch(softwareSystem, levelName, metricIdName, k);
+    }
+
+    /**
+     * @return a new sketch of the values of the elements of the module, empty if the level or metric id is unknown.
+     */
+    public MetricQuantileSketch createSketch(final IModule module, final String levelName, final String metricIdName, final int k)
+    {
+        assert module != null : "Parameter 'module' of method 'createSketch' must not be null";
+        assert softwareSystem.getModules().get(module.getName()) == module : "Module '" + module.getName() + "' does not belong to the system";
+        return createContainerSketch((ModuleImpl) module, levelName, metricIdName, k);
+    }
+
+    private MetricQuantileSketch createContainerSketch(final NamedElementContainerImpl container, final String levelName, final String metricIdName,
+            final int k)
+    {
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'createContainerSketch' must not be empty";
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'createContainerSketch' must not be empty";
+
+        final MetricQuantileSketch sketch = new MetricQuantileSketch(levelName, metricIdName, k);
+        final IMetricLevel level = softwareSystem.getAllMetricLevels().get(levelName);
+        final IMetricId metricId = softwareSystem.getMetricIds().get(metricIdName);
+        if (level != null && metricId != null)
+        {
+            sketch.addAll(container.getMetricValuesAsDoubles(level, metricId));
+        }
+        return sketch;
+    }
+
+    private Map<IModule, IMetricStatistics> getStatisticsPerModule(final IMetricLevel level, final IMetricId metricId)
+    {
+        final List<IModule> modules = new ArrayList<>(softwareSystem.getModules().values());
+        //Parallel over modules, each module reads its own view of the columns
+        final List<Optional<IMetricStatistics>> statistics = new ArrayList<>(modules.size());
+        modules.parallelStream().map(m -> getStatistics((ModuleImpl) m, level, metricId)).forEachOrdered(statistics::add);
+
+        final Map<IModule, IMetricStatistics> result = new LinkedHashMap<>();
+        for (int i = 0; i < modules.size(); i++)
+        {
+            final Optional<IMetricStatistics> next = statistics.get(i);
+            if (next.isPresent())
+            {
+                result.put(modules.get(i), next.get());
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Optional<IMetricStatistics> getStatistics(final NamedElementContainerImpl container, final IMetricLevel level, final IMetricId metricId)
+    {
+        return cache.computeIfAbsent(new Key(container, level, metricId),
+                k -> createStatistics(level, metricId, container.getMetricValuesAsDoubles(level, metricId)));
+    }
+
+    private static Optional<IMetricStatistics> createStatistics(final IMetricLevel level, final IMetricId metricId, final double[] values)
+    {
+        return values.length == 0 ? Optional.empty() : Optional.of(new MetricStatisticsImpl(level, metricId, values));
+    }
+}
@@ -0,0 +1,715 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+
+/**
+ * Compiled expression over metric ids used to compute derived metrics, see
+ * {@link ISonargraphSystemController#addDerivedMetric(String, String, MetricExpression, List)}.
+ * <p>
+ * Supported syntax (in order of increasing precedence):
+ * <ul>
+ * <li>conditional: <code>condition ? a : b</code></li>
+ * <li>logical: <code>||</code>, <code>&amp;&amp;</code></li>
+ * <li>comparison: <code>&lt; &lt;= &gt; &gt;= == !=</code></li>
+ * <li>arithmetic: <code>+ - * / %</code>, unary <code>-</code> and <code>!</code></li>
+ * <li>number literals, parentheses and the functions <code>min(a, b, ...)</code>, <code>max(a, b, ...)</code>, <code>abs(a)</code>,
+ * <code>sqrt(a)</code>, <code>if(condition, a, b)</code> and <code>coalesce(a, b, ...)</code></li>
+ * <li>metric id names (e.g. <code>CoreLinesOfCode</code>) referring to the value of the element being computed, or qualified with
+ * <code>System.</code> or <code>Module.</code> referring to the value of the system or of the module containing the element</li>
+ * </ul>
+ * A missing value is represented as NaN and propagates through all operators and functions except <code>coalesce</code>, which returns its
+ * first non-missing argument. Conditions are true if their value is neither 0 nor missing, comparisons and logical operators return 1 or 0.
+ * Non-finite results (missing values, division by zero) are not stored.
+ * Function names are case insensitive. Expressions nested deeper than {@value #MAX_DEPTH} levels are rejected.
+ */
+public final class MetricExpression implements Serializable
+{
+    private static final long serialVersionUID = -3526208386741412975L;
+    public static final int MAX_DEPTH = 256;
+    private final String text;
+    private transient Node root;
+    private transient List<Reference> references;
+
+    private MetricExpression(final String text, final Node root, final List<Reference> references)
+    {
+        this.text = text;
+        this.root = root;
+        this.references = references;
+    }
+
+    public static ResultWithOutcome<MetricExpression> parse(final String text)
+    {
+        assert text != null : "Parameter 'text' of method 'parse' must not be null";
+        final ResultWithOutcome<MetricExpression> result = new ResultWithOutcome<>("Parse metric expression");
+        try
+        {
+            final Parser parser = new Parser(text);
+            final Node root = parser.parse();
+            result.setOutcome(new MetricExpression(text, root, Collections.unmodifiableList(new ArrayList<>(parser.references.values()))));
+        }
+        catch (final ParseException ex)
+        {
+            result.addError(ResultCause.INVALID_METRIC_EXPRESSION, "%s", ex.getMessage());
+        }
+        return result;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * @return the distinct metric id references in order of their first occurrence, their slot is the index in this list.
+     */
+    List<Reference> getReferences()
+    {
+        return references;
+    }
+
+    /**
+     * @param slots the values of the references, indexed by slot and then by the index of the element being computed
+     */
+    double evaluate(final double[][] slots, final int index)
+    {
+        return root.evaluate(slots, index);
+    }
+
+    private Object readResolve() throws ObjectStreamException
+    {
+        final ResultWithOutcome<MetricExpression> result = parse(text);
+        assert result.isSuccess() : "Serialized expression cannot be parsed: " + text;
+        return result.getOutcome();
+    }
+
+    @Override
+    public String toString()
+    {
+        return text;
+    }
+
+    /**
+     * A metric id referenced by the expression, the level name is null for values of the element being computed.
+     */
+    static final class Reference
+    {
+        private final String levelName;
+        private final String metricIdName;
+        private final int slot;
+
+        Reference(final String levelName, final String metricIdName, final int slot)
+        {
+            this.levelName = levelName;
+            this.metricIdName = metricIdName;
+            this.slot = slot;
+        }
+
+        String getLevelName()
+        {
+            return levelName;
+        }
+
+        String getMetricIdName()
+        {
+            return metricIdName;
+        }
+
+        int getSlot()
+        {
+            return slot;
+        }
+
+        @Override
+        public String toString()
+        {
+            return levelName != null ? levelName + "." + metricIdName : metricIdName;
+        }
+    }
+
+    private static final class ParseException extends Exception
+    {
+        private static final long serialVersionUID = 2093874609842573340L;
+
+        ParseException(final String message, final String text, final int position)
+        {
+            super(message + " at position " + (position + 1) + " in '" + text + "'");
+        }
+    }
+
+    private abstract static class Node
+    {
+        //Bounds the recursion of evaluate()
+        private final int depth;
+
+        Node(final Node... children)
+        {
+            int maxChildDepth = 0;
+            for (final Node next : children)
+            {
+                maxChildDepth = Math.max(maxChildDepth, next.depth);
+            }
+            depth = maxChildDepth + 1;
+        }
+
+        abstract double evaluate(double[][] slots, int index);
+    }
+
+    private static final class Constant extends Node
+    {
+        private final double value;
+
+        Constant(final double value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        double evaluate(final double[][] slots, final int index)
+        {
+            return value;
+        }
+    }
+
+    private static final class Slot extends Node
+    {
+        private final int slot;
+
+        Slot(final int slot)
+        {
+            this.slot = slot;
+        }
+
+        @Override
+        double evaluate(final double[][] slots, final int index)
+        {
+            return slots[slot][index];
+        }
+    }
+
+    private static final class Negate extends Node
+    {
+        private final Node operand;
+
+        Negate(final Node operand)
+        {
+            super(operand);
+            this.operand = operand;
+        }
+
+        @Override
+        double evaluate(final double[][] slots, final int index)
+        {
+            return -operand.evaluate(slots, index);
+        }
+    }
+
+    private static final class Not extends Node
+    {
+        private final Node operand;
+
+        Not(final Node operand)
+        {
+            super(operand);
+            this.operand = operand;
+        }
+
+        @Override
+        double evaluate(final double[][] slots, final int index)
+        {
+            final double value = operand.evaluate(slots, index);
+            return Double.isNaN(value) ? Double.NaN : toDouble(value == 0.0);
+        }
+    }
+
+    private enum Operator
+    {
+        OR("||"),
+        AND("&&"),
+        LESS("<"),
+        LESS_OR_EQUAL("<="),
+        GREATER(">"),
+        GREATER_OR_EQUAL(">="),
+        EQUAL("=="),
+        NOT_EQUAL("!="),
+        ADD("+"),
+        SUBTRACT("-"),
+        MULTIPLY("*"),
+        DIVIDE("/"),
+        REMAINDER("%");
+
+        private final String symbol;
+
+        private Operator(final String symbol)
+        {
+            this.symbol = symbol;
+        }
+
+        double apply(final double left, final double right)
+        {
+            if (Double.isNaN(left) || Double.isNaN(right))
+            {
+                return Double.NaN;
+            }
+            switch (this)
+            {
+            case OR:
+                return toDouble(left != 0.0 || right != 0.0);
+            case AND:
+                return toDouble(left != 0.0 && right != 0.0);
+            case LESS:
+                return toDouble(left < right);
+            case LESS_OR_EQUAL:
+                return toDouble(left <= right);
+            case GREATER:
+                return toDouble(left > right);
+            case GREATER_OR_EQUAL:
+                return toDouble(left >= right);
+            case EQUAL:
+                return toDouble(left == right);
+            case NOT_EQUAL:
+                return toDouble(left != right);
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                return left / right;
+            case REMAINDER:
+                return left % right;
+            default:
+                assert false : "Unhandled operator: " + this;
+                return Double.NaN;
+            }
+        }
+    }
+
+    private static final class Binary extends Node
+    {
+        private final Operator operator;
+        private final Node left;
+        private final Node right;
+
+        Binary(final Operator operator, final Node left, final Node right)
+        {
+            super(left, right);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(final double[][] slots, final int index)
+        {
+            return operator.apply(left.evaluate(slots, index), right.evaluate(slots, index));
+        }
+    }
+
+    private static final class Conditional extends Node
+    {
+        private final Node condition;
+        private final Node whenTrue;
+        private final Node whenFalse;
+
+        Conditional(final Node condition, final Node whenTrue, final Node whenFalse)
+        {
+            super(condition, whenTrue, whenFalse);
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        double evaluate(final double[][] slots, final int index)
+        {
+            final double value = condition.evaluate(slots, index);
+            if (Double.isNaN(value))
+            {
+                return Double.NaN;
+            }
+            return value != 0.0 ? whenTrue.evaluate(slots, index) : whenFalse.evaluate(slots, index);
+        }
+    }
+
+    private enum Function
+    {
+        MIN(2, Integer.MAX_VALUE),
+        MAX(2, Integer.MAX_VALUE),
+        ABS(1, 1),
+        SQRT(1, 1),
+        COALESCE(2, Integer.MAX_VALUE);
+
+        private final int minArguments;
+        private final int maxArguments;
+
+        private Function(final int minArguments, final int maxArguments)
+        {
+            this.minArguments = minArguments;
+            this.maxArguments = maxArguments;
+        }
+    }
+
+    private static final class FunctionCall extends Node
+    {
+        private final Function function;
+        private final Node[] arguments;
+
+        FunctionCall(final Function function, final Node[] arguments)
+        {
+            super(arguments);
+            this.function = function;
+            this.arguments = arguments;
+        }
+
+        @Override
+        double evaluate(final double[][] slots, final int index)
+        {
+            double result = arguments[0].evaluate(slots, index);
+            switch (function)
+            {
+            case MIN:
+                for (int i = 1; i < arguments.length; i++)
+                {
+                    result = Math.min(result, arguments[i].evaluate(slots, index));
+                }
+                return result;
+            case MAX:
+                for (int i = 1; i < arguments.length; i++)
+                {
+                    result = Math.max(result, arguments[i].evaluate(slots, index));
+                }
+                return result;
+            case ABS:
+                return Math.abs(result);
+            case SQRT:
+                return Math.sqrt(result);
+            case COALESCE:
+                for (int i = 1; i < arguments.length && Double.isNaN(result); i++)
+                {
+                    result = arguments[i].evaluate(slots, index);
+                }
+                return result;
+            default:
+                assert false : "Unhandled function: " + function;
+                return Double.NaN;
+            }
+        }
+    }
+
+    private static double toDouble(final boolean value)
+    {
+        return value ? 1.0 : 0.0;
+    }
+
+    /**
+     * Recursive descent parser, one method per precedence level. The nesting of the recursive calls and the depth of the created tree
+     * are limited to {@link MetricExpression#MAX_DEPTH}, so deeply nested input is rejected instead of overflowing the stack.
+     */
+    private static final class Parser
+    {
+        //Binary operators by increasing precedence, two character operators before their one character prefixes
+        private static final Operator[][] PRECEDENCE = { { Operator.OR }, { Operator.AND },
+                { Operator.LESS_OR_EQUAL, Operator.GREATER_OR_EQUAL, Operator.EQUAL, Operator.NOT_EQUAL, Operator.LESS, Operator.GREATER },
+                { Operator.ADD, Operator.SUBTRACT }, { Operator.MULTIPLY, Operator.DIVIDE, Operator.REMAINDER } };
+        private final String text;
+        private final Map<String, Reference> references = new LinkedHashMap<>();
+        private int position = 0;
+        private int nesting = 0;
+
+        Parser(final String text)
+        {
+            this.text = text;
+        }
+
+        Node parse() throws ParseException
+        {
+            final Node node = parseConditional();
+            skipWhitespace();
+            if (position < text.length())
+            {
+                throw new ParseException("Unexpected '" + text.charAt(position) + "'", text, position);
+            }
+            return node;
+        }
+
+        private ParseException nestedTooDeeply()
+        {
+            return new ParseException("Expression nested deeper than " + MAX_DEPTH + " levels", text, position);
+        }
+
+        private void enter() throws ParseException
+        {
+            if (++nesting > MAX_DEPTH)
+            {
+                throw nestedTooDeeply();
+            }
+        }
+
+        private Node leave(final Node node) throws ParseException
+        {
+            nesting--;
+            return limit(node);
+        }
+
+        private Node limit(final Node node) throws ParseException
+        {
+            if (node.depth > MAX_DEPTH)
+            {
+                throw nestedTooDeeply();
+            }
+            return node;
+        }
+
+        private Node parseConditional() throws ParseException
+        {
+            enter();
+            final Node condition = parseBinary(0);
+            if (!accept("?"))
+            {
+                return leave(condition);
+            }
+            final Node whenTrue = parseConditional();
+            expect(":");
+            return leave(new Conditional(condition, whenTrue, parseConditional()));
+        }
+
+        private Node parseBinary(final int precedence) throws ParseException
+        {
+            if (precedence == PRECEDENCE.length)
+            {
+                return parseUnary();
+            }
+            Node left = parseBinary(precedence + 1);
+            Operator operator;
+            while ((operator = acceptOperator(PRECEDENCE[precedence])) != null)
+            {
+                left = limit(new Binary(operator, left, parseBinary(precedence + 1)));
+            }
+            return left;
+        }
+
+        private Operator acceptOperator(final Operator[] operators)
+        {
+            for (final Operator next : operators)
+            {
+                if (accept(next.symbol))
+                {
+                    return next;
+                }
+            }
+            return null;
+        }
+
+        private Node parseUnary() throws ParseException
+        {
+            if (accept("-"))
+            {
+                enter();
+                return leave(new Negate(parseUnary()));
+            }
+            if (peek() == '!' && !text.startsWith("!=", position))
+            {
+                position++;
+                enter();
+                return leave(new Not(parseUnary()));
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() throws ParseException
+        {
+            skipWhitespace();
+            if (position == text.length())
+            {
+                throw new ParseException("Unexpected end of expression", text, position);
+            }
+            final char next = text.charAt(position);
+            if (accept("("))
+            {
+                final Node node = parseConditional();
+                expect(")");
+                return node;
+            }
+            if (Character.isDigit(next) || next == '.')
+            {
+                return parseNumber();
+            }
+            if (Character.isJavaIdentifierStart(next))
+            {
+                final int start = position;
+                final String identifier = parseIdentifier();
+                if (accept("("))
+                {
+                    return parseFunctionCall(identifier, start);
+                }
+                if (text.startsWith(".", position))
+                {
+                    if (!IMetricLevel.SYSTEM.equals(identifier) && !IMetricLevel.MODULE.equals(identifier))
+                    {
+                        throw new ParseException("Unsupported level '" + identifier + "', expected '" + IMetricLevel.SYSTEM + "' or '"
+                                + IMetricLevel.MODULE + "'", text, start);
+                    }
+                    position++;
+                    if (position == text.length() || !Character.isJavaIdentifierStart(text.charAt(position)))
+                    {
+                        throw new ParseException("Missing metric id name", text, position);
+                    }
+                    return reference(identifier, parseIdentifier());
+                }
+                return reference(null, identifier);
+            }
+            throw new ParseException("Unexpected '" + next + "'", text, position);
+        }
+
+        private Node parseNumber() throws ParseException
+        {
+            final int start = position;
+            while (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.'))
+            {
+                position++;
+            }
+            if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E'))
+            {
+                position++;
+                if (position < text.length() && (text.charAt(position) == '+' || text.charAt(position) == '-'))
+                {
+                    position++;
+                }
+                while (position < text.length() && Character.isDigit(text.charAt(position)))
+                {
+                    position++;
+                }
+            }
+            try
+            {
+                return new Constant(Double.parseDouble(text.substring(start, position)));
+            }
+            catch (final NumberFormatException ex)
+            {
+                throw new ParseException("Invalid number '" + text.substring(start, position) + "'", text, start);
+            }
+        }
+
+        private String parseIdentifier()
+        {
+            final int start = position;
+            while (position < text.length() && Character.isJavaIdentifierPart(text.charAt(position)))
+            {
+                position++;
+            }
+            return text.substring(start, position);
+        }
+
+        private Node parseFunctionCall(final String name, final int start) throws ParseException
+        {
+            final List<Node> arguments = new ArrayList<>();
+            if (!accept(")"))
+            {
+                do
+                {
+                    arguments.add(parseConditional());
+                }
+                while (accept(","));
+                expect(")");
+            }
+            final Node[] argumentArray = arguments.toArray(new Node[arguments.size()]);
+            if ("if".equalsIgnoreCase(name))
+            {
+                if (argumentArray.length != 3)
+                {
+                    throw new ParseException("Function '" + name + "' expects 3 arguments", text, start);
+                }
+                return limit(new Conditional(argumentArray[0], argumentArray[1], argumentArray[2]));
+            }
+
+            final Function function;
+            try
+            {
+                function = Function.valueOf(name.toUpperCase(Locale.ENGLISH));
+            }
+            catch (final IllegalArgumentException ex)
+            {
+                throw new ParseException("Unknown function '" + name + "'", text, start);
+            }
+            if (argumentArray.length < function.minArguments || argumentArray.length > function.maxArguments)
+            {
+                throw new ParseException("Wrong number of arguments for function '" + name + "'", text, start);
+            }
+            return limit(new FunctionCall(function, argumentArray));
+        }
+
+        private Node reference(final String levelName, final String metricIdName)
+        {
+            final String key = levelName != null ? levelName + "." + metricIdName : metricIdName;
+            Reference reference = references.get(key);
+            if (reference == null)
+            {
+                reference = new Reference(levelName, metricIdName, references.size());
+                references.put(key, reference);
+            }
+            return new Slot(reference.getSlot());
+        }
+
+        private char peek()
+        {
+            skipWhitespace();
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        private boolean accept(final String token)
+        {
+            skipWhitespace();
+            if (text.startsWith(token, position))
+            {
+                position += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(final String token) throws ParseException
+        {
+            if (!accept(token))
+            {
+                throw new ParseException("Expected '" + token + "'", text, position);
+            }
+        }
+
+        private void skipWhitespace()
+        {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position)))
+            {
+                position++;
+            }
+        }
+    }
+}
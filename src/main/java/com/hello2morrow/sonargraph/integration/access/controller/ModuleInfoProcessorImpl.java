@@ -39,6 +39,8 @@ import com.hello2morrow.sonargraph.integration.access.model.IResolution;
 import com.hello2morrow.sonargraph.integration.access.model.IRootDirectory;
 import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
 import com.hello2morrow.sonargraph.integration.access.model.IThresholdViolationIssue;
+import com.hello2morrow.sonargraph.integration.access.model.MetricValueOrder;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueSelector;
 import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
 
@@ -46,6 +48,7 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
 {
     private final ModuleImpl module;
     private final ISystemInfoProcessor systemInfoProcessor;
+    private final ModuleIssuePartition partition;
 
     public ModuleInfoProcessorImpl(final SoftwareSystemImpl softwareSystem, final ModuleImpl module)
     {
@@ -54,6 +57,25 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
 
         this.systemInfoProcessor = new SystemInfoProcessorImpl(softwareSystem);
         this.module = module;
+        this.partition = null;
+    }
+
+    public ModuleInfoProcessorImpl(final ISystemInfoProcessor systemInfoProcessor, final ModuleImpl module)
+    {
+        this(systemInfoProcessor, module, null);
+    }
+
+    /**
+     * @param partition the module's precomputed share of the system's issues and resolutions - if 'null' it is computed on each request.
+     */
+    public ModuleInfoProcessorImpl(final ISystemInfoProcessor systemInfoProcessor, final ModuleImpl module, final ModuleIssuePartition partition)
+    {
+        assert systemInfoProcessor != null : "Parameter 'systemInfoProcessor' of method 'ModuleInfoProcessorImpl' must not be null";
+        assert module != null : "Parameter 'module' of method 'ModuleInfoProcessorImpl' must not be null";
+
+        this.systemInfoProcessor = systemInfoProcessor;
+        this.module = module;
+        this.partition = partition;
     }
 
     @Override
@@ -65,6 +87,11 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
     @Override
     public List<IIssue> getIssues(final Predicate<IIssue> filter)
     {
+        if (partition != null)
+        {
+            return filter == null ? partition.getIssues()
+                    : Collections.unmodifiableList(partition.getIssues().stream().filter(filter).collect(Collectors.toList()));
+        }
         final List<IIssue> systemIssues = systemInfoProcessor.getIssues(filter);
         return Collections.unmodifiableList(systemIssues.stream().filter(this::isModuleElementOriginOfIssue).collect(Collectors.toList()));
     }
@@ -72,6 +99,13 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
     @Override
     public List<IThresholdViolationIssue> getThresholdViolationIssues(final Predicate<IThresholdViolationIssue> filter)
     {
+        if (partition != null)
+        {
+            final Predicate<IThresholdViolationIssue> filter2 = filter != null ? filter : (final IThresholdViolationIssue issue) -> true;
+            return Collections.unmodifiableList(partition.getIssues().stream()
+                    .filter(issue -> issue.getIssueType().getCategory().getName().equals("ThresholdViolation"))
+                    .map(issue -> (IThresholdViolationIssue) issue).filter(filter2).collect(Collectors.toList()));
+        }
         final List<IThresholdViolationIssue> systemIssues = systemInfoProcessor.getThresholdViolationIssues(filter);
         return Collections.unmodifiableList(systemIssues.stream().filter(this::isModuleElementOriginOfIssue).collect(Collectors.toList()));
     }
@@ -126,6 +160,11 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
     @Override
     public List<IResolution> getResolutions(final Predicate<IResolution> filter)
     {
+        if (partition != null)
+        {
+            return filter == null ? partition.getResolutions()
+                    : Collections.unmodifiableList(partition.getResolutions().stream().filter(filter).collect(Collectors.toList()));
+        }
         final List<IResolution> systemResolutions = systemInfoProcessor.getResolutions(filter);
 
         final List<IResolution> moduleResolutions = new ArrayList<>();
@@ -169,7 +208,9 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
     public Map<ISourceFile, Map<IResolution, List<IIssue>>> getIssuesForResolutionsForSourceFiles(final Predicate<IResolution> filter)
     {
         final Map<ISourceFile, Map<IResolution, List<IIssue>>> sourceFileToResolutionMap = new HashMap<>();
-        for (final IResolution resolution : systemInfoProcessor.getResolutions(filter))
+        //Resolutions without issues of this module do not contribute any source files
+        final List<IResolution> resolutions = partition != null ? getResolutions(filter) : systemInfoProcessor.getResolutions(filter);
+        for (final IResolution resolution : resolutions)
         {
             final Map<ISourceFile, List<IIssue>> issuesToSourceFiles = mapIssuesToSourceFiles(resolution.getIssues());
             for (final Map.Entry<ISourceFile, List<IIssue>> next : issuesToSourceFiles.entrySet())
@@ -190,6 +231,10 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
     @Override
     public Map<ISourceFile, List<IIssue>> getIssuesForSourceFiles(final Predicate<IIssue> filter)
     {
+        if (partition != null)
+        {
+            return partition.getIssuesForSourceFiles(filter);
+        }
         return mapIssuesToSourceFiles(systemInfoProcessor.getIssues(filter));
     }
 
@@ -256,7 +301,7 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
         issues.add(issue);
     }
 
-    private String concatenate(final String relativeRootDirectory, final String relativeDirectory)
+    private static String concatenate(final String relativeRootDirectory, final String relativeDirectory)
     {
         assert relativeRootDirectory != null && relativeRootDirectory.length() > 0 : "Parameter 'relativeRootDirectory' of method 'concatenate' must not be empty";
         assert relativeDirectory != null && relativeDirectory.length() > 0 : "Parameter 'relativeDirectory' of method 'concatenate' must not be empty";
@@ -277,7 +322,7 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
         return directory;
     }
 
-    private List<INamedElement> getOrigins(final INamedElement namedElement)
+    static List<INamedElement> getOrigins(final INamedElement namedElement)
     {
         assert namedElement != null : "Parameter 'namedElement' of method 'getOrigins' must not be null";
 
@@ -306,28 +351,45 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
             final INamedElement contained = getElementContainedInModule(nextOrigin);
             if (contained != null)
             {
-                if (contained instanceof IRootDirectory)
-                {
-                    addDirectoryIssue(((IRootDirectory) contained).getRelativePath(), issue, resultMap);
-                }
-                else if (contained instanceof IPhysicalRecursiveElement)
+                final String directory = getDirectory(contained);
+                if (directory != null)
                 {
-                    final IPhysicalRecursiveElement nextPhysicalRecursiveElement = (IPhysicalRecursiveElement) contained;
-                    final Optional<String> relRootDirOpt = nextPhysicalRecursiveElement.getRelativeRootDirectory();
-                    final Optional<String> relDirOpt = nextPhysicalRecursiveElement.getRelativeDirectory();
-                    if (relRootDirOpt.isPresent() && relDirOpt.isPresent())
-                    {
-                        final String directory = concatenate(relRootDirOpt.get(), relDirOpt.get());
-                        addDirectoryIssue(directory, issue, resultMap);
-                    }
+                    addDirectoryIssue(directory, issue, resultMap);
                 }
             }
         }
     }
 
+    /**
+     * @return the directory of a root directory or physical recursive element, 'null' for all other elements
+     */
+    static String getDirectory(final INamedElement element)
+    {
+        assert element != null : "Parameter 'element' of method 'getDirectory' must not be null";
+        if (element instanceof IRootDirectory)
+        {
+            return ((IRootDirectory) element).getRelativePath();
+        }
+        if (element instanceof IPhysicalRecursiveElement)
+        {
+            final IPhysicalRecursiveElement physicalRecursiveElement = (IPhysicalRecursiveElement) element;
+            final Optional<String> relRootDirOpt = physicalRecursiveElement.getRelativeRootDirectory();
+            final Optional<String> relDirOpt = physicalRecursiveElement.getRelativeDirectory();
+            if (relRootDirOpt.isPresent() && relDirOpt.isPresent())
+            {
+                return concatenate(relRootDirOpt.get(), relDirOpt.get());
+            }
+        }
+        return null;
+    }
+
     @Override
     public Map<String, List<IIssue>> getIssuesForDirectories(final Predicate<IIssue> filter)
     {
+        if (partition != null)
+        {
+            return partition.getIssuesForDirectories(filter);
+        }
         final Map<String, List<IIssue>> resultMap = new HashMap<>();
         for (final IIssue nextIssue : systemInfoProcessor.getIssues(filter))
         {
@@ -354,6 +416,35 @@ final class ModuleInfoProcessorImpl implements IModuleInfoProcessor
         return module.getMetricValues(levelName, metricIdName);
     }
 
+    @Override
+    public Map<INamedElement, IMetricValue> getTopElements(final String levelName, final String metricIdName, final int n,
+            final MetricValueOrder order)
+    {
+        return getTopElements(levelName, metricIdName, n, order, e -> true);
+    }
+
+    @Override
+    public Map<INamedElement, IMetricValue> getTopElements(final String levelName, final String metricIdName, final int n,
+            final MetricValueOrder order, final Predicate<INamedElement> filter)
+    {
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'getTopElements' must not be empty";
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'getTopElements' must not be empty";
+        assert n >= 0 : "Parameter 'n' of method 'getTopElements' must not be negative";
+        assert order != null : "Parameter 'order' of method 'getTopElements' must not be null";
+        assert filter != null : "Parameter 'filter' of method 'getTopElements' must not be null";
+
+        final IMetricLevel level = module.getAllMetricLevels().get(levelName);
+        final Optional<IMetricId> metricId = systemInfoProcessor.getMetricId(metricIdName);
+        if (level == null || !metricId.isPresent())
+        {
+            return Collections.emptyMap();
+        }
+
+        final MetricValueSelector selector = new MetricValueSelector(n, order, filter);
+        module.selectMetricValues(level, metricId.get(), selector);
+        return selector.getResult();
+    }
+
     @Override
     public List<IMetricLevel> getMetricLevels()
     {
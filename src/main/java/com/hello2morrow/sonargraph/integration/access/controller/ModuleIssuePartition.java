@@ -0,0 +1,114 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IResolution;
+import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
+
+/**
+ * Precomputed share of a module in the issues and resolutions of the system, created by {@link ModuleIssuePartitioner}.
+ * All lists keep the order of the system's issues and resolutions.
+ */
+final class ModuleIssuePartition
+{
+    private final List<IIssue> issues = new ArrayList<>();
+    private final List<IResolution> resolutions = new ArrayList<>();
+    private final List<IIssue> sourceFileIssues = new ArrayList<>();
+    private final List<ISourceFile> sourceFiles = new ArrayList<>();
+    private final List<IIssue> directoryIssues = new ArrayList<>();
+    private final List<String> directories = new ArrayList<>();
+
+    ModuleIssuePartition()
+    {
+        super();
+    }
+
+    void addIssue(final IIssue issue)
+    {
+        issues.add(issue);
+    }
+
+    void addResolution(final IResolution resolution)
+    {
+        resolutions.add(resolution);
+    }
+
+    void addSourceFileIssue(final ISourceFile sourceFile, final IIssue issue)
+    {
+        sourceFiles.add(sourceFile);
+        sourceFileIssues.add(issue);
+    }
+
+    void addDirectoryIssue(final String directory, final IIssue issue)
+    {
+        directories.add(directory);
+        directoryIssues.add(issue);
+    }
+
+    void addAll(final ModuleIssuePartition partition)
+    {
+        issues.addAll(partition.issues);
+        resolutions.addAll(partition.resolutions);
+        sourceFileIssues.addAll(partition.sourceFileIssues);
+        sourceFiles.addAll(partition.sourceFiles);
+        directoryIssues.addAll(partition.directoryIssues);
+        directories.addAll(partition.directories);
+    }
+
+    List<IIssue> getIssues()
+    {
+        return Collections.unmodifiableList(issues);
+    }
+
+    List<IResolution> getResolutions()
+    {
+        return Collections.unmodifiableList(resolutions);
+    }
+
+    Map<ISourceFile, List<IIssue>> getIssuesForSourceFiles(final Predicate<IIssue> filter)
+    {
+        return group(sourceFiles, sourceFileIssues, filter);
+    }
+
+    Map<String, List<IIssue>> getIssuesForDirectories(final Predicate<IIssue> filter)
+    {
+        return group(directories, directoryIssues, filter);
+    }
+
+    private static <K> Map<K, List<IIssue>> group(final List<K> keys, final List<IIssue> issues, final Predicate<IIssue> filter)
+    {
+        final Map<K, List<IIssue>> result = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++)
+        {
+            final IIssue next = issues.get(i);
+            if (filter == null || filter.test(next))
+            {
+                result.computeIfAbsent(keys.get(i), k -> new ArrayList<>()).add(next);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
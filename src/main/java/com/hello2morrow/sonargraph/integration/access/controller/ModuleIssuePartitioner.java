@@ -0,0 +1,266 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.hello2morrow.sonargraph.integration.access.model.IDependencyIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElementIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IResolution;
+import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+/**
+ * Distributes the issues and resolutions of a system to all of its modules in one pass, applying the same rules as the
+ * on-demand filtering of {@link ModuleInfoProcessorImpl}.
+ * Issues are processed in parallel chunks whose results are concatenated in chunk order, so the system's order is kept.
+ */
+final class ModuleIssuePartitioner
+{
+    private static final int ITEMS_PER_CHUNK = 1024;
+    private final SoftwareSystemImpl softwareSystem;
+    private final List<ModuleImpl> modules = new ArrayList<>();
+    //Indexed by element ordinal
+    private final List<ModuleImpl>[] modulesByOrdinal;
+
+    ModuleIssuePartitioner(final SoftwareSystemImpl softwareSystem)
+    {
+        assert softwareSystem != null : "Parameter 'softwareSystem' of method 'ModuleIssuePartitioner' must not be null";
+        this.softwareSystem = softwareSystem;
+        final List<BitSet> moduleOrdinals = new ArrayList<>();
+        int numberOfOrdinals = 0;
+        for (final IModule nextModule : softwareSystem.getModules().values())
+        {
+            assert nextModule instanceof ModuleImpl : "Unexpected class in method 'ModuleIssuePartitioner': " + nextModule;
+            final ModuleImpl module = (ModuleImpl) nextModule;
+            modules.add(module);
+            final BitSet ordinals = module.getElementOrdinals();
+            moduleOrdinals.add(ordinals);
+            numberOfOrdinals = Math.max(numberOfOrdinals, ordinals.length());
+        }
+
+        modulesByOrdinal = createArray(numberOfOrdinals);
+        for (int i = 0; i < modules.size(); i++)
+        {
+            final ModuleImpl module = modules.get(i);
+            final BitSet ordinals = moduleOrdinals.get(i);
+            for (int next = ordinals.nextSetBit(0); next >= 0; next = ordinals.nextSetBit(next + 1))
+            {
+                if (modulesByOrdinal[next] == null)
+                {
+                    modulesByOrdinal[next] = Collections.singletonList(module);
+                }
+                else
+                {
+                    final List<ModuleImpl> owners = new ArrayList<>(modulesByOrdinal[next]);
+                    owners.add(module);
+                    modulesByOrdinal[next] = owners;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ModuleImpl>[] createArray(final int size)
+    {
+        return new List[size];
+    }
+
+    /**
+     * @return the partition of each module, in the order of the system's modules
+     */
+    Map<ModuleImpl, ModuleIssuePartition> partition(final List<IIssue> issues, final List<IResolution> resolutions)
+    {
+        assert issues != null : "Parameter 'issues' of method 'partition' must not be null";
+        assert resolutions != null : "Parameter 'resolutions' of method 'partition' must not be null";
+
+        final Map<ModuleImpl, ModuleIssuePartition> result = new LinkedHashMap<>();
+        modules.forEach(m -> result.put(m, new ModuleIssuePartition()));
+        partitionInChunks(issues, this::partitionIssue, result);
+        partitionInChunks(resolutions, this::partitionResolution, result);
+        return result;
+    }
+
+    private <T> void partitionInChunks(final List<T> items, final BiConsumer<T, Function<ModuleImpl, ModuleIssuePartition>> action,
+            final Map<ModuleImpl, ModuleIssuePartition> result)
+    {
+        final int numberOfChunks = (items.size() + ITEMS_PER_CHUNK - 1) / ITEMS_PER_CHUNK;
+        final List<Map<ModuleImpl, ModuleIssuePartition>> chunks = IntStream.range(0, numberOfChunks).parallel().mapToObj(chunk ->
+        {
+            final Map<ModuleImpl, ModuleIssuePartition> partitions = new HashMap<>();
+            final Function<ModuleImpl, ModuleIssuePartition> target = m -> partitions.computeIfAbsent(m, k -> new ModuleIssuePartition());
+            final int end = Math.min(items.size(), (chunk + 1) * ITEMS_PER_CHUNK);
+            for (int i = chunk * ITEMS_PER_CHUNK; i < end; i++)
+            {
+                action.accept(items.get(i), target);
+            }
+            return partitions;
+        }).collect(Collectors.toList());
+
+        for (final Map<ModuleImpl, ModuleIssuePartition> nextChunk : chunks)
+        {
+            nextChunk.forEach((module, partition) -> result.get(module).addAll(partition));
+        }
+    }
+
+    private void partitionIssue(final IIssue issue, final Function<ModuleImpl, ModuleIssuePartition> target)
+    {
+        getOriginModules(issue).forEach(m -> target.apply(m).addIssue(issue));
+
+        if (issue instanceof INamedElementIssue)
+        {
+            for (final INamedElement next : ((INamedElementIssue) issue).getAffectedNamedElements())
+            {
+                addSourceFileIssue(issue, next, target);
+                addDirectoryIssues(issue, next, target);
+            }
+        }
+        if (issue instanceof IDependencyIssue)
+        {
+            final INamedElement from = ((IDependencyIssue) issue).getFrom();
+            addSourceFileIssue(issue, from, target);
+            addDirectoryIssues(issue, from, target);
+        }
+    }
+
+    private void partitionResolution(final IResolution resolution, final Function<ModuleImpl, ModuleIssuePartition> target)
+    {
+        final List<ModuleImpl> resolutionModules = new ArrayList<>(1);
+        for (final IIssue nextIssue : resolution.getIssues())
+        {
+            for (final ModuleImpl nextModule : getOriginModules(nextIssue))
+            {
+                if (!resolutionModules.contains(nextModule))
+                {
+                    resolutionModules.add(nextModule);
+                }
+            }
+        }
+        resolutionModules.forEach(m -> target.apply(m).addResolution(resolution));
+    }
+
+    /**
+     * @return the modules for which {@link ModuleInfoProcessorImpl} considers a module element to be the origin of the issue
+     */
+    private List<ModuleImpl> getOriginModules(final IIssue issue)
+    {
+        final List<INamedElement> elements;
+        if (issue instanceof INamedElementIssue)
+        {
+            elements = ((INamedElementIssue) issue).getAffectedNamedElements();
+        }
+        else if (issue instanceof IDependencyIssue)
+        {
+            elements = Collections.singletonList(((IDependencyIssue) issue).getFrom());
+        }
+        else
+        {
+            return modules;
+        }
+
+        if (elements.size() == 1)
+        {
+            return getContainingModules(elements.get(0));
+        }
+        final List<ModuleImpl> result = new ArrayList<>(1);
+        for (final INamedElement nextElement : elements)
+        {
+            for (final ModuleImpl nextModule : getContainingModules(nextElement))
+            {
+                if (!result.contains(nextModule))
+                {
+                    result.add(nextModule);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<ModuleImpl> getModulesOwning(final INamedElement element)
+    {
+        final int ordinal = softwareSystem.getOrdinal(element);
+        final List<ModuleImpl> owners = ordinal >= 0 && ordinal < modulesByOrdinal.length ? modulesByOrdinal[ordinal] : null;
+        return owners != null ? owners : Collections.emptyList();
+    }
+
+    /**
+     * Same as {@link ModuleInfoProcessorImpl#isElementContainedInModule(INamedElement)} for all modules.
+     */
+    private List<ModuleImpl> getContainingModules(final INamedElement element)
+    {
+        final Optional<? extends INamedElement> original = element.getOriginalLocation();
+        return getModulesOwning(original.isPresent() ? original.get() : element);
+    }
+
+    private void addSourceFileIssue(final IIssue issue, final INamedElement element, final Function<ModuleImpl, ModuleIssuePartition> target)
+    {
+        for (final ModuleImpl nextModule : getContainingModules(element))
+        {
+            final Optional<ISourceFile> source = nextModule.getSourceForElement(element);
+            if (source.isPresent())
+            {
+                target.apply(nextModule).addSourceFileIssue(source.get(), issue);
+            }
+        }
+    }
+
+    private void addDirectoryIssues(final IIssue issue, final INamedElement element, final Function<ModuleImpl, ModuleIssuePartition> target)
+    {
+        for (final INamedElement nextOrigin : ModuleInfoProcessorImpl.getOrigins(element))
+        {
+            final Optional<? extends INamedElement> original = nextOrigin.getOriginalLocation();
+            final List<ModuleImpl> owningOriginal = original.isPresent() ? getModulesOwning(original.get()) : Collections.emptyList();
+            for (final ModuleImpl nextModule : owningOriginal)
+            {
+                addDirectoryIssue(issue, original.get(), nextModule, target);
+            }
+            for (final ModuleImpl nextModule : getModulesOwning(nextOrigin))
+            {
+                if (!owningOriginal.contains(nextModule))
+                {
+                    addDirectoryIssue(issue, nextOrigin, nextModule, target);
+                }
+            }
+        }
+    }
+
+    private static void addDirectoryIssue(final IIssue issue, final INamedElement contained, final ModuleImpl module,
+            final Function<ModuleImpl, ModuleIssuePartition> target)
+    {
+        final String directory = ModuleInfoProcessorImpl.getDirectory(contained);
+        if (directory != null)
+        {
+            target.apply(module).addDirectoryIssue(directory, issue);
+        }
+    }
+}
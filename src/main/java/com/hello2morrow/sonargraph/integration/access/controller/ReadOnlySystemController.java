@@ -0,0 +1,153 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.persistence.IReportLoadListener;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+/**
+ * Handed out for controllers that are shared between callers, e.g. by {@link ReportRepository} and {@link ReportDirectoryWatcher}.
+ * Queries are delegated, loading another report or adding derived metrics is rejected with an {@link UnsupportedOperationException}, since
+ * it would change the system seen by all other callers.
+ */
+final class ReadOnlySystemController implements ISonargraphSystemController
+{
+    private final ISonargraphSystemController controller;
+
+    ReadOnlySystemController(final ISonargraphSystemController controller)
+    {
+        assert controller != null : "Parameter 'controller' of method 'ReadOnlySystemController' must not be null";
+        this.controller = controller;
+    }
+
+    private static UnsupportedOperationException rejected(final String operation)
+    {
+        return new UnsupportedOperationException("'" + operation + "' is not supported by a shared controller");
+    }
+
+    @Override
+    public Result loadSystemReport(final File systemReportFile)
+    {
+        throw rejected("loadSystemReport");
+    }
+
+    @Override
+    public Result loadSystemReport(final File systemReportFile, final ReportReadMode readMode)
+    {
+        throw rejected("loadSystemReport");
+    }
+
+    @Override
+    public Result loadSystemReport(final File systemReportFile, final ReportLoadOptions options)
+    {
+        throw rejected("loadSystemReport");
+    }
+
+    @Override
+    public Result loadSystemReport(final InputStream inputStream, final String identifier)
+    {
+        throw rejected("loadSystemReport");
+    }
+
+    @Override
+    public Result loadSystemReport(final InputStream inputStream, final String identifier, final ReportLoadOptions options)
+    {
+        throw rejected("loadSystemReport");
+    }
+
+    @Override
+    public Result loadSystemReport(final ReadableByteChannel channel, final String identifier, final ReportLoadOptions options)
+    {
+        throw rejected("loadSystemReport");
+    }
+
+    @Override
+    public CompletableFuture<Result> loadSystemReportAsync(final File systemReportFile, final Executor executor)
+    {
+        throw rejected("loadSystemReportAsync");
+    }
+
+    @Override
+    public CompletableFuture<Result> loadSystemReportAsync(final File systemReportFile, final ReportLoadOptions options,
+            final Executor executor, final IReportLoadListener listener)
+    {
+        throw rejected("loadSystemReportAsync");
+    }
+
+    @Override
+    public boolean hasSoftwareSystem()
+    {
+        return controller.hasSoftwareSystem();
+    }
+
+    @Override
+    public ISoftwareSystem getSoftwareSystem()
+    {
+        return controller.getSoftwareSystem();
+    }
+
+    @Override
+    public IModuleInfoProcessor createModuleInfoProcessor(final IModule module)
+    {
+        return controller.createModuleInfoProcessor(module);
+    }
+
+    @Override
+    public Map<IModule, IModuleInfoProcessor> createModuleInfoProcessors()
+    {
+        return controller.createModuleInfoProcessors();
+    }
+
+    @Override
+    public ISystemInfoProcessor createSystemInfoProcessor()
+    {
+        return controller.createSystemInfoProcessor();
+    }
+
+    @Override
+    public IReportDifferenceProcessor createReportDifferenceProcessor()
+    {
+        return controller.createReportDifferenceProcessor();
+    }
+
+    @Override
+    public MetricAggregator getMetricAggregator()
+    {
+        return controller.getMetricAggregator();
+    }
+
+    @Override
+    public ResultWithOutcome<IMetricId> addDerivedMetric(final String metricIdName, final String presentationName,
+            final MetricExpression expression, final List<String> levelNames)
+    {
+        throw rejected("addDerivedMetric");
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystemInfo;
+import com.hello2morrow.sonargraph.integration.access.persistence.XmlReportHeaderReader;
+
+/**
+ * Index of the reports found in a directory tree by system id, built from the root elements of the reports only
+ * ({@link ControllerAccess#peekReportInfo(File)}). Files ending with '.xml', '.gz' or '.zip' are considered.
+ */
+public final class ReportCatalog
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportCatalog.class);
+    private static final Comparator<Entry> BY_TIMESTAMP = Comparator.comparingLong((final Entry e) -> e.getInfo().getTimestamp())
+            .thenComparing(e -> e.getReportFile().getPath());
+
+    public static final class Entry
+    {
+        private final File reportFile;
+        private final ISoftwareSystemInfo info;
+
+        Entry(final File reportFile, final ISoftwareSystemInfo info)
+        {
+            assert reportFile != null : "Parameter 'reportFile' of method 'Entry' must not be null";
+            assert info != null : "Parameter 'info' of method 'Entry' must not be null";
+            this.reportFile = reportFile;
+            this.info = info;
+        }
+
+        public File getReportFile()
+        {
+            return reportFile;
+        }
+
+        public ISoftwareSystemInfo getInfo()
+        {
+            return info;
+        }
+
+        @Override
+        public String toString()
+        {
+            return reportFile + ": " + info;
+        }
+    }
+
+    private final Map<String, List<Entry>> entriesBySystemId;
+    private final Map<File, Result> failures;
+
+    private ReportCatalog(final Map<String, List<Entry>> entriesBySystemId, final Map<File, Result> failures)
+    {
+        this.entriesBySystemId = entriesBySystemId;
+        this.failures = failures;
+    }
+
+    /**
+     * Reads the root elements of all reports below the directory concurrently.
+     * @param parallelism Maximum number of reports read at the same time.
+     */
+    public static ReportCatalog scan(final File directory, final int parallelism)
+    {
+        assert directory != null : "Parameter 'directory' of method 'scan' must not be null";
+        assert parallelism > 0 : "Parameter 'parallelism' of method 'scan' must be positive: " + parallelism;
+
+        final List<File> reportFiles;
+        try (Stream<Path> paths = Files.walk(directory.toPath()))
+        {
+            reportFiles = paths.filter(p -> Files.isRegularFile(p) && ReportDirectoryWatcher.isReportFile(p)).map(Path::toFile).sorted()
+                    .collect(Collectors.toList());
+        }
+        catch (final IOException ex)
+        {
+            LOGGER.error("Failed to list reports in '" + directory.getAbsolutePath() + "'", ex);
+            final Result result = new Result("Scan reports in '" + directory.getAbsolutePath() + "'");
+            result.addError(ResultCause.READ_ERROR, ex);
+            return new ReportCatalog(Collections.emptyMap(), Collections.singletonMap(directory, result));
+        }
+        return create(reportFiles, parallelism);
+    }
+
+    /**
+     * Reads the root elements of the given reports concurrently.
+     * @param parallelism Maximum number of reports read at the same time.
+     */
+    public static ReportCatalog create(final List<File> reportFiles, final int parallelism)
+    {
+        assert reportFiles != null : "Parameter 'reportFiles' of method 'create' must not be null";
+        assert parallelism > 0 : "Parameter 'parallelism' of method 'create' must be positive: " + parallelism;
+
+        final XmlReportHeaderReader reader = new XmlReportHeaderReader();
+        final List<Result> results = new ArrayList<>(reportFiles.size());
+        final List<Optional<ISoftwareSystemInfo>> infos = new ArrayList<>(reportFiles.size());
+        if (!reportFiles.isEmpty())
+        {
+            final AtomicInteger counter = new AtomicInteger();
+            final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, reportFiles.size()), r ->
+            {
+                final Thread thread = new Thread(r, "ReportCatalog-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try
+            {
+                final List<Future<Optional<ISoftwareSystemInfo>>> futures = new ArrayList<>(reportFiles.size());
+                for (final File nextFile : reportFiles)
+                {
+                    final Result result = new Result("Peek report info of '" + nextFile.getAbsolutePath() + "'");
+                    results.add(result);
+                    futures.add(executor.submit(() -> reader.readReportInfo(nextFile, result)));
+                }
+                for (int i = 0; i < futures.size(); i++)
+                {
+                    infos.add(getInfo(futures.get(i), results.get(i)));
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+        }
+
+        final Map<String, List<Entry>> entriesBySystemId = new TreeMap<>();
+        final Map<File, Result> failures = new LinkedHashMap<>();
+        for (int i = 0; i < reportFiles.size(); i++)
+        {
+            final Optional<ISoftwareSystemInfo> info = infos.get(i);
+            if (info.isPresent())
+            {
+                entriesBySystemId.computeIfAbsent(info.get().getSystemId(), id -> new ArrayList<>()).add(new Entry(reportFiles.get(i), info.get()));
+            }
+            else
+            {
+                failures.put(reportFiles.get(i), results.get(i));
+            }
+        }
+        final Map<String, List<Entry>> sorted = new LinkedHashMap<>();
+        entriesBySystemId.forEach((systemId, entries) ->
+        {
+            entries.sort(BY_TIMESTAMP);
+            sorted.put(systemId, Collections.unmodifiableList(entries));
+        });
+        return new ReportCatalog(Collections.unmodifiableMap(sorted), Collections.unmodifiableMap(failures));
+    }
+
+    private static Optional<ISoftwareSystemInfo> getInfo(final Future<Optional<ISoftwareSystemInfo>> future, final Result result)
+    {
+        if (Thread.currentThread().isInterrupted())
+        {
+            future.cancel(true);
+            result.addError(ResultCause.CANCELED);
+            return Optional.empty();
+        }
+        try
+        {
+            return future.get();
+        }
+        catch (final InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            result.addError(ResultCause.CANCELED);
+        }
+        catch (final ExecutionException ex)
+        {
+            result.addError(ResultCause.READ_ERROR, ex.getCause());
+        }
+        return Optional.empty();
+    }
+
+    public Set<String> getSystemIds()
+    {
+        return entriesBySystemId.keySet();
+    }
+
+    /**
+     * @return the reports of the system, oldest first. Empty if there is none.
+     */
+    public List<Entry> getReports(final String systemId)
+    {
+        assert systemId != null : "Parameter 'systemId' of method 'getReports' must not be null";
+        final List<Entry> entries = entriesBySystemId.get(systemId);
+        return entries != null ? entries : Collections.emptyList();
+    }
+
+    public Optional<Entry> getLatestReport(final String systemId)
+    {
+        final List<Entry> entries = getReports(systemId);
+        return entries.isEmpty() ? Optional.empty() : Optional.of(entries.get(entries.size() - 1));
+    }
+
+    public Map<String, List<Entry>> getReportsBySystemId()
+    {
+        return entriesBySystemId;
+    }
+
+    public int getNumberOfReports()
+    {
+        return entriesBySystemId.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * @return the files that could not be read as reports, with the reason.
+     */
+    public Map<File, Result> getFailures()
+    {
+        return failures;
+    }
+}
@@ -17,6 +17,7 @@
  */
 package com.hello2morrow.sonargraph.integration.access.controller;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -26,6 +27,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import com.hello2morrow.sonargraph.integration.access.foundation.Utility;
@@ -66,6 +70,86 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
         CURRENT_SYSTEM
     }
 
+    private static final int CONTAINERS_PER_TASK = 256;
+
+    /**
+     * The issues of both systems grouped by affected element and issue key, respectively by issue name for multi element issues.
+     */
+    private static final class IssueCollectors
+    {
+        private final boolean keepInsertionOrder;
+        private final Map<String, Map<String, IssueContainer<SingleNamedElementIssueImpl>>> elementSingleCollector;
+        private final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementCycleGroupCollector;
+        private final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementDuplicateCodeCollector;
+        private final Map<String, IssueContainer<MultiNamedElementIssueImpl>> issueMultiCollector;
+
+        /**
+         * @param keepInsertionOrder true if the collected maps are merged into other collectors later on and must therefore be iterated in
+         *            the order their entries have been added.
+         */
+        IssueCollectors(final boolean keepInsertionOrder)
+        {
+            this.keepInsertionOrder = keepInsertionOrder;
+            elementSingleCollector = createMap();
+            elementCycleGroupCollector = createMap();
+            elementDuplicateCodeCollector = createMap();
+            issueMultiCollector = createMap();
+        }
+
+        <V> Map<String, V> createMap()
+        {
+            return keepInsertionOrder ? new LinkedHashMap<>() : new HashMap<>();
+        }
+
+        /**
+         * Adds the current system issues of the given collectors in the order they have been collected, so that the resulting maps are
+         * the same as if the issues had been processed by these collectors directly.
+         */
+        void addCurrentSystemIssues(final IssueCollectors collectors)
+        {
+            assert collectors != null : "Parameter 'collectors' of method 'addCurrentSystemIssues' must not be null";
+            assert collectors.keepInsertionOrder : "Insertion order of collectors to add is not defined";
+
+            addCurrentSystemIssuesOfElements(elementSingleCollector, collectors.elementSingleCollector);
+            addCurrentSystemIssuesOfElements(elementCycleGroupCollector, collectors.elementCycleGroupCollector);
+            addCurrentSystemIssuesOfElements(elementDuplicateCodeCollector, collectors.elementDuplicateCodeCollector);
+            addCurrentSystemIssues(issueMultiCollector, collectors.issueMultiCollector);
+        }
+
+        private <T extends IIssue> void addCurrentSystemIssuesOfElements(final Map<String, Map<String, IssueContainer<T>>> target,
+                final Map<String, Map<String, IssueContainer<T>>> source)
+        {
+            for (final Entry<String, Map<String, IssueContainer<T>>> nextEntry : source.entrySet())
+            {
+                Map<String, IssueContainer<T>> issueKeyToIssueContainer = target.get(nextEntry.getKey());
+                if (issueKeyToIssueContainer == null)
+                {
+                    issueKeyToIssueContainer = createMap();
+                    target.put(nextEntry.getKey(), issueKeyToIssueContainer);
+                }
+                addCurrentSystemIssues(issueKeyToIssueContainer, nextEntry.getValue());
+            }
+        }
+
+        private static <T extends IIssue> void addCurrentSystemIssues(final Map<String, IssueContainer<T>> target,
+                final Map<String, IssueContainer<T>> source)
+        {
+            for (final Entry<String, IssueContainer<T>> nextEntry : source.entrySet())
+            {
+                IssueContainer<T> issueContainer = target.get(nextEntry.getKey());
+                if (issueContainer == null)
+                {
+                    issueContainer = new IssueContainer<>();
+                    target.put(nextEntry.getKey(), issueContainer);
+                }
+                for (final T nextIssue : nextEntry.getValue().getCurrentSystemIssues())
+                {
+                    issueContainer.addCurrentSystemIssue(nextIssue);
+                }
+            }
+        }
+    }
+
     private final ISystemInfoProcessor baselineSystemInfoProcessor;
 
     public ReportDifferenceProcessorImpl(final ISystemInfoProcessor baselineSysteminfoProcessor)
@@ -80,18 +164,18 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
         return baselineSystemInfoProcessor.getSoftwareSystem();
     }
 
-    private void processSingleElementIssue(final Source source, final SingleNamedElementIssueImpl issue,
-            final Map<String, Map<String, IssueContainer<SingleNamedElementIssueImpl>>> elementCollector)
+    private void processSingleElementIssue(final Source source, final SingleNamedElementIssueImpl issue, final IssueCollectors collectors)
     {
         assert source != null : "Parameter 'source' of method 'processSingleElementIssue' must not be null";
         assert issue != null : "Parameter 'issue' of method 'processSingleElementIssue' must not be null";
-        assert elementCollector != null : "Parameter 'elementCollector' of method 'processSingleElementIssue' must not be null";
+        assert collectors != null : "Parameter 'collectors' of method 'processSingleElementIssue' must not be null";
 
+        final Map<String, Map<String, IssueContainer<SingleNamedElementIssueImpl>>> elementCollector = collectors.elementSingleCollector;
         final String namedElementFqName = issue.getNamedElement().getFqName();
         Map<String, IssueContainer<SingleNamedElementIssueImpl>> issueKeyToIssueContainer = elementCollector.get(namedElementFqName);
         if (issueKeyToIssueContainer == null)
         {
-            issueKeyToIssueContainer = new HashMap<>();
+            issueKeyToIssueContainer = collectors.createMap();
             elementCollector.put(namedElementFqName, issueKeyToIssueContainer);
         }
 
@@ -119,13 +203,14 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
 
     private void processMultiElementIssue(final Source source, final MultiNamedElementIssueImpl issue,
             final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementCollector,
-            final Map<String, IssueContainer<MultiNamedElementIssueImpl>> issueCollector)
+            final IssueCollectors collectors)
     {
         assert source != null : "Parameter 'source' of method 'processMultiElementIssue' must not be null";
         assert issue != null : "Parameter 'issue' of method 'processMultiElementIssue' must not be null";
         assert elementCollector != null : "Parameter 'elementCollector' of method 'processMultiElementIssue' must not be null";
-        assert issueCollector != null : "Parameter 'issueCollector' of method 'processMultiElementIssue' must not be null";
+        assert collectors != null : "Parameter 'collectors' of method 'processMultiElementIssue' must not be null";
 
+        final Map<String, IssueContainer<MultiNamedElementIssueImpl>> issueCollector = collectors.issueMultiCollector;
         final String issueName = issue.getName();
         IssueContainer<MultiNamedElementIssueImpl> issueContainer = issueCollector.get(issueName);
         if (issueContainer == null)
@@ -152,7 +237,7 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
             Map<String, IssueContainer<MultiNamedElementIssueImpl>> issueKeyToIssueContainer = elementCollector.get(nextFqName);
             if (issueKeyToIssueContainer == null)
             {
-                issueKeyToIssueContainer = new HashMap<>();
+                issueKeyToIssueContainer = collectors.createMap();
                 elementCollector.put(nextFqName, issueKeyToIssueContainer);
             }
 
@@ -179,33 +264,26 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
         }
     }
 
-    private void process(final Source source, final List<IIssue> issues,
-            final Map<String, Map<String, IssueContainer<SingleNamedElementIssueImpl>>> elementSingleCollector,
-            final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementCycleGroupCollector,
-            final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementDuplicateCodeCollector,
-            final Map<String, IssueContainer<MultiNamedElementIssueImpl>> issueMultiCollector)
+    private void process(final Source source, final List<IIssue> issues, final IssueCollectors collectors)
     {
         assert source != null : "Parameter 'source' of method 'process' must not be null";
         assert issues != null : "Parameter 'issues' of method 'process' must not be null";
-        assert elementSingleCollector != null : "Parameter 'elementSingleCollector' of method 'process' must not be null";
-        assert elementCycleGroupCollector != null : "Parameter 'elementCycleGroupCollector' of method 'process' must not be null";
-        assert elementDuplicateCodeCollector != null : "Parameter 'elementDuplicateCodeCollector' of method 'process' must not be null";
-        assert issueMultiCollector != null : "Parameter 'issueMultiCollector' of method 'process' must not be null";
+        assert collectors != null : "Parameter 'collectors' of method 'process' must not be null";
 
         for (final IIssue nextIssue : issues)
         {
             if (nextIssue instanceof CycleGroupIssueImpl)
             {
-                processMultiElementIssue(source, (MultiNamedElementIssueImpl) nextIssue, elementCycleGroupCollector, issueMultiCollector);
+                processMultiElementIssue(source, (MultiNamedElementIssueImpl) nextIssue, collectors.elementCycleGroupCollector, collectors);
             }
             else if (nextIssue instanceof DuplicateCodeBlockIssueImpl)
             {
-                processMultiElementIssue(source, (MultiNamedElementIssueImpl) nextIssue, elementDuplicateCodeCollector, issueMultiCollector);
+                processMultiElementIssue(source, (MultiNamedElementIssueImpl) nextIssue, collectors.elementDuplicateCodeCollector, collectors);
             }
             else
             {
                 assert nextIssue instanceof SingleNamedElementIssueImpl : "Unexpected class in method 'process': " + nextIssue;
-                processSingleElementIssue(source, (SingleNamedElementIssueImpl) nextIssue, elementSingleCollector);
+                processSingleElementIssue(source, (SingleNamedElementIssueImpl) nextIssue, collectors);
             }
         }
     }
@@ -306,6 +384,66 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
         }
     }
 
+    private static long getPositionKey(final IIssue issue)
+    {
+        return ((long) issue.getLine() << 32) | (issue.getColumn() & 0xffffffffL);
+    }
+
+    /**
+     * Pairs current and baseline issues located at the same line and column and removes the pairs from both lists.
+     * Issues sharing a position are paired in list order, so the result is the same as comparing every current issue with every
+     * baseline issue, but only takes linear time. Unmatched issues keep their relative order.
+     */
+    <T extends IIssue> void matchIssuesByPosition(final List<T> currentIssues, final List<T> baselineIssues,
+            final IssueDeltaImpl issueDeltaImpl)
+    {
+        assert currentIssues != null : "Parameter 'currentIssues' of method 'matchIssuesByPosition' must not be null";
+        assert baselineIssues != null : "Parameter 'baselineIssues' of method 'matchIssuesByPosition' must not be null";
+        assert issueDeltaImpl != null : "Parameter 'issueDeltaImpl' of method 'matchIssuesByPosition' must not be null";
+
+        if (currentIssues.isEmpty() || baselineIssues.isEmpty())
+        {
+            return;
+        }
+
+        final Map<Long, ArrayDeque<Integer>> positionToBaselineIndices = new HashMap<>(baselineIssues.size() * 2);
+        for (int i = 0; i < baselineIssues.size(); i++)
+        {
+            positionToBaselineIndices.computeIfAbsent(getPositionKey(baselineIssues.get(i)), k -> new ArrayDeque<>(1)).add(i);
+        }
+
+        final boolean[] matchedBaselineIssues = new boolean[baselineIssues.size()];
+        final List<T> unmatchedCurrentIssues = new ArrayList<>();
+        for (final T nextCurrentIssue : currentIssues)
+        {
+            final ArrayDeque<Integer> nextBaselineIndices = positionToBaselineIndices.get(getPositionKey(nextCurrentIssue));
+            final Integer nextBaselineIndex = nextBaselineIndices != null ? nextBaselineIndices.poll() : null;
+            if (nextBaselineIndex != null)
+            {
+                processMatchingIssue(nextCurrentIssue, baselineIssues.get(nextBaselineIndex), issueDeltaImpl);
+                matchedBaselineIssues[nextBaselineIndex] = true;
+            }
+            else
+            {
+                unmatchedCurrentIssues.add(nextCurrentIssue);
+            }
+        }
+
+        final List<T> unmatchedBaselineIssues = new ArrayList<>();
+        for (int i = 0; i < baselineIssues.size(); i++)
+        {
+            if (!matchedBaselineIssues[i])
+            {
+                unmatchedBaselineIssues.add(baselineIssues.get(i));
+            }
+        }
+
+        currentIssues.clear();
+        currentIssues.addAll(unmatchedCurrentIssues);
+        baselineIssues.clear();
+        baselineIssues.addAll(unmatchedBaselineIssues);
+    }
+
     private void processMultiNamedElementIssueInfo(final MultiNamedElementIssueType type,
             final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementCollector,
             final Map<String, BaselineCurrent<Integer>> issueKeyToCount, final IssueDeltaImpl issueDeltaImpl)
@@ -368,81 +506,54 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
         }
     }
 
-    private IssueDeltaImpl createIssueDelta(final ISystemInfoProcessor infoProcessor)
+    private void matchSingleElementIssues(final IssueContainer<SingleNamedElementIssueImpl> issueContainer, final IssueComparator issueComparator,
+            final IssueDeltaImpl issueDeltaImpl)
     {
-        assert infoProcessor != null : "Parameter 'infoProcessor' of method 'createIssueDelta' must not be null";
+        assert issueContainer != null : "Parameter 'issueContainer' of method 'matchSingleElementIssues' must not be null";
+        assert issueComparator != null : "Parameter 'issueComparator' of method 'matchSingleElementIssues' must not be null";
+        assert issueDeltaImpl != null : "Parameter 'issueDeltaImpl' of method 'matchSingleElementIssues' must not be null";
 
-        final IssueDeltaImpl issueDeltaImpl = new IssueDeltaImpl();
+        issueContainer.sort(issueComparator);
+        final List<SingleNamedElementIssueImpl> baselineIssues = issueContainer.getBaselineSystemIssues();
+        final List<SingleNamedElementIssueImpl> currentIssues = issueContainer.getCurrentSystemIssues();
 
-        final Map<String, Map<String, IssueContainer<SingleNamedElementIssueImpl>>> elementSingleCollector = new HashMap<>();
-        final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementCycleGroupCollector = new HashMap<>();
-        final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementDuplicateCodeCollector = new HashMap<>();
-        final Map<String, IssueContainer<MultiNamedElementIssueImpl>> issueMultiCollector = new HashMap<>();
+        assert (baselineIssues.isEmpty() && currentIssues.isEmpty()) == false : "No issues at all";
 
-        process(Source.BASELINE_SYSTEM, baselineSystemInfoProcessor.getIssues(null), elementSingleCollector, elementCycleGroupCollector,
-                elementDuplicateCodeCollector, issueMultiCollector);
-        process(Source.CURRENT_SYSTEM, infoProcessor.getIssues(null), elementSingleCollector, elementCycleGroupCollector,
-                elementDuplicateCodeCollector, issueMultiCollector);
+        matchIssuesByPosition(currentIssues, baselineIssues, issueDeltaImpl);
 
-        final IssueComparator issueComparator = new IssueComparator();
-
-        for (final Entry<String, Map<String, IssueContainer<SingleNamedElementIssueImpl>>> nextFqNameEntry : elementSingleCollector.entrySet())
+        if (!baselineIssues.isEmpty() && currentIssues.isEmpty())
+        {
+            baselineIssues.forEach(n -> issueDeltaImpl.removed(n));
+        }
+        else if (baselineIssues.isEmpty() && !currentIssues.isEmpty())
+        {
+            currentIssues.forEach(n -> issueDeltaImpl.added(n));
+        }
+        else if (baselineIssues.size() != currentIssues.size())
         {
-            for (final Entry<String, IssueContainer<SingleNamedElementIssueImpl>> nextIssueKeyEntry : nextFqNameEntry.getValue().entrySet())
+            baselineIssues.forEach(n -> issueDeltaImpl.removed(n));
+            currentIssues.forEach(n -> issueDeltaImpl.added(n));
+        }
+        else
+        {
+            //If baseline/current issues have the same size we suppose that only line/column has changed
+            for (int i = 0; i < currentIssues.size(); i++)
             {
-                final IssueContainer<SingleNamedElementIssueImpl> nextIssueContainer = nextIssueKeyEntry.getValue();
-                nextIssueContainer.sort(issueComparator);
-                final List<SingleNamedElementIssueImpl> nextBaselineIssues = nextIssueContainer.getBaselineSystemIssues();
-                final List<SingleNamedElementIssueImpl> nextCurrentIssues = nextIssueContainer.getCurrentSystemIssues();
-
-                assert (nextBaselineIssues.isEmpty() && nextCurrentIssues.isEmpty()) == false : "No issues at all";
-
-                for (final IIssue nextCurrentIssue : new ArrayList<>(nextCurrentIssues))
-                {
-                    for (final IIssue nextBaselineIssue : new ArrayList<>(nextBaselineIssues))
-                    {
-                        if (nextCurrentIssue.getLine() == nextBaselineIssue.getLine()
-                                && nextCurrentIssue.getColumn() == nextBaselineIssue.getColumn())
-                        {
-                            processMatchingIssue(nextCurrentIssue, nextBaselineIssue, issueDeltaImpl);
-                            nextCurrentIssues.remove(nextCurrentIssue);
-                            nextBaselineIssues.remove(nextBaselineIssue);
-                            break;
-                        }
-                    }
-                }
-
-                if (!nextBaselineIssues.isEmpty() && nextCurrentIssues.isEmpty())
-                {
-                    nextBaselineIssues.forEach(n -> issueDeltaImpl.removed(n));
-                }
-                else if (nextBaselineIssues.isEmpty() && !nextCurrentIssues.isEmpty())
-                {
-                    nextCurrentIssues.forEach(n -> issueDeltaImpl.added(n));
-                }
-                else if (nextBaselineIssues.size() != nextCurrentIssues.size())
-                {
-                    nextBaselineIssues.forEach(n -> issueDeltaImpl.removed(n));
-                    nextCurrentIssues.forEach(n -> issueDeltaImpl.added(n));
-                }
-                else
-                {
-                    //If baseline/current issues have the same size we suppose that only line/column has changed
-                    for (int i = 0; i < nextCurrentIssues.size(); i++)
-                    {
-                        final IIssue nextCurrentIssue = nextCurrentIssues.get(i);
-                        final IIssue nextBaselineIssue = nextBaselineIssues.get(i);
-                        processMatchingIssue(nextCurrentIssue, nextBaselineIssue, issueDeltaImpl);
-                    }
-                }
+                final IIssue nextCurrentIssue = currentIssues.get(i);
+                final IIssue nextBaselineIssue = baselineIssues.get(i);
+                processMatchingIssue(nextCurrentIssue, nextBaselineIssue, issueDeltaImpl);
             }
         }
+    }
+
+    private void processCycleGroupParticipation(final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementCollector,
+            final IssueDeltaImpl issueDeltaImpl)
+    {
+        assert elementCollector != null : "Parameter 'elementCollector' of method 'processCycleGroupParticipation' must not be null";
+        assert issueDeltaImpl != null : "Parameter 'issueDeltaImpl' of method 'processCycleGroupParticipation' must not be null";
 
         final Map<String, BaselineCurrent<Integer>> cycleGroupsCount = new HashMap<>();
-        final Map<String, BaselineCurrent<Integer>> duplicateCodeBlockCount = new HashMap<>();
-        processMultiNamedElementIssueInfo(MultiNamedElementIssueType.CYCLE_GROUP, elementCycleGroupCollector, cycleGroupsCount, issueDeltaImpl);
-        processMultiNamedElementIssueInfo(MultiNamedElementIssueType.DUPLICATE_CODE, elementDuplicateCodeCollector, duplicateCodeBlockCount,
-                issueDeltaImpl);
+        processMultiNamedElementIssueInfo(MultiNamedElementIssueType.CYCLE_GROUP, elementCollector, cycleGroupsCount, issueDeltaImpl);
 
         for (final Entry<String, BaselineCurrent<Integer>> nextEntry : cycleGroupsCount.entrySet())
         {
@@ -456,6 +567,16 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
                 issueDeltaImpl.worsenedCycleParticipation(nextEntry.getKey(), nextBaselineCurrent);
             }
         }
+    }
+
+    private void processDuplicateCodeParticipation(final Map<String, Map<String, IssueContainer<MultiNamedElementIssueImpl>>> elementCollector,
+            final IssueDeltaImpl issueDeltaImpl)
+    {
+        assert elementCollector != null : "Parameter 'elementCollector' of method 'processDuplicateCodeParticipation' must not be null";
+        assert issueDeltaImpl != null : "Parameter 'issueDeltaImpl' of method 'processDuplicateCodeParticipation' must not be null";
+
+        final Map<String, BaselineCurrent<Integer>> duplicateCodeBlockCount = new HashMap<>();
+        processMultiNamedElementIssueInfo(MultiNamedElementIssueType.DUPLICATE_CODE, elementCollector, duplicateCodeBlockCount, issueDeltaImpl);
 
         assert duplicateCodeBlockCount.size() <= 1 : "Not more than 1 entry expected: " + duplicateCodeBlockCount;
         for (final Entry<String, BaselineCurrent<Integer>> nextEntry : duplicateCodeBlockCount.entrySet())
@@ -470,8 +591,16 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
                 issueDeltaImpl.worsenedDuplicateCodeParticipation(nextBaselineCurrent);
             }
         }
+    }
+
+    private void matchMultiElementIssues(final Map<String, IssueContainer<MultiNamedElementIssueImpl>> issueCollector,
+            final IssueComparator issueComparator, final IssueDeltaImpl issueDeltaImpl)
+    {
+        assert issueCollector != null : "Parameter 'issueCollector' of method 'matchMultiElementIssues' must not be null";
+        assert issueComparator != null : "Parameter 'issueComparator' of method 'matchMultiElementIssues' must not be null";
+        assert issueDeltaImpl != null : "Parameter 'issueDeltaImpl' of method 'matchMultiElementIssues' must not be null";
 
-        for (final Entry<String, IssueContainer<MultiNamedElementIssueImpl>> nextIssueNameEntry : issueMultiCollector.entrySet())
+        for (final Entry<String, IssueContainer<MultiNamedElementIssueImpl>> nextIssueNameEntry : issueCollector.entrySet())
         {
             final IssueContainer<MultiNamedElementIssueImpl> nextIssueContainer = nextIssueNameEntry.getValue();
             nextIssueContainer.sort(issueComparator);
@@ -481,22 +610,132 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
 
             assert (nextBaselineIssues.isEmpty() && nextCurrentIssues.isEmpty()) == false : "No issues at all";
 
-            for (final IIssue nextCurrentIssue : new ArrayList<>(nextCurrentIssues))
+            final Map<String, IIssue> firstBaselineIssueByName = new HashMap<>();
+            for (final IIssue nextBaselineIssue : nextBaselineIssues)
             {
-                for (final IIssue nextBaselineIssue : new ArrayList<>(nextBaselineIssues))
+                firstBaselineIssueByName.putIfAbsent(nextBaselineIssue.getName(), nextBaselineIssue);
+            }
+            for (final IIssue nextCurrentIssue : nextCurrentIssues)
+            {
+                final IIssue nextBaselineIssue = firstBaselineIssueByName.get(nextCurrentIssue.getName());
+                if (nextBaselineIssue != null)
                 {
-                    if (nextCurrentIssue.getName().equals(nextBaselineIssue.getName()))
-                    {
-                        processMatchingIssue(nextCurrentIssue, nextBaselineIssue, issueDeltaImpl);
-                        break;
-                    }
+                    processMatchingIssue(nextCurrentIssue, nextBaselineIssue, issueDeltaImpl);
                 }
             }
         }
+    }
+
+    private IssueDeltaImpl createIssueDelta(final ISystemInfoProcessor infoProcessor)
+    {
+        assert infoProcessor != null : "Parameter 'infoProcessor' of method 'createIssueDelta' must not be null";
+
+        final IssueDeltaImpl issueDeltaImpl = new IssueDeltaImpl();
+
+        final IssueCollectors collectors = new IssueCollectors(false);
+        process(Source.BASELINE_SYSTEM, baselineSystemInfoProcessor.getIssues(null), collectors);
+        process(Source.CURRENT_SYSTEM, infoProcessor.getIssues(null), collectors);
+
+        final IssueComparator issueComparator = new IssueComparator();
+        for (final Map<String, IssueContainer<SingleNamedElementIssueImpl>> nextIssueKeyToIssueContainer : collectors.elementSingleCollector
+                .values())
+        {
+            for (final IssueContainer<SingleNamedElementIssueImpl> nextIssueContainer : nextIssueKeyToIssueContainer.values())
+            {
+                matchSingleElementIssues(nextIssueContainer, issueComparator, issueDeltaImpl);
+            }
+        }
+
+        processCycleGroupParticipation(collectors.elementCycleGroupCollector, issueDeltaImpl);
+        processDuplicateCodeParticipation(collectors.elementDuplicateCodeCollector, issueDeltaImpl);
+        matchMultiElementIssues(collectors.issueMultiCollector, issueComparator, issueDeltaImpl);
 
         return issueDeltaImpl;
     }
 
+    /**
+     * Computes the same delta as {@link #createIssueDelta(ISystemInfoProcessor)}.
+     * The current system issues are collected while the baseline system issues are collected on the calling thread. The issue containers
+     * are then matched in chunks, each chunk into its own delta. The chunk deltas are merged in the sequential iteration order, so the
+     * resulting lists have the same order as the sequentially computed ones.
+     */
+    private IssueDeltaImpl createIssueDelta(final ISystemInfoProcessor infoProcessor, final Executor executor)
+    {
+        assert infoProcessor != null : "Parameter 'infoProcessor' of method 'createIssueDelta' must not be null";
+        assert executor != null : "Parameter 'executor' of method 'createIssueDelta' must not be null";
+
+        final CompletableFuture<IssueCollectors> currentCollectorsFuture = CompletableFuture.supplyAsync(() ->
+        {
+            final IssueCollectors currentCollectors = new IssueCollectors(true);
+            process(Source.CURRENT_SYSTEM, infoProcessor.getIssues(null), currentCollectors);
+            return currentCollectors;
+        }, executor);
+
+        final IssueCollectors collectors = new IssueCollectors(false);
+        process(Source.BASELINE_SYSTEM, baselineSystemInfoProcessor.getIssues(null), collectors);
+        collectors.addCurrentSystemIssues(join(currentCollectorsFuture));
+
+        final IssueComparator issueComparator = new IssueComparator();
+        final List<IssueContainer<SingleNamedElementIssueImpl>> issueContainers = new ArrayList<>();
+        for (final Map<String, IssueContainer<SingleNamedElementIssueImpl>> nextIssueKeyToIssueContainer : collectors.elementSingleCollector
+                .values())
+        {
+            issueContainers.addAll(nextIssueKeyToIssueContainer.values());
+        }
+
+        final List<CompletableFuture<IssueDeltaImpl>> chunkFutures = new ArrayList<>();
+        for (int from = 0; from < issueContainers.size(); from += CONTAINERS_PER_TASK)
+        {
+            final List<IssueContainer<SingleNamedElementIssueImpl>> nextChunk = issueContainers.subList(from,
+                    Math.min(from + CONTAINERS_PER_TASK, issueContainers.size()));
+            chunkFutures.add(CompletableFuture.supplyAsync(() ->
+            {
+                final IssueDeltaImpl chunkDelta = new IssueDeltaImpl();
+                nextChunk.forEach(n -> matchSingleElementIssues(n, issueComparator, chunkDelta));
+                return chunkDelta;
+            }, executor));
+        }
+        final CompletableFuture<IssueDeltaImpl> cycleGroupFuture = CompletableFuture.supplyAsync(() ->
+        {
+            final IssueDeltaImpl cycleGroupDelta = new IssueDeltaImpl();
+            processCycleGroupParticipation(collectors.elementCycleGroupCollector, cycleGroupDelta);
+            return cycleGroupDelta;
+        }, executor);
+
+        final IssueDeltaImpl issueDeltaImpl = new IssueDeltaImpl();
+        processDuplicateCodeParticipation(collectors.elementDuplicateCodeCollector, issueDeltaImpl);
+        for (final CompletableFuture<IssueDeltaImpl> nextChunkFuture : chunkFutures)
+        {
+            issueDeltaImpl.addAll(join(nextChunkFuture));
+        }
+        issueDeltaImpl.addAll(join(cycleGroupFuture));
+        matchMultiElementIssues(collectors.issueMultiCollector, issueComparator, issueDeltaImpl);
+
+        return issueDeltaImpl;
+    }
+
+    private static <T> T join(final CompletableFuture<T> future)
+    {
+        assert future != null : "Parameter 'future' of method 'join' must not be null";
+        try
+        {
+            return future.join();
+        }
+        catch (final CompletionException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
     private WorkspaceDeltaImpl createWorkspaceDelta(final ISystemInfoProcessor systemProcessor)
     {
         assert systemProcessor != null : "Parameter 'systemProcessor' of method 'createWorkspaceDelta' must not be null";
@@ -667,10 +906,9 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
         }
     }
 
-    @Override
-    public IReportDelta createReportDelta(final ISystemInfoProcessor systemInfoProcessor)
+    private ReportDeltaImpl createReportDeltaWithoutIssues(final ISystemInfoProcessor systemInfoProcessor)
     {
-        assert systemInfoProcessor != null : "Parameter 'systemInfoProcessor' of method 'createReportDelta' must not be null";
+        assert systemInfoProcessor != null : "Parameter 'systemInfoProcessor' of method 'createReportDeltaWithoutIssues' must not be null";
 
         final ReportDeltaImpl reportDeltaImpl = new ReportDeltaImpl(getSoftwareSystem(), systemInfoProcessor.getSoftwareSystem());
 
@@ -684,9 +922,34 @@ final class ReportDifferenceProcessorImpl implements IReportDifferenceProcessor
                 systemInfoProcessor.getArchitectureCheckConfigurationEntries(), reportDeltaImpl);
         processThresholds(baselineSystemInfoProcessor.getMetricThresholds(), systemInfoProcessor.getMetricThresholds(), reportDeltaImpl);
 
+        return reportDeltaImpl;
+    }
+
+    @Override
+    public IReportDelta createReportDelta(final ISystemInfoProcessor systemInfoProcessor)
+    {
+        assert systemInfoProcessor != null : "Parameter 'systemInfoProcessor' of method 'createReportDelta' must not be null";
+
+        final ReportDeltaImpl reportDeltaImpl = createReportDeltaWithoutIssues(systemInfoProcessor);
         reportDeltaImpl.setWorkspaceDelta(createWorkspaceDelta(systemInfoProcessor));
         reportDeltaImpl.setIssuesDelta(createIssueDelta(systemInfoProcessor));
 
         return reportDeltaImpl;
     }
+
+    @Override
+    public IReportDelta createReportDelta(final ISystemInfoProcessor systemInfoProcessor, final Executor executor)
+    {
+        assert systemInfoProcessor != null : "Parameter 'systemInfoProcessor' of method 'createReportDelta' must not be null";
+        assert executor != null : "Parameter 'executor' of method 'createReportDelta' must not be null";
+
+        final CompletableFuture<WorkspaceDeltaImpl> workspaceDeltaFuture = CompletableFuture
+                .supplyAsync(() -> createWorkspaceDelta(systemInfoProcessor), executor);
+        final ReportDeltaImpl reportDeltaImpl = createReportDeltaWithoutIssues(systemInfoProcessor);
+        final IssueDeltaImpl issueDeltaImpl = createIssueDelta(systemInfoProcessor, executor);
+        reportDeltaImpl.setWorkspaceDelta(join(workspaceDeltaFuture));
+        reportDeltaImpl.setIssuesDelta(issueDeltaImpl);
+
+        return reportDeltaImpl;
+    }
 }
\ No newline at end of file
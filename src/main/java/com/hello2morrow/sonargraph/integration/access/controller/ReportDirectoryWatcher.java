@@ -0,0 +1,356 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.persistence.MetaDataRegistry;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+/**
+ * Keeps the reports of a directory loaded and reloads them in the background when they change.
+ * Files ending with '.xml', '.gz' or '.zip' are treated as reports. A report is only read once it has not been written to for the
+ * debounce delay, so reports that are still being copied into the directory are not parsed half-written.
+ * Each report has its own controller. A reload replaces the system of the controller atomically, processors created before keep
+ * answering for the previous system, so queries in progress see a consistent snapshot. If a reload fails, the previous system is kept.
+ * All loads share one {@link MetaDataRegistry}.
+ */
+public final class ReportDirectoryWatcher implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportDirectoryWatcher.class);
+
+    private static final class WatchedReport
+    {
+        private final File file;
+        private final SonargraphSystemControllerImpl controller = new SonargraphSystemControllerImpl();
+        private final ISonargraphSystemController readOnly = new ReadOnlySystemController(controller);
+        private ScheduledFuture<?> pending;
+        private boolean loading;
+        private boolean reloadRequested;
+
+        WatchedReport(final File file)
+        {
+            assert file != null : "Parameter 'file' of method 'WatchedReport' must not be null";
+            this.file = file;
+        }
+    }
+
+    private final Path directory;
+    private final ReportLoadOptions options;
+    private final long debounceMillis;
+    private final IReportReloadListener listener;
+    private final MetaDataRegistry metaDataRegistry = new MetaDataRegistry();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService loader;
+
+    //Guarded by 'this'
+    private final Map<Path, WatchedReport> reports = new HashMap<>();
+    private WatchService watchService;
+    private Thread watchThread;
+    private boolean closed;
+
+    /**
+     * @param directory Directory containing the reports, sub directories are not watched.
+     * @param options Sections of the reports that are not needed.
+     * @param debounceMillis Time a report must not have been modified before it is read.
+     * @param listener Notified about loaded, failed and removed reports.
+     */
+    public ReportDirectoryWatcher(final File directory, final ReportLoadOptions options, final long debounceMillis,
+            final IReportReloadListener listener)
+    {
+        assert directory != null : "Parameter 'directory' of method 'ReportDirectoryWatcher' must not be null";
+        assert options != null : "Parameter 'options' of method 'ReportDirectoryWatcher' must not be null";
+        assert debounceMillis >= 0 : "Parameter 'debounceMillis' of method 'ReportDirectoryWatcher' must not be negative: " + debounceMillis;
+        assert listener != null : "Parameter 'listener' of method 'ReportDirectoryWatcher' must not be null";
+        this.directory = directory.toPath().toAbsolutePath().normalize();
+        this.options = options;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> createThread(r, "ReportDirectoryWatcher-Debounce"));
+        loader = Executors.newSingleThreadExecutor(r -> createThread(r, "ReportDirectoryWatcher-Loader"));
+    }
+
+    private static Thread createThread(final Runnable runnable, final String name)
+    {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    static boolean isReportFile(final Path path)
+    {
+        final String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".xml") || name.endsWith(".gz") || name.endsWith(".zip");
+    }
+
+    /**
+     * Starts watching the directory and schedules loading the reports it already contains.
+     */
+    public synchronized void start() throws IOException
+    {
+        assert watchService == null : "Already started";
+        assert !closed : "Already closed";
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        watchThread = createThread(this::watch, "ReportDirectoryWatcher-" + directory.getFileName());
+        watchThread.start();
+        scan();
+    }
+
+    public File getDirectory()
+    {
+        return directory.toFile();
+    }
+
+    /**
+     * @return the read-only controller of the report, empty if the report has not been loaded successfully yet.
+     */
+    public synchronized Optional<ISonargraphSystemController> getController(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'getController' must not be null";
+        final WatchedReport report = reports.get(reportFile.toPath().toAbsolutePath().normalize());
+        return report != null && report.controller.hasSoftwareSystem() ? Optional.of(report.readOnly) : Optional.empty();
+    }
+
+    /**
+     * @return the read-only controllers of all successfully loaded reports.
+     */
+    public synchronized Map<File, ISonargraphSystemController> getControllers()
+    {
+        final Map<File, ISonargraphSystemController> controllers = new LinkedHashMap<>();
+        for (final WatchedReport next : reports.values())
+        {
+            if (next.controller.hasSoftwareSystem())
+            {
+                controllers.put(next.file, next.readOnly);
+            }
+        }
+        return Collections.unmodifiableMap(controllers);
+    }
+
+    private void watch()
+    {
+        while (true)
+        {
+            final WatchKey key;
+            try
+            {
+                key = watchService.take();
+            }
+            catch (final InterruptedException | ClosedWatchServiceException ex)
+            {
+                return;
+            }
+
+            for (final WatchEvent<?> next : key.pollEvents())
+            {
+                if (next.kind() == StandardWatchEventKinds.OVERFLOW)
+                {
+                    scan();
+                    continue;
+                }
+                final Path path = directory.resolve((Path) next.context());
+                if (!isReportFile(path))
+                {
+                    continue;
+                }
+                if (next.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+                {
+                    remove(path);
+                }
+                else
+                {
+                    schedule(path, debounceMillis);
+                }
+            }
+            if (!key.reset())
+            {
+                LOGGER.warn("Directory '{}' is no longer watched", directory);
+                return;
+            }
+        }
+    }
+
+    private void scan()
+    {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, p -> Files.isRegularFile(p) && isReportFile(p)))
+        {
+            for (final Path next : stream)
+            {
+                schedule(next.toAbsolutePath().normalize(), 0);
+            }
+        }
+        catch (final IOException ex)
+        {
+            LOGGER.error("Failed to scan directory '" + directory + "'", ex);
+        }
+    }
+
+    private synchronized void schedule(final Path path, final long delayMillis)
+    {
+        if (closed)
+        {
+            return;
+        }
+        final WatchedReport report = reports.computeIfAbsent(path, p -> new WatchedReport(p.toFile()));
+        if (report.pending != null)
+        {
+            //Still written to, start waiting again
+            report.pending.cancel(false);
+        }
+        report.pending = scheduler.schedule(() -> debounced(path), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void debounced(final Path path)
+    {
+        final WatchedReport report = reports.get(path);
+        if (closed || report == null)
+        {
+            return;
+        }
+        report.pending = null;
+        final long quietMillis = System.currentTimeMillis() - report.file.lastModified();
+        if (quietMillis < debounceMillis)
+        {
+            //Modified without an event having been delivered yet
+            schedule(path, debounceMillis - quietMillis);
+            return;
+        }
+        if (report.loading)
+        {
+            report.reloadRequested = true;
+            return;
+        }
+        report.loading = true;
+        loader.execute(() -> load(path, report));
+    }
+
+    private void load(final Path path, final WatchedReport report)
+    {
+        Result result;
+        try
+        {
+            result = report.controller.loadSystemReport(report.file, options, metaDataRegistry);
+        }
+        catch (final RuntimeException ex)
+        {
+            LOGGER.error("Failed to load report '" + report.file + "'", ex);
+            result = new Result("Load data from '" + report.file.getAbsolutePath() + "'");
+            result.addError(ResultCause.READ_ERROR, ex);
+        }
+
+        synchronized (this)
+        {
+            report.loading = false;
+            if (closed || reports.get(path) != report)
+            {
+                //Removed or closed while loading
+                return;
+            }
+            if (report.reloadRequested)
+            {
+                report.reloadRequested = false;
+                schedule(path, 0);
+            }
+        }
+
+        if (result.isSuccess())
+        {
+            LOGGER.debug("Reloaded report '{}'", report.file);
+            listener.reloaded(report.file, report.readOnly);
+        }
+        else
+        {
+            LOGGER.warn("Failed to reload report '{}': {}", report.file, result);
+            listener.reloadFailed(report.file, result);
+        }
+    }
+
+    private void remove(final Path path)
+    {
+        final WatchedReport removed;
+        synchronized (this)
+        {
+            removed = reports.remove(path);
+            if (removed == null)
+            {
+                return;
+            }
+            if (removed.pending != null)
+            {
+                removed.pending.cancel(false);
+            }
+        }
+        listener.removed(removed.file);
+    }
+
+    /**
+     * Stops watching. Loads in progress are completed, but not published to the listener.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        final Thread thread;
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            thread = watchThread;
+            if (watchService != null)
+            {
+                watchService.close();
+            }
+        }
+        scheduler.shutdownNow();
+        loader.shutdown();
+        if (thread != null)
+        {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hello2morrow.sonargraph.integration.access.controller.BatchReportLoader.LoadedReport;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.persistence.MetaDataRegistry;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+/**
+ * Keeps the systems of many reports loaded within a heap budget. Reports are identified by their canonical path, a cached system is
+ * only used while the modification time and length of the report file are unchanged.
+ * The retained size of each system is estimated ({@link SoftwareSystemImpl#estimateRetainedSize()}), when the budget is exceeded the
+ * least recently used systems are evicted. Evicted systems can optionally be kept softly reachable, so they are only lost when the garbage
+ * collector needs the memory.
+ * Concurrent requests for the same report are collapsed into a single load. All loads share one {@link MetaDataRegistry}.
+ * Reports are read in {@link ReportReadMode#STREAMING} mode. The returned controllers are shared by all callers, they reject loading
+ * other reports and adding derived metrics.
+ */
+public final class ReportRepository
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportRepository.class);
+
+    private static final class ReportKey
+    {
+        private final String path;
+        private final long lastModified;
+        private final long length;
+
+        ReportKey(final File canonicalFile)
+        {
+            assert canonicalFile != null : "Parameter 'canonicalFile' of method 'ReportKey' must not be null";
+            path = canonicalFile.getPath();
+            lastModified = canonicalFile.lastModified();
+            length = canonicalFile.length();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * path.hashCode() + Long.hashCode(lastModified)) + Long.hashCode(length);
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final ReportKey other = (ReportKey) obj;
+            return lastModified == other.lastModified && length == other.length && path.equals(other.path);
+        }
+
+        @Override
+        public String toString()
+        {
+            return path;
+        }
+    }
+
+    private static final class ResidentReport
+    {
+        private final ReportKey key;
+        private final LoadedReport loadedReport;
+        private final long retainedSize;
+
+        ResidentReport(final ReportKey key, final LoadedReport loadedReport, final long retainedSize)
+        {
+            this.key = key;
+            this.loadedReport = loadedReport;
+            this.retainedSize = retainedSize;
+        }
+    }
+
+    private static final class EvictedReport extends SoftReference<LoadedReport>
+    {
+        private final ReportKey key;
+        private final long retainedSize;
+
+        EvictedReport(final ReportKey key, final LoadedReport loadedReport, final long retainedSize, final ReferenceQueue<LoadedReport> queue)
+        {
+            super(loadedReport, queue);
+            this.key = key;
+            this.retainedSize = retainedSize;
+        }
+    }
+
+    private final long maxRetainedSize;
+    private final boolean keepEvictedSoftly;
+    private final ReportLoadOptions options;
+    private final MetaDataRegistry metaDataRegistry = new MetaDataRegistry();
+
+    //All state below is guarded by 'lock', loads run outside of it
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, ResidentReport> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, EvictedReport> evicted = new HashMap<>();
+    private final ReferenceQueue<LoadedReport> collected = new ReferenceQueue<>();
+    private final Map<ReportKey, CompletableFuture<LoadedReport>> loading = new HashMap<>();
+    private long retainedSize;
+
+    /**
+     * @param maxRetainedSize Estimated heap in bytes the loaded systems may retain.
+     * @param keepEvictedSoftly Keep evicted systems softly reachable instead of dropping them.
+     */
+    public ReportRepository(final long maxRetainedSize, final boolean keepEvictedSoftly)
+    {
+        this(maxRetainedSize, keepEvictedSoftly, new ReportLoadOptions());
+    }
+
+    /**
+     * @param maxRetainedSize Estimated heap in bytes the loaded systems may retain.
+     * @param keepEvictedSoftly Keep evicted systems softly reachable instead of dropping them.
+     * @param options Sections of the reports that are not needed.
+     */
+    public ReportRepository(final long maxRetainedSize, final boolean keepEvictedSoftly, final ReportLoadOptions options)
+    {
+        assert maxRetainedSize >= 0 : "Parameter 'maxRetainedSize' of method 'ReportRepository' must not be negative: " + maxRetainedSize;
+        assert options != null : "Parameter 'options' of method 'ReportRepository' must not be null";
+        this.maxRetainedSize = maxRetainedSize;
+        this.keepEvictedSoftly = keepEvictedSoftly;
+        this.options = options;
+    }
+
+    public MetaDataRegistry getMetaDataRegistry()
+    {
+        return metaDataRegistry;
+    }
+
+    /**
+     * @return the estimated heap retained by the resident (not the softly kept) systems.
+     */
+    public long getRetainedSize()
+    {
+        synchronized (lock)
+        {
+            return retainedSize;
+        }
+    }
+
+    public int getNumberOfResidentReports()
+    {
+        synchronized (lock)
+        {
+            return resident.size();
+        }
+    }
+
+    public boolean isResident(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'isResident' must not be null";
+        try
+        {
+            final ReportKey key = new ReportKey(reportFile.getCanonicalFile());
+            synchronized (lock)
+            {
+                final ResidentReport next = resident.get(key.path);
+                return next != null && next.key.equals(key);
+            }
+        }
+        catch (final IOException ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the cached system of the report or loads it. Failed loads are not cached.
+     * If the calling thread is interrupted while waiting for a load started by another thread, the result is {@link ResultCause#CANCELED}.
+     */
+    public LoadedReport get(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'get' must not be null";
+
+        final ReportKey key;
+        try
+        {
+            key = new ReportKey(reportFile.getCanonicalFile());
+        }
+        catch (final IOException ex)
+        {
+            final Result result = new Result("Load data from '" + reportFile.getAbsolutePath() + "'");
+            result.addError(ResultCause.READ_ERROR, ex);
+            return new LoadedReport(reportFile, result, null);
+        }
+
+        final CompletableFuture<LoadedReport> future;
+        final CompletableFuture<LoadedReport> running;
+        synchronized (lock)
+        {
+            final LoadedReport cached = getCached(key);
+            if (cached != null)
+            {
+                return cached;
+            }
+            running = loading.get(key);
+            future = running != null ? null : new CompletableFuture<>();
+            if (future != null)
+            {
+                loading.put(key, future);
+            }
+        }
+        if (running != null)
+        {
+            return await(reportFile, running);
+        }
+
+        try
+        {
+            final LoadedReport loaded = load(reportFile);
+            synchronized (lock)
+            {
+                loading.remove(key);
+                if (loaded.getResult().isSuccess())
+                {
+                    add(key, loaded);
+                }
+            }
+            future.complete(loaded);
+            return loaded;
+        }
+        catch (final RuntimeException | Error ex)
+        {
+            synchronized (lock)
+            {
+                loading.remove(key);
+            }
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Drops the cached system of the report, if any.
+     */
+    public void invalidate(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'invalidate' must not be null";
+        try
+        {
+            final String path = reportFile.getCanonicalPath();
+            synchronized (lock)
+            {
+                final ResidentReport removed = resident.remove(path);
+                if (removed != null)
+                {
+                    retainedSize -= removed.retainedSize;
+                }
+                evicted.remove(path);
+            }
+        }
+        catch (final IOException ex)
+        {
+            LOGGER.warn("Failed to invalidate report '" + reportFile.getAbsolutePath() + "'", ex);
+        }
+    }
+
+    public void clear()
+    {
+        synchronized (lock)
+        {
+            resident.clear();
+            evicted.clear();
+            retainedSize = 0;
+        }
+    }
+
+    private LoadedReport load(final File reportFile)
+    {
+        final SonargraphSystemControllerImpl controller = new SonargraphSystemControllerImpl();
+        final Result result = controller.loadSystemReport(reportFile, options, metaDataRegistry);
+        return new LoadedReport(reportFile, result, result.isSuccess() ? new ReadOnlySystemController(controller) : null);
+    }
+
+    private static LoadedReport await(final File reportFile, final CompletableFuture<LoadedReport> future)
+    {
+        final Result result = new Result("Load data from '" + reportFile.getAbsolutePath() + "'");
+        try
+        {
+            return future.get();
+        }
+        catch (final InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            result.addError(ResultCause.CANCELED);
+        }
+        catch (final ExecutionException ex)
+        {
+            LOGGER.error("Failed to load report '" + reportFile.getAbsolutePath() + "'", ex.getCause());
+            result.addError(ResultCause.READ_ERROR, ex.getCause());
+        }
+        return new LoadedReport(reportFile, result, null);
+    }
+
+    private LoadedReport getCached(final ReportKey key)
+    {
+        assert Thread.holdsLock(lock) : "Lock must be held";
+        expungeCollected();
+
+        final ResidentReport next = resident.get(key.path);
+        if (next != null)
+        {
+            if (next.key.equals(key))
+            {
+                return next.loadedReport;
+            }
+            //The report has been changed since it was loaded
+            resident.remove(key.path);
+            retainedSize -= next.retainedSize;
+            return null;
+        }
+
+        final EvictedReport softlyKept = evicted.remove(key.path);
+        if (softlyKept != null && softlyKept.key.equals(key))
+        {
+            final LoadedReport loadedReport = softlyKept.get();
+            if (loadedReport != null)
+            {
+                add(key, loadedReport, softlyKept.retainedSize);
+                return loadedReport;
+            }
+        }
+        return null;
+    }
+
+    private void add(final ReportKey key, final LoadedReport loadedReport)
+    {
+        assert loadedReport.getController().isPresent() : "Only successfully loaded reports are cached";
+        final long size = ((SoftwareSystemImpl) loadedReport.getController().get().getSoftwareSystem()).estimateRetainedSize();
+        add(key, loadedReport, size);
+    }
+
+    private void add(final ReportKey key, final LoadedReport loadedReport, final long size)
+    {
+        assert Thread.holdsLock(lock) : "Lock must be held";
+        final ResidentReport previous = resident.put(key.path, new ResidentReport(key, loadedReport, size));
+        if (previous != null)
+        {
+            retainedSize -= previous.retainedSize;
+        }
+        evicted.remove(key.path);
+        retainedSize += size;
+
+        final Iterator<ResidentReport> iterator = resident.values().iterator();
+        while (retainedSize > maxRetainedSize && iterator.hasNext())
+        {
+            final ResidentReport eldest = iterator.next();
+            iterator.remove();
+            retainedSize -= eldest.retainedSize;
+            LOGGER.debug("Evicted report '{}' ({} bytes)", eldest.key, eldest.retainedSize);
+            if (keepEvictedSoftly)
+            {
+                evicted.put(eldest.key.path, new EvictedReport(eldest.key, eldest.loadedReport, eldest.retainedSize, collected));
+            }
+        }
+    }
+
+    private void expungeCollected()
+    {
+        for (Object next = collected.poll(); next != null; next = collected.poll())
+        {
+            final EvictedReport cleared = (EvictedReport) next;
+            evicted.remove(cleared.key.path, cleared);
+        }
+    }
+}
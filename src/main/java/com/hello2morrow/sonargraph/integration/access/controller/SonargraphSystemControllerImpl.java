@@ -18,27 +18,171 @@
 package com.hello2morrow.sonargraph.integration.access.controller;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
 
 import com.hello2morrow.sonargraph.integration.access.foundation.Result;
 import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
 import com.hello2morrow.sonargraph.integration.access.model.IModule;
 import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
 import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.persistence.IReportLoadListener;
+import com.hello2morrow.sonargraph.integration.access.persistence.MetaDataRegistry;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportSnapshotCache;
 import com.hello2morrow.sonargraph.integration.access.persistence.XmlReportReader;
+import com.hello2morrow.sonargraph.integration.access.persistence.XmlReportStreamReader;
 
 final class SonargraphSystemControllerImpl implements ISonargraphSystemController
 {
-    private SoftwareSystemImpl softwareSystem;
+    /**
+     * A frozen system with its issue index and metric aggregator, replaced as a whole when another report is loaded.
+     */
+    private static final class LoadedSystem
+    {
+        private final SoftwareSystemImpl softwareSystem;
+        private final IssueIndex issueIndex;
+        private final MetricAggregator metricAggregator;
+
+        LoadedSystem(final SoftwareSystemImpl softwareSystem)
+        {
+            assert softwareSystem != null : "Parameter 'softwareSystem' of method 'LoadedSystem' must not be null";
+            softwareSystem.freeze();
+            this.softwareSystem = softwareSystem;
+            this.issueIndex = new IssueIndex(softwareSystem);
+            this.metricAggregator = new MetricAggregator(softwareSystem);
+        }
+
+        SystemInfoProcessorImpl createSystemInfoProcessor()
+        {
+            return new SystemInfoProcessorImpl(softwareSystem, issueIndex);
+        }
+    }
+
+    private final ReportSnapshotCache snapshotCache;
+    //Volatile to publish the frozen system safely to threads using the processors, processors keep the system they have been created for
+    private volatile LoadedSystem loadedSystem;
 
     public SonargraphSystemControllerImpl()
     {
         super();
+        snapshotCache = null;
+    }
+
+    /**
+     * @param snapshotCache Loaded reports are stored in the cache, later loads of the same report read the snapshot instead of the XML.
+     */
+    public SonargraphSystemControllerImpl(final ReportSnapshotCache snapshotCache)
+    {
+        assert snapshotCache != null : "Parameter 'snapshotCache' of method 'SonargraphSystemControllerImpl' must not be null";
+        this.snapshotCache = snapshotCache;
     }
 
     @Override
     public Result loadSystemReport(final File systemReportFile)
+    {
+        return loadSystemReport(systemReportFile, ReportReadMode.DEFAULT);
+    }
+
+    @Override
+    public Result loadSystemReport(final File systemReportFile, final ReportReadMode readMode)
+    {
+        assert readMode != null : "Parameter 'readMode' of method 'loadSystemReport' must not be null";
+        return loadSystemReport(systemReportFile, readMode, null, null, IReportLoadListener.NONE, () -> false);
+    }
+
+    @Override
+    public Result loadSystemReport(final File systemReportFile, final ReportLoadOptions options)
+    {
+        assert options != null : "Parameter 'options' of method 'loadSystemReport' must not be null";
+        return loadSystemReport(systemReportFile, ReportReadMode.STREAMING, options, null, IReportLoadListener.NONE, () -> false);
+    }
+
+    @Override
+    public Result loadSystemReport(final InputStream inputStream, final String identifier)
+    {
+        return loadSystemReport(inputStream, identifier, new ReportLoadOptions());
+    }
+
+    @Override
+    public Result loadSystemReport(final InputStream inputStream, final String identifier, final ReportLoadOptions options)
+    {
+        assert inputStream != null : "Parameter 'inputStream' of method 'loadSystemReport' must not be null";
+        assert identifier != null && identifier.length() > 0 : "Parameter 'identifier' of method 'loadSystemReport' must not be empty";
+        assert options != null : "Parameter 'options' of method 'loadSystemReport' must not be null";
+
+        final Result result = new Result("Load data from '" + identifier + "'");
+        final Optional<SoftwareSystemImpl> readResult = new XmlReportStreamReader(options).readReportStream(inputStream, identifier, result);
+        return setSoftwareSystem(readResult, result, () -> false, Optional.empty());
+    }
+
+    @Override
+    public Result loadSystemReport(final ReadableByteChannel channel, final String identifier, final ReportLoadOptions options)
+    {
+        assert channel != null : "Parameter 'channel' of method 'loadSystemReport' must not be null";
+        //The stream would close the channel, but the reader never closes the stream it has been given
+        return loadSystemReport(Channels.newInputStream(channel), identifier, options);
+    }
+
+    /**
+     * Streaming load taking the meta data instances from the given registry, used to share them between the systems of a batch.
+     */
+    Result loadSystemReport(final File systemReportFile, final ReportLoadOptions options, final MetaDataRegistry metaDataRegistry)
+    {
+        assert options != null : "Parameter 'options' of method 'loadSystemReport' must not be null";
+        assert metaDataRegistry != null : "Parameter 'metaDataRegistry' of method 'loadSystemReport' must not be null";
+        return loadSystemReport(systemReportFile, ReportReadMode.STREAMING, options, metaDataRegistry, IReportLoadListener.NONE, () -> false);
+    }
+
+    @Override
+    public CompletableFuture<Result> loadSystemReportAsync(final File systemReportFile, final Executor executor)
+    {
+        return loadSystemReportAsync(systemReportFile, new ReportLoadOptions(), executor, IReportLoadListener.NONE);
+    }
+
+    @Override
+    public CompletableFuture<Result> loadSystemReportAsync(final File systemReportFile, final ReportLoadOptions options, final Executor executor,
+            final IReportLoadListener listener)
+    {
+        assert systemReportFile != null : "Parameter 'systemReportFile' of method 'loadSystemReportAsync' must not be null";
+        assert options != null : "Parameter 'options' of method 'loadSystemReportAsync' must not be null";
+        assert executor != null : "Parameter 'executor' of method 'loadSystemReportAsync' must not be null";
+        assert listener != null : "Parameter 'listener' of method 'loadSystemReportAsync' must not be null";
+
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        executor.execute(() ->
+        {
+            if (future.isDone())
+            {
+                //Canceled before it has been started
+                return;
+            }
+            try
+            {
+                future.complete(loadSystemReport(systemReportFile, ReportReadMode.STREAMING, options, null, listener, future::isCancelled));
+            }
+            catch (final Throwable throwable)
+            {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
+    private Result loadSystemReport(final File systemReportFile, final ReportReadMode readMode, final ReportLoadOptions options,
+            final MetaDataRegistry metaDataRegistry, final IReportLoadListener listener, final BooleanSupplier isCanceled)
     {
         assert systemReportFile != null : "Parameter 'systemReportFile' of method 'loadSystemReport' must not be null";
 
@@ -57,22 +201,61 @@ final class SonargraphSystemControllerImpl implements ISonargraphSystemControlle
             return result;
         }
 
-        final XmlReportReader persistence = new XmlReportReader();
-        final Optional<SoftwareSystemImpl> readResult = persistence.readReportFile(systemReportFile, result);
+        final Optional<String> snapshotKey = snapshotCache != null
+                ? snapshotCache.getKey(systemReportFile, options != null ? options.getKey() : "") : Optional.empty();
+        if (snapshotKey.isPresent())
+        {
+            final Optional<SoftwareSystemImpl> snapshot = snapshotCache.read(snapshotKey.get());
+            if (snapshot.isPresent())
+            {
+                loadedSystem = new LoadedSystem(snapshot.get());
+                return result;
+            }
+        }
+
+        final Optional<SoftwareSystemImpl> readResult;
+        if (readMode == ReportReadMode.STREAMING)
+        {
+            readResult = new XmlReportStreamReader(options != null ? options : new ReportLoadOptions(),
+                    metaDataRegistry != null ? metaDataRegistry : new MetaDataRegistry(), listener, isCanceled).readReportFile(systemReportFile,
+                            result);
+        }
+        else
+        {
+            readResult = new XmlReportReader().readReportFile(systemReportFile, result);
+        }
+        return setSoftwareSystem(readResult, result, isCanceled, snapshotKey);
+    }
+
+    private Result setSoftwareSystem(final Optional<SoftwareSystemImpl> readResult, final Result result, final BooleanSupplier isCanceled,
+            final Optional<String> snapshotKey)
+    {
         if (!readResult.isPresent() || result.isFailure())
         {
             return result;
         }
+        if (isCanceled.getAsBoolean())
+        {
+            //Keep the previously loaded system
+            result.addError(ResultCause.CANCELED);
+            return result;
+        }
 
-        softwareSystem = readResult.get();
+        final LoadedSystem loaded = new LoadedSystem(readResult.get());
+        loadedSystem = loaded;
+        if (snapshotKey.isPresent())
+        {
+            snapshotCache.writeAsync(snapshotKey.get(), loaded.softwareSystem);
+        }
         return result;
     }
 
     @Override
     public ISoftwareSystem getSoftwareSystem()
     {
-        assert softwareSystem != null : "Software System must be loaded first with loadSystemReport()!";
-        return softwareSystem;
+        final LoadedSystem loaded = loadedSystem;
+        assert loaded != null : "Software System must be loaded first with loadSystemReport()!";
+        return loaded.softwareSystem;
     }
 
     @Override
@@ -80,26 +263,58 @@ final class SonargraphSystemControllerImpl implements ISonargraphSystemControlle
     {
         assert module != null : "Parameter 'module' of method 'createModuleInfoProcessor' must not be null";
         assert module instanceof ModuleImpl : "Unexpected class in method 'createModuleInfoProcessor': " + module;
-        return new ModuleInfoProcessorImpl(softwareSystem, (ModuleImpl) module);
+        return new ModuleInfoProcessorImpl(getLoadedSystem().createSystemInfoProcessor(), (ModuleImpl) module);
+    }
+
+    @Override
+    public Map<IModule, IModuleInfoProcessor> createModuleInfoProcessors()
+    {
+        final LoadedSystem loaded = getLoadedSystem();
+        final SystemInfoProcessorImpl systemInfoProcessor = loaded.createSystemInfoProcessor();
+        final Map<ModuleImpl, ModuleIssuePartition> partitions = new ModuleIssuePartitioner(loaded.softwareSystem)
+                .partition(systemInfoProcessor.getIssues(null), systemInfoProcessor.getResolutions(null));
+
+        final Map<IModule, IModuleInfoProcessor> processors = new LinkedHashMap<>();
+        partitions.forEach((module, partition) -> processors.put(module, new ModuleInfoProcessorImpl(systemInfoProcessor, module, partition)));
+        return Collections.unmodifiableMap(processors);
     }
 
     @Override
     public ISystemInfoProcessor createSystemInfoProcessor()
     {
-        assert softwareSystem != null : "No software system available";
-        return new SystemInfoProcessorImpl(softwareSystem);
+        return getLoadedSystem().createSystemInfoProcessor();
     }
 
     @Override
     public boolean hasSoftwareSystem()
     {
-        return softwareSystem != null;
+        return loadedSystem != null;
     }
 
     @Override
     public IReportDifferenceProcessor createReportDifferenceProcessor()
     {
-        assert softwareSystem != null : "No software system available";
-        return new ReportDifferenceProcessorImpl(new SystemInfoProcessorImpl(softwareSystem));
+        return new ReportDifferenceProcessorImpl(getLoadedSystem().createSystemInfoProcessor());
+    }
+
+    @Override
+    public MetricAggregator getMetricAggregator()
+    {
+        return getLoadedSystem().metricAggregator;
+    }
+
+    @Override
+    public ResultWithOutcome<IMetricId> addDerivedMetric(final String metricIdName, final String presentationName,
+            final MetricExpression expression, final List<String> levelNames)
+    {
+        return new DerivedMetricCalculator(getLoadedSystem().softwareSystem).addDerivedMetric(metricIdName, presentationName, expression,
+                levelNames);
+    }
+
+    private LoadedSystem getLoadedSystem()
+    {
+        final LoadedSystem loaded = loadedSystem;
+        assert loaded != null : "No software system available";
+        return loaded;
     }
-}
\ No newline at end of file
+}
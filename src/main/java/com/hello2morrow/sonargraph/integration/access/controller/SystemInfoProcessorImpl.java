@@ -18,6 +18,7 @@
 package com.hello2morrow.sonargraph.integration.access.controller;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -45,16 +46,30 @@ import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
 import com.hello2morrow.sonargraph.integration.access.model.IResolution;
 import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
 import com.hello2morrow.sonargraph.integration.access.model.IThresholdViolationIssue;
+import com.hello2morrow.sonargraph.integration.access.model.MetricValueOrder;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueSelector;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
 
 final class SystemInfoProcessorImpl implements ISystemInfoProcessor
 {
     private final SoftwareSystemImpl softwareSystem;
+    private final IssueIndex issueIndex;
 
     public SystemInfoProcessorImpl(final SoftwareSystemImpl system)
+    {
+        this(system, new IssueIndex(system));
+    }
+
+    /**
+     * @param issueIndex index of the system's issues - might be shared by several processors of the same system.
+     */
+    public SystemInfoProcessorImpl(final SoftwareSystemImpl system, final IssueIndex issueIndex)
     {
         assert system != null : "Parameter 'system' of method 'SystemInfoProcessorImpl' must not be null";
+        assert issueIndex != null : "Parameter 'issueIndex' of method 'SystemInfoProcessorImpl' must not be null";
         softwareSystem = system;
+        this.issueIndex = issueIndex;
     }
 
     @Override
@@ -74,12 +89,17 @@ final class SystemInfoProcessorImpl implements ISystemInfoProcessor
     {
         if (filter == null)
         {
-            return Collections.unmodifiableList(softwareSystem.getIssues().values().stream().flatMap(list -> list.stream())
-                    .collect(Collectors.toList()));
+            return issueIndex.getIssues();
         }
 
-        return Collections.unmodifiableList(softwareSystem.getIssues().values().stream().flatMap(list -> list.stream()).filter(filter)
-                .collect(Collectors.toList()));
+        return Collections.unmodifiableList(issueIndex.getIssues().stream().filter(filter).collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<IIssue> queryIssues(final IssueQuery query)
+    {
+        assert query != null : "Parameter 'query' of method 'queryIssues' must not be null";
+        return issueIndex.getIssues(query);
     }
 
     @Override
@@ -89,20 +109,14 @@ final class SystemInfoProcessorImpl implements ISystemInfoProcessor
         {
             throw new IllegalArgumentException("Missing mandatory argument 'filter'");
         }
-        return softwareSystem.getIssues().entrySet().stream().flatMap(entry -> entry.getValue().stream()).anyMatch(filter);
+        return issueIndex.getIssues().stream().anyMatch(filter);
     }
 
     @Override
     public List<IThresholdViolationIssue> getThresholdViolationIssues(final Predicate<IThresholdViolationIssue> filter)
     {
-        if (filter == null)
-        {
-            return softwareSystem.getIssues().entrySet().stream()
-                    .filter(entry -> entry.getKey().getCategory().getName().equals("ThresholdViolation")).flatMap(entry -> entry.getValue().stream())
-                    .map(issue -> (IThresholdViolationIssue) issue).collect(Collectors.toList());
-        }
-        return softwareSystem.getIssues().entrySet().stream().filter(entry -> entry.getKey().getCategory().getName().equals("ThresholdViolation"))
-                .flatMap(entry -> entry.getValue().stream()).map(issue -> (IThresholdViolationIssue) issue).filter(filter)
+        final Predicate<IThresholdViolationIssue> filter2 = filter != null ? filter : (final IThresholdViolationIssue issue) -> true;
+        return issueIndex.getIssuesOfCategory("ThresholdViolation", null).stream().map(issue -> (IThresholdViolationIssue) issue).filter(filter2)
                 .collect(Collectors.toList());
     }
 
@@ -168,7 +182,7 @@ final class SystemInfoProcessorImpl implements ISystemInfoProcessor
         {
             filter2 = (final ICycleGroupIssue group) -> true;
         }
-        return getIssues(issue -> issue instanceof ICycleGroupIssue).stream().map(issue -> (ICycleGroupIssue) issue).filter(filter2)
+        return issueIndex.getIssuesOfClass(ICycleGroupIssue.class, null).stream().map(issue -> (ICycleGroupIssue) issue).filter(filter2)
                 .collect(Collectors.toList());
     }
 
@@ -247,6 +261,59 @@ final class SystemInfoProcessorImpl implements ISystemInfoProcessor
         return softwareSystem.getMetricValues(levelName, metricIdName);
     }
 
+    @Override
+    public List<IThresholdViolationIssue> evaluateThresholds(final List<IMetricThreshold> thresholds)
+    {
+        assert thresholds != null : "Parameter 'thresholds' of method 'evaluateThresholds' must not be null";
+        return new ThresholdEvaluator(softwareSystem).evaluate(thresholds);
+    }
+
+    @Override
+    public Map<INamedElement, IMetricValue> getTopElements(final String levelName, final String metricIdName, final int n,
+            final MetricValueOrder order)
+    {
+        return getTopElements(levelName, metricIdName, n, order, e -> true);
+    }
+
+    @Override
+    public Map<INamedElement, IMetricValue> getTopElements(final String levelName, final String metricIdName, final int n,
+            final MetricValueOrder order, final Predicate<INamedElement> filter)
+    {
+        return getTopElements(levelName, metricIdName, n, order, null, filter);
+    }
+
+    @Override
+    public Map<INamedElement, IMetricValue> getTopElements(final String levelName, final String metricIdName, final int n,
+            final MetricValueOrder order, final Collection<IModule> modules, final Predicate<INamedElement> filter)
+    {
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'getTopElements' must not be empty";
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'getTopElements' must not be empty";
+        assert n >= 0 : "Parameter 'n' of method 'getTopElements' must not be negative";
+        assert order != null : "Parameter 'order' of method 'getTopElements' must not be null";
+        assert filter != null : "Parameter 'filter' of method 'getTopElements' must not be null";
+
+        final IMetricLevel level = softwareSystem.getAllMetricLevels().get(levelName);
+        final IMetricId metricId = softwareSystem.getMetricIds().get(metricIdName);
+        if (level == null || metricId == null)
+        {
+            return Collections.emptyMap();
+        }
+
+        final MetricValueSelector selector = new MetricValueSelector(n, order, filter);
+        if (modules == null)
+        {
+            //The system contains the values of all module elements as well
+            softwareSystem.selectMetricValues(level, metricId, selector);
+            return selector.getResult();
+        }
+        for (final IModule nextModule : modules)
+        {
+            assert nextModule instanceof ModuleImpl : "Unexpected class in method 'getTopElements': " + nextModule;
+            ((ModuleImpl) nextModule).selectMetricValues(level, metricId, selector);
+        }
+        return selector.getResult();
+    }
+
     @Override
     public List<IMetricLevel> getMetricLevels()
     {
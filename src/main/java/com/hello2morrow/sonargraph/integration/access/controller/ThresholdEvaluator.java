@@ -0,0 +1,123 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import com.hello2morrow.sonargraph.integration.access.model.IIssueCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.IThresholdViolationIssue;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueTypeImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ThresholdViolationIssue;
+
+/**
+ * Evaluates metric thresholds against the stored metric values of a loaded system, without the violations computed by Sonargraph.
+ * Each threshold is checked by a loop over the primitive value column of its metric id, thresholds are evaluated in parallel.
+ * The violations use the threshold violation issue type and the 'Core' provider of the system if present, they are not added to the system.
+ */
+final class ThresholdEvaluator
+{
+    private static final String ISSUE_TYPE_NAME = "ThresholdViolation";
+    private static final String ISSUE_TYPE_PRESENTATION_NAME = "Threshold Violation";
+    private static final String PROVIDER_NAME = "Core";
+    private final SoftwareSystemImpl softwareSystem;
+    private final IIssueType issueType;
+    private final IIssueProvider issueProvider;
+
+    ThresholdEvaluator(final SoftwareSystemImpl softwareSystem)
+    {
+        assert softwareSystem != null : "Parameter 'softwareSystem' of method 'ThresholdEvaluator' must not be null";
+        this.softwareSystem = softwareSystem;
+
+        final IIssueType existingType = softwareSystem.getIssueTypes().get(ISSUE_TYPE_NAME);
+        if (existingType != null)
+        {
+            issueType = existingType;
+        }
+        else
+        {
+            final IIssueCategory existingCategory = softwareSystem.getIssueCategories().get(ISSUE_TYPE_NAME);
+            final IIssueCategory category = existingCategory != null ? existingCategory
+                    : new IssueCategoryImpl(ISSUE_TYPE_NAME, ISSUE_TYPE_PRESENTATION_NAME);
+            issueType = new IssueTypeImpl(ISSUE_TYPE_NAME, ISSUE_TYPE_PRESENTATION_NAME, Severity.WARNING, category, null, "");
+        }
+        final IIssueProvider existingProvider = softwareSystem.getIssueProviders().get(PROVIDER_NAME);
+        issueProvider = existingProvider != null ? existingProvider : new IssueProviderImpl(PROVIDER_NAME, PROVIDER_NAME);
+    }
+
+    /**
+     * @return unmodifiable list of violations, grouped by threshold in the given order, then in the order the elements have been loaded.
+     */
+    List<IThresholdViolationIssue> evaluate(final List<IMetricThreshold> thresholds)
+    {
+        assert thresholds != null : "Parameter 'thresholds' of method 'evaluate' must not be null";
+
+        final List<List<IThresholdViolationIssue>> perThreshold = new ArrayList<>(thresholds.size());
+        thresholds.parallelStream().map(this::evaluate).forEachOrdered(perThreshold::add);
+
+        int size = 0;
+        for (final List<IThresholdViolationIssue> next : perThreshold)
+        {
+            size += next.size();
+        }
+        final List<IThresholdViolationIssue> result = new ArrayList<>(size);
+        perThreshold.forEach(result::addAll);
+        return Collections.unmodifiableList(result);
+    }
+
+    private List<IThresholdViolationIssue> evaluate(final IMetricThreshold threshold)
+    {
+        //Resolved by name, so thresholds of another system (e.g. a stricter quality model) can be applied
+        final IMetricLevel level = softwareSystem.getAllMetricLevels().get(threshold.getMetricLevel().getName());
+        final IMetricId metricId = softwareSystem.getMetricIds().get(threshold.getMetricId().getName());
+        if (level == null || metricId == null)
+        {
+            return Collections.emptyList();
+        }
+
+        final double lowerBound = threshold.getLowerThreshold().doubleValue();
+        final double upperBound = threshold.getUpperThreshold().doubleValue();
+        final String range = " (allowed range: " + format(threshold.getLowerThreshold()) + " to " + format(threshold.getUpperThreshold()) + ")";
+        final List<IThresholdViolationIssue> violations = new ArrayList<>();
+        softwareSystem.forEachMetricValueOutside(level, metricId, lowerBound, upperBound,
+                (element, value) -> violations.add(new ThresholdViolationIssue(issueType.getName(), issueType.getPresentationName(),
+                        metricId.getPresentationName() + " = " + format(value) + range, issueType, issueProvider, -1, -1, element, value,
+                        threshold)));
+        return violations;
+    }
+
+    private static String format(final Number value)
+    {
+        if (value instanceof Float || value instanceof Double)
+        {
+            return String.format(Locale.ENGLISH, "%.2f", value.doubleValue());
+        }
+        return value.toString();
+    }
+}
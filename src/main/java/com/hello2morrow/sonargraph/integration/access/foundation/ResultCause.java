@@ -27,7 +27,10 @@ public enum ResultCause implements Result.ICause
     FAILED_TO_CREATE_DIRECTORY,
     FAILED_TO_DELETE_DIRECTORY,
     IO_EXCEPTION,
-    NO_PERMISSION;
+    NO_PERMISSION,
+    INVALID_METRIC_EXPRESSION,
+    METRIC_ID_ALREADY_EXISTS,
+    CANCELED;
 
     @Override
     public String getStandardName()
@@ -64,4 +64,10 @@ public interface IMetricId extends IElementWithDescription
     public Double getBestValue();
 
     public Double getWorstValue();
+
+    /**
+     * @return true if the values have been computed from other metrics after loading, see
+     *         {@link com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController#addDerivedMetric}.
+     */
+    public boolean isDerived();
 }
\ No newline at end of file
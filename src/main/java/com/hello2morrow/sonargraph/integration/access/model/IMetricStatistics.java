@@ -0,0 +1,51 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model;
+
+/**
+ * Aggregated values of one metric id on one metric level, for the system or a module.
+ */
+public interface IMetricStatistics
+{
+    public IMetricLevel getLevel();
+
+    public IMetricId getMetricId();
+
+    public int getCount();
+
+    public double getSum();
+
+    public double getMin();
+
+    public double getMax();
+
+    public double getMean();
+
+    /**
+     * @return the population standard deviation.
+     */
+    public double getStandardDeviation();
+
+    /**
+     * @param percent Between 0 and 100.
+     * @return the percentile, linearly interpolated between the closest ranks.
+     */
+    public double getPercentile(double percent);
+
+    public double getMedian();
+}
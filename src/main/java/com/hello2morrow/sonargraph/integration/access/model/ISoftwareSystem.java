@@ -20,7 +20,7 @@ package com.hello2morrow.sonargraph.integration.access.model;
 import java.util.Map;
 import java.util.Optional;
 
-public interface ISoftwareSystem extends IBasicSoftwareSystemInfo, INamedElementContainer, ISourceFileLookup
+public interface ISoftwareSystem extends ISoftwareSystemInfo, INamedElementContainer, ISourceFileLookup
 {
     @Override
     public String getSystemId();
@@ -31,6 +31,7 @@ public interface ISoftwareSystem extends IBasicSoftwareSystemInfo, INamedElement
     @Override
     public String getVersion();
 
+    @Override
     public String getVirtualModel();
 
     @Override
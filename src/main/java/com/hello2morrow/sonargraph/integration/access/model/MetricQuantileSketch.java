@@ -0,0 +1,462 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compact, mergeable approximation of the distribution of one metric on one level (KLL sketch).
+ * Values are kept in a hierarchy of compactors, level h holding values of weight 2^h. A full compactor is sorted and every other value
+ * is promoted to the next level, so the number of retained values stays in O(k) while quantiles and ranks have an error of roughly
+ * 1.7 / k of the number of values. Count, min and max are exact, sketches with less than k values answer exactly.
+ * Sketches of the same level and metric id name can be merged across systems and transferred with {@link #toByteArray()}.
+ * Not thread-safe.
+ */
+public final class MetricQuantileSketch
+{
+    public static final int DEFAULT_K = 200;
+    private static final int MIN_K = 8;
+    private static final int MIN_CAPACITY = 8;
+    private static final double CAPACITY_FACTOR = 2.0 / 3.0;
+    private static final int MAGIC = 0x53474b4c;
+    private static final int FORMAT_VERSION = 1;
+
+    private final String levelName;
+    private final String metricIdName;
+    private final int k;
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    //Chooses which half of a compactor is promoted, xorshift seeded deterministically so equal input gives equal sketches
+    private long random = 0x9e3779b97f4a7c15L;
+
+    public MetricQuantileSketch(final String levelName, final String metricIdName)
+    {
+        this(levelName, metricIdName, DEFAULT_K);
+    }
+
+    /**
+     * @param k controls size and accuracy, the sketch retains about 3 * k values.
+     */
+    public MetricQuantileSketch(final String levelName, final String metricIdName, final int k)
+    {
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'MetricQuantileSketch' must not be empty";
+        assert metricIdName != null && metricIdName.length() > 0 : "Parameter 'metricIdName' of method 'MetricQuantileSketch' must not be empty";
+        assert k >= MIN_K : "Parameter 'k' of method 'MetricQuantileSketch' must be at least " + MIN_K + ": " + k;
+
+        this.levelName = levelName;
+        this.metricIdName = metricIdName;
+        this.k = k;
+        levels[0] = new double[capacity(0)];
+    }
+
+    public String getLevelName()
+    {
+        return levelName;
+    }
+
+    public String getMetricIdName()
+    {
+        return metricIdName;
+    }
+
+    public int getK()
+    {
+        return k;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public boolean isEmpty()
+    {
+        return count == 0;
+    }
+
+    /**
+     * @return the smallest value added or NaN if the sketch is empty.
+     */
+    public double getMin()
+    {
+        return min;
+    }
+
+    /**
+     * @return the largest value added or NaN if the sketch is empty.
+     */
+    public double getMax()
+    {
+        return max;
+    }
+
+    public int getNumberOfRetainedValues()
+    {
+        int retained = 0;
+        for (final int next : sizes)
+        {
+            retained += next;
+        }
+        return retained;
+    }
+
+    public void add(final double value)
+    {
+        assert !Double.isNaN(value) : "Parameter 'value' of method 'add' must not be NaN";
+        append(0, value);
+        updateMinMax(value, value);
+        count++;
+        compress();
+    }
+
+    public void addAll(final double[] values)
+    {
+        assert values != null : "Parameter 'values' of method 'addAll' must not be null";
+        for (final double next : values)
+        {
+            add(next);
+        }
+    }
+
+    /**
+     * Adds the values of the other sketch, which is not modified.
+     */
+    public void merge(final MetricQuantileSketch other)
+    {
+        assert other != null : "Parameter 'other' of method 'merge' must not be null";
+        assert other != this : "Sketch must not be merged into itself";
+        assert levelName.equals(other.levelName) && metricIdName.equals(other.metricIdName) : "Sketches of different metrics cannot be merged: "
+                + this + ", " + other;
+
+        if (other.isEmpty())
+        {
+            return;
+        }
+        for (int h = 0; h < other.levels.length; h++)
+        {
+            for (int i = 0; i < other.sizes[h]; i++)
+            {
+                append(h, other.levels[h][i]);
+            }
+        }
+        updateMinMax(other.min, other.max);
+        count += other.count;
+        compress();
+    }
+
+    /**
+     * @param fraction Between 0 and 1.
+     * @return the approximate value at the given fraction of the sorted values, NaN if the sketch is empty.
+     */
+    public double getQuantile(final double fraction)
+    {
+        assert fraction >= 0 && fraction <= 1 : "Parameter 'fraction' of method 'getQuantile' must be between 0 and 1: " + fraction;
+        if (isEmpty())
+        {
+            return Double.NaN;
+        }
+        if (fraction == 0)
+        {
+            return min;
+        }
+        if (fraction == 1)
+        {
+            return max;
+        }
+
+        final int retained = getNumberOfRetainedValues();
+        final double[] values = new double[retained];
+        final long[] weights = new long[retained];
+        sortWeighted(values, weights);
+
+        final double target = fraction * count;
+        long cumulative = 0;
+        for (int i = 0; i < retained; i++)
+        {
+            cumulative += weights[i];
+            if (cumulative >= target)
+            {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the approximate fraction of values less than (or equal to if inclusive) the given value.
+     */
+    public double getRank(final double value, final boolean inclusive)
+    {
+        if (isEmpty())
+        {
+            return 0;
+        }
+        long weight = 0;
+        for (int h = 0; h < levels.length; h++)
+        {
+            final long levelWeight = 1L << h;
+            for (int i = 0; i < sizes[h]; i++)
+            {
+                final double next = levels[h][i];
+                if (next < value || inclusive && next == value)
+                {
+                    weight += levelWeight;
+                }
+            }
+        }
+        return (double) weight / count;
+    }
+
+    /**
+     * @return the approximate fraction of values below the lower or above the upper bound.
+     */
+    public double getFractionOutside(final double lowerBound, final double upperBound)
+    {
+        assert lowerBound <= upperBound : "Lower bound " + lowerBound + " must not be greater than upper bound " + upperBound;
+        if (isEmpty())
+        {
+            return 0;
+        }
+        return getRank(lowerBound, false) + 1 - getRank(upperBound, true);
+    }
+
+    /**
+     * @return the approximate fraction of values violating the threshold, i.e. below its lower or above its upper threshold.
+     */
+    public double getFractionOutside(final IMetricThreshold threshold)
+    {
+        assert threshold != null : "Parameter 'threshold' of method 'getFractionOutside' must not be null";
+        assert threshold.getMetricId().getName().equals(metricIdName) && threshold.getMetricLevel().getName().equals(levelName) : "Threshold "
+                + threshold + " does not apply to " + this;
+        return getFractionOutside(threshold.getLowerThreshold().doubleValue(), threshold.getUpperThreshold().doubleValue());
+    }
+
+    public byte[] toByteArray()
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + getNumberOfRetainedValues() * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(levelName);
+            out.writeUTF(metricIdName);
+            out.writeInt(k);
+            out.writeLong(count);
+            out.writeDouble(min);
+            out.writeDouble(max);
+            out.writeInt(levels.length);
+            for (int h = 0; h < levels.length; h++)
+            {
+                out.writeInt(sizes[h]);
+                for (int i = 0; i < sizes[h]; i++)
+                {
+                    out.writeDouble(levels[h][i]);
+                }
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new IllegalStateException("Writing to memory failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the bytes have not been created by {@link #toByteArray()}.
+     */
+    public static MetricQuantileSketch fromByteArray(final byte[] bytes) throws IOException
+    {
+        assert bytes != null : "Parameter 'bytes' of method 'fromByteArray' must not be null";
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes)))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+            {
+                throw new IOException("Not a metric quantile sketch or unsupported version");
+            }
+            final String levelName = in.readUTF();
+            final String metricIdName = in.readUTF();
+            final int k = in.readInt();
+            if (k < MIN_K || levelName.isEmpty() || metricIdName.isEmpty())
+            {
+                throw new IOException("Corrupt metric quantile sketch");
+            }
+            final MetricQuantileSketch sketch = new MetricQuantileSketch(levelName, metricIdName, k);
+            sketch.count = in.readLong();
+            sketch.min = in.readDouble();
+            sketch.max = in.readDouble();
+            final int numberOfLevels = in.readInt();
+            if (numberOfLevels < 1 || numberOfLevels > 64)
+            {
+                throw new IOException("Corrupt metric quantile sketch");
+            }
+            sketch.levels = new double[numberOfLevels][];
+            sketch.sizes = new int[numberOfLevels];
+            long weight = 0;
+            for (int h = 0; h < numberOfLevels; h++)
+            {
+                final int size = in.readInt();
+                if (size < 0 || size > bytes.length / 8)
+                {
+                    throw new IOException("Corrupt metric quantile sketch");
+                }
+                sketch.levels[h] = new double[Math.max(size, sketch.capacity(h))];
+                for (int i = 0; i < size; i++)
+                {
+                    sketch.levels[h][i] = in.readDouble();
+                }
+                sketch.sizes[h] = size;
+                weight += (long) size << h;
+            }
+            if (weight != sketch.count)
+            {
+                throw new IOException("Corrupt metric quantile sketch, weights do not match count");
+            }
+            return sketch;
+        }
+    }
+
+    private int capacity(final int level)
+    {
+        final int depth = levels.length - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_FACTOR, depth)));
+    }
+
+    private void append(final int level, final double value)
+    {
+        while (level >= levels.length)
+        {
+            levels = Arrays.copyOf(levels, levels.length + 1);
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+            levels[levels.length - 1] = new double[MIN_CAPACITY];
+        }
+        if (sizes[level] == levels[level].length)
+        {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    private void updateMinMax(final double low, final double high)
+    {
+        if (Double.isNaN(min) || low < min)
+        {
+            min = low;
+        }
+        if (Double.isNaN(max) || high > max)
+        {
+            max = high;
+        }
+    }
+
+    private void compress()
+    {
+        boolean compacted = true;
+        while (compacted)
+        {
+            compacted = false;
+            for (int h = 0; h < levels.length; h++)
+            {
+                if (sizes[h] >= capacity(h))
+                {
+                    compact(h);
+                    compacted = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Promotes every other value of the sorted compactor to the next level, an odd value stays so the total weight is preserved.
+     */
+    private void compact(final int level)
+    {
+        final double[] values = levels[level];
+        final int size = sizes[level];
+        Arrays.sort(values, 0, size);
+        final int kept = size % 2;
+        final double remaining = kept == 1 ? values[size - 1] : 0;
+
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        final int offset = (int) (random & 1);
+
+        sizes[level] = 0;
+        for (int i = offset; i < size - kept; i += 2)
+        {
+            append(level + 1, values[i]);
+        }
+        if (kept == 1)
+        {
+            levels[level][0] = remaining;
+            sizes[level] = 1;
+        }
+    }
+
+    /**
+     * Fills the arrays with the retained values in ascending order and their weights, merging the sorted levels one by one.
+     */
+    private void sortWeighted(final double[] values, final long[] weights)
+    {
+        int size = 0;
+        final double[] mergedValues = new double[values.length];
+        final long[] mergedWeights = new long[values.length];
+        for (int h = 0; h < levels.length; h++)
+        {
+            final double[] level = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(level);
+            final long levelWeight = 1L << h;
+
+            int i = 0;
+            int j = 0;
+            int next = 0;
+            while (i < size || j < level.length)
+            {
+                if (j == level.length || i < size && values[i] <= level[j])
+                {
+                    mergedValues[next] = values[i];
+                    mergedWeights[next++] = weights[i++];
+                }
+                else
+                {
+                    mergedValues[next] = level[j++];
+                    mergedWeights[next++] = levelWeight;
+                }
+            }
+            size = next;
+            System.arraycopy(mergedValues, 0, values, 0, size);
+            System.arraycopy(mergedWeights, 0, weights, 0, size);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Sketch of " + metricIdName + " on level " + levelName + ": count=" + count + ", retained=" + getNumberOfRetainedValues() + ", k="
+                + k;
+    }
+}
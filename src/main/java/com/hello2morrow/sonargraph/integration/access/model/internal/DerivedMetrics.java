@@ -0,0 +1,171 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricProvider;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueStore.MetricColumn;
+
+/**
+ * Immutable snapshot of the metric ids computed after loading, their values and the meta data including them, see
+ * {@link SoftwareSystemImpl#addDerivedMetric(MetricIdImpl, Map)}.
+ * Adding a derived metric id creates a new snapshot that is published by the {@link MetricValueStore} with one volatile write, so a query
+ * sees either none or all of its values and meta data.
+ */
+final class DerivedMetrics implements Serializable
+{
+    private static final long serialVersionUID = -7014532389567703513L;
+    static final DerivedMetrics NONE = new DerivedMetrics(null, null, null, Collections.emptyMap(), Collections.emptyMap());
+
+    //The meta data of the system including the derived metric ids, null if there are none
+    private final Map<String, IMetricId> metricIds;
+    private final Map<String, IMetricProvider> metricProviders;
+    private final Map<String, IMetricCategory> metricCategories;
+    private final Map<IMetricLevel, Map<IMetricId, MetricColumn>> columns;
+    //The derived metric ids of each view (i.e. container) and level that have values for rows of the view
+    private final Map<MetricValueView, Map<IMetricLevel, List<IMetricId>>> viewMetricIds;
+
+    private DerivedMetrics(final Map<String, IMetricId> metricIds, final Map<String, IMetricProvider> metricProviders,
+            final Map<String, IMetricCategory> metricCategories, final Map<IMetricLevel, Map<IMetricId, MetricColumn>> columns,
+            final Map<MetricValueView, Map<IMetricLevel, List<IMetricId>>> viewMetricIds)
+    {
+        this.metricIds = metricIds;
+        this.metricProviders = metricProviders;
+        this.metricCategories = metricCategories;
+        this.columns = columns;
+        this.viewMetricIds = viewMetricIds;
+    }
+
+    boolean isEmpty()
+    {
+        return metricIds == null;
+    }
+
+    Map<String, IMetricId> getMetricIds()
+    {
+        assert !isEmpty() : "No derived metrics";
+        return metricIds;
+    }
+
+    Map<String, IMetricProvider> getMetricProviders()
+    {
+        assert !isEmpty() : "No derived metrics";
+        return metricProviders;
+    }
+
+    Map<String, IMetricCategory> getMetricCategories()
+    {
+        assert !isEmpty() : "No derived metrics";
+        return metricCategories;
+    }
+
+    List<IMetricId> getMetricIds(final MetricValueView view, final IMetricLevel level)
+    {
+        final Map<IMetricLevel, List<IMetricId>> levels = viewMetricIds.get(view);
+        final List<IMetricId> ids = levels != null ? levels.get(level) : null;
+        return ids != null ? ids : Collections.emptyList();
+    }
+
+    /**
+     * @return the column of the derived metric id on the level, null if it has not been computed for the level.
+     */
+    MetricColumn getColumn(final IMetricLevel level, final IMetricId metricId)
+    {
+        final Map<IMetricId, MetricColumn> levelColumns = columns.get(level);
+        return levelColumns != null ? levelColumns.get(metricId) : null;
+    }
+
+    /**
+     * @return the column of the derived metric id, null if the view has no values for it.
+     */
+    MetricColumn getColumn(final MetricValueView view, final IMetricLevel level, final IMetricId metricId)
+    {
+        if (!metricId.isDerived() || !getMetricIds(view, level).contains(metricId))
+        {
+            return null;
+        }
+        return getColumn(level, metricId);
+    }
+
+    /**
+     * @param levelColumns the values of the new metric id per level
+     * @param viewLevels the views having values of the new metric id and the levels of these values
+     * @param loadedMetaData the meta data of the system as loaded, without derived metric ids
+     * @return a new snapshot containing the derived metrics of this one and the new metric id.
+     */
+    DerivedMetrics add(final IMetricId metricId, final Map<IMetricLevel, MetricColumn> levelColumns,
+            final Map<MetricValueView, List<IMetricLevel>> viewLevels, final MetaDataAccessImpl loadedMetaData)
+    {
+        assert metricId != null && metricId.isDerived() : "Parameter 'metricId' of method 'add' must be derived";
+        assert levelColumns != null : "Parameter 'levelColumns' of method 'add' must not be null";
+        assert viewLevels != null : "Parameter 'viewLevels' of method 'add' must not be null";
+        assert loadedMetaData != null : "Parameter 'loadedMetaData' of method 'add' must not be null";
+
+        final Map<String, IMetricId> newMetricIds = new HashMap<>(isEmpty() ? loadedMetaData.getMetricIds() : metricIds);
+        assert !newMetricIds.containsKey(metricId.getName()) : "Metric id '" + metricId.getName() + "' already exists";
+        newMetricIds.put(metricId.getName(), metricId);
+
+        final Map<String, IMetricProvider> newProviders = new TreeMap<>(new MetricProviderImpl.MetricProviderComparator());
+        newProviders.putAll(isEmpty() ? loadedMetaData.getMetricProviders() : metricProviders);
+        newProviders.putIfAbsent(metricId.getProvider().getName(), metricId.getProvider());
+
+        final List<IMetricCategory> categories = new ArrayList<>(isEmpty() ? loadedMetaData.getMetricCategories().values()
+                : metricCategories.values());
+        metricId.getCategories().stream().filter(c -> categories.stream().noneMatch(n -> n.getName().equals(c.getName())))
+                .forEach(categories::add);
+        categories.sort(new IMetricCategory.MetricCategoryComparator());
+        final Map<String, IMetricCategory> newCategories = new LinkedHashMap<>();
+        categories.forEach(c -> newCategories.put(c.getName(), c));
+
+        final Map<IMetricLevel, Map<IMetricId, MetricColumn>> newColumns = new HashMap<>(columns);
+        levelColumns.forEach((level, column) ->
+        {
+            final Map<IMetricId, MetricColumn> levelMap = new HashMap<>(newColumns.getOrDefault(level, Collections.emptyMap()));
+            levelMap.put(metricId, column);
+            newColumns.put(level, Collections.unmodifiableMap(levelMap));
+        });
+
+        final Map<MetricValueView, Map<IMetricLevel, List<IMetricId>>> newViewMetricIds = new HashMap<>(viewMetricIds);
+        viewLevels.forEach((view, levels) ->
+        {
+            final Map<IMetricLevel, List<IMetricId>> levelMap = new HashMap<>(newViewMetricIds.getOrDefault(view, Collections.emptyMap()));
+            for (final IMetricLevel nextLevel : levels)
+            {
+                final List<IMetricId> ids = new ArrayList<>(levelMap.getOrDefault(nextLevel, Collections.emptyList()));
+                ids.add(metricId);
+                levelMap.put(nextLevel, Collections.unmodifiableList(ids));
+            }
+            newViewMetricIds.put(view, Collections.unmodifiableMap(levelMap));
+        });
+
+        return new DerivedMetrics(Collections.unmodifiableMap(newMetricIds), Collections.unmodifiableMap(newProviders),
+                Collections.unmodifiableMap(newCategories), Collections.unmodifiableMap(newColumns),
+                Collections.unmodifiableMap(newViewMetricIds));
+    }
+}
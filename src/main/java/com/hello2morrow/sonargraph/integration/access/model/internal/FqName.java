@@ -0,0 +1,156 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import java.io.Serializable;
+
+/**
+ * Compact fully qualified name sharing its prefix with other names: a pointer to the parent name plus the last segment.
+ * The full name is only materialized by {@link #toString()}. {@link #hashCode()} is equal to the hash code of the full name, so compact
+ * and plain names can be used interchangeably for hashing.
+ */
+public final class FqName implements Serializable
+{
+    private static final long serialVersionUID = -3126083412094402615L;
+    public static final char SEPARATOR = ':';
+
+    private final FqName parent;
+    private final String segment;
+    private final int length;
+    private final int hash;
+
+    private FqName(final FqName parent, final String segment)
+    {
+        this.parent = parent;
+        this.segment = segment;
+        if (parent == null)
+        {
+            length = segment.length();
+            hash = segment.hashCode();
+        }
+        else
+        {
+            length = parent.length + 1 + segment.length();
+            //Same as String.hashCode() of parent + SEPARATOR + segment
+            int nextHash = parent.hash * 31 + SEPARATOR;
+            for (int i = 0; i < segment.length(); i++)
+            {
+                nextHash = nextHash * 31 + segment.charAt(i);
+            }
+            hash = nextHash;
+        }
+    }
+
+    /**
+     * @param parent Might be null for the first segment.
+     * @param segment Part after the last separator.
+     */
+    public static FqName create(final FqName parent, final String segment)
+    {
+        assert segment != null : "Parameter 'segment' of method 'create' must not be null";
+        return new FqName(parent, segment);
+    }
+
+    /**
+     * @return the name without the last segment, null for the first segment.
+     */
+    public FqName getParent()
+    {
+        return parent;
+    }
+
+    public String getSegment()
+    {
+        return segment;
+    }
+
+    public int length()
+    {
+        return length;
+    }
+
+    /**
+     * @return true if the full name equals the given name - without materializing the full name.
+     */
+    public boolean matches(final String fqName)
+    {
+        if (fqName == null || fqName.length() != length || fqName.hashCode() != hash)
+        {
+            return false;
+        }
+
+        int end = length;
+        for (FqName next = this; next != null; next = next.parent)
+        {
+            final int start = end - next.segment.length();
+            if (!fqName.regionMatches(start, next.segment, 0, next.segment.length()))
+            {
+                return false;
+            }
+            if (next.parent != null && fqName.charAt(start - 1) != SEPARATOR)
+            {
+                return false;
+            }
+            end = start - 1;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final FqName other = (FqName) obj;
+        if (length != other.length || hash != other.hash || !segment.equals(other.segment))
+        {
+            return false;
+        }
+        return parent == other.parent || parent != null && parent.equals(other.parent) || matches(other.toString());
+    }
+
+    @Override
+    public String toString()
+    {
+        final char[] chars = new char[length];
+        int end = length;
+        for (FqName next = this; next != null; next = next.parent)
+        {
+            final int start = end - next.segment.length();
+            next.segment.getChars(0, next.segment.length(), chars, start);
+            if (next.parent != null)
+            {
+                chars[start - 1] = SEPARATOR;
+            }
+            end = start - 1;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set keeping its elements in an array in the iteration order of the source collection. Membership is answered by an open
+ * addressing table of array indexes, so no entry objects are needed. Safe for unsynchronized concurrent reads.
+ */
+final class FrozenSet<E> extends AbstractSet<E> implements Serializable
+{
+    private static final long serialVersionUID = 3390614127209318838L;
+    private final Object[] elements;
+    //Array index + 1, 0 marks an empty slot
+    private final int[] table;
+
+    /**
+     * @param source must not contain duplicates, e.g. a set
+     */
+    FrozenSet(final Collection<? extends E> source)
+    {
+        assert source != null : "Parameter 'source' of method 'FrozenSet' must not be null";
+        elements = source.toArray();
+        int capacity = 2;
+        while (capacity < elements.length * 2)
+        {
+            capacity <<= 1;
+        }
+        table = new int[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < elements.length; i++)
+        {
+            assert elements[i] != null : "Null elements are not supported";
+            int slot = hash(elements[i]) & mask;
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return elements.length;
+    }
+
+    @Override
+    public boolean contains(final Object object)
+    {
+        if (object == null)
+        {
+            return false;
+        }
+        final int mask = table.length - 1;
+        for (int slot = hash(object) & mask;; slot = (slot + 1) & mask)
+        {
+            final int index = table[slot];
+            if (index == 0)
+            {
+                return false;
+            }
+            final Object next = elements[index - 1];
+            if (next == object || next.equals(object))
+            {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        return new Iterator<E>()
+        {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < elements.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next()
+            {
+                if (next >= elements.length)
+                {
+                    throw new NoSuchElementException();
+                }
+                return (E) elements[next++];
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray()
+    {
+        return Arrays.copyOf(elements, elements.length);
+    }
+
+    private static int hash(final Object object)
+    {
+        final int hashCode = object.hashCode();
+        return hashCode ^ (hashCode >>> 16);
+    }
+}
@@ -134,6 +134,34 @@ public final class IssueDeltaImpl implements IIssueDelta
         worsenedDuplicateCodeParticipation = baselineCurrent;
     }
 
+    /**
+     * Appends the changes of the given delta - used to combine deltas that have been computed independently for disjoint sets of issues.
+     */
+    public void addAll(final IssueDeltaImpl delta)
+    {
+        assert delta != null : "Parameter 'delta' of method 'addAll' must not be null";
+        assert delta != this : "Same instances";
+
+        addedIssues.addAll(delta.addedIssues);
+        removedIssues.addAll(delta.removedIssues);
+        issuesWithChangedResolutionType.addAll(delta.issuesWithChangedResolutionType);
+        improvedThresholdViolationIssues.addAll(delta.improvedThresholdViolationIssues);
+        worsenedThresholdViolationIssues.addAll(delta.worsenedThresholdViolationIssues);
+        addedToCycle.putAll(delta.addedToCycle);
+        removedFromCycle.putAll(delta.removedFromCycle);
+        improvedCycleParticipation.putAll(delta.improvedCycleParticipation);
+        worsenedCycleParticipation.putAll(delta.worsenedCycleParticipation);
+        changedDuplicateCodeBlockParticipation.putAll(delta.changedDuplicateCodeBlockParticipation);
+        if (delta.improvedDuplicateCodeParticipation != null)
+        {
+            improvedDuplicateCodeParticipation = delta.improvedDuplicateCodeParticipation;
+        }
+        if (delta.worsenedDuplicateCodeParticipation != null)
+        {
+            worsenedDuplicateCodeParticipation = delta.worsenedDuplicateCodeParticipation;
+        }
+    }
+
     @Override
     public List<IIssue> getAdded()
     {
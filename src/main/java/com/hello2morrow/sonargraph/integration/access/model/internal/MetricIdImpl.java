@@ -34,9 +34,17 @@ public final class MetricIdImpl extends ElementWithDescriptionImpl implements IM
     private final boolean isFloat;
     private final double worstValue;
     private final double bestValue;
+    private final boolean isDerived;
 
     public MetricIdImpl(final String name, final String presentationName, final String description, final List<IMetricCategory> categories,
             final List<IMetricLevel> levels, final IMetricProvider provider, final boolean isFloat, final double bestValue, final double worstValue)
+    {
+        this(name, presentationName, description, categories, levels, provider, isFloat, bestValue, worstValue, false);
+    }
+
+    public MetricIdImpl(final String name, final String presentationName, final String description, final List<IMetricCategory> categories,
+            final List<IMetricLevel> levels, final IMetricProvider provider, final boolean isFloat, final double bestValue, final double worstValue,
+            final boolean isDerived)
     {
         super(name, presentationName, description);
         assert categories != null && !categories.isEmpty() : "Parameter 'categories' of method 'setCategories' must not be empty";
@@ -49,6 +57,7 @@ public final class MetricIdImpl extends ElementWithDescriptionImpl implements IM
         this.isFloat = isFloat;
         this.bestValue = bestValue;
         this.worstValue = worstValue;
+        this.isDerived = isDerived;
     }
 
     @Override
@@ -87,6 +96,12 @@ public final class MetricIdImpl extends ElementWithDescriptionImpl implements IM
         return worstValue;
     }
 
+    @Override
+    public boolean isDerived()
+    {
+        return isDerived;
+    }
+
     @Override
     public int hashCode()
     {
@@ -17,6 +17,7 @@
  */
 package com.hello2morrow.sonargraph.integration.access.model.internal;
 
+import java.io.Serializable;
 import java.util.Comparator;
 
 import com.hello2morrow.sonargraph.integration.access.model.IMetricProvider;
@@ -26,8 +27,10 @@ public final class MetricProviderImpl extends ElementImpl implements IMetricProv
     private static final long serialVersionUID = 615452015644502490L;
     private static final String REL_PATH_START = "./";
 
-    public static class MetricProviderComparator implements Comparator<String>
+    public static class MetricProviderComparator implements Comparator<String>, Serializable
     {
+        private static final long serialVersionUID = 3281942606361052733L;
+
         @Override
         public int compare(final String s1, final String s2)
         {
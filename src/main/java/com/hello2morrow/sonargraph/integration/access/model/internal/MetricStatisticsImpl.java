@@ -0,0 +1,140 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import java.util.Arrays;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricStatistics;
+
+/**
+ * Keeps the sorted values, so any percentile can be computed after the aggregation.
+ */
+public final class MetricStatisticsImpl implements IMetricStatistics
+{
+    private final IMetricLevel level;
+    private final IMetricId metricId;
+    private final double[] sorted;
+    private final double sum;
+    private final double mean;
+    private final double standardDeviation;
+
+    /**
+     * @param values Not empty, the array is sorted in place and kept.
+     */
+    public MetricStatisticsImpl(final IMetricLevel level, final IMetricId metricId, final double[] values)
+    {
+        assert level != null : "Parameter 'level' of method 'MetricStatisticsImpl' must not be null";
+        assert metricId != null : "Parameter 'metricId' of method 'MetricStatisticsImpl' must not be null";
+        assert values != null && values.length > 0 : "Parameter 'values' of method 'MetricStatisticsImpl' must not be empty";
+
+        this.level = level;
+        this.metricId = metricId;
+        Arrays.sort(values);
+        sorted = values;
+
+        double total = 0;
+        for (final double next : values)
+        {
+            total += next;
+        }
+        sum = total;
+        mean = total / values.length;
+
+        //Second pass, numerically more stable than the sum of squares
+        double squares = 0;
+        for (final double next : values)
+        {
+            final double deviation = next - mean;
+            squares += deviation * deviation;
+        }
+        standardDeviation = Math.sqrt(squares / values.length);
+    }
+
+    @Override
+    public IMetricLevel getLevel()
+    {
+        return level;
+    }
+
+    @Override
+    public IMetricId getMetricId()
+    {
+        return metricId;
+    }
+
+    @Override
+    public int getCount()
+    {
+        return sorted.length;
+    }
+
+    @Override
+    public double getSum()
+    {
+        return sum;
+    }
+
+    @Override
+    public double getMin()
+    {
+        return sorted[0];
+    }
+
+    @Override
+    public double getMax()
+    {
+        return sorted[sorted.length - 1];
+    }
+
+    @Override
+    public double getMean()
+    {
+        return mean;
+    }
+
+    @Override
+    public double getStandardDeviation()
+    {
+        return standardDeviation;
+    }
+
+    @Override
+    public double getPercentile(final double percent)
+    {
+        assert percent >= 0 && percent <= 100 : "Parameter 'percent' of method 'getPercentile' must be between 0 and 100: " + percent;
+        final double rank = percent / 100 * (sorted.length - 1);
+        final int lower = (int) Math.floor(rank);
+        final int upper = (int) Math.ceil(rank);
+        return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    @Override
+    public double getMedian()
+    {
+        return getPercentile(50);
+    }
+
+    @Override
+    public String toString()
+    {
+        return metricId.getName() + " on level " + level.getName() + ": count=" + getCount() + ", sum=" + sum + ", min=" + getMin() + ", max="
+                + getMax() + ", mean=" + mean + ", stddev=" + standardDeviation;
+    }
+}
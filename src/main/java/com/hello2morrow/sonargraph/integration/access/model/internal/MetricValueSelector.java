@@ -0,0 +1,204 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.MetricValueOrder;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueStore.LevelTable;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueStore.MetricColumn;
+
+/**
+ * Selects the elements with the highest or lowest values of one metric id on one level, fed by one or more containers via
+ * {@link NamedElementContainerImpl#selectMetricValues(IMetricLevel, IMetricId, MetricValueSelector)}.
+ * Keeps a bounded heap of primitive values and rows with the worst kept value at the root, so selecting n of m values takes O(m log n)
+ * time and O(n) space. The filter is only applied to values that would enter the heap. Equal values are returned in the order their
+ * elements have been loaded.
+ * Not thread-safe, create one selector per query.
+ */
+public final class MetricValueSelector
+{
+    private static final int INITIAL_CAPACITY = 16;
+    private final int limit;
+    private final boolean highest;
+    private final Predicate<INamedElement> filter;
+    private double[] keys;
+    private int[] rows;
+    private int size;
+    private IMetricLevel level;
+    private IMetricId metricId;
+    private LevelTable levelTable;
+    private MetricColumn column;
+
+    public MetricValueSelector(final int limit, final MetricValueOrder order, final Predicate<INamedElement> filter)
+    {
+        assert limit >= 0 : "Parameter 'limit' of method 'MetricValueSelector' must not be negative";
+        assert order != null : "Parameter 'order' of method 'MetricValueSelector' must not be null";
+        assert filter != null : "Parameter 'filter' of method 'MetricValueSelector' must not be null";
+
+        this.limit = limit;
+        this.highest = order == MetricValueOrder.HIGHEST;
+        this.filter = filter;
+        final int capacity = Math.min(limit, INITIAL_CAPACITY);
+        keys = new double[capacity];
+        rows = new int[capacity];
+    }
+
+    /**
+     * Called before the values of a container are offered.
+     */
+    void begin(final IMetricLevel level, final IMetricId metricId, final LevelTable levelTable, final MetricColumn column)
+    {
+        assert this.levelTable == null || this.levelTable == levelTable : "Containers of different systems must not be combined";
+        this.level = level;
+        this.metricId = metricId;
+        this.levelTable = levelTable;
+        this.column = column;
+    }
+
+    void offer(final double key, final int row)
+    {
+        if (size < limit)
+        {
+            if (filter.test(levelTable.getElement(row)))
+            {
+                ensureCapacity();
+                keys[size] = key;
+                rows[size] = row;
+                siftUp(size++);
+            }
+        }
+        else if (limit > 0 && isWorse(keys[0], rows[0], key, row) && filter.test(levelTable.getElement(row)))
+        {
+            keys[0] = key;
+            rows[0] = row;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @return unmodifiable map of element to value, best value first.
+     */
+    public Map<INamedElement, IMetricValue> getResult()
+    {
+        if (size == 0)
+        {
+            return Collections.emptyMap();
+        }
+        //Pop the worst values off a copy of the heap, filling the result from the end
+        final double[] heapKeys = Arrays.copyOf(keys, size);
+        final int[] heapRows = Arrays.copyOf(rows, size);
+        final int[] sortedRows = new int[size];
+        for (int remaining = size; remaining > 0; remaining--)
+        {
+            sortedRows[remaining - 1] = heapRows[0];
+            heapKeys[0] = heapKeys[remaining - 1];
+            heapRows[0] = heapRows[remaining - 1];
+            siftDown(heapKeys, heapRows, remaining - 1, 0);
+        }
+
+        final Map<INamedElement, IMetricValue> result = new LinkedHashMap<>(size * 2);
+        for (final int next : sortedRows)
+        {
+            result.put(levelTable.getElement(next), new MetricValueImpl(metricId, level, column.getValue(next)));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return true if the first value is worse than the second one, i.e. it would be returned after it.
+     */
+    private boolean isWorse(final double key1, final int row1, final double key2, final int row2)
+    {
+        final int compared = Double.compare(key1, key2);
+        if (compared != 0)
+        {
+            return highest ? compared < 0 : compared > 0;
+        }
+        return row1 > row2;
+    }
+
+    private void ensureCapacity()
+    {
+        if (size == keys.length)
+        {
+            final int capacity = (int) Math.min(limit, Math.max(INITIAL_CAPACITY, keys.length * 2L));
+            keys = Arrays.copyOf(keys, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+    }
+
+    private void siftUp(final int index)
+    {
+        int child = index;
+        while (child > 0)
+        {
+            final int parent = (child - 1) >>> 1;
+            if (!isWorse(keys[child], rows[child], keys[parent], rows[parent]))
+            {
+                break;
+            }
+            swap(keys, rows, child, parent);
+            child = parent;
+        }
+    }
+
+    private void siftDown(final int index)
+    {
+        siftDown(keys, rows, size, index);
+    }
+
+    private void siftDown(final double[] heapKeys, final int[] heapRows, final int heapSize, final int index)
+    {
+        int parent = index;
+        while (true)
+        {
+            final int left = 2 * parent + 1;
+            if (left >= heapSize)
+            {
+                break;
+            }
+            final int right = left + 1;
+            final int worse = right < heapSize && isWorse(heapKeys[right], heapRows[right], heapKeys[left], heapRows[left]) ? right : left;
+            if (!isWorse(heapKeys[worse], heapRows[worse], heapKeys[parent], heapRows[parent]))
+            {
+                break;
+            }
+            swap(heapKeys, heapRows, parent, worse);
+            parent = worse;
+        }
+    }
+
+    private static void swap(final double[] heapKeys, final int[] heapRows, final int i, final int j)
+    {
+        final double key = heapKeys[i];
+        heapKeys[i] = heapKeys[j];
+        heapKeys[j] = key;
+        final int row = heapRows[i];
+        heapRows[i] = heapRows[j];
+        heapRows[j] = row;
+    }
+}
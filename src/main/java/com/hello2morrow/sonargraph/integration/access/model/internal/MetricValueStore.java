@@ -0,0 +1,497 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+
+/**
+ * Columnar storage of the metric values of a software system, shared by the system and all of its modules.
+ * Each metric level assigns a dense row number to the elements it has values for, each metric id of a level stores its values in a
+ * primitive column indexed by that row.
+ * The loaded tables are not modified once the system is frozen. Metric ids computed afterwards are kept in an immutable
+ * {@link DerivedMetrics} snapshot that is replaced as a whole.
+ */
+final class MetricValueStore implements Serializable
+{
+    private static final long serialVersionUID = 3283573164427658862L;
+    private final Map<IMetricLevel, LevelTable> levelTables = new HashMap<>();
+    private volatile DerivedMetrics derivedMetrics = DerivedMetrics.NONE;
+
+    MetricValueStore()
+    {
+        super();
+    }
+
+    LevelTable getLevelTable(final IMetricLevel level)
+    {
+        assert level != null : "Parameter 'level' of method 'getLevelTable' must not be null";
+        return levelTables.get(level);
+    }
+
+    LevelTable getOrCreateLevelTable(final IMetricLevel level)
+    {
+        assert level != null : "Parameter 'level' of method 'getOrCreateLevelTable' must not be null";
+        LevelTable levelTable = levelTables.get(level);
+        if (levelTable == null)
+        {
+            levelTable = new LevelTable();
+            levelTables.put(level, levelTable);
+        }
+        return levelTable;
+    }
+
+    DerivedMetrics getDerivedMetrics()
+    {
+        return derivedMetrics;
+    }
+
+    /**
+     * Publishes the derived metrics with a single volatile write, queries see either the previous or the new snapshot.
+     */
+    void setDerivedMetrics(final DerivedMetrics derivedMetrics)
+    {
+        assert derivedMetrics != null : "Parameter 'derivedMetrics' of method 'setDerivedMetrics' must not be null";
+        this.derivedMetrics = derivedMetrics;
+    }
+
+    /**
+     * @return the number of cells (rows times metric ids) of all levels, an upper bound of the number of stored values.
+     */
+    long getNumberOfCells()
+    {
+        long cells = 0;
+        for (final LevelTable next : levelTables.values())
+        {
+            cells += (long) next.getNumberOfRows() * next.columns.size();
+        }
+        return cells;
+    }
+
+    /**
+     * Rows and value columns of one metric level.
+     * Elements are mapped to their row by their ordinal ({@link NamedElementImpl#getOrdinal()}), other elements (e.g. equal elements of
+     * another system) with an open addressing hash table relying on {@link INamedElement#equals(Object)}.
+     */
+    static final class LevelTable implements Serializable
+    {
+        private static final long serialVersionUID = -2405617478120521449L;
+        private static final int INITIAL_CAPACITY = 16;
+        private final Map<IMetricId, MetricColumn> columns = new HashMap<>();
+        private INamedElement[] elements = new INamedElement[INITIAL_CAPACITY];
+        private Object[] slotKeys = new Object[INITIAL_CAPACITY * 2];
+        private int[] slotRows = new int[INITIAL_CAPACITY * 2];
+        //Row + 1 indexed by element ordinal, 0 if the element has no row
+        private int[] rowByOrdinal = new int[0];
+        private int numberOfRows = 0;
+
+        LevelTable()
+        {
+            super();
+        }
+
+        int getNumberOfRows()
+        {
+            return numberOfRows;
+        }
+
+        INamedElement getElement(final int row)
+        {
+            assert row >= 0 && row < numberOfRows : "Parameter 'row' of method 'getElement' is out of range: " + row;
+            return elements[row];
+        }
+
+        /**
+         * @return the row of the element or -1 if the level does not contain values for it.
+         */
+        int getRow(final Object element)
+        {
+            if (element == null)
+            {
+                return -1;
+            }
+            if (element instanceof NamedElementImpl)
+            {
+                final int ordinal = ((NamedElementImpl) element).getOrdinal();
+                if (ordinal >= 0 && ordinal < rowByOrdinal.length)
+                {
+                    final int row = rowByOrdinal[ordinal] - 1;
+                    if (row >= 0 && elements[row] == element)
+                    {
+                        return row;
+                    }
+                }
+            }
+            final int mask = slotKeys.length - 1;
+            for (int slot = hash(element) & mask;; slot = (slot + 1) & mask)
+            {
+                final Object next = slotKeys[slot];
+                if (next == null)
+                {
+                    return -1;
+                }
+                if (next == element || next.equals(element))
+                {
+                    return slotRows[slot];
+                }
+            }
+        }
+
+        int getOrCreateRow(final INamedElement element)
+        {
+            assert element != null : "Parameter 'element' of method 'getOrCreateRow' must not be null";
+            final int existing = getRow(element);
+            if (existing >= 0)
+            {
+                return existing;
+            }
+
+            if ((numberOfRows + 1) * 2 > slotKeys.length)
+            {
+                rehash(slotKeys.length * 2);
+            }
+            if (numberOfRows == elements.length)
+            {
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            }
+
+            final int row = numberOfRows++;
+            elements[row] = element;
+            insert(element, row);
+            if (element instanceof NamedElementImpl && ((NamedElementImpl) element).getOrdinal() >= 0)
+            {
+                final int ordinal = ((NamedElementImpl) element).getOrdinal();
+                if (ordinal >= rowByOrdinal.length)
+                {
+                    rowByOrdinal = Arrays.copyOf(rowByOrdinal, Math.max(ordinal + 1, rowByOrdinal.length * 2));
+                }
+                rowByOrdinal[ordinal] = row + 1;
+            }
+            return row;
+        }
+
+        MetricColumn getColumn(final IMetricId metricId)
+        {
+            assert metricId != null : "Parameter 'metricId' of method 'getColumn' must not be null";
+            return columns.get(metricId);
+        }
+
+        MetricColumn getOrCreateColumn(final IMetricId metricId)
+        {
+            assert metricId != null : "Parameter 'metricId' of method 'getOrCreateColumn' must not be null";
+            MetricColumn column = columns.get(metricId);
+            if (column == null)
+            {
+                column = new MetricColumn();
+                columns.put(metricId, column);
+            }
+            return column;
+        }
+
+        private void rehash(final int capacity)
+        {
+            slotKeys = new Object[capacity];
+            slotRows = new int[capacity];
+            for (int row = 0; row < numberOfRows; row++)
+            {
+                insert(elements[row], row);
+            }
+        }
+
+        private void insert(final INamedElement element, final int row)
+        {
+            final int mask = slotKeys.length - 1;
+            int slot = hash(element) & mask;
+            while (slotKeys[slot] != null)
+            {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = element;
+            slotRows[slot] = row;
+        }
+
+        private static int hash(final Object element)
+        {
+            final int hashCode = element.hashCode();
+            return hashCode ^ (hashCode >>> 16);
+        }
+    }
+
+    /**
+     * Values of one metric id on one level.
+     * Integer, float and double values are kept in primitive arrays, any other number type or mixing types switches the column to boxed
+     * storage.
+     */
+    static final class MetricColumn implements Serializable
+    {
+        private static final long serialVersionUID = -6271546311637052519L;
+        private static final int INITIAL_CAPACITY = 16;
+        private final BitSet present = new BitSet();
+        private int[] ints;
+        private float[] floats;
+        private double[] doubles;
+        private Number[] numbers;
+
+        MetricColumn()
+        {
+            super();
+        }
+
+        boolean hasValue(final int row)
+        {
+            return row >= 0 && present.get(row);
+        }
+
+        Number getValue(final int row)
+        {
+            assert hasValue(row) : "No value in row " + row;
+            if (ints != null)
+            {
+                return Integer.valueOf(ints[row]);
+            }
+            if (floats != null)
+            {
+                return Float.valueOf(floats[row]);
+            }
+            if (doubles != null)
+            {
+                return Double.valueOf(doubles[row]);
+            }
+            return numbers[row];
+        }
+
+        /**
+         * Unboxed access for computations over many values.
+         */
+        double getDoubleValue(final int row)
+        {
+            assert hasValue(row) : "No value in row " + row;
+            if (ints != null)
+            {
+                return ints[row];
+            }
+            if (floats != null)
+            {
+                return floats[row];
+            }
+            if (doubles != null)
+            {
+                return doubles[row];
+            }
+            return numbers[row].doubleValue();
+        }
+
+        /**
+         * Passes the rows with values outside of [lowerBound, upperBound] to the consumer, with one loop per storage type.
+         * @param rows ascending rows to check, only the first numberOfRows are used.
+         */
+        void forEachRowOutside(final int[] rows, final int numberOfRows, final double lowerBound, final double upperBound,
+                final IntConsumer consumer)
+        {
+            if (ints != null)
+            {
+                for (int i = 0; i < numberOfRows; i++)
+                {
+                    final int row = rows[i];
+                    if (row < ints.length)
+                    {
+                        final int value = ints[row];
+                        if ((value < lowerBound || value > upperBound) && present.get(row))
+                        {
+                            consumer.accept(row);
+                        }
+                    }
+                }
+            }
+            else if (floats != null)
+            {
+                for (int i = 0; i < numberOfRows; i++)
+                {
+                    final int row = rows[i];
+                    if (row < floats.length)
+                    {
+                        final float value = floats[row];
+                        if ((value < lowerBound || value > upperBound) && present.get(row))
+                        {
+                            consumer.accept(row);
+                        }
+                    }
+                }
+            }
+            else if (doubles != null)
+            {
+                for (int i = 0; i < numberOfRows; i++)
+                {
+                    final int row = rows[i];
+                    if (row < doubles.length)
+                    {
+                        final double value = doubles[row];
+                        if ((value < lowerBound || value > upperBound) && present.get(row))
+                        {
+                            consumer.accept(row);
+                        }
+                    }
+                }
+            }
+            else if (numbers != null)
+            {
+                for (int i = 0; i < numberOfRows; i++)
+                {
+                    final int row = rows[i];
+                    if (row < numbers.length && numbers[row] != null)
+                    {
+                        final double value = numbers[row].doubleValue();
+                        if (value < lowerBound || value > upperBound)
+                        {
+                            consumer.accept(row);
+                        }
+                    }
+                }
+            }
+        }
+
+        void setValue(final int row, final int value)
+        {
+            assert row >= 0 : "Parameter 'row' of method 'setValue' must not be negative";
+            if (isEmpty())
+            {
+                ints = new int[capacityFor(row)];
+            }
+            if (ints != null)
+            {
+                if (row >= ints.length)
+                {
+                    ints = Arrays.copyOf(ints, capacityFor(row));
+                }
+                ints[row] = value;
+                present.set(row);
+            }
+            else
+            {
+                setBoxedValue(row, Integer.valueOf(value));
+            }
+        }
+
+        void setValue(final int row, final float value)
+        {
+            assert row >= 0 : "Parameter 'row' of method 'setValue' must not be negative";
+            if (isEmpty())
+            {
+                floats = new float[capacityFor(row)];
+            }
+            if (floats != null)
+            {
+                if (row >= floats.length)
+                {
+                    floats = Arrays.copyOf(floats, capacityFor(row));
+                }
+                floats[row] = value;
+                present.set(row);
+            }
+            else
+            {
+                setBoxedValue(row, Float.valueOf(value));
+            }
+        }
+
+        void setValue(final int row, final double value)
+        {
+            assert row >= 0 : "Parameter 'row' of method 'setValue' must not be negative";
+            if (isEmpty())
+            {
+                doubles = new double[capacityFor(row)];
+            }
+            if (doubles != null)
+            {
+                if (row >= doubles.length)
+                {
+                    doubles = Arrays.copyOf(doubles, capacityFor(row));
+                }
+                doubles[row] = value;
+                present.set(row);
+            }
+            else
+            {
+                setBoxedValue(row, Double.valueOf(value));
+            }
+        }
+
+        void setValue(final int row, final Number value)
+        {
+            assert value != null : "Parameter 'value' of method 'setValue' must not be null";
+            if (value instanceof Integer)
+            {
+                setValue(row, value.intValue());
+            }
+            else if (value instanceof Float)
+            {
+                setValue(row, value.floatValue());
+            }
+            else if (value instanceof Double)
+            {
+                setValue(row, value.doubleValue());
+            }
+            else
+            {
+                setBoxedValue(row, value);
+            }
+        }
+
+        private void setBoxedValue(final int row, final Number value)
+        {
+            if (numbers == null)
+            {
+                //Mixed number types - fall back to boxed storage for the whole column
+                numbers = new Number[capacityFor(Math.max(row, present.length()))];
+                for (int next = present.nextSetBit(0); next >= 0; next = present.nextSetBit(next + 1))
+                {
+                    numbers[next] = getValue(next);
+                }
+                ints = null;
+                floats = null;
+                doubles = null;
+            }
+            else if (row >= numbers.length)
+            {
+                numbers = Arrays.copyOf(numbers, capacityFor(row));
+            }
+            numbers[row] = value;
+            present.set(row);
+        }
+
+        private boolean isEmpty()
+        {
+            return ints == null && floats == null && doubles == null && numbers == null;
+        }
+
+        private int capacityFor(final int row)
+        {
+            final int current = ints != null ? ints.length
+                    : floats != null ? floats.length : doubles != null ? doubles.length : numbers != null ? numbers.length : 0;
+            return Math.max(row + 1, Math.max(INITIAL_CAPACITY, current * 2));
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueStore.LevelTable;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueStore.MetricColumn;
+
+/**
+ * The metric values of one container (system or module) on top of the shared {@link MetricValueStore}.
+ * The view only records which rows and metric ids of a level have been added through it, the values themselves live in the shared
+ * columns. {@link IMetricValue} instances are created on demand when values are accessed.
+ * Since a view exposes the shared value of every row it contains, views on the same store must agree on the values of common elements -
+ * which is the case for a system and its modules.
+ * The metric ids derived after loading are looked up in the current {@link DerivedMetrics} snapshot of the store, the view itself is not
+ * modified after loading.
+ */
+final class MetricValueView implements Serializable
+{
+    private static final long serialVersionUID = -2961386785049452773L;
+    private final MetricValueStore store;
+    private final Map<IMetricLevel, ViewLevel> levels = new HashMap<>();
+
+    MetricValueView(final MetricValueStore store)
+    {
+        assert store != null : "Parameter 'store' of method 'MetricValueView' must not be null";
+        this.store = store;
+    }
+
+    void addValue(final IMetricLevel level, final IMetricId metricId, final INamedElement element, final int value)
+    {
+        final LevelTable levelTable = store.getOrCreateLevelTable(level);
+        final int row = addRow(level, levelTable, metricId, element);
+        levelTable.getOrCreateColumn(metricId).setValue(row, value);
+    }
+
+    void addValue(final IMetricLevel level, final IMetricId metricId, final INamedElement element, final float value)
+    {
+        final LevelTable levelTable = store.getOrCreateLevelTable(level);
+        final int row = addRow(level, levelTable, metricId, element);
+        levelTable.getOrCreateColumn(metricId).setValue(row, value);
+    }
+
+    void addValue(final IMetricLevel level, final IMetricId metricId, final INamedElement element, final Number value)
+    {
+        final LevelTable levelTable = store.getOrCreateLevelTable(level);
+        final int row = addRow(level, levelTable, metricId, element);
+        levelTable.getOrCreateColumn(metricId).setValue(row, value);
+    }
+
+    private int addRow(final IMetricLevel level, final LevelTable levelTable, final IMetricId metricId, final INamedElement element)
+    {
+        ViewLevel viewLevel = levels.get(level);
+        if (viewLevel == null)
+        {
+            viewLevel = new ViewLevel();
+            levels.put(level, viewLevel);
+        }
+        viewLevel.metricIds.add(metricId);
+        final int row = levelTable.getOrCreateRow(element);
+        viewLevel.addRow(row);
+        return row;
+    }
+
+    List<IMetricId> getMetricIds(final IMetricLevel level)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        if (viewLevel == null)
+        {
+            return Collections.emptyList();
+        }
+        final List<IMetricId> metricIds = new ArrayList<>(viewLevel.metricIds);
+        metricIds.addAll(store.getDerivedMetrics().getMetricIds(this, level));
+        return Collections.unmodifiableList(metricIds);
+    }
+
+    Optional<IMetricId> getMetricId(final IMetricLevel level, final String metricIdName)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        if (viewLevel == null)
+        {
+            return Optional.empty();
+        }
+        final Optional<IMetricId> loaded = viewLevel.metricIds.stream().filter((final IMetricId id) -> id.getName().equals(metricIdName))
+                .findAny();
+        if (loaded.isPresent())
+        {
+            return loaded;
+        }
+        return store.getDerivedMetrics().getMetricIds(this, level).stream().filter(id -> id.getName().equals(metricIdName)).findAny();
+    }
+
+    /**
+     * @return the column holding the values of the metric id, null if the view has no values for it.
+     */
+    private MetricColumn getColumn(final IMetricLevel level, final ViewLevel viewLevel, final IMetricId metricId)
+    {
+        if (viewLevel == null)
+        {
+            return null;
+        }
+        if (viewLevel.metricIds.contains(metricId))
+        {
+            return store.getLevelTable(level).getColumn(metricId);
+        }
+        return store.getDerivedMetrics().getColumn(this, level, metricId);
+    }
+
+    Optional<IMetricValue> getValue(final IMetricLevel level, final IMetricId metricId, final INamedElement element)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        final MetricColumn column = getColumn(level, viewLevel, metricId);
+        if (column == null)
+        {
+            return Optional.empty();
+        }
+        final LevelTable levelTable = store.getLevelTable(level);
+        final int row = levelTable.getRow(element);
+        if (!viewLevel.containsRow(row) || !column.hasValue(row))
+        {
+            return Optional.empty();
+        }
+        return Optional.of(new MetricValueImpl(metricId, level, column.getValue(row)));
+    }
+
+    Map<INamedElement, IMetricValue> getValues(final IMetricLevel level, final IMetricId metricId)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        final MetricColumn column = getColumn(level, viewLevel, metricId);
+        if (column == null)
+        {
+            return Collections.emptyMap();
+        }
+        return new ColumnValueMap(level, metricId, store.getLevelTable(level), column, viewLevel);
+    }
+
+    /**
+     * @return the values of the metric id for the elements of this view, in row order, without creating {@link IMetricValue} instances.
+     */
+    double[] getDoubleValues(final IMetricLevel level, final IMetricId metricId)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        final MetricColumn column = getColumn(level, viewLevel, metricId);
+        if (column == null)
+        {
+            return new double[0];
+        }
+        final double[] values = new double[viewLevel.numberOfRows];
+        int numberOfValues = 0;
+        for (int i = 0; i < viewLevel.numberOfRows; i++)
+        {
+            final int row = viewLevel.rows[i];
+            if (column.hasValue(row))
+            {
+                values[numberOfValues++] = column.getDoubleValue(row);
+            }
+        }
+        return numberOfValues == values.length ? values : Arrays.copyOf(values, numberOfValues);
+    }
+
+    /**
+     * Passes the elements with values outside of [lowerBound, upperBound] and their values to the consumer, in row order.
+     */
+    void forEachValueOutside(final IMetricLevel level, final IMetricId metricId, final double lowerBound, final double upperBound,
+            final BiConsumer<INamedElement, Number> consumer)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        final MetricColumn column = getColumn(level, viewLevel, metricId);
+        if (column == null)
+        {
+            return;
+        }
+        final LevelTable levelTable = store.getLevelTable(level);
+        column.forEachRowOutside(viewLevel.rows, viewLevel.numberOfRows, lowerBound, upperBound,
+                row -> consumer.accept(levelTable.getElement(row), column.getValue(row)));
+    }
+
+    void select(final IMetricLevel level, final IMetricId metricId, final MetricValueSelector selector)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        final MetricColumn column = getColumn(level, viewLevel, metricId);
+        if (column == null)
+        {
+            return;
+        }
+        final LevelTable levelTable = store.getLevelTable(level);
+        selector.begin(level, metricId, levelTable, column);
+        for (int i = 0; i < viewLevel.numberOfRows; i++)
+        {
+            final int row = viewLevel.rows[i];
+            if (column.hasValue(row))
+            {
+                selector.offer(column.getDoubleValue(row), row);
+            }
+        }
+    }
+
+    /**
+     * @return the rows of the level added through this view, ascending.
+     */
+    int[] getRows(final IMetricLevel level)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        return viewLevel == null ? new int[0] : Arrays.copyOf(viewLevel.rows, viewLevel.numberOfRows);
+    }
+
+    /**
+     * @return the elements of the rows of the level added through this view, in the order of {@link #getRows(IMetricLevel)}.
+     */
+    List<INamedElement> getElements(final IMetricLevel level)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        if (viewLevel == null)
+        {
+            return Collections.emptyList();
+        }
+        final LevelTable levelTable = store.getLevelTable(level);
+        final List<INamedElement> elements = new ArrayList<>(viewLevel.numberOfRows);
+        for (int i = 0; i < viewLevel.numberOfRows; i++)
+        {
+            elements.add(levelTable.getElement(viewLevel.rows[i]));
+        }
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * @return true if the column (i.e. of a derived metric id) has a value for at least one row of the level added through this view.
+     */
+    boolean hasValue(final IMetricLevel level, final MetricColumn column)
+    {
+        final ViewLevel viewLevel = levels.get(level);
+        if (viewLevel != null)
+        {
+            for (int i = 0; i < viewLevel.numberOfRows; i++)
+            {
+                if (column.hasValue(viewLevel.rows[i]))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rows of a level table added through this view, kept sorted for binary search.
+     * Rows are usually added in ascending order since the readers add the values of a container in one go.
+     */
+    private static final class ViewLevel implements Serializable
+    {
+        private static final long serialVersionUID = 6453905018939287155L;
+        private final Set<IMetricId> metricIds = new LinkedHashSet<>();
+        private int[] rows = new int[8];
+        private int numberOfRows = 0;
+
+        ViewLevel()
+        {
+            super();
+        }
+
+        void addRow(final int row)
+        {
+            if (numberOfRows == 0 || row > rows[numberOfRows - 1])
+            {
+                ensureCapacity();
+                rows[numberOfRows++] = row;
+                return;
+            }
+            final int index = Arrays.binarySearch(rows, 0, numberOfRows, row);
+            if (index < 0)
+            {
+                final int insertAt = -index - 1;
+                ensureCapacity();
+                System.arraycopy(rows, insertAt, rows, insertAt + 1, numberOfRows - insertAt);
+                rows[insertAt] = row;
+                numberOfRows++;
+            }
+        }
+
+        boolean containsRow(final int row)
+        {
+            return row >= 0 && Arrays.binarySearch(rows, 0, numberOfRows, row) >= 0;
+        }
+
+        private void ensureCapacity()
+        {
+            if (numberOfRows == rows.length)
+            {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+        }
+    }
+
+    /**
+     * Read-only map of the values of one metric id, backed by the shared column.
+     */
+    private static final class ColumnValueMap extends AbstractMap<INamedElement, IMetricValue>
+    {
+        private final IMetricLevel level;
+        private final IMetricId metricId;
+        private final LevelTable levelTable;
+        private final MetricColumn column;
+        private final ViewLevel viewLevel;
+        //Counted once, the view is not modified after loading
+        private final int size;
+
+        ColumnValueMap(final IMetricLevel level, final IMetricId metricId, final LevelTable levelTable, final MetricColumn column,
+                final ViewLevel viewLevel)
+        {
+            this.level = level;
+            this.metricId = metricId;
+            this.levelTable = levelTable;
+            this.column = column;
+            this.viewLevel = viewLevel;
+
+            int count = 0;
+            for (int i = 0; i < viewLevel.numberOfRows; i++)
+            {
+                if (column.hasValue(viewLevel.rows[i]))
+                {
+                    count++;
+                }
+            }
+            size = count;
+        }
+
+        private int getRow(final Object key)
+        {
+            final int row = key instanceof INamedElement ? levelTable.getRow(key) : -1;
+            return viewLevel.containsRow(row) && column.hasValue(row) ? row : -1;
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        @Override
+        public boolean containsKey(final Object key)
+        {
+            return getRow(key) >= 0;
+        }
+
+        @Override
+        public IMetricValue get(final Object key)
+        {
+            final int row = getRow(key);
+            return row >= 0 ? new MetricValueImpl(metricId, level, column.getValue(row)) : null;
+        }
+
+        @Override
+        public Set<Map.Entry<INamedElement, IMetricValue>> entrySet()
+        {
+            return new AbstractSet<Map.Entry<INamedElement, IMetricValue>>()
+            {
+                @Override
+                public int size()
+                {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<INamedElement, IMetricValue>> iterator()
+                {
+                    return new EntryIterator();
+                }
+            };
+        }
+
+        private final class EntryIterator implements Iterator<Map.Entry<INamedElement, IMetricValue>>
+        {
+            private int nextIndex = advance(0);
+
+            private int advance(final int from)
+            {
+                int index = from;
+                while (index < viewLevel.numberOfRows && !column.hasValue(viewLevel.rows[index]))
+                {
+                    index++;
+                }
+                return index;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return nextIndex < viewLevel.numberOfRows;
+            }
+
+            @Override
+            public Map.Entry<INamedElement, IMetricValue> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                final int row = viewLevel.rows[nextIndex];
+                nextIndex = advance(nextIndex + 1);
+                return new AbstractMap.SimpleImmutableEntry<>(levelTable.getElement(row),
+                        new MetricValueImpl(metricId, level, column.getValue(row)));
+            }
+        }
+    }
+}
@@ -17,12 +17,15 @@
  */
 package com.hello2morrow.sonargraph.integration.access.model.internal;
 
+import java.io.Serializable;
 import java.util.Comparator;
 
 import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
 
-final class NamedElementComparator implements Comparator<INamedElement>
+final class NamedElementComparator implements Comparator<INamedElement>, Serializable
 {
+    private static final long serialVersionUID = -6512034466232164185L;
+
     NamedElementComparator()
     {
         super();
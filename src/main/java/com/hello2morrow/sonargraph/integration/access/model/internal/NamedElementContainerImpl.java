@@ -17,7 +17,7 @@
  */
 package com.hello2morrow.sonargraph.integration.access.model.internal;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -26,8 +26,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.BiConsumer;
 
-import com.hello2morrow.sonargraph.integration.access.model.IElement;
 import com.hello2morrow.sonargraph.integration.access.model.ILogicalNamespace;
 import com.hello2morrow.sonargraph.integration.access.model.ILogicalProgrammingElement;
 import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
@@ -39,12 +39,15 @@ import com.hello2morrow.sonargraph.integration.access.model.INamedElementContain
 public abstract class NamedElementContainerImpl extends NamedElementImpl implements INamedElementContainer
 {
     private static final long serialVersionUID = 995206422502257231L;
-    private final Map<IMetricLevel, HashMap<IMetricId, HashMap<INamedElement, IMetricValue>>> metricValues = new HashMap<>();
-    private final Map<String, Set<INamedElement>> kindToNamedElements = new HashMap<>();
-    private final Set<LogicalNamespaceImpl> logicalNamespaces = new TreeSet<>(new NamedElementComparator());
-    private final Set<LogicalProgrammingElementImpl> logicalProgrammingElements = new TreeSet<>(new NamedElementComparator());
+    //Replaced by immutable array backed structures on freeze()
+    private Map<String, Set<INamedElement>> kindToNamedElements = new HashMap<>();
+    private Set<ILogicalNamespace> logicalNamespaces = new TreeSet<>(new NamedElementComparator());
+    private Set<ILogicalProgrammingElement> logicalProgrammingElements = new TreeSet<>(new NamedElementComparator());
+    private boolean frozen;
+    private final BitSet elementOrdinals = new BitSet();
     private final MetaDataAccessImpl metaDataAccessImpl;
     private final NamedElementRegistry elementRegistryImpl;
+    private final MetricValueView metricValues;
 
     public NamedElementContainerImpl(final String kind, final String presentationKind, final String name, final String presentationName,
             final String fqName, final String description, final MetaDataAccessImpl metaDataAccessImpl, final NamedElementRegistry elementRegistryImpl)
@@ -54,6 +57,7 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
         assert elementRegistryImpl != null : "Parameter 'elementRegistryImpl' of method 'NamedElementContainerImpl' must not be null";
         this.metaDataAccessImpl = metaDataAccessImpl;
         this.elementRegistryImpl = elementRegistryImpl;
+        this.metricValues = new MetricValueView(elementRegistryImpl.getMetricValueStore());
     }
 
     public final MetaDataAccessImpl getMetaDataAccess()
@@ -66,9 +70,34 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
         return elementRegistryImpl;
     }
 
+    /**
+     * Replaces the collections filled while loading by compact immutable ones. Must be called once the model is complete and before it is
+     * shared between threads, afterwards nothing can be added and all getters return the immutable collections without copying or
+     * wrapping them.
+     */
+    public void freeze()
+    {
+        if (frozen)
+        {
+            return;
+        }
+        final Map<String, Set<INamedElement>> frozenKindToNamedElements = new HashMap<>();
+        kindToNamedElements.forEach((kind, elements) -> frozenKindToNamedElements.put(kind, new FrozenSet<>(elements)));
+        kindToNamedElements = Collections.unmodifiableMap(frozenKindToNamedElements);
+        logicalNamespaces = new FrozenSet<>(logicalNamespaces);
+        logicalProgrammingElements = new FrozenSet<>(logicalProgrammingElements);
+        frozen = true;
+    }
+
+    public final boolean isFrozen()
+    {
+        return frozen;
+    }
+
     public final void addElement(final INamedElement element)
     {
         assert element != null : "Parameter 'element' of method 'addElement' must not be null";
+        assert !frozen : "Container is frozen: " + this;
 
         Set<INamedElement> namedElements = kindToNamedElements.get(element.getKind());
         if (namedElements == null)
@@ -77,6 +106,10 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
             kindToNamedElements.put(element.getKind(), namedElements);
         }
         namedElements.add(element);
+        if (element instanceof NamedElementImpl)
+        {
+            elementOrdinals.set(getElementRegistry().addOrdinal((NamedElementImpl) element));
+        }
         if (!element.isLocationOnly())
         {
             //'location-only' elements are never added to the registry - they are reachable through their refactored  counterparts and never have issues nor metrics 
@@ -87,27 +120,54 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
     public boolean hasElement(final INamedElement element)
     {
         assert element != null : "Parameter 'element' of method 'hasElement' must not be null";
+        final int ordinal = elementRegistryImpl.findOrdinal(element);
+        if (ordinal >= 0)
+        {
+            return elementOrdinals.get(ordinal);
+        }
         final Set<INamedElement> namedElements = kindToNamedElements.get(element.getKind());
         return namedElements != null ? namedElements.contains(element) : false;
     }
 
+    /**
+     * @return the ordinal of the element within the software system or -1 if the system does not contain it (or an equal element).
+     */
+    public final int getOrdinal(final INamedElement element)
+    {
+        assert element != null : "Parameter 'element' of method 'getOrdinal' must not be null";
+        return elementRegistryImpl.findOrdinal(element);
+    }
+
+    /**
+     * @return copy of the ordinals of all elements of this container
+     */
+    public final BitSet getElementOrdinals()
+    {
+        return (BitSet) elementOrdinals.clone();
+    }
+
     @Override
     public final Set<INamedElement> getElements(final String elementKind)
     {
         assert elementKind != null && elementKind.length() > 0 : "Parameter 'elementKind' of method 'getElements' must not be empty";
         final Set<INamedElement> namedElements = kindToNamedElements.get(elementKind);
-        return namedElements != null ? Collections.unmodifiableSet(namedElements) : Collections.emptySet();
+        if (namedElements == null)
+        {
+            return Collections.emptySet();
+        }
+        return frozen ? namedElements : Collections.unmodifiableSet(namedElements);
     }
 
     @Override
     public final Set<String> getElementKinds()
     {
-        return Collections.unmodifiableSet(kindToNamedElements.keySet());
+        return frozen ? kindToNamedElements.keySet() : Collections.unmodifiableSet(kindToNamedElements.keySet());
     }
 
     public final void addLogicalNamespace(final LogicalNamespaceImpl logicalNamespaceImpl)
     {
         assert logicalNamespaceImpl != null : "Parameter 'logicalNamespaceImpl' of method 'addLogicalNamespace' must not be null";
+        assert !frozen : "Container is frozen: " + this;
         final boolean success = logicalNamespaces.add(logicalNamespaceImpl);
         assert success : "Logical namespace already added: " + logicalNamespaceImpl;
     }
@@ -115,6 +175,7 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
     public final void addLogicalProgrammingElement(final LogicalProgrammingElementImpl logicalProgrammingElementImpl)
     {
         assert logicalProgrammingElementImpl != null : "Parameter 'logicalProgrammingElementImpl' of method 'addLogicalProgrammingElement' must not be null";
+        assert !frozen : "Container is frozen: " + this;
         final boolean success = logicalProgrammingElements.add(logicalProgrammingElementImpl);
         assert success : "Logical programming element already added: " + logicalProgrammingElementImpl;
     }
@@ -122,48 +183,48 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
     @Override
     public final Set<ILogicalNamespace> getLogicalNamespaces()
     {
-        return Collections.unmodifiableSet(logicalNamespaces);
+        return frozen ? logicalNamespaces : Collections.unmodifiableSet(logicalNamespaces);
     }
 
     @Override
     public final Set<ILogicalProgrammingElement> getLogicalProgrammingElements()
     {
-        return Collections.unmodifiableSet(logicalProgrammingElements);
+        return frozen ? logicalProgrammingElements : Collections.unmodifiableSet(logicalProgrammingElements);
     }
 
     public final void addMetricValueForElement(final IMetricValue value, final INamedElement element)
     {
         assert value != null : "Parameter 'value' of method 'addMetricValue' must not be null";
-        final IMetricId metricId = value.getId();
-        assert metaDataAccessImpl.getMetricIds().containsKey(metricId.getName()) : "MetricId '" + metricId.getName() + "'has not been added";
-        assert element != null : "Parameter 'element' of method 'addMetricValueForElement' must not be null";
+        addMetricValueForElement(value.getId(), value.getLevel(), element, value.getValue());
+    }
 
-        final IMetricLevel level = value.getLevel();
-        assert metaDataAccessImpl.getMetricLevels().containsKey(level.getName()) : "Level '" + level.getName() + "' has not been added";
+    public final void addMetricValueForElement(final IMetricId metricId, final IMetricLevel level, final INamedElement element, final Number value)
+    {
+        assert value != null : "Parameter 'value' of method 'addMetricValueForElement' must not be null";
+        assert isValidMetricValue(metricId, level, element);
+        metricValues.addValue(level, metricId, element, value);
+    }
 
-        final HashMap<IMetricId, HashMap<INamedElement, IMetricValue>> valuesOfLevel;
-        if (!metricValues.containsKey(level))
-        {
-            valuesOfLevel = new HashMap<>();
-            metricValues.put(level, valuesOfLevel);
-        }
-        else
-        {
-            valuesOfLevel = metricValues.get(level);
-        }
+    public final void addMetricValueForElement(final IMetricId metricId, final IMetricLevel level, final INamedElement element, final int value)
+    {
+        assert isValidMetricValue(metricId, level, element);
+        metricValues.addValue(level, metricId, element, value);
+    }
 
-        final HashMap<INamedElement, IMetricValue> valuesForMetric;
-        if (!valuesOfLevel.containsKey(metricId))
-        {
-            valuesForMetric = new HashMap<>();
-            valuesOfLevel.put(metricId, valuesForMetric);
-        }
-        else
-        {
-            valuesForMetric = valuesOfLevel.get(metricId);
-        }
+    public final void addMetricValueForElement(final IMetricId metricId, final IMetricLevel level, final INamedElement element, final float value)
+    {
+        assert isValidMetricValue(metricId, level, element);
+        metricValues.addValue(level, metricId, element, value);
+    }
 
-        valuesForMetric.put(element, value);
+    private boolean isValidMetricValue(final IMetricId metricId, final IMetricLevel level, final INamedElement element)
+    {
+        assert metricId != null : "Parameter 'metricId' of method 'addMetricValueForElement' must not be null";
+        assert metaDataAccessImpl.getMetricIds().containsKey(metricId.getName()) : "MetricId '" + metricId.getName() + "'has not been added";
+        assert level != null : "Parameter 'level' of method 'addMetricValueForElement' must not be null";
+        assert metaDataAccessImpl.getMetricLevels().containsKey(level.getName()) : "Level '" + level.getName() + "' has not been added";
+        assert element != null : "Parameter 'element' of method 'addMetricValueForElement' must not be null";
+        return true;
     }
 
     public final Optional<IMetricValue> getMetricValueForElement(final IMetricId metricId, final IMetricLevel metricLevel, final String elementName)
@@ -171,13 +232,7 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
         assert metricId != null : "Parameter 'metricId' of method 'getMetricValueForElement' must not be null";
         assert elementName != null && elementName.length() > 0 : "Parameter 'elementName' of method 'getMetricValueForElement' must not be empty";
 
-        if (!metricValues.containsKey(metricLevel))
-        {
-            return Optional.empty();
-        }
-
-        final HashMap<IMetricId, HashMap<INamedElement, IMetricValue>> metricIdsOfLevel = metricValues.get(metricLevel);
-        if (!metricIdsOfLevel.containsKey(metricId))
+        if (metricLevel == null)
         {
             return Optional.empty();
         }
@@ -188,14 +243,7 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
             return Optional.empty();
         }
 
-        final IElement namedElement = element.get();
-        final Map<INamedElement, IMetricValue> valuesForMetricId = metricIdsOfLevel.get(metricId);
-        if (!valuesForMetricId.containsKey(namedElement))
-        {
-            return Optional.empty();
-        }
-
-        return Optional.of(valuesForMetricId.get(namedElement));
+        return metricValues.getValue(metricLevel, metricId, element.get());
     }
 
     public final void addMetricLevel(final IMetricLevel level)
@@ -212,11 +260,7 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
     public List<IMetricId> getMetricIdsForLevel(final IMetricLevel metricLevel)
     {
         assert metricLevel != null : "Parameter 'metricLevel' of method 'getMetricIdsForLevel' must not be null";
-        if (!metricValues.containsKey(metricLevel))
-        {
-            return Collections.emptyList();
-        }
-        return Collections.unmodifiableList(new ArrayList<>(metricValues.get(metricLevel).keySet()));
+        return metricValues.getMetricIds(metricLevel);
     }
 
     public Map<INamedElement, IMetricValue> getMetricValues(final String metricLevel, final String metricId)
@@ -231,35 +275,75 @@ public abstract class NamedElementContainerImpl extends NamedElementImpl impleme
         }
 
         final IMetricLevel level = metricLevels.get(metricLevel);
-        final HashMap<IMetricId, HashMap<INamedElement, IMetricValue>> metricIdValueMap = metricValues.get(level);
-
-        final Optional<IMetricId> optionalId = metricIdValueMap.keySet().stream().filter((final IMetricId id) -> id.getName().equals(metricId))
-                .findAny();
-
+        final Optional<IMetricId> optionalId = metricValues.getMetricId(level, metricId);
         if (!optionalId.isPresent())
         {
             return Collections.emptyMap();
         }
 
-        return Collections.unmodifiableMap(metricIdValueMap.get(optionalId.get()));
+        return metricValues.getValues(level, optionalId.get());
     }
 
-    public Map<INamedElement, IMetricValue> getMetricValues(final IMetricLevel metricLevel, final IMetricId metricId)
+    /**
+     * @return the values of the metric id for the elements of this container as primitives, for computations over many values.
+     */
+    public final double[] getMetricValuesAsDoubles(final IMetricLevel metricLevel, final IMetricId metricId)
     {
-        assert metricLevel != null : "Parameter 'metricLevel' of method 'getMetricValues' must not be null";
-        assert metricId != null : "Parameter 'metricId' of method 'getMetricValues' must not be null";
+        assert metricLevel != null : "Parameter 'metricLevel' of method 'getMetricValuesAsDoubles' must not be null";
+        assert metricId != null : "Parameter 'metricId' of method 'getMetricValuesAsDoubles' must not be null";
+        return metricValues.getDoubleValues(metricLevel, metricId);
+    }
 
-        if (!metricValues.containsKey(metricLevel))
-        {
-            return Collections.emptyMap();
-        }
+    /**
+     * @return the rows of the shared metric value store holding the elements of this container on the level, ascending.
+     */
+    public final int[] getMetricValueRows(final IMetricLevel metricLevel)
+    {
+        assert metricLevel != null : "Parameter 'metricLevel' of method 'getMetricValueRows' must not be null";
+        return metricValues.getRows(metricLevel);
+    }
 
-        final HashMap<IMetricId, HashMap<INamedElement, IMetricValue>> metricIdValueMap = metricValues.get(metricLevel);
-        if (!metricIdValueMap.containsKey(metricId))
-        {
-            return Collections.emptyMap();
-        }
+    /**
+     * @return the elements of this container having values on the level, in the order of {@link #getMetricValueRows(IMetricLevel)}.
+     */
+    public final List<INamedElement> getMetricValueElements(final IMetricLevel metricLevel)
+    {
+        assert metricLevel != null : "Parameter 'metricLevel' of method 'getMetricValueElements' must not be null";
+        return metricValues.getElements(metricLevel);
+    }
+
+    final MetricValueView getMetricValueView()
+    {
+        return metricValues;
+    }
 
-        return Collections.unmodifiableMap(metricIdValueMap.get(metricId));
+    /**
+     * Passes the elements of this container having a value of the metric id outside of [lowerBound, upperBound] to the consumer.
+     */
+    public final void forEachMetricValueOutside(final IMetricLevel metricLevel, final IMetricId metricId, final double lowerBound,
+            final double upperBound, final BiConsumer<INamedElement, Number> consumer)
+    {
+        assert metricLevel != null : "Parameter 'metricLevel' of method 'forEachMetricValueOutside' must not be null";
+        assert metricId != null : "Parameter 'metricId' of method 'forEachMetricValueOutside' must not be null";
+        assert consumer != null : "Parameter 'consumer' of method 'forEachMetricValueOutside' must not be null";
+        metricValues.forEachValueOutside(metricLevel, metricId, lowerBound, upperBound, consumer);
+    }
+
+    /**
+     * Offers the values of the metric id for the elements of this container to the selector.
+     */
+    public final void selectMetricValues(final IMetricLevel metricLevel, final IMetricId metricId, final MetricValueSelector selector)
+    {
+        assert metricLevel != null : "Parameter 'metricLevel' of method 'selectMetricValues' must not be null";
+        assert metricId != null : "Parameter 'metricId' of method 'selectMetricValues' must not be null";
+        assert selector != null : "Parameter 'selector' of method 'selectMetricValues' must not be null";
+        metricValues.select(metricLevel, metricId, selector);
+    }
+
+    public Map<INamedElement, IMetricValue> getMetricValues(final IMetricLevel metricLevel, final IMetricId metricId)
+    {
+        assert metricLevel != null : "Parameter 'metricLevel' of method 'getMetricValues' must not be null";
+        assert metricId != null : "Parameter 'metricId' of method 'getMetricValues' must not be null";
+        return metricValues.getValues(metricLevel, metricId);
     }
-}
\ No newline at end of file
+}
@@ -27,7 +27,10 @@ public class NamedElementImpl extends ElementWithDescriptionImpl implements INam
 
     private final String kind;
     private final String presentationKind;
-    private final String fqName;
+    //Exactly one of them is set
+    private String fqName;
+    private FqName compactFqName;
+    private int ordinal = -1;
 
     protected NamedElementImpl(final String kind, final String presentationKind, final String name, final String presentationName,
             final String fqName, final String description)
@@ -55,7 +58,74 @@ public class NamedElementImpl extends ElementWithDescriptionImpl implements INam
     @Override
     public final String getFqName()
     {
-        return fqName;
+        return fqName != null ? fqName : compactFqName.toString();
+    }
+
+    /**
+     * Replaces the fully qualified name by an equal compact name sharing its prefix with other elements.
+     * Must be called before the element is used, {@link #getFqName()} then materializes the name on each call.
+     */
+    public final void setCompactFqName(final FqName compactFqName)
+    {
+        assert compactFqName != null : "Parameter 'compactFqName' of method 'setCompactFqName' must not be null";
+        assert compactFqName.matches(getFqName()) : "Compact name '" + compactFqName + "' differs from '" + getFqName() + "'";
+        this.compactFqName = compactFqName;
+        fqName = null;
+    }
+
+    public final boolean hasCompactFqName()
+    {
+        return compactFqName != null;
+    }
+
+    public final FqName getCompactFqName()
+    {
+        assert compactFqName != null : "Element has no compact fq name: " + fqName;
+        return compactFqName;
+    }
+
+    /**
+     * @return same as getFqName().hashCode(), without materializing a compact name.
+     */
+    public final int getFqNameHashCode()
+    {
+        return fqName != null ? fqName.hashCode() : compactFqName.hashCode();
+    }
+
+    /**
+     * @return same as getFqName().equals(fqName), without materializing a compact name.
+     */
+    public final boolean hasFqName(final String fqName)
+    {
+        return this.fqName != null ? this.fqName.equals(fqName) : compactFqName.matches(fqName);
+    }
+
+    /**
+     * @return the dense number of the element within its software system or -1 if it has not been added to one.
+     */
+    public final int getOrdinal()
+    {
+        return ordinal;
+    }
+
+    final void setOrdinal(final int ordinal)
+    {
+        assert ordinal >= 0 : "Parameter 'ordinal' of method 'setOrdinal' must not be negative";
+        assert this.ordinal == -1 : "Ordinal has already been set: " + this;
+        this.ordinal = ordinal;
+    }
+
+    private boolean hasSameFqName(final NamedElementImpl other)
+    {
+        if (other.fqName != null)
+        {
+            return hasFqName(other.fqName);
+        }
+        if (fqName != null)
+        {
+            return other.hasFqName(fqName);
+        }
+        return compactFqName.equals(other.compactFqName);
     }
 
     @Override
@@ -81,7 +151,7 @@ public class NamedElementImpl extends ElementWithDescriptionImpl implements INam
     {
         final int prime = 31;
         int result = super.hashCode();
-        result = prime * result + fqName.hashCode();
+        result = prime * result + getFqNameHashCode();
         result = prime * result + (isLocationOnly() ? 1 : 0);
         return result;
     }
@@ -99,7 +169,7 @@ public class NamedElementImpl extends ElementWithDescriptionImpl implements INam
         }
 
         final NamedElementImpl other = (NamedElementImpl) obj;
-        return fqName.equals(other.fqName) && isLocationOnly() == other.isLocationOnly();
+        return hasSameFqName(other) && isLocationOnly() == other.isLocationOnly();
     }
 
     @Override
@@ -109,7 +179,7 @@ public class NamedElementImpl extends ElementWithDescriptionImpl implements INam
         builder.append("\n");
         builder.append("kind:").append(kind);
         builder.append("\n");
-        builder.append("fqName:").append(fqName);
+        builder.append("fqName:").append(getFqName());
         builder.append("\n");
         builder.append("isLocationOnly:").append(isLocationOnly());
 
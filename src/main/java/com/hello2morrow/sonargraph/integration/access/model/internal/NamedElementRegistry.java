@@ -18,16 +18,26 @@
 package com.hello2morrow.sonargraph.integration.access.model.internal;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Optional;
 
 import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
 
+/**
+ * Finds elements by fully qualified name. Elements are stored in an open addressing table probed with the hash code of the name, so no
+ * name strings are held as keys - elements with a compact name ({@link FqName}) are never materialized.
+ * Additionally every element added to a container of the system gets a dense ordinal, so per element data can be kept in arrays and
+ * bit sets indexed by it.
+ */
 final class NamedElementRegistry implements Serializable
 {
     private static final long serialVersionUID = -947650961500421692L;
-    private final Map<String, INamedElement> fqNameToElementMap = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 64;
+    private INamedElement[] table = new INamedElement[INITIAL_CAPACITY];
+    private int size;
+    private NamedElementImpl[] elementsByOrdinal = new NamedElementImpl[INITIAL_CAPACITY];
+    private int numberOfOrdinals;
+    private final MetricValueStore metricValueStore = new MetricValueStore();
 
     NamedElementRegistry()
     {
@@ -37,13 +47,143 @@ final class NamedElementRegistry implements Serializable
     void addElement(final INamedElement namedElement)
     {
         assert namedElement != null : "Parameter 'namedElement' of method 'addElement' must not be null";
-        assert !fqNameToElementMap.containsKey(namedElement.getFqName()) : "namedElement '" + namedElement.getFqName() + "' has already been added";
-        fqNameToElementMap.put(namedElement.getFqName(), namedElement);
+        assert !getElement(namedElement.getFqName()).isPresent() : "namedElement '" + namedElement.getFqName() + "' has already been added";
+
+        if (2 * (size + 1) > table.length)
+        {
+            final INamedElement[] previous = table;
+            table = new INamedElement[previous.length * 2];
+            for (final INamedElement next : previous)
+            {
+                if (next != null)
+                {
+                    insert(next);
+                }
+            }
+        }
+        insert(namedElement);
+        size++;
     }
 
     Optional<INamedElement> getElement(final String fqName)
     {
         assert fqName != null && fqName.length() > 0 : "Parameter 'fqName' of method 'getElement' must not be empty";
-        return fqNameToElementMap.containsKey(fqName) ? Optional.of(fqNameToElementMap.get(fqName)) : Optional.empty();
+
+        final int mask = table.length - 1;
+        for (int index = spread(fqName.hashCode()) & mask;; index = (index + 1) & mask)
+        {
+            final INamedElement next = table[index];
+            if (next == null)
+            {
+                return Optional.empty();
+            }
+            if (hasFqName(next, fqName))
+            {
+                return Optional.of(next);
+            }
+        }
+    }
+
+    /**
+     * Assigns the next ordinal to the element if it does not have one yet.
+     * @return the ordinal of the element
+     */
+    int addOrdinal(final NamedElementImpl namedElement)
+    {
+        assert namedElement != null : "Parameter 'namedElement' of method 'addOrdinal' must not be null";
+        final int existing = getOrdinal(namedElement);
+        if (existing >= 0)
+        {
+            return existing;
+        }
+        if (numberOfOrdinals == elementsByOrdinal.length)
+        {
+            elementsByOrdinal = Arrays.copyOf(elementsByOrdinal, numberOfOrdinals * 2);
+        }
+        final int ordinal = numberOfOrdinals++;
+        namedElement.setOrdinal(ordinal);
+        elementsByOrdinal[ordinal] = namedElement;
+        return ordinal;
+    }
+
+    /**
+     * @return the ordinal of the element or -1 if the element is not part of this system.
+     */
+    int getOrdinal(final INamedElement namedElement)
+    {
+        if (namedElement instanceof NamedElementImpl)
+        {
+            final int ordinal = ((NamedElementImpl) namedElement).getOrdinal();
+            if (ordinal >= 0 && ordinal < numberOfOrdinals && elementsByOrdinal[ordinal] == namedElement)
+            {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #getOrdinal(INamedElement)}, but also finds the ordinal of an equal element of this system, e.g. for an element of
+     * another loaded report.
+     */
+    int findOrdinal(final INamedElement namedElement)
+    {
+        assert namedElement != null : "Parameter 'namedElement' of method 'findOrdinal' must not be null";
+        final int ordinal = getOrdinal(namedElement);
+        if (ordinal >= 0 || namedElement.isLocationOnly())
+        {
+            return ordinal;
+        }
+        final Optional<INamedElement> equal = getElement(namedElement.getFqName());
+        return equal.isPresent() && equal.get().equals(namedElement) ? getOrdinal(equal.get()) : -1;
+    }
+
+    NamedElementImpl getElement(final int ordinal)
+    {
+        assert ordinal >= 0 && ordinal < numberOfOrdinals : "Parameter 'ordinal' of method 'getElement' is out of range: " + ordinal;
+        return elementsByOrdinal[ordinal];
+    }
+
+    int getNumberOfElements()
+    {
+        return size;
+    }
+
+    int getNumberOfOrdinals()
+    {
+        return numberOfOrdinals;
+    }
+
+    MetricValueStore getMetricValueStore()
+    {
+        return metricValueStore;
+    }
+
+    private void insert(final INamedElement namedElement)
+    {
+        final int mask = table.length - 1;
+        int index = spread(getFqNameHashCode(namedElement)) & mask;
+        while (table[index] != null)
+        {
+            index = (index + 1) & mask;
+        }
+        table[index] = namedElement;
+    }
+
+    private static int spread(final int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int getFqNameHashCode(final INamedElement namedElement)
+    {
+        return namedElement instanceof NamedElementImpl ? ((NamedElementImpl) namedElement).getFqNameHashCode()
+                : namedElement.getFqName().hashCode();
+    }
+
+    private static boolean hasFqName(final INamedElement namedElement, final String fqName)
+    {
+        return namedElement instanceof NamedElementImpl ? ((NamedElementImpl) namedElement).hasFqName(fqName)
+                : namedElement.getFqName().equals(fqName);
     }
-}
\ No newline at end of file
+}
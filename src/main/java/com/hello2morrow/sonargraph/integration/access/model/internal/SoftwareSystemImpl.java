@@ -18,6 +18,7 @@
 package com.hello2morrow.sonargraph.integration.access.model.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -50,20 +51,28 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 {
     private static final long serialVersionUID = -4666348701032432246L;
 
+    //Average retained bytes, fitted to the heap retained by the C++ and Java test reports
+    private static final long SYSTEM_BYTES = 160 * 1024;
+    private static final long ELEMENT_BYTES = 400;
+    private static final long ISSUE_BYTES = 500;
+    private static final long METRIC_VALUE_BYTES = 24;
     private final Map<String, ModuleImpl> modules = new LinkedHashMap<>();
     private final Map<String, ExternalImpl> externals = new LinkedHashMap<>();
-    private final Map<String, IIssueProvider> issueProviders = new HashMap<>();
-    private final Map<String, IIssueType> issueTypes = new HashMap<>();
-    private final Map<IIssueType, List<IIssue>> issueMap = new HashMap<>();
-    private final Map<String, IAnalyzer> analyzerMap = new HashMap<>();
-    private final Map<String, IFeature> featuresMap = new HashMap<>();
-    private final List<String> duplicateCodeConfigurationEntries = new ArrayList<>();
-    private final List<String> scriptRunnerConfigurationEntries = new ArrayList<>();
-    private final List<String> architectureCheckConfigurationEntries = new ArrayList<>();
-    private final List<IMetricThreshold> thresholds = new ArrayList<>();
-    private final Map<ResolutionType, ArrayList<IResolution>> resolutionMap = new EnumMap<>(ResolutionType.class);
+    //Replaced by immutable array backed structures on freeze()
+    private Map<String, IModule> modulesByName;
+    private Map<String, IExternal> externalsByName;
+    private Map<String, IIssueProvider> issueProviders = new HashMap<>();
+    private Map<String, IIssueType> issueTypes = new HashMap<>();
+    private Map<IIssueType, List<IIssue>> issueMap = new HashMap<>();
+    private Map<String, IAnalyzer> analyzerMap = new HashMap<>();
+    private Map<String, IFeature> featuresMap = new HashMap<>();
+    private List<String> duplicateCodeConfigurationEntries = new ArrayList<>();
+    private List<String> scriptRunnerConfigurationEntries = new ArrayList<>();
+    private List<String> architectureCheckConfigurationEntries = new ArrayList<>();
+    private List<IMetricThreshold> thresholds = new ArrayList<>();
+    private Map<ResolutionType, List<IResolution>> resolutionMap = new EnumMap<>(ResolutionType.class);
     private final Map<IIssue, IResolution> issueToResolution = new HashMap<>();
-    private final Map<NamedElementImpl, SourceFileImpl> namedElementToSourceFile = new HashMap<>();
+    private SourceFileImpl[] sourceFileByOrdinal = new SourceFileImpl[0];
 
     private final String systemId;
     private final String path;
@@ -131,9 +140,51 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
         return timestamp;
     }
 
+    /**
+     * Freezes the system and all of its modules and externals, see {@link NamedElementContainerImpl#freeze()}.
+     * Derived metrics added afterwards ({@link #addDerivedMetric(MetricIdImpl, Map)}) do not modify the frozen model, they are published as
+     * an immutable snapshot.
+     */
+    @Override
+    public void freeze()
+    {
+        if (isFrozen())
+        {
+            return;
+        }
+        modules.values().forEach(ModuleImpl::freeze);
+        externals.values().forEach(ExternalImpl::freeze);
+        modulesByName = getModules();
+        externalsByName = getExternals();
+        issueProviders = Collections.unmodifiableMap(issueProviders);
+        issueTypes = Collections.unmodifiableMap(issueTypes);
+        final Map<IIssueType, List<IIssue>> frozenIssueMap = new HashMap<>();
+        issueMap.forEach((type, issues) -> frozenIssueMap.put(type, freeze(issues)));
+        issueMap = Collections.unmodifiableMap(frozenIssueMap);
+        analyzerMap = Collections.unmodifiableMap(analyzerMap);
+        featuresMap = Collections.unmodifiableMap(featuresMap);
+        duplicateCodeConfigurationEntries = freeze(duplicateCodeConfigurationEntries);
+        scriptRunnerConfigurationEntries = freeze(scriptRunnerConfigurationEntries);
+        architectureCheckConfigurationEntries = freeze(architectureCheckConfigurationEntries);
+        thresholds = freeze(thresholds);
+        final Map<ResolutionType, List<IResolution>> frozenResolutionMap = new EnumMap<>(ResolutionType.class);
+        resolutionMap.forEach((type, resolutions) -> frozenResolutionMap.put(type, freeze(resolutions)));
+        resolutionMap = Collections.unmodifiableMap(frozenResolutionMap);
+        super.freeze();
+    }
+
+    private static <T> List<T> freeze(final List<T> list)
+    {
+        return Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
     @Override
     public Map<String, IModule> getModules()
     {
+        if (modulesByName != null)
+        {
+            return modulesByName;
+        }
         final Map<String, IModule> map = new LinkedHashMap<>();
         modules.values().stream().forEach((final IModule module) -> map.put(module.getName(), module));
         return Collections.unmodifiableMap(map);
@@ -154,12 +205,14 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public void addModule(final ModuleImpl moduleImpl)
     {
+        assert !isFrozen() : "System is frozen";
         assert moduleImpl != null : "Parameter 'moduleImpl' of method 'addModule' must not be null";
         modules.put(moduleImpl.getFqName(), moduleImpl);
     }
 
     public void addExternal(final ExternalImpl externalImpl)
     {
+        assert !isFrozen() : "System is frozen";
         assert externalImpl != null : "Parameter 'externalImpl' of method 'addExternal' must not be null";
         externals.put(externalImpl.getFqName(), externalImpl);
     }
@@ -167,6 +220,10 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
     @Override
     public Map<String, IExternal> getExternals()
     {
+        if (externalsByName != null)
+        {
+            return externalsByName;
+        }
         final Map<String, IExternal> map = new LinkedHashMap<>();
         externals.values().stream().forEach((final IExternal external) -> map.put(external.getName(), external));
         return Collections.unmodifiableMap(map);
@@ -174,6 +231,7 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public void addIssueProvider(final IIssueProvider provider)
     {
+        assert !isFrozen() : "System is frozen";
         assert provider != null : "Parameter 'provider' of method 'addIssueProvider' must not be null";
         assert !issueProviders.containsKey(provider.getName()) : "IssueProvider '" + provider.getName() + "' has already been added";
         issueProviders.put(provider.getName(), provider);
@@ -184,7 +242,7 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
      */
     public Map<String, IIssueProvider> getIssueProviders()
     {
-        return Collections.unmodifiableMap(issueProviders);
+        return isFrozen() ? issueProviders : Collections.unmodifiableMap(issueProviders);
     }
 
     /**
@@ -192,11 +250,12 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
      */
     public Map<String, IIssueType> getIssueTypes()
     {
-        return Collections.unmodifiableMap(issueTypes);
+        return isFrozen() ? issueTypes : Collections.unmodifiableMap(issueTypes);
     }
 
     public void addIssueType(final IIssueType issueType)
     {
+        assert !isFrozen() : "System is frozen";
         assert issueType != null : "Parameter 'issueType' of method 'addIssueType' must not be null";
         assert !issueTypes.containsKey(issueType.getName()) : "issueType '" + issueType + "has already been added";
         issueTypes.put(issueType.getName(), issueType);
@@ -205,6 +264,7 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public void addIssue(final IIssue issue)
     {
+        assert !isFrozen() : "System is frozen";
         assert issue != null : "Parameter 'issue' of method 'addIssue' must not be null";
         assert issueMap.containsKey(issue.getIssueType()) : "issueType '" + issue.getIssueType() + "' has not beend added";
         final List<IIssue> issues = issueMap.get(issue.getIssueType());
@@ -214,7 +274,7 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public Map<IIssueType, List<IIssue>> getIssues()
     {
-        return Collections.unmodifiableMap(issueMap);
+        return isFrozen() ? issueMap : Collections.unmodifiableMap(issueMap);
     }
 
     public void setNumberOfIssues(final int numberOfIssues)
@@ -229,6 +289,22 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
         return numberOfIssues;
     }
 
+    /**
+     * Rough estimate of the heap retained by this system, derived from the number of elements, issues and metric values.
+     * Meta data shared with other systems is not included. Good enough to budget a cache of systems, not a measurement.
+     */
+    public long estimateRetainedSize()
+    {
+        final NamedElementRegistry registry = getElementRegistry();
+        long numberOfIssues = 0;
+        for (final List<IIssue> next : issueMap.values())
+        {
+            numberOfIssues += next.size();
+        }
+        return SYSTEM_BYTES + (long) Math.max(registry.getNumberOfElements(), registry.getNumberOfOrdinals()) * ELEMENT_BYTES
+                + numberOfIssues * ISSUE_BYTES + registry.getMetricValueStore().getNumberOfCells() * METRIC_VALUE_BYTES;
+    }
+
     public void addMetricId(final IMetricId metricId)
     {
         assert metricId != null : "Parameter 'metricId' of method 'addMetricId' must not be null";
@@ -237,11 +313,102 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public Map<String, IMetricId> getMetricIds()
     {
-        return getMetaDataAccess().getMetricIds();
+        final DerivedMetrics derivedMetrics = getElementRegistry().getMetricValueStore().getDerivedMetrics();
+        return derivedMetrics.isEmpty() ? getMetaDataAccess().getMetricIds() : derivedMetrics.getMetricIds();
+    }
+
+    /**
+     * @return the values of the metric id for the given rows of the level (see {@link #getMetricValueRows(IMetricLevel)}), NaN for rows
+     *         without a value.
+     */
+    public double[] getMetricValuesForRows(final IMetricLevel level, final IMetricId metricId, final int[] rows)
+    {
+        assert level != null : "Parameter 'level' of method 'getMetricValuesForRows' must not be null";
+        assert metricId != null : "Parameter 'metricId' of method 'getMetricValuesForRows' must not be null";
+        assert rows != null : "Parameter 'rows' of method 'getMetricValuesForRows' must not be null";
+
+        final double[] values = new double[rows.length];
+        Arrays.fill(values, Double.NaN);
+        final MetricValueStore store = getElementRegistry().getMetricValueStore();
+        final MetricValueStore.LevelTable levelTable = store.getLevelTable(level);
+        final MetricValueStore.MetricColumn column = levelTable == null ? null
+                : metricId.isDerived() ? store.getDerivedMetrics().getColumn(level, metricId) : levelTable.getColumn(metricId);
+        if (column != null)
+        {
+            for (int i = 0; i < rows.length; i++)
+            {
+                if (column.hasValue(rows[i]))
+                {
+                    values[i] = column.getDoubleValue(rows[i]);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Adds the values of a metric id computed after loading.
+     * The values of each level are aligned with the rows of this system on that level (see {@link #getMetricValueRows(IMetricLevel)}),
+     * non-finite values are not stored. The loaded values and meta data are not modified: the new metric id, its values and the
+     * containers having values for it are added to a new {@link DerivedMetrics} snapshot, which replaces the previous one with a single
+     * volatile write. Queries running concurrently see either none or all of them.
+     */
+    public synchronized void addDerivedMetric(final MetricIdImpl metricId, final Map<IMetricLevel, double[]> valuesPerLevel)
+    {
+        assert metricId != null : "Parameter 'metricId' of method 'addDerivedMetric' must not be null";
+        assert metricId.isDerived() : "Parameter 'metricId' of method 'addDerivedMetric' must be derived";
+        assert valuesPerLevel != null : "Parameter 'valuesPerLevel' of method 'addDerivedMetric' must not be null";
+
+        final Map<IMetricLevel, MetricValueStore.MetricColumn> columns = new HashMap<>();
+        for (final Map.Entry<IMetricLevel, double[]> next : valuesPerLevel.entrySet())
+        {
+            final int[] rows = getMetricValueRows(next.getKey());
+            final double[] values = next.getValue();
+            assert rows.length == values.length : "Values of level '" + next.getKey().getName() + "' do not match the rows";
+
+            final MetricValueStore.MetricColumn column = new MetricValueStore.MetricColumn();
+            for (int i = 0; i < rows.length; i++)
+            {
+                if (Double.isFinite(values[i]))
+                {
+                    column.setValue(rows[i], values[i]);
+                }
+            }
+            columns.put(next.getKey(), column);
+        }
+
+        final Map<MetricValueView, List<IMetricLevel>> viewLevels = new HashMap<>();
+        addViewLevels(this, columns, viewLevels);
+        for (final IModule nextModule : getModules().values())
+        {
+            addViewLevels((ModuleImpl) nextModule, columns, viewLevels);
+        }
+
+        final MetricValueStore store = getElementRegistry().getMetricValueStore();
+        store.setDerivedMetrics(store.getDerivedMetrics().add(metricId, columns, viewLevels, getMetaDataAccess()));
+    }
+
+    private static void addViewLevels(final NamedElementContainerImpl container,
+            final Map<IMetricLevel, MetricValueStore.MetricColumn> columns, final Map<MetricValueView, List<IMetricLevel>> viewLevels)
+    {
+        final MetricValueView view = container.getMetricValueView();
+        final List<IMetricLevel> levels = new ArrayList<>();
+        columns.forEach((level, column) ->
+        {
+            if (view.hasValue(level, column))
+            {
+                levels.add(level);
+            }
+        });
+        if (!levels.isEmpty())
+        {
+            viewLevels.put(view, levels);
+        }
     }
 
     public void addAnalyzer(final IAnalyzer analyzer)
     {
+        assert !isFrozen() : "System is frozen";
         assert analyzer != null : "Parameter 'analyzer' of method 'addAnalyzer' must not be null";
         assert !analyzerMap.containsKey(analyzer.getName()) : "Analyzer '" + analyzer.getName() + "' has already been added";
         analyzerMap.put(analyzer.getName(), analyzer);
@@ -249,11 +416,12 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public Map<String, IAnalyzer> getAnalyzers()
     {
-        return Collections.unmodifiableMap(analyzerMap);
+        return isFrozen() ? analyzerMap : Collections.unmodifiableMap(analyzerMap);
     }
 
     public void addFeature(final IFeature feature)
     {
+        assert !isFrozen() : "System is frozen";
         assert feature != null : "Parameter 'feature' of method 'addFeature' must not be null";
         assert !featuresMap.containsKey(feature.getName()) : "Feature '" + feature.getName() + "' has already been added";
         featuresMap.put(feature.getName(), feature);
@@ -261,47 +429,51 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public Map<String, IFeature> getFeatures()
     {
-        return Collections.unmodifiableMap(featuresMap);
+        return isFrozen() ? featuresMap : Collections.unmodifiableMap(featuresMap);
     }
 
     public void addDuplicateCodeConfigurationEntry(final String entry)
     {
+        assert !isFrozen() : "System is frozen";
         assert entry != null && entry.length() > 0 : "Parameter 'entry' of method 'addDuplicateCodeConfigurationEntry' must not be empty";
         duplicateCodeConfigurationEntries.add(entry);
     }
 
     public List<String> getDuplicateCodeConfigurationEntries()
     {
-        return Collections.unmodifiableList(duplicateCodeConfigurationEntries);
+        return isFrozen() ? duplicateCodeConfigurationEntries : Collections.unmodifiableList(duplicateCodeConfigurationEntries);
     }
 
     public void addScriptRunnerConfigurationEntry(final String entry)
     {
+        assert !isFrozen() : "System is frozen";
         assert entry != null && entry.length() > 0 : "Parameter 'entry' of method 'addScriptRunnerConfigurationEntry' must not be empty";
         scriptRunnerConfigurationEntries.add(entry);
     }
 
     public List<String> getScriptRunnerConfigurationEntries()
     {
-        return Collections.unmodifiableList(scriptRunnerConfigurationEntries);
+        return isFrozen() ? scriptRunnerConfigurationEntries : Collections.unmodifiableList(scriptRunnerConfigurationEntries);
     }
 
     public void addArchitectureCheckConfigurationEntry(final String entry)
     {
+        assert !isFrozen() : "System is frozen";
         assert entry != null && entry.length() > 0 : "Parameter 'entry' of method 'addArchitectureCheckConfigurationEntry' must not be empty";
         architectureCheckConfigurationEntries.add(entry);
     }
 
     public List<String> getArchitectureCheckConfigurationEntries()
     {
-        return Collections.unmodifiableList(architectureCheckConfigurationEntries);
+        return isFrozen() ? architectureCheckConfigurationEntries : Collections.unmodifiableList(architectureCheckConfigurationEntries);
     }
 
     public void addResolution(final IResolution resolution)
     {
+        assert !isFrozen() : "System is frozen";
         assert resolution != null : "Parameter 'resolution' of method 'addResolution' must not be null";
 
-        final ArrayList<IResolution> resolutions;
+        final List<IResolution> resolutions;
         if (!resolutionMap.containsKey(resolution.getType()))
         {
             resolutions = new ArrayList<>();
@@ -344,7 +516,8 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public Map<String, IMetricCategory> getMetricCategories()
     {
-        return getMetaDataAccess().getMetricCategories();
+        final DerivedMetrics derivedMetrics = getElementRegistry().getMetricValueStore().getDerivedMetrics();
+        return derivedMetrics.isEmpty() ? getMetaDataAccess().getMetricCategories() : derivedMetrics.getMetricCategories();
     }
 
     @Override
@@ -363,7 +536,8 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public Map<String, IMetricProvider> getMetricProviders()
     {
-        return getMetaDataAccess().getMetricProviders();
+        final DerivedMetrics derivedMetrics = getElementRegistry().getMetricValueStore().getDerivedMetrics();
+        return derivedMetrics.isEmpty() ? getMetaDataAccess().getMetricProviders() : derivedMetrics.getMetricProviders();
     }
 
     public void addIssueCategory(final IIssueCategory category)
@@ -385,31 +559,39 @@ public final class SoftwareSystemImpl extends NamedElementContainerImpl implemen
 
     public Map<ResolutionType, List<IResolution>> getResolutions()
     {
-        return Collections.unmodifiableMap(resolutionMap);
+        return isFrozen() ? resolutionMap : Collections.unmodifiableMap(resolutionMap);
     }
 
     public void addMetricThreshold(final MetricThreshold threshold)
     {
+        assert !isFrozen() : "System is frozen";
         thresholds.add(threshold);
     }
 
     public List<IMetricThreshold> getMetricThresholds()
     {
-        return Collections.unmodifiableList(thresholds);
+        return isFrozen() ? thresholds : Collections.unmodifiableList(thresholds);
     }
 
     public void addSourceFile(final NamedElementImpl forNamedElement, final SourceFileImpl sourceFile)
     {
+        assert !isFrozen() : "System is frozen";
         assert forNamedElement != null : "Parameter 'forNamedElement' of method 'addSourceFile' must not be null";
         assert sourceFile != null : "Parameter 'sourceFile' of method 'addSourceFile' must not be null";
-        final SourceFileImpl previous = namedElementToSourceFile.put(forNamedElement, sourceFile);
-        assert previous == null : "'previous' of method 'addSourceFile' must be null";
+        final int ordinal = getElementRegistry().addOrdinal(forNamedElement);
+        if (ordinal >= sourceFileByOrdinal.length)
+        {
+            sourceFileByOrdinal = Arrays.copyOf(sourceFileByOrdinal, Math.max(ordinal + 1, sourceFileByOrdinal.length * 2));
+        }
+        assert sourceFileByOrdinal[ordinal] == null : "'previous' of method 'addSourceFile' must be null";
+        sourceFileByOrdinal[ordinal] = sourceFile;
     }
 
     @Override
     public Optional<SourceFileImpl> getSourceFile(final INamedElement namedElement)
     {
         assert namedElement != null : "Parameter 'namedElement' of method 'getSourceFile' must not be null";
-        return Optional.ofNullable(namedElementToSourceFile.get(namedElement));
+        final int ordinal = getOrdinal(namedElement);
+        return ordinal >= 0 && ordinal < sourceFileByOrdinal.length ? Optional.ofNullable(sourceFileByOrdinal[ordinal]) : Optional.empty();
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystemInfo;
+
+public final class SoftwareSystemInfoImpl implements ISoftwareSystemInfo
+{
+    private static final long serialVersionUID = -3301861371046937211L;
+    private final String systemId;
+    private final String name;
+    private final String path;
+    private final String version;
+    private final long timestamp;
+    private final String virtualModel;
+
+    public SoftwareSystemInfoImpl(final String systemId, final String name, final String path, final String version, final long timestamp,
+            final String virtualModel)
+    {
+        assert systemId != null && systemId.length() > 0 : "Parameter 'systemId' of method 'SoftwareSystemInfoImpl' must not be empty";
+        assert name != null && name.length() > 0 : "Parameter 'name' of method 'SoftwareSystemInfoImpl' must not be empty";
+        assert path != null : "Parameter 'path' of method 'SoftwareSystemInfoImpl' must not be null";
+        assert version != null : "Parameter 'version' of method 'SoftwareSystemInfoImpl' must not be null";
+        assert virtualModel != null : "Parameter 'virtualModel' of method 'SoftwareSystemInfoImpl' must not be null";
+
+        this.systemId = systemId;
+        this.name = name;
+        this.path = path;
+        this.version = version;
+        this.timestamp = timestamp;
+        this.virtualModel = virtualModel;
+    }
+
+    @Override
+    public String getSystemId()
+    {
+        return systemId;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public String getPath()
+    {
+        return path;
+    }
+
+    @Override
+    public String getVersion()
+    {
+        return version;
+    }
+
+    @Override
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+    @Override
+    public String getVirtualModel()
+    {
+        return virtualModel;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + " [" + systemId + "], version " + version + ", timestamp " + timestamp;
+    }
+}
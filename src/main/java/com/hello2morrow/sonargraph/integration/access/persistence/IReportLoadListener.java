@@ -0,0 +1,35 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+/**
+ * Notified while a report is read. Calls happen on the thread reading the report, so implementations must be fast and must not block.
+ */
+@FunctionalInterface
+public interface IReportLoadListener
+{
+    public static final IReportLoadListener NONE = p ->
+    {
+        //Nothing to do
+    };
+
+    /**
+     * Called whenever a new phase is entered and periodically while elements and issues are created.
+     */
+    public void progress(ReportLoadProgress progress);
+}
@@ -22,10 +22,8 @@ import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URL;
-import java.util.Set;
+import java.util.Collections;
 
-import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
@@ -34,9 +32,6 @@ import javax.xml.bind.ValidationEventHandler;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.SchemaFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,11 +43,12 @@ public final class JaxbAdapter<T>
     private static final Logger LOGGER = LoggerFactory.getLogger(JaxbAdapter.class);
     private static final String INITIALIZATION_FAILED = "Initialization failed";
     private static final String UTF8_ENCODING = "UTF-8";
-    private final Unmarshaller reader;
+    private final UnmarshallerFactory readerFactory;
     private final Marshaller writer;
 
     /**
-     * Creates a JaxbAdapter - a writer and a reader (reader without XSD validation) 
+     * Creates a JaxbAdapter - a writer and a reader (reader without XSD validation).
+     * The JAXB context is shared process-wide, a new unmarshaller is created for each load.
      * @param namespace the namespace - must not be 'empty'
      * @param classLoader the class loader - must not be 'null'
      */
@@ -62,30 +58,28 @@ public final class JaxbAdapter<T>
         assert classLoader != null : "Parameter 'classLoader' of method 'JaxbAdapter' must not be null";
 
         Marshaller createdWriter;
-        Unmarshaller createdReader;
+        UnmarshallerFactory createdReaderFactory;
 
         try
         {
-            final JAXBContext jaxbContext = JAXBContext.newInstance(namespace, classLoader);
-            createdWriter = jaxbContext.createMarshaller();
-            createdWriter.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-            createdWriter.setProperty(Marshaller.JAXB_ENCODING, UTF8_ENCODING);
-            createdReader = jaxbContext.createUnmarshaller();
+            createdReaderFactory = JaxbContextCache.getUnmarshallerFactory(namespace, classLoader, Collections.emptySet());
+            createdWriter = createWriter(createdReaderFactory.getContext());
         }
         catch (final Exception ex)
         {
             LOGGER.error(INITIALIZATION_FAILED, ex);
             createdWriter = null;
-            createdReader = null;
+            createdReaderFactory = null;
             assert false : INITIALIZATION_FAILED + ": " + Utility.collectAll(ex);
         }
 
         this.writer = createdWriter;
-        this.reader = createdReader;
+        this.readerFactory = createdReaderFactory;
     }
 
     /**
-     * Creates a JaxbAdapter - a writer and a reader (reader with XSD validation)
+     * Creates a JaxbAdapter - a writer and a reader (reader with XSD validation).
+     * The JAXB context and the compiled schema are shared process-wide, a new unmarshaller is created for each load.
      * @param persistentContext the persistent context - must not be 'null'
      * @param classLoader the class loader - must not be 'null'
      */
@@ -95,39 +89,34 @@ public final class JaxbAdapter<T>
         assert classLoader != null : "Parameter 'classLoader' of method 'JaxbAdapter' must not be null";
 
         Marshaller createdWriter;
-        Unmarshaller createdReader;
+        UnmarshallerFactory createdReaderFactory;
 
         try
         {
-            final JAXBContext jaxbContext = JAXBContext.newInstance(persistentContext.getNamespaceList(), classLoader);
-            createdWriter = jaxbContext.createMarshaller();
-            createdWriter.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-            createdWriter.setProperty(Marshaller.JAXB_ENCODING, UTF8_ENCODING);
-
-            createdReader = jaxbContext.createUnmarshaller();
-            final Set<URL> schemaUrls = persistentContext.getSchemaUrls();
-            final Source[] sources = new Source[schemaUrls.size()];
-            int i = 0;
-            for (final URL nextSchemaUrl : schemaUrls)
-            {
-                assert nextSchemaUrl != null : " 'nextSchemaUrl' of method 'getSchema' must not be null";
-                sources[i] = new StreamSource(nextSchemaUrl.openStream());
-                i++;
-            }
-            createdReader.setSchema(SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(sources));
+            createdReaderFactory = JaxbContextCache.getUnmarshallerFactory(persistentContext.getNamespaceList(), classLoader,
+                    persistentContext.getSchemaUrls());
+            createdWriter = createWriter(createdReaderFactory.getContext());
         }
         catch (final Exception e)
         {
             LOGGER.error(INITIALIZATION_FAILED, e);
-            createdReader = null;
+            createdReaderFactory = null;
             createdWriter = null;
             assert false : INITIALIZATION_FAILED + ": " + Utility.collectAll(e);
         }
 
-        this.reader = createdReader;
+        this.readerFactory = createdReaderFactory;
         this.writer = createdWriter;
     }
 
+    private static Marshaller createWriter(final JAXBContext jaxbContext) throws JAXBException
+    {
+        final Marshaller createdWriter = jaxbContext.createMarshaller();
+        createdWriter.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        createdWriter.setProperty(Marshaller.JAXB_ENCODING, UTF8_ENCODING);
+        return createdWriter;
+    }
+
     public void setMarshalListener(final Marshaller.Listener listener)
     {
         writer.setListener(listener);
@@ -141,6 +130,7 @@ public final class JaxbAdapter<T>
 
         try (BufferedInputStream bufferedIn = new BufferedInputStream(from))
         {
+            final Unmarshaller reader = readerFactory.create();
             reader.setEventHandler(validationHandler);
             return (T) reader.unmarshal(bufferedIn);
         }
@@ -0,0 +1,189 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Process-wide cache of the expensive JAXB artifacts: contexts, compiled schemas and the unmarshaller factories built on top of them.
+ * The artifacts are cached per class loader. Class loaders are weakly referenced and their artifacts (which reference the class loader) are
+ * softly referenced, so a discarded class loader (e.g. of an uninstalled OSGi bundle) is not kept alive by the cache.
+ * All cached objects are thread-safe; unmarshallers are never shared (see {@link UnmarshallerFactory}).
+ */
+final class JaxbContextCache
+{
+    private static final Map<ClassLoader, SoftReference<LoaderEntry>> ENTRIES = new WeakHashMap<>();
+
+    private JaxbContextCache()
+    {
+        super();
+    }
+
+    /**
+     * Artifacts created with one class loader, guarded by the lock of {@link JaxbContextCache#ENTRIES}.
+     */
+    private static final class LoaderEntry
+    {
+        private final Map<String, JAXBContext> contexts = new HashMap<>();
+        //Keyed by the external forms, URL.equals() might resolve host names
+        private final Map<String, Schema> schemas = new HashMap<>();
+        private final Map<String, UnmarshallerFactory> factories = new HashMap<>();
+
+        LoaderEntry()
+        {
+            super();
+        }
+    }
+
+    /**
+     * @param contextPath the JAXB context path - must not be 'empty'
+     * @param classLoader the class loader - must not be 'null'
+     * @param schemaUrls the schemas to validate against - empty if no validation is wanted
+     */
+    static UnmarshallerFactory getUnmarshallerFactory(final String contextPath, final ClassLoader classLoader, final Set<URL> schemaUrls)
+            throws JAXBException, SAXException, IOException
+    {
+        assert contextPath != null && contextPath.length() > 0 : "Parameter 'contextPath' of method 'getUnmarshallerFactory' must not be empty";
+        assert classLoader != null : "Parameter 'classLoader' of method 'getUnmarshallerFactory' must not be null";
+        assert schemaUrls != null : "Parameter 'schemaUrls' of method 'getUnmarshallerFactory' must not be null";
+
+        final String key = contextPath + schemaUrls.toString();
+        synchronized (ENTRIES)
+        {
+            final LoaderEntry entry = getEntry(classLoader);
+            UnmarshallerFactory factory = entry.factories.get(key);
+            if (factory == null)
+            {
+                factory = new UnmarshallerFactory(getContext(entry, contextPath, classLoader),
+                        schemaUrls.isEmpty() ? null : getSchema(entry, schemaUrls));
+                entry.factories.put(key, factory);
+            }
+            return factory;
+        }
+    }
+
+    static JAXBContext getContext(final String contextPath, final ClassLoader classLoader) throws JAXBException
+    {
+        assert contextPath != null && contextPath.length() > 0 : "Parameter 'contextPath' of method 'getContext' must not be empty";
+        assert classLoader != null : "Parameter 'classLoader' of method 'getContext' must not be null";
+
+        synchronized (ENTRIES)
+        {
+            return getContext(getEntry(classLoader), contextPath, classLoader);
+        }
+    }
+
+    private static LoaderEntry getEntry(final ClassLoader classLoader)
+    {
+        final SoftReference<LoaderEntry> reference = ENTRIES.get(classLoader);
+        LoaderEntry entry = reference != null ? reference.get() : null;
+        if (entry == null)
+        {
+            entry = new LoaderEntry();
+            ENTRIES.put(classLoader, new SoftReference<>(entry));
+        }
+        return entry;
+    }
+
+    private static JAXBContext getContext(final LoaderEntry entry, final String contextPath, final ClassLoader classLoader) throws JAXBException
+    {
+        JAXBContext context = entry.contexts.get(contextPath);
+        if (context == null)
+        {
+            context = JAXBContext.newInstance(contextPath, classLoader);
+            entry.contexts.put(contextPath, context);
+        }
+        return context;
+    }
+
+    private static Schema getSchema(final LoaderEntry entry, final Set<URL> schemaUrls) throws SAXException, IOException
+    {
+        final String key = schemaUrls.toString();
+        Schema schema = entry.schemas.get(key);
+        if (schema == null)
+        {
+            final Source[] sources = new Source[schemaUrls.size()];
+            final List<InputStream> streams = new ArrayList<>(schemaUrls.size());
+            try
+            {
+                int i = 0;
+                for (final URL nextSchemaUrl : schemaUrls)
+                {
+                    assert nextSchemaUrl != null : " 'nextSchemaUrl' of method 'getSchema' must not be null";
+                    final InputStream stream = nextSchemaUrl.openStream();
+                    streams.add(stream);
+                    sources[i] = new StreamSource(stream, nextSchemaUrl.toExternalForm());
+                    i++;
+                }
+                schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(sources);
+            }
+            finally
+            {
+                close(streams);
+            }
+            entry.schemas.put(key, schema);
+        }
+        return schema;
+    }
+
+    private static void close(final List<InputStream> streams) throws IOException
+    {
+        IOException failure = null;
+        for (final InputStream next : streams)
+        {
+            try
+            {
+                next.close();
+            }
+            catch (final IOException ex)
+            {
+                if (failure == null)
+                {
+                    failure = ex;
+                }
+                else
+                {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+}
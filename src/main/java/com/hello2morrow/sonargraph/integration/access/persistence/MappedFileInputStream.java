@@ -0,0 +1,132 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through read-only memory mappings of consecutive chunks. Reads copy directly from the mapped pages into the caller's
+ * array, there is no intermediate heap buffer like with {@link java.io.BufferedInputStream}.
+ * Chunks keep the address space needed for huge files bounded, a chunk is unmapped by the garbage collector once it is no longer
+ * referenced.
+ */
+final class MappedFileInputStream extends InputStream
+{
+    static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+    private final FileChannel channel;
+    private final long size;
+    private final long chunkSize;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+
+    MappedFileInputStream(final File file) throws IOException
+    {
+        this(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    MappedFileInputStream(final File file, final long chunkSize) throws IOException
+    {
+        assert file != null : "Parameter 'file' of method 'MappedFileInputStream' must not be null";
+        assert chunkSize > 0 && chunkSize <= Integer.MAX_VALUE : "Parameter 'chunkSize' of method 'MappedFileInputStream' is out of range: "
+                + chunkSize;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return number of bytes read or skipped so far
+     */
+    long getPosition()
+    {
+        return chunk != null ? chunkStart + chunk.position() : chunkStart;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        return hasRemaining() ? chunk.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException
+    {
+        if (length == 0)
+        {
+            return 0;
+        }
+        if (!hasRemaining())
+        {
+            return -1;
+        }
+        final int read = Math.min(length, chunk.remaining());
+        chunk.get(bytes, offset, read);
+        return read;
+    }
+
+    @Override
+    public long skip(final long n)
+    {
+        final long position = getPosition();
+        final long skipped = Math.max(0, Math.min(n, size - position));
+        if (chunk != null && skipped <= chunk.remaining())
+        {
+            chunk.position(chunk.position() + (int) skipped);
+        }
+        else
+        {
+            chunk = null;
+            chunkStart = position + skipped;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return (int) Math.min(Integer.MAX_VALUE, size - getPosition());
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        chunk = null;
+        channel.close();
+    }
+
+    private boolean hasRemaining() throws IOException
+    {
+        if (chunk != null && chunk.hasRemaining())
+        {
+            return true;
+        }
+        final long position = getPosition();
+        if (position >= size)
+        {
+            return false;
+        }
+        chunkStart = position;
+        chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.hello2morrow.sonargraph.integration.access.model.IIssueCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricProvider;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueTypeImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricIdImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricLevelImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricProviderImpl;
+
+/**
+ * Interns the immutable meta data objects (issue providers, categories and types, metric providers, categories, levels and ids) created
+ * while reading reports. Reports sharing a registry share identical meta data instances, so loading many reports created by the same
+ * Sonargraph version holds each of them only once.
+ * <p>
+ * Instances are identical if all their attributes are equal, including the attributes of the meta data they reference. The registry is
+ * thread-safe and may be used by concurrent readers.
+ */
+public final class MetaDataRegistry
+{
+    private static final char SEPARATOR = '\u0000';
+    private final Map<String, Object> interned = new ConcurrentHashMap<>();
+
+    public MetaDataRegistry()
+    {
+        super();
+    }
+
+    public IssueProviderImpl getIssueProvider(final String name, final String presentationName)
+    {
+        return intern(IssueProviderImpl.class, () -> new IssueProviderImpl(name, presentationName), getKey(name, presentationName));
+    }
+
+    public IssueCategoryImpl getIssueCategory(final String name, final String presentationName)
+    {
+        return intern(IssueCategoryImpl.class, () -> new IssueCategoryImpl(name, presentationName), getKey(name, presentationName));
+    }
+
+    /**
+     * @param provider Can be null.
+     */
+    public IssueTypeImpl getIssueType(final String name, final String presentationName, final Severity severity, final IssueCategoryImpl category,
+            final IssueProviderImpl provider, final String description)
+    {
+        assert category != null : "Parameter 'category' of method 'getIssueType' must not be null";
+        return intern(IssueTypeImpl.class, () -> new IssueTypeImpl(name, presentationName, severity, category, provider, description),
+                getKey(name, presentationName, severity, getKey(category), provider != null ? getKey(provider) : null, description));
+    }
+
+    public MetricProviderImpl getMetricProvider(final String name, final String presentationName)
+    {
+        return intern(MetricProviderImpl.class, () -> new MetricProviderImpl(name, presentationName), getKey(name, presentationName));
+    }
+
+    public MetricCategoryImpl getMetricCategory(final String name, final String presentationName, final int orderNumber)
+    {
+        return intern(MetricCategoryImpl.class, () -> new MetricCategoryImpl(name, presentationName, orderNumber),
+                getKey(name, presentationName, orderNumber));
+    }
+
+    public MetricLevelImpl getMetricLevel(final String name, final String presentationName, final int orderNumber)
+    {
+        return intern(MetricLevelImpl.class, () -> new MetricLevelImpl(name, presentationName, orderNumber),
+                getKey(name, presentationName, orderNumber));
+    }
+
+    public MetricIdImpl getMetricId(final String name, final String presentationName, final String description,
+            final List<IMetricCategory> categories, final List<IMetricLevel> levels, final MetricProviderImpl provider, final boolean isFloat,
+            final double bestValue, final double worstValue)
+    {
+        assert categories != null : "Parameter 'categories' of method 'getMetricId' must not be null";
+        assert levels != null : "Parameter 'levels' of method 'getMetricId' must not be null";
+        assert provider != null : "Parameter 'provider' of method 'getMetricId' must not be null";
+
+        final String categoryKeys = categories.stream().map(c -> getKey(c.getName(), c.getPresentationName(), c.getOrderNumber()))
+                .collect(Collectors.joining(String.valueOf(SEPARATOR)));
+        final String levelKeys = levels.stream().map(l -> getKey(l.getName(), l.getPresentationName(), l.getOrderNumber()))
+                .collect(Collectors.joining(String.valueOf(SEPARATOR)));
+        return intern(MetricIdImpl.class,
+                () -> new MetricIdImpl(name, presentationName, description, categories, levels, provider, isFloat, bestValue, worstValue),
+                getKey(name, presentationName, description, categoryKeys, levelKeys, getKey(provider), isFloat, bestValue, worstValue));
+    }
+
+    /**
+     * @return number of interned meta data instances.
+     */
+    public int size()
+    {
+        return interned.size();
+    }
+
+    private <T> T intern(final Class<T> type, final Supplier<T> creator, final String key)
+    {
+        return type.cast(interned.computeIfAbsent(type.getSimpleName() + SEPARATOR + key, k -> creator.get()));
+    }
+
+    private static String getKey(final IIssueCategory category)
+    {
+        return getKey(category.getName(), category.getPresentationName());
+    }
+
+    private static String getKey(final IIssueProvider provider)
+    {
+        return getKey(provider.getName(), provider.getPresentationName());
+    }
+
+    private static String getKey(final IMetricProvider provider)
+    {
+        return getKey(provider.getName(), provider.getPresentationName());
+    }
+
+    private static String getKey(final Object... parts)
+    {
+        final StringBuilder key = new StringBuilder();
+        for (final Object next : parts)
+        {
+            if (key.length() > 0)
+            {
+                key.append(SEPARATOR);
+            }
+            //Nested keys get a length prefix so that their separators cannot be confused with ours
+            final String value = String.valueOf(next);
+            key.append(value.length()).append(':').append(value);
+        }
+        return key.toString();
+    }
+}
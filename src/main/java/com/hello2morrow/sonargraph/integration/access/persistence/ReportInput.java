@@ -0,0 +1,127 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Detects compressed report sources by their first bytes. Gzip streams are inflated, of a zip archive the first entry with the extension
+ * '.xml' is read. Any other content is passed through unchanged. Nothing is written to temporary files.
+ */
+final class ReportInput
+{
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int MAGIC_LENGTH = 4;
+
+    /**
+     * Keeps the stream of a caller open when the reader closes its decorators.
+     */
+    private static final class NonClosingInputStream extends FilterInputStream
+    {
+        NonClosingInputStream(final InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public void close()
+        {
+            //Closed by the caller
+        }
+    }
+
+    private ReportInput()
+    {
+        super();
+    }
+
+    static InputStream nonClosing(final InputStream in)
+    {
+        assert in != null : "Parameter 'in' of method 'nonClosing' must not be null";
+        return new NonClosingInputStream(in);
+    }
+
+    /**
+     * @return stream providing the uncompressed XML, closing it closes the given stream.
+     * @throws IOException if the stream cannot be read or a zip archive does not contain an XML entry.
+     */
+    static InputStream decompress(final InputStream in) throws IOException
+    {
+        assert in != null : "Parameter 'in' of method 'decompress' must not be null";
+
+        final byte[] magic = new byte[MAGIC_LENGTH];
+        final InputStream source;
+        int length = 0;
+        if (in.markSupported())
+        {
+            in.mark(MAGIC_LENGTH);
+            length = read(in, magic);
+            in.reset();
+            source = in;
+        }
+        else
+        {
+            //No buffering here, the parsers read in blocks anyway
+            final PushbackInputStream pushback = new PushbackInputStream(in, MAGIC_LENGTH);
+            length = read(pushback, magic);
+            pushback.unread(magic, 0, length);
+            source = pushback;
+        }
+
+        if (length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b)
+        {
+            return new GZIPInputStream(source, GZIP_BUFFER_SIZE);
+        }
+        if (length == MAGIC_LENGTH && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4)
+        {
+            final ZipInputStream zip = new ZipInputStream(source);
+            for (ZipEntry next = zip.getNextEntry(); next != null; next = zip.getNextEntry())
+            {
+                if (!next.isDirectory() && next.getName().toLowerCase(Locale.ENGLISH).endsWith(".xml"))
+                {
+                    return zip;
+                }
+            }
+            zip.close();
+            throw new IOException("Zip archive does not contain an XML report");
+        }
+        return source;
+    }
+
+    private static int read(final InputStream in, final byte[] bytes) throws IOException
+    {
+        int length = 0;
+        while (length < bytes.length)
+        {
+            final int read = in.read(bytes, length, bytes.length - length);
+            if (read < 0)
+            {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+}
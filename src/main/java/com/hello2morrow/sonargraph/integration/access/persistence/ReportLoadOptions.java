@@ -0,0 +1,255 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.internal.FqName;
+
+/**
+ * Sections of a report that are not needed by the caller. Excluded sections are skipped while parsing, so neither time nor memory is spent
+ * on them. An empty instance includes everything and creates the default model.
+ * <p>
+ * Excluding elements also excludes the metric values of these elements and the issues affecting them. Cycle groups keep their remaining
+ * cyclic elements and are only excluded if no cyclic element remains. Resolutions only reference the issues that have been read.
+ * Restricting the modules excludes the elements of all other modules in the same way.
+ */
+public final class ReportLoadOptions
+{
+    private final Set<String> excludedMetricLevels = new TreeSet<>();
+    private final Set<String> excludedIssueCategories = new TreeSet<>();
+    private final Set<String> excludedIssueProviders = new TreeSet<>();
+    private final Set<String> includedModules = new TreeSet<>();
+    private boolean excludeLogicalElements;
+    private boolean excludeExternalElements;
+    private boolean excludeResolutions;
+    private boolean compactFqNames;
+    private boolean memoryMappedInput;
+    private boolean sectionIndex;
+
+    public ReportLoadOptions()
+    {
+        super();
+    }
+
+    /**
+     * @param levelName Name of the metric level like {@link com.hello2morrow.sonargraph.integration.access.model.IMetricLevel#MODULE}.
+     */
+    public ReportLoadOptions excludeMetricLevel(final String levelName)
+    {
+        assert levelName != null && levelName.length() > 0 : "Parameter 'levelName' of method 'excludeMetricLevel' must not be empty";
+        excludedMetricLevels.add(levelName);
+        return this;
+    }
+
+    /**
+     * @param categoryName Name of the issue category like 'CycleGroup' or 'DuplicateCode'.
+     */
+    public ReportLoadOptions excludeIssueCategory(final String categoryName)
+    {
+        assert categoryName != null && categoryName.length() > 0 : "Parameter 'categoryName' of method 'excludeIssueCategory' must not be empty";
+        excludedIssueCategories.add(categoryName);
+        return this;
+    }
+
+    public ReportLoadOptions excludeIssueProvider(final String providerName)
+    {
+        assert providerName != null && providerName.length() > 0 : "Parameter 'providerName' of method 'excludeIssueProvider' must not be empty";
+        excludedIssueProviders.add(providerName);
+        return this;
+    }
+
+    /**
+     * Restricts loading to the given module, call it once per module to load several. The system level sections are still read.
+     * @param moduleName Name of the module like {@link com.hello2morrow.sonargraph.integration.access.model.IModule#getName()}.
+     */
+    public ReportLoadOptions includeModule(final String moduleName)
+    {
+        assert moduleName != null && moduleName.length() > 0 : "Parameter 'moduleName' of method 'includeModule' must not be empty";
+        includedModules.add(moduleName);
+        return this;
+    }
+
+    /**
+     * Excludes logical namespaces and logical programming elements.
+     */
+    public ReportLoadOptions excludeLogicalElements()
+    {
+        excludeLogicalElements = true;
+        return this;
+    }
+
+    /**
+     * Excludes the externals and their elements.
+     */
+    public ReportLoadOptions excludeExternalElements()
+    {
+        excludeExternalElements = true;
+        return this;
+    }
+
+    public ReportLoadOptions excludeResolutions()
+    {
+        excludeResolutions = true;
+        return this;
+    }
+
+    /**
+     * Elements store their fully qualified names as {@link FqName}s sharing the prefixes with other elements. Saves memory for large
+     * systems, but {@link com.hello2morrow.sonargraph.integration.access.model.INamedElement#getFqName()} creates a new string on every call.
+     */
+    public ReportLoadOptions compactFqNames()
+    {
+        compactFqNames = true;
+        return this;
+    }
+
+    public boolean isUsingCompactFqNames()
+    {
+        return compactFqNames;
+    }
+
+    /**
+     * Reads the report file through memory mapped chunks instead of a buffered stream, which avoids copying the content through an
+     * intermediate buffer. Pays off for large reports on fast storage. Does not change the created model, so it is not part of
+     * {@link #getKey()}.
+     */
+    public ReportLoadOptions memoryMappedInput()
+    {
+        memoryMappedInput = true;
+        return this;
+    }
+
+    public boolean isUsingMemoryMappedInput()
+    {
+        return memoryMappedInput;
+    }
+
+    /**
+     * Reads the report through its sidecar section index ({@link ReportSectionIndex}) if there is an up to date one. The bytes of
+     * excluded modules and sections are then skipped without being parsed, so loading a single module costs proportionally to the size of
+     * that module. Without an index the whole report is read. Does not change the created model, so it is not part of {@link #getKey()}.
+     */
+    public ReportLoadOptions sectionIndex()
+    {
+        sectionIndex = true;
+        return this;
+    }
+
+    public boolean isUsingSectionIndex()
+    {
+        return sectionIndex;
+    }
+
+    public Set<String> getIncludedModules()
+    {
+        return Collections.unmodifiableSet(includedModules);
+    }
+
+    public boolean isExcludingModules()
+    {
+        return !includedModules.isEmpty();
+    }
+
+    public boolean isModuleIncluded(final String moduleName)
+    {
+        assert moduleName != null : "Parameter 'moduleName' of method 'isModuleIncluded' must not be null";
+        return includedModules.isEmpty() || includedModules.contains(moduleName);
+    }
+
+    public Set<String> getExcludedMetricLevels()
+    {
+        return Collections.unmodifiableSet(excludedMetricLevels);
+    }
+
+    public Set<String> getExcludedIssueCategories()
+    {
+        return Collections.unmodifiableSet(excludedIssueCategories);
+    }
+
+    public Set<String> getExcludedIssueProviders()
+    {
+        return Collections.unmodifiableSet(excludedIssueProviders);
+    }
+
+    public boolean isExcludingLogicalElements()
+    {
+        return excludeLogicalElements;
+    }
+
+    public boolean isExcludingExternalElements()
+    {
+        return excludeExternalElements;
+    }
+
+    public boolean isExcludingResolutions()
+    {
+        return excludeResolutions;
+    }
+
+    public boolean isExcludingElements()
+    {
+        return excludeLogicalElements || excludeExternalElements || !includedModules.isEmpty();
+    }
+
+    public boolean isExcludingIssues()
+    {
+        return !excludedIssueCategories.isEmpty() || !excludedIssueProviders.isEmpty() || isExcludingElements();
+    }
+
+    public boolean isExcludingAnything()
+    {
+        return !excludedMetricLevels.isEmpty() || isExcludingIssues() || excludeResolutions;
+    }
+
+    public boolean isMetricLevelIncluded(final String levelName)
+    {
+        assert levelName != null : "Parameter 'levelName' of method 'isMetricLevelIncluded' must not be null";
+        return !excludedMetricLevels.contains(levelName);
+    }
+
+    /**
+     * @return false if the category of the issue type or the provider of the issue has been excluded.
+     */
+    public boolean isIssueIncluded(final IIssueType issueType, final IIssueProvider issueProvider)
+    {
+        assert issueType != null : "Parameter 'issueType' of method 'isIssueIncluded' must not be null";
+        assert issueProvider != null : "Parameter 'issueProvider' of method 'isIssueIncluded' must not be null";
+        return !excludedIssueCategories.contains(issueType.getCategory().getName()) && !excludedIssueProviders.contains(issueProvider.getName());
+    }
+
+    /**
+     * @return a string that is equal for options creating the same model.
+     */
+    public String getKey()
+    {
+        return "levels=" + excludedMetricLevels + ";categories=" + excludedIssueCategories + ";providers=" + excludedIssueProviders
+                + ";logical=" + excludeLogicalElements + ";external=" + excludeExternalElements + ";resolutions=" + excludeResolutions
+                + ";modules=" + includedModules + ";compact=" + compactFqNames;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getKey();
+    }
+}
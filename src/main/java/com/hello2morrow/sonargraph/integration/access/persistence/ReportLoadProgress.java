@@ -0,0 +1,92 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+/**
+ * Immutable snapshot of the progress of reading a report.
+ */
+public final class ReportLoadProgress
+{
+    private final ReportLoadPhase phase;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final int numberOfElements;
+    private final int numberOfIssues;
+
+    public ReportLoadProgress(final ReportLoadPhase phase, final long bytesRead, final long totalBytes, final int numberOfElements,
+            final int numberOfIssues)
+    {
+        assert phase != null : "Parameter 'phase' of method 'ReportLoadProgress' must not be null";
+        assert bytesRead >= 0 : "Parameter 'bytesRead' of method 'ReportLoadProgress' must not be negative: " + bytesRead;
+        this.phase = phase;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.numberOfElements = numberOfElements;
+        this.numberOfIssues = numberOfIssues;
+    }
+
+    public ReportLoadPhase getPhase()
+    {
+        return phase;
+    }
+
+    /**
+     * @return number of bytes read from the report file so far - input is buffered, so this runs slightly ahead of the parser.
+     */
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    /**
+     * @return size of the report file in bytes or -1 if unknown.
+     */
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    /**
+     * @return value between 0.0 and 1.0 or -1.0 if the size of the report is unknown.
+     */
+    public double getFractionRead()
+    {
+        if (totalBytes <= 0)
+        {
+            return -1.0;
+        }
+        return Math.min(1.0, (double) bytesRead / totalBytes);
+    }
+
+    public int getNumberOfElements()
+    {
+        return numberOfElements;
+    }
+
+    public int getNumberOfIssues()
+    {
+        return numberOfIssues;
+    }
+
+    @Override
+    public String toString()
+    {
+        return phase.getPresentationName() + ": " + bytesRead + "/" + totalBytes + " bytes, " + numberOfElements + " elements, " + numberOfIssues
+                + " issues";
+    }
+}
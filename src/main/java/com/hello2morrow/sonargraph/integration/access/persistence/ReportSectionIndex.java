@@ -0,0 +1,597 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Byte offsets of the top level sections of an uncompressed XML report ('workspace', 'moduleElements', 'moduleMetricValues', 'issues', ...)
+ * and of the modules inside the workspace. Created by a single scan over the raw bytes (the XML is not parsed) and stored in a small sidecar
+ * file next to the report. Readers use it to skip the bytes of excluded modules and sections, see {@link ReportLoadOptions#sectionIndex()}.
+ * The sidecar records length and modification time of the report, it is ignored once the report has changed.
+ */
+public final class ReportSectionIndex
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportSectionIndex.class);
+    public static final String SIDECAR_EXTENSION = ".sections";
+    private static final int MAGIC = 0x53475849;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * A top level section or a module of the workspace, from the '&lt;' of its start tag to the '&gt;' of its end tag (exclusive).
+     */
+    public static final class Section
+    {
+        private final String name;
+        private final String ref;
+        private final String moduleName;
+        private final long start;
+        private long end;
+
+        Section(final String name, final String ref, final String moduleName, final long start)
+        {
+            assert name != null && name.length() > 0 : "Parameter 'name' of method 'Section' must not be empty";
+            assert ref != null : "Parameter 'ref' of method 'Section' must not be null";
+            assert moduleName != null : "Parameter 'moduleName' of method 'Section' must not be null";
+            this.name = name;
+            this.ref = ref;
+            this.moduleName = moduleName;
+            this.start = start;
+        }
+
+        /**
+         * @return the local name of the element, 'module' for the modules of the workspace.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return the id of a module, the 'ref' or 'elementRef' of other sections, empty if there is none.
+         */
+        public String getRef()
+        {
+            return ref;
+        }
+
+        /**
+         * @return the name of a module, empty for other sections.
+         */
+        public String getModuleName()
+        {
+            return moduleName;
+        }
+
+        public long getStart()
+        {
+            return start;
+        }
+
+        public long getEnd()
+        {
+            return end;
+        }
+
+        boolean isModule()
+        {
+            return moduleName.length() > 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + (ref.isEmpty() ? "" : " " + ref) + (moduleName.isEmpty() ? "" : " '" + moduleName + "'") + " [" + start + ", " + end
+                    + ")";
+        }
+    }
+
+    private final long reportLength;
+    private final long reportLastModified;
+    private final List<Section> sections;
+
+    private ReportSectionIndex(final long reportLength, final long reportLastModified, final List<Section> sections)
+    {
+        this.reportLength = reportLength;
+        this.reportLastModified = reportLastModified;
+        this.sections = Collections.unmodifiableList(sections);
+    }
+
+    public static File getSidecarFile(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'getSidecarFile' must not be null";
+        return new File(reportFile.getPath() + SIDECAR_EXTENSION);
+    }
+
+    /**
+     * Scans the report. Compressed reports cannot be indexed, since their sections cannot be read without inflating everything before.
+     * @throws IOException if the report cannot be read or is compressed.
+     */
+    public static ReportSectionIndex create(final File reportFile) throws IOException
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'create' must not be null";
+        final long length = reportFile.length();
+        final long lastModified = reportFile.lastModified();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(reportFile), BUFFER_SIZE))
+        {
+            in.mark(4);
+            final int first = in.read();
+            final int second = in.read();
+            in.reset();
+            if (first == 0x1f && second == 0x8b || first == 'P' && second == 'K')
+            {
+                throw new IOException("Compressed report '" + reportFile.getAbsolutePath() + "' cannot be indexed");
+            }
+            return new ReportSectionIndex(length, lastModified, new SectionScanner(in).scan());
+        }
+    }
+
+    /**
+     * Scans the report and writes the index to its sidecar file ({@link #getSidecarFile(File)}).
+     * @return false if the report could not be indexed.
+     */
+    public static boolean createSidecar(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'createSidecar' must not be null";
+        try
+        {
+            create(reportFile).write(getSidecarFile(reportFile));
+            return true;
+        }
+        catch (final IOException ex)
+        {
+            LOGGER.warn("Failed to index report '" + reportFile.getAbsolutePath() + "'", ex);
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of the sidecar file, empty if there is none or if it does not match the current report.
+     */
+    public static Optional<ReportSectionIndex> readSidecar(final File reportFile)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'readSidecar' must not be null";
+        final File sidecarFile = getSidecarFile(reportFile);
+        if (!sidecarFile.isFile())
+        {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecarFile))))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+            {
+                LOGGER.info("Ignoring sidecar index '{}' of another format", sidecarFile.getAbsolutePath());
+                return Optional.empty();
+            }
+            final long length = in.readLong();
+            final long lastModified = in.readLong();
+            if (length != reportFile.length() || lastModified != reportFile.lastModified())
+            {
+                LOGGER.info("Ignoring outdated sidecar index '{}'", sidecarFile.getAbsolutePath());
+                return Optional.empty();
+            }
+            final int numberOfSections = in.readInt();
+            final List<Section> sections = new ArrayList<>(numberOfSections);
+            for (int i = 0; i < numberOfSections; i++)
+            {
+                final Section section = new Section(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong());
+                section.end = in.readLong();
+                sections.add(section);
+            }
+            return Optional.of(new ReportSectionIndex(length, lastModified, sections));
+        }
+        catch (final IOException ex)
+        {
+            LOGGER.warn("Failed to read sidecar index '" + sidecarFile.getAbsolutePath() + "'", ex);
+        }
+        return Optional.empty();
+    }
+
+    public void write(final File sidecarFile) throws IOException
+    {
+        assert sidecarFile != null : "Parameter 'sidecarFile' of method 'write' must not be null";
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sidecarFile))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(reportLength);
+            out.writeLong(reportLastModified);
+            out.writeInt(sections.size());
+            for (final Section next : sections)
+            {
+                out.writeUTF(next.name);
+                out.writeUTF(next.ref);
+                out.writeUTF(next.moduleName);
+                out.writeLong(next.start);
+                out.writeLong(next.end);
+            }
+        }
+    }
+
+    public long getReportLength()
+    {
+        return reportLength;
+    }
+
+    /**
+     * @return the top level sections and the modules of the workspace, ordered by position.
+     */
+    public List<Section> getSections()
+    {
+        return sections;
+    }
+
+    public List<String> getModuleNames()
+    {
+        final List<String> moduleNames = new ArrayList<>();
+        for (final Section next : sections)
+        {
+            if (next.isModule())
+            {
+                moduleNames.add(next.moduleName);
+            }
+        }
+        return moduleNames;
+    }
+
+    /**
+     * @return the byte ranges of the report ({start, end} pairs, ordered) that are needed for the options, i.e. the report without the
+     *         sections of excluded modules, external elements and resolutions.
+     */
+    List<long[]> getIncludedRanges(final ReportLoadOptions options)
+    {
+        assert options != null : "Parameter 'options' of method 'getIncludedRanges' must not be null";
+
+        final Set<String> excludedModuleIds = new HashSet<>();
+        for (final Section next : sections)
+        {
+            if (next.isModule() && !options.isModuleIncluded(next.moduleName))
+            {
+                excludedModuleIds.add(next.ref);
+            }
+        }
+
+        final List<long[]> ranges = new ArrayList<>();
+        long position = 0;
+        for (final Section next : sections)
+        {
+            if (isExcluded(next, options, excludedModuleIds))
+            {
+                if (next.start > position)
+                {
+                    ranges.add(new long[] { position, next.start });
+                }
+                position = next.end;
+            }
+        }
+        if (reportLength > position)
+        {
+            ranges.add(new long[] { position, reportLength });
+        }
+        return ranges;
+    }
+
+    private static boolean isExcluded(final Section section, final ReportLoadOptions options, final Set<String> excludedModuleIds)
+    {
+        switch (section.name)
+        {
+        case "module":
+            return section.isModule() && !options.isModuleIncluded(section.moduleName);
+        case "moduleElements":
+        case "moduleMetricValues":
+            return excludedModuleIds.contains(section.ref);
+        case "externalSystemScopeElements":
+        case "externalModuleScopeElements":
+            return options.isExcludingExternalElements();
+        case "resolutions":
+            return options.isExcludingResolutions();
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Tracks the nesting of tags in the raw bytes. All markup characters are ASCII, so UTF-8 content needs no decoding.
+     */
+    private static final class SectionScanner
+    {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int limit;
+        private int index;
+        private long position;
+
+        SectionScanner(final InputStream in)
+        {
+            this.in = in;
+        }
+
+        private int read() throws IOException
+        {
+            if (index == limit)
+            {
+                limit = in.read(buffer, 0, buffer.length);
+                index = 0;
+                if (limit <= 0)
+                {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            position++;
+            return buffer[index++] & 0xff;
+        }
+
+        /**
+         * Skips past the next occurrence of the terminator. On a mismatch the longest matched part that is still a prefix of the
+         * terminator is kept (Knuth-Morris-Pratt), so e.g. ']]]&gt;' ends a CDATA section.
+         */
+        private void skipPast(final String terminator) throws IOException
+        {
+            final int length = terminator.length();
+            final int[] fallback = getFallback(terminator);
+            int matched = 0;
+            while (matched < length)
+            {
+                final int next = read();
+                if (next == -1)
+                {
+                    throw new IOException("Unexpected end of report, missing '" + terminator + "'");
+                }
+                while (matched > 0 && next != terminator.charAt(matched))
+                {
+                    matched = fallback[matched - 1];
+                }
+                if (next == terminator.charAt(matched))
+                {
+                    matched++;
+                }
+            }
+        }
+
+        /**
+         * @return for each prefix of the terminator the length of its longest proper prefix that is also its suffix.
+         */
+        private static int[] getFallback(final String terminator)
+        {
+            final int[] fallback = new int[terminator.length()];
+            int matched = 0;
+            for (int i = 1; i < terminator.length(); i++)
+            {
+                while (matched > 0 && terminator.charAt(i) != terminator.charAt(matched))
+                {
+                    matched = fallback[matched - 1];
+                }
+                if (terminator.charAt(i) == terminator.charAt(matched))
+                {
+                    matched++;
+                }
+                fallback[i] = matched;
+            }
+            return fallback;
+        }
+
+        List<Section> scan() throws IOException
+        {
+            final List<Section> sections = new ArrayList<>();
+            Section section = null;
+            Section module = null;
+            int depth = 0;
+            for (int next = read(); next != -1; next = read())
+            {
+                if (next != '<')
+                {
+                    continue;
+                }
+                final long start = position - 1;
+                final int first = read();
+                if (first == '?')
+                {
+                    skipPast("?>");
+                }
+                else if (first == '!')
+                {
+                    final int second = read();
+                    if (second == '-')
+                    {
+                        skipPast("-->");
+                    }
+                    else if (second == '[')
+                    {
+                        skipPast("]]>");
+                    }
+                    else
+                    {
+                        skipPast(">");
+                    }
+                }
+                else if (first == '/')
+                {
+                    skipPast(">");
+                    depth--;
+                    if (depth == 2 && module != null)
+                    {
+                        module.end = position;
+                        sections.add(module);
+                        module = null;
+                    }
+                    else if (depth == 1 && section != null)
+                    {
+                        section.end = position;
+                        sections.add(section);
+                        section = null;
+                    }
+                }
+                else if (first != -1)
+                {
+                    final StartTag tag = readStartTag(first, depth <= 2);
+                    if (depth == 1)
+                    {
+                        final String ref = tag.getAttribute("ref", tag.getAttribute("elementRef", ""));
+                        section = new Section(tag.localName, ref, "", start);
+                    }
+                    else if (depth == 2 && section != null && "workspace".equals(section.name) && "module".equals(tag.localName))
+                    {
+                        module = new Section("module", tag.getAttribute("id", ""), tag.getAttribute("name", ""), start);
+                    }
+                    if (tag.empty)
+                    {
+                        if (depth == 2 && module != null)
+                        {
+                            module.end = position;
+                            sections.add(module);
+                            module = null;
+                        }
+                        else if (depth == 1 && section != null)
+                        {
+                            section.end = position;
+                            sections.add(section);
+                            section = null;
+                        }
+                    }
+                    else
+                    {
+                        depth++;
+                    }
+                }
+            }
+            return sections;
+        }
+
+        /**
+         * Reads a start tag up to and including its '&gt;'.
+         * @param readAttributes Attributes are only collected if needed, deeper tags are only skipped.
+         */
+        private StartTag readStartTag(final int first, final boolean readAttributes) throws IOException
+        {
+            final ByteArrayOutputStream token = new ByteArrayOutputStream(32);
+            int next = first;
+            while (next != -1 && !isWhitespace(next) && next != '>' && next != '/')
+            {
+                token.write(next);
+                next = read();
+            }
+            final String qName = token.toString(StandardCharsets.UTF_8.name());
+            final StartTag tag = new StartTag(qName.substring(qName.indexOf(':') + 1));
+
+            String attributeName = null;
+            token.reset();
+            while (next != -1)
+            {
+                if (next == '"' || next == '\'')
+                {
+                    final int quote = next;
+                    token.reset();
+                    for (next = read(); next != -1 && next != quote; next = read())
+                    {
+                        if (readAttributes)
+                        {
+                            token.write(next);
+                        }
+                    }
+                    if (readAttributes && attributeName != null)
+                    {
+                        tag.attributes.add(attributeName);
+                        tag.attributes.add(unescape(token.toString(StandardCharsets.UTF_8.name())));
+                    }
+                    attributeName = null;
+                    token.reset();
+                }
+                else if (next == '>')
+                {
+                    return tag;
+                }
+                else if (next == '/')
+                {
+                    tag.empty = true;
+                }
+                else if (next == '=')
+                {
+                    attributeName = token.toString(StandardCharsets.UTF_8.name()).trim();
+                    token.reset();
+                }
+                else if (readAttributes)
+                {
+                    tag.empty = false;
+                    token.write(next);
+                }
+                next = read();
+            }
+            throw new IOException("Unexpected end of report in tag '" + qName + "'");
+        }
+
+        private static boolean isWhitespace(final int next)
+        {
+            return next == ' ' || next == '\t' || next == '\n' || next == '\r';
+        }
+
+        private static String unescape(final String value)
+        {
+            if (value.indexOf('&') < 0)
+            {
+                return value;
+            }
+            return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'").replace("&amp;", "&");
+        }
+    }
+
+    private static final class StartTag
+    {
+        private final String localName;
+        //Name, value, name, value, ...
+        private final List<String> attributes = new ArrayList<>(8);
+        private boolean empty;
+
+        StartTag(final String localName)
+        {
+            this.localName = localName;
+        }
+
+        String getAttribute(final String name, final String defaultValue)
+        {
+            for (int i = 0; i < attributes.size(); i += 2)
+            {
+                if (attributes.get(i).equals(name))
+                {
+                    return attributes.get(i + 1);
+                }
+            }
+            return defaultValue;
+        }
+    }
+}
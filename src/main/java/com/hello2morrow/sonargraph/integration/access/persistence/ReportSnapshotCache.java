@@ -0,0 +1,236 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+/**
+ * Stores loaded software systems as binary snapshots ({@link ReportSnapshotFormat}), so that a report needs to be parsed from XML only
+ * once.
+ * Snapshots are named after the path, size and modification time of the report and the library version - a changed report or a different
+ * library version simply leads to a new snapshot. Several processes might share the same directory: snapshots are written to a temporary
+ * file first and then moved into place. Failures to read or write snapshots are logged, the caller falls back to reading the XML report.
+ */
+public final class ReportSnapshotCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportSnapshotCache.class);
+    private static final String LIBRARY_VERSION = getLibraryVersion();
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    /** Writes the snapshots of all caches one after the other in the background, the thread ends when idle. */
+    private static final Executor WRITER = createWriter();
+
+    private final File directory;
+
+    /**
+     * @param directory Directory containing the snapshots - created on demand. Might be the directory containing the reports.
+     */
+    public ReportSnapshotCache(final File directory)
+    {
+        assert directory != null : "Parameter 'directory' of method 'ReportSnapshotCache' must not be null";
+        this.directory = directory;
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    private static String getLibraryVersion()
+    {
+        final String version = ReportSnapshotCache.class.getPackage().getImplementationVersion();
+        return version != null ? version : "development";
+    }
+
+    private static Executor createWriter()
+    {
+        final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r ->
+        {
+            final Thread thread = new Thread(r, "Report snapshot writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.allowCoreThreadTimeOut(true);
+        return writer;
+    }
+
+    /**
+     * @return the key of the snapshot for the given report, see {@link #getKey(File, String)}.
+     */
+    public Optional<String> getKey(final File reportFile)
+    {
+        return getKey(reportFile, "");
+    }
+
+    /**
+     * The key is derived from the canonical path, size and modification time of the report without reading it, so that looking up a
+     * snapshot is cheap even for huge reports. A report rewritten with the same size within the resolution of the file system timestamps
+     * is not detected.
+     * @param variant Distinguishes snapshots of the same report that have been read differently, e.g. {@link ReportLoadOptions#getKey()}.
+     * @return the key of the snapshot for the given report and variant. Empty if the report does not exist.
+     */
+    public Optional<String> getKey(final File reportFile, final String variant)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'getKey' must not be null";
+        assert variant != null : "Parameter 'variant' of method 'getKey' must not be null";
+
+        if (!reportFile.isFile())
+        {
+            return Optional.empty();
+        }
+
+        try
+        {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final String identity = ReportSnapshotFormat.FORMAT_VERSION + ":" + LIBRARY_VERSION + ":" + variant + ":"
+                    + reportFile.getCanonicalPath() + ":" + reportFile.length() + ":" + reportFile.lastModified();
+            final StringBuilder key = new StringBuilder();
+            for (final byte next : digest.digest(identity.getBytes(StandardCharsets.UTF_8)))
+            {
+                key.append(Character.forDigit((next >> 4) & 0xf, 16)).append(Character.forDigit(next & 0xf, 16));
+            }
+            return Optional.of(key.toString());
+        }
+        catch (final IOException | NoSuchAlgorithmException ex)
+        {
+            LOGGER.warn("Failed to compute snapshot key of '" + reportFile.getAbsolutePath() + "'", ex);
+        }
+        return Optional.empty();
+    }
+
+    private File getSnapshotFile(final String key)
+    {
+        return new File(directory, key + SNAPSHOT_EXTENSION);
+    }
+
+    public boolean hasSnapshot(final String key)
+    {
+        assert key != null && key.length() > 0 : "Parameter 'key' of method 'hasSnapshot' must not be empty";
+        return getSnapshotFile(key).isFile();
+    }
+
+    /**
+     * @return the software system stored with the given key or empty if there is no valid snapshot.
+     */
+    public Optional<SoftwareSystemImpl> read(final String key)
+    {
+        assert key != null && key.length() > 0 : "Parameter 'key' of method 'read' must not be empty";
+
+        final File snapshotFile = getSnapshotFile(key);
+        if (!snapshotFile.isFile())
+        {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ))
+        {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(new ReportSnapshotReader(buffer).read());
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+            LOGGER.warn("Failed to read snapshot '" + snapshotFile.getAbsolutePath() + "'", ex);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the software system with the given key, replacing an existing snapshot.
+     * @return true if the snapshot has been written.
+     */
+    public boolean write(final String key, final SoftwareSystemImpl softwareSystem)
+    {
+        assert key != null && key.length() > 0 : "Parameter 'key' of method 'write' must not be empty";
+        assert softwareSystem != null : "Parameter 'softwareSystem' of method 'write' must not be null";
+
+        final File snapshotFile = getSnapshotFile(key);
+        Path tempFile = null;
+        try
+        {
+            Files.createDirectories(directory.toPath());
+            tempFile = Files.createTempFile(directory.toPath(), key, ".tmp");
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                new ReportSnapshotWriter(softwareSystem).write(channel);
+            }
+
+            try
+            {
+                Files.move(tempFile, snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (final AtomicMoveNotSupportedException ex)
+            {
+                Files.move(tempFile, snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+            return true;
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+            LOGGER.warn("Failed to write snapshot '" + snapshotFile.getAbsolutePath() + "'", ex);
+        }
+        finally
+        {
+            if (tempFile != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(tempFile);
+                }
+                catch (final IOException ex)
+                {
+                    LOGGER.warn("Failed to delete '" + tempFile + "'", ex);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link #write(String, SoftwareSystemImpl)} in the background, so that loading a report does not wait for its snapshot.
+     * The system must not be modified anymore, i.e. it must have been frozen.
+     * @return future completed with true if the snapshot has been written.
+     */
+    public CompletableFuture<Boolean> writeAsync(final String key, final SoftwareSystemImpl softwareSystem)
+    {
+        assert key != null && key.length() > 0 : "Parameter 'key' of method 'writeAsync' must not be empty";
+        assert softwareSystem != null && softwareSystem.isFrozen() : "Parameter 'softwareSystem' of method 'writeAsync' must be frozen";
+        return CompletableFuture.supplyAsync(() -> write(key, softwareSystem), WRITER);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+/**
+ * Layout of a report snapshot, written by {@link ReportSnapshotWriter} and read from the memory mapped file by {@link ReportSnapshotReader}.
+ * All numbers are big endian. The header (magic, format version, offset of the string table) is followed by these sections:
+ * <ol>
+ * <li>compact fq names: parent index and segment per name, parents first</li>
+ * <li>system attributes and meta data (issue categories, providers and types, metric categories, providers, levels and ids, analyzers,
+ * features, configuration entries, thresholds)</li>
+ * <li>modules and externals, then all named elements in ordinal order with the container they have been added to</li>
+ * <li>structure: root directories and their content, programming elements of externals, logical elements, originals and source files</li>
+ * <li>metric values: per container and level the elements and one primitive column per metric id</li>
+ * <li>issues, resolutions and the number of issues</li>
+ * <li>string table: all strings once, referenced everywhere else by index (-1 for null)</li>
+ * </ol>
+ * Elements, meta data and issues are referenced by their index within their section.
+ */
+final class ReportSnapshotFormat
+{
+    static final int MAGIC = 0x53475353;
+    /** Increment whenever the layout changes. */
+    static final int FORMAT_VERSION = 5;
+    static final int HEADER_SIZE = 12;
+    static final int NO_INDEX = -1;
+
+    static final byte MODULE = 1;
+    static final byte EXTERNAL = 2;
+
+    static final byte CONTAINER = 1;
+    static final byte ROOT_DIRECTORY = 2;
+    static final byte SOURCE_FILE = 3;
+    static final byte PHYSICAL_RECURSIVE_ELEMENT = 4;
+    static final byte PROGRAMMING_ELEMENT = 5;
+    static final byte LOGICAL_NAMESPACE = 6;
+    static final byte LOGICAL_PROGRAMMING_ELEMENT = 7;
+    static final byte NAMED_ELEMENT = 8;
+
+    static final byte INT_COLUMN = 1;
+    static final byte FLOAT_COLUMN = 2;
+    static final byte DOUBLE_COLUMN = 3;
+    static final byte NUMBER_COLUMN = 4;
+
+    static final byte INTEGER = 1;
+    static final byte LONG = 2;
+    static final byte FLOAT = 3;
+    static final byte DOUBLE = 4;
+    static final byte SHORT = 5;
+    static final byte BYTE = 6;
+    static final byte BIG_INTEGER = 7;
+    static final byte BIG_DECIMAL = 8;
+
+    static final byte NAMED_ELEMENT_ISSUE = 1;
+    static final byte THRESHOLD_VIOLATION_ISSUE = 2;
+    static final byte DEPENDENCY_ISSUE = 3;
+    static final byte DUPLICATE_CODE_BLOCK_ISSUE = 4;
+    static final byte CYCLE_GROUP_ISSUE = 5;
+
+    private ReportSnapshotFormat()
+    {
+        super();
+    }
+}
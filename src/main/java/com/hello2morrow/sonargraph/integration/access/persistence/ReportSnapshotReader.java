@@ -0,0 +1,717 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.hello2morrow.sonargraph.integration.access.model.IAnalyzer;
+import com.hello2morrow.sonargraph.integration.access.model.IDuplicateCodeBlockOccurrence;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.Priority;
+import com.hello2morrow.sonargraph.integration.access.model.ResolutionType;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+import com.hello2morrow.sonargraph.integration.access.model.internal.AnalyzerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.CycleGroupIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DependencyIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DuplicateCodeBlockIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DuplicateCodeBlockOccurrenceImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ExternalImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.FeatureImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.FqName;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueTypeImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LanguageBasedContainerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalNamespaceImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricIdImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricLevelImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementContainerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.PhysicalElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.PhysicalRecursiveElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ResolutionImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.RootDirectoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SourceFileImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ThresholdViolationIssue;
+
+/**
+ * Reads a software system in the {@link ReportSnapshotFormat} straight from the (memory mapped) buffer, with the same model calls the XML
+ * readers use. Metric values are passed from the primitive columns of the buffer to the model without boxing. Strings are decoded on first
+ * use, so each string of the table exists only once.
+ */
+final class ReportSnapshotReader
+{
+    private final ByteBuffer buffer;
+    private int[] stringOffsets;
+    private String[] strings;
+    private FqName[] fqNames;
+    private SoftwareSystemImpl softwareSystem;
+    private NamedElementContainerImpl[] containers;
+    private NamedElementImpl[] elements;
+    private IIssueCategory[] issueCategories;
+    private IIssueProvider[] issueProviders;
+    private IIssueType[] issueTypes;
+    private IMetricCategory[] metricCategories;
+    private IMetricProvider[] metricProviders;
+    private IMetricLevel[] metricLevels;
+    private IMetricId[] metricIds;
+    private IAnalyzer[] analyzers;
+    private IMetricThreshold[] thresholds;
+    private IIssue[] issues;
+
+    /**
+     * @param buffer Positioned at the start of the snapshot.
+     */
+    ReportSnapshotReader(final ByteBuffer buffer)
+    {
+        assert buffer != null : "Parameter 'buffer' of method 'ReportSnapshotReader' must not be null";
+        this.buffer = buffer;
+    }
+
+    /**
+     * @throws IOException if the buffer does not contain a valid snapshot of the current format.
+     */
+    SoftwareSystemImpl read() throws IOException
+    {
+        if (buffer.remaining() < ReportSnapshotFormat.HEADER_SIZE || buffer.getInt() != ReportSnapshotFormat.MAGIC
+                || buffer.getInt() != ReportSnapshotFormat.FORMAT_VERSION)
+        {
+            throw new IOException("Unknown snapshot format");
+        }
+        readStringTable(buffer.getInt());
+
+        readFqNames();
+        readSystem();
+        readMetaData();
+        readContainers();
+        readElements();
+        readStructure();
+        readMetricValues();
+        readIssues();
+        readResolutions();
+        softwareSystem.setNumberOfIssues(buffer.getInt());
+        return softwareSystem;
+    }
+
+    private void readStringTable(final int offset) throws IOException
+    {
+        if (offset < ReportSnapshotFormat.HEADER_SIZE || offset > buffer.limit() - 4)
+        {
+            throw new IOException("Invalid string table offset " + offset);
+        }
+
+        final int count = buffer.getInt(offset);
+        if (count < 0)
+        {
+            throw new IOException("Invalid number of strings " + count);
+        }
+        stringOffsets = new int[count];
+        strings = new String[count];
+        long position = offset + 4;
+        for (int i = 0; i < count; i++)
+        {
+            if (position > buffer.limit() - 4)
+            {
+                throw new IOException("Truncated string table");
+            }
+            stringOffsets[i] = (int) position;
+            position += 4L + buffer.getInt((int) position);
+        }
+        if (position > buffer.limit())
+        {
+            throw new IOException("Truncated string table");
+        }
+    }
+
+    private String getString(final int index)
+    {
+        if (index == ReportSnapshotFormat.NO_INDEX)
+        {
+            return null;
+        }
+        String string = strings[index];
+        if (string == null)
+        {
+            final ByteBuffer bytes = buffer.duplicate();
+            bytes.position(stringOffsets[index] + 4);
+            bytes.limit(stringOffsets[index] + 4 + buffer.getInt(stringOffsets[index]));
+            string = StandardCharsets.UTF_8.decode(bytes).toString();
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    private String readString()
+    {
+        return getString(buffer.getInt());
+    }
+
+    private boolean readBoolean()
+    {
+        return buffer.get() != 0;
+    }
+
+    /**
+     * @return the compact fq name or the plain fq name as string.
+     */
+    private Object readFqName()
+    {
+        return readBoolean() ? fqNames[buffer.getInt()] : readString();
+    }
+
+    private static <T extends NamedElementImpl> T setFqName(final T element, final Object fqName)
+    {
+        if (fqName instanceof FqName)
+        {
+            element.setCompactFqName((FqName) fqName);
+        }
+        return element;
+    }
+
+    private <T> T readElement(final Class<T> type) throws IOException
+    {
+        final NamedElementImpl element = elements[buffer.getInt()];
+        if (!type.isInstance(element))
+        {
+            throw new IOException("Element '" + element.getFqName() + "' is no " + type.getSimpleName());
+        }
+        return type.cast(element);
+    }
+
+    private <T> List<T> readElements(final Class<T> type) throws IOException
+    {
+        final int count = buffer.getInt();
+        final List<T> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            result.add(readElement(type));
+        }
+        return result;
+    }
+
+    private Number readNumber() throws IOException
+    {
+        final byte type = buffer.get();
+        switch (type)
+        {
+        case ReportSnapshotFormat.INTEGER:
+            return buffer.getInt();
+        case ReportSnapshotFormat.LONG:
+            return buffer.getLong();
+        case ReportSnapshotFormat.FLOAT:
+            return buffer.getFloat();
+        case ReportSnapshotFormat.DOUBLE:
+            return buffer.getDouble();
+        case ReportSnapshotFormat.SHORT:
+            return buffer.getShort();
+        case ReportSnapshotFormat.BYTE:
+            return buffer.get();
+        case ReportSnapshotFormat.BIG_INTEGER:
+            return new BigInteger(readString());
+        case ReportSnapshotFormat.BIG_DECIMAL:
+            return new BigDecimal(readString());
+        default:
+            throw new IOException("Unknown number type " + type);
+        }
+    }
+
+    private void readFqNames()
+    {
+        fqNames = new FqName[buffer.getInt()];
+        for (int i = 0; i < fqNames.length; i++)
+        {
+            final int parent = buffer.getInt();
+            fqNames[i] = FqName.create(parent != ReportSnapshotFormat.NO_INDEX ? fqNames[parent] : null, readString());
+        }
+    }
+
+    private void readSystem()
+    {
+        final String kind = readString();
+        final String presentationKind = readString();
+        final String systemId = readString();
+        final String name = readString();
+        final String description = readString();
+        final String path = readString();
+        final String version = readString();
+        final long timestamp = buffer.getLong();
+        final String virtualModel = readString();
+        softwareSystem = new SoftwareSystemImpl(kind, presentationKind, systemId, name, description, path, version, timestamp, virtualModel);
+    }
+
+    private void readMetaData() throws IOException
+    {
+        issueCategories = new IIssueCategory[buffer.getInt()];
+        for (int i = 0; i < issueCategories.length; i++)
+        {
+            issueCategories[i] = new IssueCategoryImpl(readString(), readString());
+            softwareSystem.addIssueCategory(issueCategories[i]);
+        }
+
+        issueProviders = new IIssueProvider[buffer.getInt()];
+        for (int i = 0; i < issueProviders.length; i++)
+        {
+            issueProviders[i] = new IssueProviderImpl(readString(), readString());
+            softwareSystem.addIssueProvider(issueProviders[i]);
+        }
+
+        issueTypes = new IIssueType[buffer.getInt()];
+        for (int i = 0; i < issueTypes.length; i++)
+        {
+            final String name = readString();
+            final String presentationName = readString();
+            final Severity severity = Severity.valueOf(readString());
+            final IIssueCategory category = issueCategories[buffer.getInt()];
+            final int provider = buffer.getInt();
+            issueTypes[i] = new IssueTypeImpl(name, presentationName, severity, category,
+                    provider != ReportSnapshotFormat.NO_INDEX ? issueProviders[provider] : null, readString());
+            softwareSystem.addIssueType(issueTypes[i]);
+        }
+
+        readMetricMetaData();
+
+        analyzers = new IAnalyzer[buffer.getInt()];
+        for (int i = 0; i < analyzers.length; i++)
+        {
+            analyzers[i] = new AnalyzerImpl(readString(), readString(), readString(), readBoolean());
+            softwareSystem.addAnalyzer(analyzers[i]);
+        }
+
+        final int numberOfFeatures = buffer.getInt();
+        for (int i = 0; i < numberOfFeatures; i++)
+        {
+            softwareSystem.addFeature(new FeatureImpl(readString(), readString(), readBoolean()));
+        }
+
+        final int numberOfDuplicateCodeEntries = buffer.getInt();
+        for (int i = 0; i < numberOfDuplicateCodeEntries; i++)
+        {
+            softwareSystem.addDuplicateCodeConfigurationEntry(readString());
+        }
+        final int numberOfScriptRunnerEntries = buffer.getInt();
+        for (int i = 0; i < numberOfScriptRunnerEntries; i++)
+        {
+            softwareSystem.addScriptRunnerConfigurationEntry(readString());
+        }
+        final int numberOfArchitectureCheckEntries = buffer.getInt();
+        for (int i = 0; i < numberOfArchitectureCheckEntries; i++)
+        {
+            softwareSystem.addArchitectureCheckConfigurationEntry(readString());
+        }
+
+        thresholds = new IMetricThreshold[buffer.getInt()];
+        final int numberOfRegisteredThresholds = buffer.getInt();
+        for (int i = 0; i < thresholds.length; i++)
+        {
+            final IMetricId metricId = metricIds[buffer.getInt()];
+            final IMetricLevel level = metricLevels[buffer.getInt()];
+            final MetricThreshold threshold = new MetricThreshold(metricId, level, readNumber(), readNumber());
+            thresholds[i] = threshold;
+            if (i < numberOfRegisteredThresholds)
+            {
+                softwareSystem.addMetricThreshold(threshold);
+            }
+        }
+    }
+
+    private void readMetricMetaData()
+    {
+        metricCategories = new IMetricCategory[buffer.getInt()];
+        for (int i = 0; i < metricCategories.length; i++)
+        {
+            metricCategories[i] = new MetricCategoryImpl(readString(), readString(), buffer.getInt());
+            softwareSystem.addMetricCategory(metricCategories[i]);
+        }
+
+        metricProviders = new IMetricProvider[buffer.getInt()];
+        for (int i = 0; i < metricProviders.length; i++)
+        {
+            metricProviders[i] = new MetricProviderImpl(readString(), readString());
+            softwareSystem.addMetricProvider(metricProviders[i]);
+        }
+
+        metricLevels = new IMetricLevel[buffer.getInt()];
+        for (int i = 0; i < metricLevels.length; i++)
+        {
+            metricLevels[i] = new MetricLevelImpl(readString(), readString(), buffer.getInt());
+            softwareSystem.addMetricLevel(metricLevels[i]);
+        }
+
+        metricIds = new IMetricId[buffer.getInt()];
+        for (int i = 0; i < metricIds.length; i++)
+        {
+            final String name = readString();
+            final String presentationName = readString();
+            final String description = readString();
+            final List<IMetricCategory> categories = new ArrayList<>();
+            final int numberOfCategories = buffer.getInt();
+            for (int j = 0; j < numberOfCategories; j++)
+            {
+                categories.add(metricCategories[buffer.getInt()]);
+            }
+            final List<IMetricLevel> levels = new ArrayList<>();
+            final int numberOfLevels = buffer.getInt();
+            for (int j = 0; j < numberOfLevels; j++)
+            {
+                levels.add(metricLevels[buffer.getInt()]);
+            }
+            final IMetricProvider provider = metricProviders[buffer.getInt()];
+            final boolean isFloat = readBoolean();
+            final double bestValue = buffer.getDouble();
+            final double worstValue = buffer.getDouble();
+            metricIds[i] = new MetricIdImpl(name, presentationName, description, categories, levels, provider, isFloat, bestValue, worstValue);
+            softwareSystem.addMetricId(metricIds[i]);
+        }
+    }
+
+    private void readContainers() throws IOException
+    {
+        containers = new NamedElementContainerImpl[buffer.getInt() + 1];
+        containers[0] = softwareSystem;
+        for (int i = 1; i < containers.length; i++)
+        {
+            final byte type = buffer.get();
+            final String kind = readString();
+            final String presentationKind = readString();
+            final String name = readString();
+            final String presentationName = readString();
+            final Object fqName = readFqName();
+            final String description = readString();
+            final String language = readString();
+            if (type == ReportSnapshotFormat.MODULE)
+            {
+                final ModuleImpl module = setFqName(new ModuleImpl(kind, presentationKind, name, presentationName, fqName.toString(),
+                        description, softwareSystem.getMetaDataAccess(), softwareSystem.getElementRegistry(), language, softwareSystem), fqName);
+                softwareSystem.addModule(module);
+                containers[i] = module;
+            }
+            else if (type == ReportSnapshotFormat.EXTERNAL)
+            {
+                final ExternalImpl external = setFqName(new ExternalImpl(kind, presentationKind, name, presentationName, fqName.toString(),
+                        description, softwareSystem.getMetaDataAccess(), softwareSystem.getElementRegistry(), language), fqName);
+                softwareSystem.addExternal(external);
+                containers[i] = external;
+            }
+            else
+            {
+                throw new IOException("Unknown container type " + type);
+            }
+        }
+    }
+
+    private void readElements() throws IOException
+    {
+        elements = new NamedElementImpl[buffer.getInt()];
+        for (int i = 0; i < elements.length; i++)
+        {
+            final NamedElementContainerImpl container = containers[buffer.getInt()];
+            final byte type = buffer.get();
+            final NamedElementImpl element;
+            if (type == ReportSnapshotFormat.CONTAINER)
+            {
+                element = containers[buffer.getInt()];
+            }
+            else if (type == ReportSnapshotFormat.ROOT_DIRECTORY)
+            {
+                final String kind = readString();
+                final String presentationKind = readString();
+                final String relativePath = readString();
+                final Object fqName = readFqName();
+                element = setFqName(new RootDirectoryImpl(kind, presentationKind, relativePath, fqName.toString()), fqName);
+            }
+            else
+            {
+                final String kind = readString();
+                final String presentationKind = readString();
+                final String name = readString();
+                final String presentationName = readString();
+                final Object fqName = readFqName();
+                element = setFqName(createElement(type, kind, presentationKind, name, presentationName, fqName.toString()), fqName);
+            }
+            container.addElement(element);
+            elements[i] = element;
+        }
+    }
+
+    private NamedElementImpl createElement(final byte type, final String kind, final String presentationKind, final String name,
+            final String presentationName, final String fqName) throws IOException
+    {
+        switch (type)
+        {
+        case ReportSnapshotFormat.SOURCE_FILE:
+            return new SourceFileImpl(kind, presentationKind, name, presentationName, fqName, readBoolean(), readString());
+        case ReportSnapshotFormat.PHYSICAL_RECURSIVE_ELEMENT:
+            final PhysicalRecursiveElementImpl physicalRecursiveElement = new PhysicalRecursiveElementImpl(kind, presentationKind, name,
+                    presentationName, fqName, readBoolean());
+            final String relativeRootDirectory = readString();
+            if (relativeRootDirectory != null)
+            {
+                physicalRecursiveElement.setRelativeRootDirectory(relativeRootDirectory);
+            }
+            final String relativeDirectory = readString();
+            if (relativeDirectory != null)
+            {
+                physicalRecursiveElement.setRelativeDirectory(relativeDirectory);
+            }
+            return physicalRecursiveElement;
+        case ReportSnapshotFormat.PROGRAMMING_ELEMENT:
+            return new ProgrammingElementImpl(kind, presentationKind, name, presentationName, fqName, buffer.getInt());
+        case ReportSnapshotFormat.LOGICAL_NAMESPACE:
+            return new LogicalNamespaceImpl(kind, presentationKind, name, presentationName, fqName);
+        case ReportSnapshotFormat.LOGICAL_PROGRAMMING_ELEMENT:
+            return new LogicalProgrammingElementImpl(kind, presentationKind, name, presentationName, fqName);
+        case ReportSnapshotFormat.NAMED_ELEMENT:
+            return new NamedElementImpl(kind, presentationKind, name, presentationName, fqName);
+        default:
+            throw new IOException("Unknown element type " + type);
+        }
+    }
+
+    private void readStructure() throws IOException
+    {
+        for (int i = 1; i < containers.length; i++)
+        {
+            final LanguageBasedContainerImpl container = (LanguageBasedContainerImpl) containers[i];
+            final List<RootDirectoryImpl> rootDirectories = readElements(RootDirectoryImpl.class);
+            for (final RootDirectoryImpl nextRootDirectory : rootDirectories)
+            {
+                container.addRootDirectory(nextRootDirectory);
+                readElements(SourceFileImpl.class).forEach(nextRootDirectory::addSourceFile);
+                readElements(PhysicalRecursiveElementImpl.class).forEach(nextRootDirectory::addPhysicalRecursiveElement);
+                readElements(ProgrammingElementImpl.class).forEach(nextRootDirectory::addProgrammingElement);
+            }
+            if (container instanceof ExternalImpl)
+            {
+                readElements(PhysicalRecursiveElementImpl.class).forEach(((ExternalImpl) container)::addPhysicalRecursiveElement);
+                readElements(ProgrammingElementImpl.class).forEach(((ExternalImpl) container)::addProgrammingElement);
+            }
+        }
+
+        for (final NamedElementContainerImpl nextContainer : containers)
+        {
+            readElements(LogicalNamespaceImpl.class).forEach(nextContainer::addLogicalNamespace);
+            readElements(LogicalProgrammingElementImpl.class).forEach(nextContainer::addLogicalProgrammingElement);
+        }
+
+        final int numberOfLogicalElements = buffer.getInt();
+        for (int i = 0; i < numberOfLogicalElements; i++)
+        {
+            final LogicalElementImpl logicalElement = readElement(LogicalElementImpl.class);
+            readElements(NamedElementImpl.class).forEach(logicalElement::addDerivedFrom);
+        }
+
+        final int numberOfOriginals = buffer.getInt();
+        for (int i = 0; i < numberOfOriginals; i++)
+        {
+            final PhysicalElementImpl physicalElement = readElement(PhysicalElementImpl.class);
+            physicalElement.setOriginalLocation(readElement(PhysicalElementImpl.class));
+        }
+
+        final int numberOfSourceFiles = buffer.getInt();
+        for (int i = 0; i < numberOfSourceFiles; i++)
+        {
+            final NamedElementImpl element = readElement(NamedElementImpl.class);
+            softwareSystem.addSourceFile(element, readElement(SourceFileImpl.class));
+        }
+    }
+
+    /**
+     * Values shared with the system are added to both, like the XML readers do.
+     */
+    private void readMetricValues() throws IOException
+    {
+        final int numberOfRecords = buffer.getInt();
+        for (int i = 0; i < numberOfRecords; i++)
+        {
+            final NamedElementContainerImpl container = containers[buffer.getInt()];
+            final boolean sharedWithSystem = readBoolean();
+            final IMetricLevel level = metricLevels[buffer.getInt()];
+            final List<NamedElementImpl> rowElements = readElements(NamedElementImpl.class);
+            final int numberOfMetricIds = buffer.getInt();
+            for (int j = 0; j < numberOfMetricIds; j++)
+            {
+                final IMetricId metricId = metricIds[buffer.getInt()];
+                final byte columnType = buffer.get();
+                final int numberOfWords = buffer.getInt();
+                final LongBuffer words = buffer.asLongBuffer();
+                words.limit(numberOfWords);
+                final BitSet present = BitSet.valueOf(words);
+                buffer.position(buffer.position() + numberOfWords * 8);
+
+                for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1))
+                {
+                    final NamedElementImpl element = rowElements.get(row);
+                    switch (columnType)
+                    {
+                    case ReportSnapshotFormat.INT_COLUMN:
+                        final int intValue = buffer.getInt();
+                        container.addMetricValueForElement(metricId, level, element, intValue);
+                        if (sharedWithSystem)
+                        {
+                            softwareSystem.addMetricValueForElement(metricId, level, element, intValue);
+                        }
+                        break;
+                    case ReportSnapshotFormat.FLOAT_COLUMN:
+                        final float floatValue = buffer.getFloat();
+                        container.addMetricValueForElement(metricId, level, element, floatValue);
+                        if (sharedWithSystem)
+                        {
+                            softwareSystem.addMetricValueForElement(metricId, level, element, floatValue);
+                        }
+                        break;
+                    case ReportSnapshotFormat.DOUBLE_COLUMN:
+                    case ReportSnapshotFormat.NUMBER_COLUMN:
+                        final Number value = columnType == ReportSnapshotFormat.DOUBLE_COLUMN ? Double.valueOf(buffer.getDouble()) : readNumber();
+                        container.addMetricValueForElement(metricId, level, element, value);
+                        if (sharedWithSystem)
+                        {
+                            softwareSystem.addMetricValueForElement(metricId, level, element, value);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown column type " + columnType);
+                    }
+                }
+            }
+        }
+    }
+
+    private void readIssues() throws IOException
+    {
+        issues = new IIssue[buffer.getInt()];
+        final int numberOfRegisteredIssues = buffer.getInt();
+        for (int i = 0; i < issues.length; i++)
+        {
+            final byte type = buffer.get();
+            final String name = readString();
+            final String presentationName = readString();
+            final String description = readString();
+            final IIssueType issueType = issueTypes[buffer.getInt()];
+            final IIssueProvider provider = issueProviders[buffer.getInt()];
+            final ResolutionType resolutionType = ResolutionType.valueOf(readString());
+
+            final IssueImpl issue;
+            if (type == ReportSnapshotFormat.DUPLICATE_CODE_BLOCK_ISSUE)
+            {
+                final int blockSize = buffer.getInt();
+                final int numberOfOccurrences = buffer.getInt();
+                final List<IDuplicateCodeBlockOccurrence> occurrences = new ArrayList<>(numberOfOccurrences);
+                for (int j = 0; j < numberOfOccurrences; j++)
+                {
+                    occurrences.add(new DuplicateCodeBlockOccurrenceImpl(readElement(SourceFileImpl.class), buffer.getInt(), buffer.getInt(),
+                            buffer.getInt()));
+                }
+                final DuplicateCodeBlockIssueImpl duplicate = new DuplicateCodeBlockIssueImpl(name, presentationName, description, issueType,
+                        provider, occurrences);
+                duplicate.setBlockSize(blockSize);
+                issue = duplicate;
+            }
+            else if (type == ReportSnapshotFormat.CYCLE_GROUP_ISSUE)
+            {
+                final IAnalyzer analyzer = analyzers[buffer.getInt()];
+                issue = new CycleGroupIssueImpl(name, presentationName, description, issueType, provider, analyzer,
+                        readElements(INamedElement.class));
+            }
+            else
+            {
+                final int line = buffer.getInt();
+                final int column = buffer.getInt();
+                if (type == ReportSnapshotFormat.DEPENDENCY_ISSUE)
+                {
+                    final INamedElement from = readElement(INamedElement.class);
+                    issue = new DependencyIssueImpl(name, presentationName, description, issueType, provider, line, column, from,
+                            readElement(INamedElement.class));
+                }
+                else if (type == ReportSnapshotFormat.NAMED_ELEMENT_ISSUE)
+                {
+                    issue = new NamedElementIssueImpl(name, presentationName, description, issueType, provider, line, column,
+                            readElement(INamedElement.class));
+                }
+                else if (type == ReportSnapshotFormat.THRESHOLD_VIOLATION_ISSUE)
+                {
+                    final INamedElement element = readElement(INamedElement.class);
+                    final Number metricValue = readNumber();
+                    issue = new ThresholdViolationIssue(name, presentationName, description, issueType, provider, line, column, element,
+                            metricValue, thresholds[buffer.getInt()]);
+                }
+                else
+                {
+                    throw new IOException("Unknown issue type " + type);
+                }
+            }
+
+            issue.setResolutionType(resolutionType);
+            issues[i] = issue;
+            if (i < numberOfRegisteredIssues)
+            {
+                softwareSystem.addIssue(issue);
+            }
+        }
+    }
+
+    private void readResolutions()
+    {
+        final int numberOfResolutions = buffer.getInt();
+        for (int i = 0; i < numberOfResolutions; i++)
+        {
+            final String name = readString();
+            final ResolutionType type = ResolutionType.valueOf(readString());
+            final Priority priority = Priority.valueOf(readString());
+            final int numberOfIssues = buffer.getInt();
+            final List<IIssue> resolutionIssues = new ArrayList<>(numberOfIssues);
+            for (int j = 0; j < numberOfIssues; j++)
+            {
+                resolutionIssues.add(issues[buffer.getInt()]);
+            }
+            final boolean isApplicable = readBoolean();
+            final int numberOfAffectedParserDependencies = buffer.getInt();
+            final String description = readString();
+            final String assignee = readString();
+            final String date = readString();
+            softwareSystem.addResolution(new ResolutionImpl(name, type, priority, resolutionIssues, isApplicable,
+                    numberOfAffectedParserDependencies, description, assignee, date));
+        }
+    }
+}
@@ -0,0 +1,997 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.hello2morrow.sonargraph.integration.access.model.IAnalyzer;
+import com.hello2morrow.sonargraph.integration.access.model.IDuplicateCodeBlockOccurrence;
+import com.hello2morrow.sonargraph.integration.access.model.IElement;
+import com.hello2morrow.sonargraph.integration.access.model.IExternal;
+import com.hello2morrow.sonargraph.integration.access.model.IFeature;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.IResolution;
+import com.hello2morrow.sonargraph.integration.access.model.IRootDirectory;
+import com.hello2morrow.sonargraph.integration.access.model.ResolutionType;
+import com.hello2morrow.sonargraph.integration.access.model.internal.CycleGroupIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DependencyIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DuplicateCodeBlockIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ExternalImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.FqName;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LanguageBasedContainerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalNamespaceImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementContainerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.PhysicalElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.PhysicalRecursiveElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.RootDirectoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SourceFileImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ThresholdViolationIssue;
+
+/**
+ * Writes a loaded software system in the {@link ReportSnapshotFormat}, using the public model API only.
+ * Anything the format cannot represent (e.g. an element that is not part of a container) is reported as IOException, so that no incomplete
+ * snapshot is written. Derived metrics are not written, they are computed again after loading.
+ */
+final class ReportSnapshotWriter
+{
+    /**
+     * The metric values of one container and level. Values of a module are usually also part of the system, they are only written once.
+     */
+    private static final class MetricValueRecord
+    {
+        private final NamedElementContainerImpl container;
+        private final boolean sharedWithSystem;
+        private final IMetricLevel level;
+        private final List<INamedElement> elements;
+        private final List<IMetricId> metricIds;
+
+        MetricValueRecord(final NamedElementContainerImpl container, final boolean sharedWithSystem, final IMetricLevel level,
+                final List<INamedElement> elements, final List<IMetricId> metricIds)
+        {
+            this.container = container;
+            this.sharedWithSystem = sharedWithSystem;
+            this.level = level;
+            this.elements = elements;
+            this.metricIds = metricIds;
+        }
+    }
+
+    private final SoftwareSystemImpl softwareSystem;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final List<String> stringTable = new ArrayList<>();
+    private final Map<FqName, Integer> fqNames = new IdentityHashMap<>();
+    private final List<FqName> fqNameTable = new ArrayList<>();
+    //The system has index 0, followed by the modules and externals
+    private final List<NamedElementContainerImpl> containerTable = new ArrayList<>();
+    private final Map<INamedElement, Integer> containers = new IdentityHashMap<>();
+    private final List<NamedElementImpl> elementTable = new ArrayList<>();
+    private final Map<INamedElement, Integer> elements = new IdentityHashMap<>();
+    private final Map<INamedElement, Integer> elementContainers = new IdentityHashMap<>();
+    private final Map<String, Integer> issueCategories = new HashMap<>();
+    private final Map<String, Integer> issueProviders = new HashMap<>();
+    private final Map<String, Integer> issueTypes = new HashMap<>();
+    private final Map<String, Integer> metricCategories = new HashMap<>();
+    private final Map<String, Integer> metricProviders = new HashMap<>();
+    private final Map<String, Integer> metricLevels = new HashMap<>();
+    private final Map<String, Integer> metricIds = new HashMap<>();
+    private final Map<String, Integer> analyzers = new HashMap<>();
+    private final List<IMetricThreshold> thresholdTable = new ArrayList<>();
+    private final Map<IMetricThreshold, Integer> thresholds = new IdentityHashMap<>();
+    private final List<IIssue> issueTable = new ArrayList<>();
+    private final Map<IIssue, Integer> issues = new IdentityHashMap<>();
+    private int numberOfRegisteredThresholds;
+    private int numberOfRegisteredIssues;
+    private DataOutputStream out;
+
+    ReportSnapshotWriter(final SoftwareSystemImpl softwareSystem)
+    {
+        assert softwareSystem != null : "Parameter 'softwareSystem' of method 'ReportSnapshotWriter' must not be null";
+        this.softwareSystem = softwareSystem;
+    }
+
+    void write(final FileChannel channel) throws IOException
+    {
+        assert channel != null : "Parameter 'channel' of method 'write' must not be null";
+
+        collectElements();
+        collectIssues();
+
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        out.writeInt(ReportSnapshotFormat.MAGIC);
+        out.writeInt(ReportSnapshotFormat.FORMAT_VERSION);
+        out.writeInt(0);
+
+        writeFqNames();
+        writeSystem();
+        writeMetaData();
+        writeContainers();
+        writeElements();
+        writeStructure();
+        writeMetricValues();
+        writeIssues();
+        writeResolutions();
+        out.writeInt(softwareSystem.getNumberOfIssues());
+
+        final int stringTableOffset = out.size();
+        out.writeInt(stringTable.size());
+        for (final String next : stringTable)
+        {
+            final byte[] bytes = next.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        if (out.size() == Integer.MAX_VALUE)
+        {
+            //DataOutputStream.size() stops counting there, a snapshot must fit into one mapped buffer anyway
+            throw new IOException("Snapshot exceeds " + Integer.MAX_VALUE + " bytes");
+        }
+        out.flush();
+
+        final ByteBuffer offset = ByteBuffer.allocate(4);
+        offset.putInt(stringTableOffset);
+        offset.flip();
+        channel.write(offset, ReportSnapshotFormat.HEADER_SIZE - 4);
+    }
+
+    private void collectElements() throws IOException
+    {
+        addContainer(softwareSystem);
+        for (final IModule next : softwareSystem.getModules().values())
+        {
+            addContainer((ModuleImpl) next);
+        }
+        for (final IExternal next : softwareSystem.getExternals().values())
+        {
+            addContainer((ExternalImpl) next);
+        }
+
+        for (int i = 0; i < containerTable.size(); i++)
+        {
+            final NamedElementContainerImpl container = containerTable.get(i);
+            for (final String nextKind : container.getElementKinds())
+            {
+                for (final INamedElement nextElement : container.getElements(nextKind))
+                {
+                    if (!(nextElement instanceof NamedElementImpl) || ((NamedElementImpl) nextElement).getOrdinal() < 0)
+                    {
+                        throw new IOException("Unsupported element '" + nextElement.getFqName() + "'");
+                    }
+                    if (elementContainers.put(nextElement, i) != null)
+                    {
+                        throw new IOException("Element '" + nextElement.getFqName() + "' has been added to several containers");
+                    }
+                    elementTable.add((NamedElementImpl) nextElement);
+                }
+            }
+        }
+
+        //Adding the elements in ordinal order again assigns the same ordinals
+        elementTable.sort(Comparator.comparingInt(NamedElementImpl::getOrdinal));
+        for (int i = 0; i < elementTable.size(); i++)
+        {
+            final NamedElementImpl next = elementTable.get(i);
+            elements.put(next, i);
+            addFqName(next);
+        }
+    }
+
+    private void addContainer(final NamedElementContainerImpl container)
+    {
+        containers.put(container, containerTable.size());
+        containerTable.add(container);
+        addFqName(container);
+    }
+
+    /**
+     * Adds the compact name of the element and all of its parents that have not been added yet, parents first - without recursion, since
+     * the chains might be very long.
+     */
+    private void addFqName(final NamedElementImpl element)
+    {
+        if (!element.hasCompactFqName())
+        {
+            return;
+        }
+
+        final Deque<FqName> missing = new ArrayDeque<>();
+        for (FqName next = element.getCompactFqName(); next != null && !fqNames.containsKey(next); next = next.getParent())
+        {
+            missing.push(next);
+        }
+        while (!missing.isEmpty())
+        {
+            final FqName next = missing.pop();
+            fqNames.put(next, fqNameTable.size());
+            fqNameTable.add(next);
+        }
+    }
+
+    /**
+     * Issues of resolutions and thresholds of threshold violations might not have been added to the system, they are written as well.
+     */
+    private void collectIssues()
+    {
+        for (final IMetricThreshold next : softwareSystem.getMetricThresholds())
+        {
+            addThreshold(next);
+        }
+        numberOfRegisteredThresholds = thresholdTable.size();
+
+        for (final List<IIssue> nextIssues : softwareSystem.getIssues().values())
+        {
+            nextIssues.forEach(this::addIssue);
+        }
+        numberOfRegisteredIssues = issueTable.size();
+        for (final List<IResolution> nextResolutions : softwareSystem.getResolutions().values())
+        {
+            for (final IResolution nextResolution : nextResolutions)
+            {
+                nextResolution.getIssues().forEach(this::addIssue);
+            }
+        }
+
+        for (final IIssue next : issueTable)
+        {
+            if (next instanceof ThresholdViolationIssue)
+            {
+                addThreshold(((ThresholdViolationIssue) next).getThreshold());
+            }
+        }
+    }
+
+    private void addThreshold(final IMetricThreshold threshold)
+    {
+        if (!thresholds.containsKey(threshold))
+        {
+            thresholds.put(threshold, thresholdTable.size());
+            thresholdTable.add(threshold);
+        }
+    }
+
+    private void addIssue(final IIssue issue)
+    {
+        if (!issues.containsKey(issue))
+        {
+            issues.put(issue, issueTable.size());
+            issueTable.add(issue);
+        }
+    }
+
+    private void writeString(final String string) throws IOException
+    {
+        if (string == null)
+        {
+            out.writeInt(ReportSnapshotFormat.NO_INDEX);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index == null)
+        {
+            index = stringTable.size();
+            strings.put(string, index);
+            stringTable.add(string);
+        }
+        out.writeInt(index);
+    }
+
+    private void writeIndex(final Map<String, Integer> indexes, final IElement element, final String what) throws IOException
+    {
+        final Integer index = indexes.get(element.getName());
+        if (index == null)
+        {
+            throw new IOException("Unknown " + what + " '" + element.getName() + "'");
+        }
+        out.writeInt(index);
+    }
+
+    private void writeElement(final INamedElement element) throws IOException
+    {
+        final Integer index = elements.get(element);
+        if (index == null)
+        {
+            throw new IOException("Element '" + element.getFqName() + "' is not part of a container");
+        }
+        out.writeInt(index);
+    }
+
+    private void writeElements(final Collection<? extends INamedElement> elementsToWrite) throws IOException
+    {
+        out.writeInt(elementsToWrite.size());
+        for (final INamedElement next : elementsToWrite)
+        {
+            writeElement(next);
+        }
+    }
+
+    private void writeFqName(final NamedElementImpl element) throws IOException
+    {
+        out.writeBoolean(element.hasCompactFqName());
+        if (element.hasCompactFqName())
+        {
+            out.writeInt(fqNames.get(element.getCompactFqName()));
+        }
+        else
+        {
+            writeString(element.getFqName());
+        }
+    }
+
+    private void writeNamedElement(final NamedElementImpl element) throws IOException
+    {
+        writeString(element.getKind());
+        writeString(element.getPresentationKind());
+        writeString(element.getName());
+        writeString(element.getPresentationName());
+        writeFqName(element);
+    }
+
+    private void writeNumber(final Number number) throws IOException
+    {
+        if (number instanceof Integer)
+        {
+            out.writeByte(ReportSnapshotFormat.INTEGER);
+            out.writeInt(number.intValue());
+        }
+        else if (number instanceof Long)
+        {
+            out.writeByte(ReportSnapshotFormat.LONG);
+            out.writeLong(number.longValue());
+        }
+        else if (number instanceof Float)
+        {
+            out.writeByte(ReportSnapshotFormat.FLOAT);
+            out.writeFloat(number.floatValue());
+        }
+        else if (number instanceof Double)
+        {
+            out.writeByte(ReportSnapshotFormat.DOUBLE);
+            out.writeDouble(number.doubleValue());
+        }
+        else if (number instanceof Short)
+        {
+            out.writeByte(ReportSnapshotFormat.SHORT);
+            out.writeShort(number.shortValue());
+        }
+        else if (number instanceof Byte)
+        {
+            out.writeByte(ReportSnapshotFormat.BYTE);
+            out.writeByte(number.byteValue());
+        }
+        else if (number instanceof BigInteger)
+        {
+            out.writeByte(ReportSnapshotFormat.BIG_INTEGER);
+            writeString(number.toString());
+        }
+        else if (number instanceof BigDecimal)
+        {
+            out.writeByte(ReportSnapshotFormat.BIG_DECIMAL);
+            writeString(number.toString());
+        }
+        else
+        {
+            throw new IOException("Unsupported number " + number + " of " + (number != null ? number.getClass().getName() : "null"));
+        }
+    }
+
+    private void writeFqNames() throws IOException
+    {
+        out.writeInt(fqNameTable.size());
+        for (final FqName next : fqNameTable)
+        {
+            out.writeInt(next.getParent() != null ? fqNames.get(next.getParent()) : ReportSnapshotFormat.NO_INDEX);
+            writeString(next.getSegment());
+        }
+    }
+
+    private void writeSystem() throws IOException
+    {
+        writeString(softwareSystem.getKind());
+        writeString(softwareSystem.getPresentationKind());
+        writeString(softwareSystem.getSystemId());
+        writeString(softwareSystem.getName());
+        writeString(softwareSystem.getDescription());
+        writeString(softwareSystem.getPath());
+        writeString(softwareSystem.getVersion());
+        out.writeLong(softwareSystem.getTimestamp());
+        writeString(softwareSystem.getVirtualModel());
+    }
+
+    private static <T extends IElement> void index(final Collection<T> metaData, final Map<String, Integer> indexes)
+    {
+        for (final T next : metaData)
+        {
+            indexes.put(next.getName(), indexes.size());
+        }
+    }
+
+    private void writeMetaData() throws IOException
+    {
+        final Collection<IIssueCategory> issueCategoryList = softwareSystem.getIssueCategories().values();
+        index(issueCategoryList, issueCategories);
+        out.writeInt(issueCategoryList.size());
+        for (final IIssueCategory next : issueCategoryList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+        }
+
+        final Collection<IIssueProvider> issueProviderList = softwareSystem.getIssueProviders().values();
+        index(issueProviderList, issueProviders);
+        out.writeInt(issueProviderList.size());
+        for (final IIssueProvider next : issueProviderList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+        }
+
+        //Types are added in the iteration order of the issue map, so the issues are listed in the same order after reading
+        final Collection<IIssueType> issueTypeList = softwareSystem.getIssues().keySet();
+        index(issueTypeList, issueTypes);
+        out.writeInt(issueTypeList.size());
+        for (final IIssueType next : issueTypeList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+            writeString(next.getSeverity().name());
+            writeIndex(issueCategories, next.getCategory(), "issue category");
+            if (next.getProvider() != null)
+            {
+                writeIndex(issueProviders, next.getProvider(), "issue provider");
+            }
+            else
+            {
+                out.writeInt(ReportSnapshotFormat.NO_INDEX);
+            }
+            writeString(next.getDescription());
+        }
+
+        writeMetricMetaData();
+
+        final Collection<IAnalyzer> analyzerList = softwareSystem.getAnalyzers().values();
+        index(analyzerList, analyzers);
+        out.writeInt(analyzerList.size());
+        for (final IAnalyzer next : analyzerList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+            writeString(next.getDescription());
+            out.writeBoolean(next.isLicensed());
+        }
+
+        final Collection<IFeature> featureList = softwareSystem.getFeatures().values();
+        out.writeInt(featureList.size());
+        for (final IFeature next : featureList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+            out.writeBoolean(next.isLicensed());
+        }
+
+        writeStrings(softwareSystem.getDuplicateCodeConfigurationEntries());
+        writeStrings(softwareSystem.getScriptRunnerConfigurationEntries());
+        writeStrings(softwareSystem.getArchitectureCheckConfigurationEntries());
+
+        out.writeInt(thresholdTable.size());
+        out.writeInt(numberOfRegisteredThresholds);
+        for (final IMetricThreshold next : thresholdTable)
+        {
+            writeIndex(metricIds, next.getMetricId(), "metric id");
+            writeIndex(metricLevels, next.getMetricLevel(), "metric level");
+            writeNumber(next.getLowerThreshold());
+            writeNumber(next.getUpperThreshold());
+        }
+    }
+
+    /**
+     * Derived metric ids and the providers and categories only they use might have been added since loading, they are left out.
+     */
+    private void writeMetricMetaData() throws IOException
+    {
+        final List<IMetricId> loadedMetricIds = softwareSystem.getMetricIds().values().stream().filter(m -> !m.isDerived())
+                .collect(Collectors.toList());
+        final Set<String> derivedProviders = new HashSet<>();
+        final Set<String> derivedCategories = new HashSet<>();
+        softwareSystem.getMetricIds().values().stream().filter(IMetricId::isDerived).forEach(m ->
+        {
+            derivedProviders.add(m.getProvider().getName());
+            m.getCategories().forEach(c -> derivedCategories.add(c.getName()));
+        });
+        for (final IMetricId next : loadedMetricIds)
+        {
+            derivedProviders.remove(next.getProvider().getName());
+            next.getCategories().forEach(c -> derivedCategories.remove(c.getName()));
+        }
+
+        final List<IMetricCategory> categoryList = softwareSystem.getMetricCategories().values().stream()
+                .filter(c -> !derivedCategories.contains(c.getName())).collect(Collectors.toList());
+        index(categoryList, metricCategories);
+        out.writeInt(categoryList.size());
+        for (final IMetricCategory next : categoryList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+            out.writeInt(next.getOrderNumber());
+        }
+
+        final List<IMetricProvider> providerList = softwareSystem.getMetricProviders().values().stream()
+                .filter(p -> !derivedProviders.contains(p.getName())).collect(Collectors.toList());
+        index(providerList, metricProviders);
+        out.writeInt(providerList.size());
+        for (final IMetricProvider next : providerList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+        }
+
+        final Collection<IMetricLevel> levelList = softwareSystem.getAllMetricLevels().values();
+        index(levelList, metricLevels);
+        out.writeInt(levelList.size());
+        for (final IMetricLevel next : levelList)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+            out.writeInt(next.getOrderNumber());
+        }
+
+        index(loadedMetricIds, metricIds);
+        out.writeInt(loadedMetricIds.size());
+        for (final IMetricId next : loadedMetricIds)
+        {
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+            writeString(next.getDescription());
+            out.writeInt(next.getCategories().size());
+            for (final IMetricCategory nextCategory : next.getCategories())
+            {
+                writeIndex(metricCategories, nextCategory, "metric category");
+            }
+            out.writeInt(next.getLevels().size());
+            for (final IMetricLevel nextLevel : next.getLevels())
+            {
+                writeIndex(metricLevels, nextLevel, "metric level");
+            }
+            writeIndex(metricProviders, next.getProvider(), "metric provider");
+            out.writeBoolean(next.isFloat());
+            out.writeDouble(next.getBestValue());
+            out.writeDouble(next.getWorstValue());
+        }
+    }
+
+    private void writeStrings(final List<String> stringsToWrite) throws IOException
+    {
+        out.writeInt(stringsToWrite.size());
+        for (final String next : stringsToWrite)
+        {
+            writeString(next);
+        }
+    }
+
+    private void writeContainers() throws IOException
+    {
+        out.writeInt(containerTable.size() - 1);
+        for (final NamedElementContainerImpl next : containerTable.subList(1, containerTable.size()))
+        {
+            out.writeByte(next instanceof ModuleImpl ? ReportSnapshotFormat.MODULE : ReportSnapshotFormat.EXTERNAL);
+            writeNamedElement(next);
+            writeString(next.getDescription());
+            writeString(((LanguageBasedContainerImpl) next).getLanguage());
+        }
+    }
+
+    private void writeElements() throws IOException
+    {
+        out.writeInt(elementTable.size());
+        for (final NamedElementImpl next : elementTable)
+        {
+            out.writeInt(elementContainers.get(next));
+            final Integer container = containers.get(next);
+            if (container != null)
+            {
+                out.writeByte(ReportSnapshotFormat.CONTAINER);
+                out.writeInt(container);
+            }
+            else if (next instanceof RootDirectoryImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.ROOT_DIRECTORY);
+                writeString(next.getKind());
+                writeString(next.getPresentationKind());
+                writeString(((RootDirectoryImpl) next).getRelativePath());
+                writeFqName(next);
+            }
+            else if (next instanceof SourceFileImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.SOURCE_FILE);
+                writeNamedElement(next);
+                out.writeBoolean(next.isLocationOnly());
+                writeString(((SourceFileImpl) next).getRelativeRootDirectory());
+            }
+            else if (next instanceof PhysicalRecursiveElementImpl)
+            {
+                final PhysicalRecursiveElementImpl physicalRecursiveElement = (PhysicalRecursiveElementImpl) next;
+                out.writeByte(ReportSnapshotFormat.PHYSICAL_RECURSIVE_ELEMENT);
+                writeNamedElement(next);
+                out.writeBoolean(next.isLocationOnly());
+                writeString(physicalRecursiveElement.getRelativeRootDirectory().orElse(null));
+                writeString(physicalRecursiveElement.getRelativeDirectory().orElse(null));
+            }
+            else if (next instanceof ProgrammingElementImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.PROGRAMMING_ELEMENT);
+                writeNamedElement(next);
+                out.writeInt(((ProgrammingElementImpl) next).getLineNumber());
+            }
+            else if (next instanceof LogicalNamespaceImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.LOGICAL_NAMESPACE);
+                writeNamedElement(next);
+            }
+            else if (next instanceof LogicalProgrammingElementImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.LOGICAL_PROGRAMMING_ELEMENT);
+                writeNamedElement(next);
+            }
+            else if (next.getClass() == NamedElementImpl.class)
+            {
+                out.writeByte(ReportSnapshotFormat.NAMED_ELEMENT);
+                writeNamedElement(next);
+            }
+            else
+            {
+                throw new IOException("Unsupported element '" + next.getFqName() + "' of " + next.getClass().getName());
+            }
+        }
+    }
+
+    private void writeStructure() throws IOException
+    {
+        for (final NamedElementContainerImpl next : containerTable.subList(1, containerTable.size()))
+        {
+            final List<IRootDirectory> rootDirectories = ((LanguageBasedContainerImpl) next).getRootDirectories();
+            writeElements(rootDirectories);
+            for (final IRootDirectory nextRootDirectory : rootDirectories)
+            {
+                final RootDirectoryImpl rootDirectory = (RootDirectoryImpl) nextRootDirectory;
+                writeElements(rootDirectory.getSourceFiles());
+                writeElements(rootDirectory.getPhysicalRecursiveElements());
+                writeElements(rootDirectory.getProgrammingElements());
+            }
+            if (next instanceof ExternalImpl)
+            {
+                writeElements(((ExternalImpl) next).getPhysicalRecursiveElements());
+                writeElements(((ExternalImpl) next).getProgrammingElements());
+            }
+        }
+
+        for (final NamedElementContainerImpl next : containerTable)
+        {
+            writeElements(next.getLogicalNamespaces());
+            writeElements(next.getLogicalProgrammingElements());
+        }
+
+        final List<LogicalElementImpl> logicalElements = elementTable.stream().filter(e -> e instanceof LogicalElementImpl)
+                .map(e -> (LogicalElementImpl) e).filter(e -> !e.getDerivedFrom().isEmpty()).collect(Collectors.toList());
+        out.writeInt(logicalElements.size());
+        for (final LogicalElementImpl next : logicalElements)
+        {
+            writeElement(next);
+            writeElements(next.getDerivedFrom());
+        }
+
+        final List<PhysicalElementImpl> withOriginal = elementTable.stream().filter(e -> e instanceof PhysicalElementImpl)
+                .map(e -> (PhysicalElementImpl) e).filter(e -> e.getOriginalLocation().isPresent()).collect(Collectors.toList());
+        out.writeInt(withOriginal.size());
+        for (final PhysicalElementImpl next : withOriginal)
+        {
+            writeElement(next);
+            writeElement(next.getOriginalLocation().get());
+        }
+
+        //Equal elements share their ordinal and therefore their source file
+        final BitSet ordinals = new BitSet();
+        final List<NamedElementImpl> withSourceFile = new ArrayList<>();
+        final List<SourceFileImpl> sourceFiles = new ArrayList<>();
+        for (final NamedElementImpl next : elementTable)
+        {
+            final Optional<SourceFileImpl> sourceFile = softwareSystem.getSourceFile(next);
+            if (sourceFile.isPresent() && !ordinals.get(next.getOrdinal()))
+            {
+                ordinals.set(next.getOrdinal());
+                withSourceFile.add(next);
+                sourceFiles.add(sourceFile.get());
+            }
+        }
+        out.writeInt(withSourceFile.size());
+        for (int i = 0; i < withSourceFile.size(); i++)
+        {
+            writeElement(withSourceFile.get(i));
+            writeElement(sourceFiles.get(i));
+        }
+    }
+
+    private List<IMetricId> getLoadedMetricIds(final NamedElementContainerImpl container, final IMetricLevel level)
+    {
+        return container.getMetricIdsForLevel(level).stream().filter(m -> !m.isDerived()).collect(Collectors.toList());
+    }
+
+    private void writeMetricValues() throws IOException
+    {
+        final List<MetricValueRecord> records = new ArrayList<>();
+        for (final IMetricLevel nextLevel : softwareSystem.getAllMetricLevels().values())
+        {
+            final List<INamedElement> systemElements = softwareSystem.getMetricValueElements(nextLevel);
+            final List<IMetricId> systemMetricIds = getLoadedMetricIds(softwareSystem, nextLevel);
+            final Set<INamedElement> systemElementSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            systemElementSet.addAll(systemElements);
+
+            final Set<INamedElement> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+            final List<MetricValueRecord> containerRecords = new ArrayList<>();
+            for (final NamedElementContainerImpl nextContainer : containerTable.subList(1, containerTable.size()))
+            {
+                final List<INamedElement> containerElements = nextContainer.getMetricValueElements(nextLevel);
+                if (containerElements.isEmpty())
+                {
+                    continue;
+                }
+                final List<IMetricId> containerMetricIds = getLoadedMetricIds(nextContainer, nextLevel);
+                final boolean sharedWithSystem = systemElementSet.containsAll(containerElements)
+                        && systemMetricIds.containsAll(containerMetricIds);
+                if (sharedWithSystem)
+                {
+                    shared.addAll(containerElements);
+                }
+                containerRecords
+                        .add(new MetricValueRecord(nextContainer, sharedWithSystem, nextLevel, containerElements, containerMetricIds));
+            }
+
+            final List<INamedElement> systemOnly = systemElements.stream().filter(e -> !shared.contains(e)).collect(Collectors.toList());
+            if (!systemOnly.isEmpty())
+            {
+                records.add(new MetricValueRecord(softwareSystem, false, nextLevel, systemOnly, systemMetricIds));
+            }
+            records.addAll(containerRecords);
+        }
+
+        out.writeInt(records.size());
+        for (final MetricValueRecord next : records)
+        {
+            writeMetricValueRecord(next);
+        }
+    }
+
+    /**
+     * Writes one primitive column per metric id: the rows having a value as bit set followed by the values of these rows.
+     */
+    private void writeMetricValueRecord(final MetricValueRecord record) throws IOException
+    {
+        out.writeInt(containers.get(record.container));
+        out.writeBoolean(record.sharedWithSystem);
+        writeIndex(metricLevels, record.level, "metric level");
+        writeElements(record.elements);
+        out.writeInt(record.metricIds.size());
+
+        final int numberOfRows = record.elements.size();
+        for (final IMetricId nextMetricId : record.metricIds)
+        {
+            writeIndex(metricIds, nextMetricId, "metric id");
+
+            final Map<INamedElement, IMetricValue> values = record.container.getMetricValues(record.level, nextMetricId);
+            final Number[] column = new Number[numberOfRows];
+            final BitSet present = new BitSet(numberOfRows);
+            byte columnType = 0;
+            for (int i = 0; i < numberOfRows; i++)
+            {
+                final IMetricValue value = values.get(record.elements.get(i));
+                if (value != null)
+                {
+                    final Number number = value.getValue();
+                    final byte valueType = getColumnType(number);
+                    columnType = columnType == 0 || columnType == valueType ? valueType : ReportSnapshotFormat.NUMBER_COLUMN;
+                    column[i] = number;
+                    present.set(i);
+                }
+            }
+
+            out.writeByte(columnType != 0 ? columnType : ReportSnapshotFormat.INT_COLUMN);
+            final long[] words = present.toLongArray();
+            out.writeInt(words.length);
+            for (final long nextWord : words)
+            {
+                out.writeLong(nextWord);
+            }
+            for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1))
+            {
+                switch (columnType)
+                {
+                case ReportSnapshotFormat.INT_COLUMN:
+                    out.writeInt(column[i].intValue());
+                    break;
+                case ReportSnapshotFormat.FLOAT_COLUMN:
+                    out.writeFloat(column[i].floatValue());
+                    break;
+                case ReportSnapshotFormat.DOUBLE_COLUMN:
+                    out.writeDouble(column[i].doubleValue());
+                    break;
+                default:
+                    writeNumber(column[i]);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static byte getColumnType(final Number number)
+    {
+        if (number instanceof Integer)
+        {
+            return ReportSnapshotFormat.INT_COLUMN;
+        }
+        if (number instanceof Float)
+        {
+            return ReportSnapshotFormat.FLOAT_COLUMN;
+        }
+        return number instanceof Double ? ReportSnapshotFormat.DOUBLE_COLUMN : ReportSnapshotFormat.NUMBER_COLUMN;
+    }
+
+    private void writeIssues() throws IOException
+    {
+        out.writeInt(issueTable.size());
+        out.writeInt(numberOfRegisteredIssues);
+        for (final IIssue next : issueTable)
+        {
+            if (next instanceof ThresholdViolationIssue)
+            {
+                out.writeByte(ReportSnapshotFormat.THRESHOLD_VIOLATION_ISSUE);
+            }
+            else if (next instanceof DependencyIssueImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.DEPENDENCY_ISSUE);
+            }
+            else if (next instanceof DuplicateCodeBlockIssueImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.DUPLICATE_CODE_BLOCK_ISSUE);
+            }
+            else if (next instanceof CycleGroupIssueImpl)
+            {
+                out.writeByte(ReportSnapshotFormat.CYCLE_GROUP_ISSUE);
+            }
+            else if (next.getClass() == NamedElementIssueImpl.class)
+            {
+                out.writeByte(ReportSnapshotFormat.NAMED_ELEMENT_ISSUE);
+            }
+            else
+            {
+                throw new IOException("Unsupported issue '" + next.getName() + "' of " + next.getClass().getName());
+            }
+
+            writeString(next.getName());
+            writeString(next.getPresentationName());
+            writeString(next.getDescription());
+            writeIndex(issueTypes, next.getIssueType(), "issue type");
+            writeIndex(issueProviders, next.getIssueProvider(), "issue provider");
+            writeString(next.getResolutionType().name());
+
+            if (next instanceof DuplicateCodeBlockIssueImpl)
+            {
+                final DuplicateCodeBlockIssueImpl duplicate = (DuplicateCodeBlockIssueImpl) next;
+                out.writeInt(duplicate.getBlockSize());
+                out.writeInt(duplicate.getOccurrences().size());
+                for (final IDuplicateCodeBlockOccurrence nextOccurrence : duplicate.getOccurrences())
+                {
+                    writeElement(nextOccurrence.getSourceFile());
+                    out.writeInt(nextOccurrence.getBlockSize());
+                    out.writeInt(nextOccurrence.getStartLine());
+                    out.writeInt(nextOccurrence.getTolerance());
+                }
+            }
+            else if (next instanceof CycleGroupIssueImpl)
+            {
+                final CycleGroupIssueImpl cycleGroup = (CycleGroupIssueImpl) next;
+                writeIndex(analyzers, cycleGroup.getAnalyzer(), "analyzer");
+                writeElements(cycleGroup.getNamedElements());
+            }
+            else
+            {
+                out.writeInt(next.getLine());
+                out.writeInt(next.getColumn());
+                if (next instanceof DependencyIssueImpl)
+                {
+                    writeElement(((DependencyIssueImpl) next).getFrom());
+                    writeElement(((DependencyIssueImpl) next).getTo());
+                }
+                else
+                {
+                    writeElement(((NamedElementIssueImpl) next).getNamedElement());
+                }
+                if (next instanceof ThresholdViolationIssue)
+                {
+                    final ThresholdViolationIssue violation = (ThresholdViolationIssue) next;
+                    writeNumber(violation.getMetricValue());
+                    out.writeInt(thresholds.get(violation.getThreshold()));
+                }
+            }
+        }
+    }
+
+    private void writeResolutions() throws IOException
+    {
+        final List<IResolution> resolutions = new ArrayList<>();
+        for (final Map.Entry<ResolutionType, List<IResolution>> next : softwareSystem.getResolutions().entrySet())
+        {
+            resolutions.addAll(next.getValue());
+        }
+
+        out.writeInt(resolutions.size());
+        for (final IResolution next : resolutions)
+        {
+            writeString(next.getName());
+            writeString(next.getType().name());
+            writeString(next.getPriority().name());
+            out.writeInt(next.getIssues().size());
+            for (final IIssue nextIssue : next.getIssues())
+            {
+                out.writeInt(issues.get(nextIssue));
+            }
+            out.writeBoolean(next.isApplicable());
+            out.writeInt(next.getNumberOfAffectedParserDependencies());
+            writeString(next.getDescription());
+            writeString(next.getAssignee());
+            writeString(next.getDate());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Reads the given byte ranges of a file one after the other, as if the bytes between them did not exist. The bytes between the ranges are
+ * never read from the file.
+ */
+final class SectionInputStream extends InputStream
+{
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private final FileChannel channel;
+    private final List<long[]> ranges;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private int rangeIndex;
+    private long filePosition;
+    private long position;
+
+    /**
+     * @param ranges Ordered, non overlapping {start, end} pairs.
+     */
+    SectionInputStream(final File file, final List<long[]> ranges) throws IOException
+    {
+        assert file != null : "Parameter 'file' of method 'SectionInputStream' must not be null";
+        assert ranges != null : "Parameter 'ranges' of method 'SectionInputStream' must not be null";
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.ranges = ranges;
+        this.filePosition = ranges.isEmpty() ? 0 : ranges.get(0)[0];
+        buffer.limit(0);
+    }
+
+    static long getLength(final List<long[]> ranges)
+    {
+        long length = 0;
+        for (final long[] next : ranges)
+        {
+            length += next[1] - next[0];
+        }
+        return length;
+    }
+
+    /**
+     * @return number of bytes read so far
+     */
+    long getPosition()
+    {
+        return position;
+    }
+
+    private boolean fill() throws IOException
+    {
+        while (rangeIndex < ranges.size())
+        {
+            final long[] range = ranges.get(rangeIndex);
+            if (filePosition < range[0])
+            {
+                filePosition = range[0];
+            }
+            final long remaining = range[1] - filePosition;
+            if (remaining <= 0)
+            {
+                rangeIndex++;
+                continue;
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, remaining));
+            final int read = channel.read(buffer, filePosition);
+            if (read < 0)
+            {
+                throw new IOException("File has been truncated while reading");
+            }
+            filePosition += read;
+            buffer.flip();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (!buffer.hasRemaining() && !fill())
+        {
+            return -1;
+        }
+        position++;
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException
+    {
+        if (length == 0)
+        {
+            return 0;
+        }
+        if (!buffer.hasRemaining() && !fill())
+        {
+            return -1;
+        }
+        final int read = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
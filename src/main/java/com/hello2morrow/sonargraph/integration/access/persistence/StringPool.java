@@ -0,0 +1,77 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hello2morrow.sonargraph.integration.access.model.internal.FqName;
+
+/**
+ * Shares equal strings and fully qualified name prefixes while a single report is read, so the model references one instance of each
+ * repeated value. Only meant for values with few distinct instances (kinds, issue names) - mostly unique values like element names or
+ * descriptions would just add a map entry each. Not thread-safe, the pool is cleared after reading.
+ */
+final class StringPool
+{
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, FqName> fqNames = new HashMap<>();
+
+    StringPool()
+    {
+        super();
+    }
+
+    /**
+     * @return the pooled instance equal to the given string, null for null.
+     */
+    String get(final String value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        final String pooled = strings.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * @return compact name sharing the prefixes (separated by {@link FqName#SEPARATOR}) with all names created before.
+     */
+    FqName getFqName(final String fqName)
+    {
+        assert fqName != null : "Parameter 'fqName' of method 'getFqName' must not be null";
+
+        final FqName existing = fqNames.get(fqName);
+        if (existing != null)
+        {
+            return existing;
+        }
+        final int separatorIndex = fqName.lastIndexOf(FqName.SEPARATOR);
+        final FqName created = separatorIndex < 0 ? FqName.create(null, get(fqName))
+                : FqName.create(getFqName(fqName.substring(0, separatorIndex)), get(fqName.substring(separatorIndex + 1)));
+        fqNames.put(fqName, created);
+        return created;
+    }
+
+    void clear()
+    {
+        strings.clear();
+        fqNames.clear();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.validation.Schema;
+
+/**
+ * Creates unmarshallers from one shared {@link JAXBContext} and compiled {@link Schema}, both of which are thread-safe.
+ * Unmarshallers are not reused: they keep a reference to the last unmarshalled object tree and there is no portable way to reset them.
+ * Creating one from a cached context is cheap compared to creating the context and compiling the schema.
+ */
+final class UnmarshallerFactory
+{
+    private final JAXBContext context;
+    private final Schema schema;
+
+    /**
+     * @param context the shared context - must not be 'null'
+     * @param schema the schema used for validation - might be 'null'
+     */
+    UnmarshallerFactory(final JAXBContext context, final Schema schema)
+    {
+        assert context != null : "Parameter 'context' of method 'UnmarshallerFactory' must not be null";
+        this.context = context;
+        this.schema = schema;
+    }
+
+    JAXBContext getContext()
+    {
+        return context;
+    }
+
+    /**
+     * @return a new unmarshaller owned by the caller, to be dropped after use.
+     */
+    Unmarshaller create() throws JAXBException
+    {
+        final Unmarshaller created = context.createUnmarshaller();
+        if (schema != null)
+        {
+            created.setSchema(schema);
+        }
+        return created;
+    }
+}
@@ -44,4 +44,13 @@ public abstract class XmlAccess
         //No XML validation for reports - no URL parameter used 
         return new JaxbAdapter<>(NAMESPACE, ObjectFactory.class.getClassLoader());
     }
+
+    /**
+     * Creates the process-wide cached JAXB contexts and compiled schemas, so that the first load does not pay for it.
+     */
+    public static final void prewarm()
+    {
+        createExportMetaDataJaxbAdapter();
+        createReportJaxbAdapter();
+    }
 }
\ No newline at end of file
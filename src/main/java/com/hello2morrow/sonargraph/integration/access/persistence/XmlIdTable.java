@@ -0,0 +1,122 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps XML ids to the objects created for them while a report is being streamed.
+ * Ids written by {@link XmlIdGenerator} ('_' followed by a hex number) are stored in a dense array indexed by that number,
+ * all other ids fall back to a hash map.
+ */
+final class XmlIdTable
+{
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_DENSE_INDEX = 1 << 26;
+    private Object[] dense = new Object[INITIAL_CAPACITY];
+    private final Map<String, Object> sparse = new HashMap<>();
+
+    XmlIdTable()
+    {
+        super();
+    }
+
+    void put(final String id, final Object object)
+    {
+        assert id != null && id.length() > 0 : "Parameter 'id' of method 'put' must not be empty";
+        assert object != null : "Parameter 'object' of method 'put' must not be null";
+
+        final int index = toIndex(id);
+        if (index >= 0)
+        {
+            if (index >= dense.length)
+            {
+                dense = Arrays.copyOf(dense, Math.max(index + 1, Math.min(dense.length * 2, MAX_DENSE_INDEX)));
+            }
+            assert dense[index] == null : "Id '" + id + "' has already been registered";
+            dense[index] = object;
+        }
+        else
+        {
+            final Object previous = sparse.put(id, object);
+            assert previous == null : "Id '" + id + "' has already been registered";
+        }
+    }
+
+    Object get(final String id)
+    {
+        if (id == null)
+        {
+            return null;
+        }
+        final int index = toIndex(id);
+        if (index >= 0)
+        {
+            return index < dense.length ? dense[index] : null;
+        }
+        return sparse.get(id);
+    }
+
+    <T> T get(final String id, final Class<T> clazz)
+    {
+        assert clazz != null : "Parameter 'clazz' of method 'get' must not be null";
+        final Object object = get(id);
+        return clazz.isInstance(object) ? clazz.cast(object) : null;
+    }
+
+    void clear()
+    {
+        dense = new Object[INITIAL_CAPACITY];
+        sparse.clear();
+    }
+
+    /**
+     * @return the dense index for ids like '_1f' or -1 if the id must be stored in the hash map.
+     */
+    private static int toIndex(final String id)
+    {
+        final int length = id.length();
+        if (length < 2 || length > 8 || id.charAt(0) != '_' || length > 2 && id.charAt(1) == '0')
+        {
+            //Leading zeros would map different ids to the same index
+            return -1;
+        }
+        int index = 0;
+        for (int i = 1; i < length; i++)
+        {
+            final char next = id.charAt(i);
+            final int digit;
+            if (next >= '0' && next <= '9')
+            {
+                digit = next - '0';
+            }
+            else if (next >= 'a' && next <= 'f')
+            {
+                digit = next - 'a' + 10;
+            }
+            else
+            {
+                return -1;
+            }
+            index = (index << 4) | digit;
+        }
+        return index < MAX_DENSE_INDEX ? index : -1;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystemInfo;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemInfoImpl;
+
+/**
+ * Reads only the attributes of the root element of a report and stops there, so the cost does not depend on the size of the report.
+ * Gzip compressed files and zip archives containing the report are supported. Instances can be shared between threads.
+ */
+public final class XmlReportHeaderReader
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(XmlReportHeaderReader.class);
+    private static final String REPORT = "report";
+    //The root element is at the very beginning, larger buffers would only be filled for nothing
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final ThreadLocal<XMLInputFactory> FACTORY = ThreadLocal.withInitial(() ->
+    {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    });
+
+    public XmlReportHeaderReader()
+    {
+        super();
+    }
+
+    /**
+     * @param reportFile XML file that is expected to exist and be readable.
+     * @param result Contains info about errors.
+     */
+    public Optional<ISoftwareSystemInfo> readReportInfo(final File reportFile, final Result result)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'readReportInfo' must not be null";
+        assert result != null : "Parameter 'result' of method 'readReportInfo' must not be null";
+
+        try (InputStream in = ReportInput.decompress(new BufferedInputStream(new FileInputStream(reportFile), BUFFER_SIZE)))
+        {
+            final XMLStreamReader reader = FACTORY.get().createXMLStreamReader(in);
+            try
+            {
+                reader.nextTag();
+                if (!REPORT.equals(reader.getLocalName()))
+                {
+                    throw new XMLStreamException("Unexpected root element '" + reader.getLocalName() + "'", reader.getLocation());
+                }
+                final long timestamp = DatatypeConverter.parseDateTime(getRequiredAttribute(reader, "timestamp").trim()).getTimeInMillis();
+                return Optional.of(new SoftwareSystemInfoImpl(getRequiredAttribute(reader, "systemId"), getRequiredAttribute(reader, "name"),
+                        getRequiredAttribute(reader, "systemPath"), getRequiredAttribute(reader, "version"), timestamp,
+                        getRequiredAttribute(reader, "currentVirtualModel")));
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (final IOException ex)
+        {
+            LOGGER.debug("Failed to read report info from '" + reportFile.getAbsolutePath() + "'", ex);
+            result.addError(ResultCause.READ_ERROR, ex);
+        }
+        catch (final XMLStreamException | IllegalArgumentException ex)
+        {
+            LOGGER.debug("Failed to read report info from '" + reportFile.getAbsolutePath() + "'", ex);
+            result.addError(ResultCause.WRONG_FORMAT, ex);
+        }
+        return Optional.empty();
+    }
+
+    private static String getRequiredAttribute(final XMLStreamReader reader, final String attribute) throws XMLStreamException
+    {
+        final String value = reader.getAttributeValue(null, attribute);
+        if (value == null)
+        {
+            throw new XMLStreamException("Missing attribute '" + attribute + "' of element '" + reader.getLocalName() + "'", reader.getLocation());
+        }
+        return value;
+    }
+}
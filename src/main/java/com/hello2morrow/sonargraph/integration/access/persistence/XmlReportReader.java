@@ -17,9 +17,9 @@
  */
 package com.hello2morrow.sonargraph.integration.access.persistence;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -45,7 +45,6 @@ import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
 import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
 import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
 import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
-import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
 import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
 import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
 import com.hello2morrow.sonargraph.integration.access.model.Priority;
@@ -72,7 +71,6 @@ import com.hello2morrow.sonargraph.integration.access.model.internal.MetricIdImp
 import com.hello2morrow.sonargraph.integration.access.model.internal.MetricLevelImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.MetricProviderImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.MetricThreshold;
-import com.hello2morrow.sonargraph.integration.access.model.internal.MetricValueImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementContainerImpl;
 import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementImpl;
@@ -141,10 +139,11 @@ public final class XmlReportReader extends XmlAccess
     private static final String EXTERNAL_STANDARD_KIND_SUFFIX = "External";
     private final Map<Object, IElement> globalXmlToElementMap = new HashMap<>();
     private final Map<Object, IssueImpl> globalXmlIdToIssueMap = new HashMap<>();
+    private final StringPool stringPool = new StringPool();
     private File currentlyReading;
 
     /**
-     * Reads an XML report.
+     * Reads an XML report, gzip compressed files and zip archives containing the report are decompressed while reading.
      * @param reportFile XML file that is expected to exist and be readable.
      * @param result Contains info about errors.
      */
@@ -170,7 +169,8 @@ public final class XmlReportReader extends XmlAccess
         currentlyReading = reportFile;
         final ValidationEventHandlerImpl eventHandler = new ValidationEventHandlerImpl(result);
         JAXBElement<XsdSoftwareSystemReport> xmlRoot = null;
-        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(reportFile)))
+        //JaxbAdapter buffers the stream itself
+        try (InputStream in = ReportInput.decompress(new FileInputStream(reportFile)))
         {
             xmlRoot = jaxbAdapter.load(in, eventHandler);
             if (xmlRoot != null)
@@ -319,6 +319,7 @@ public final class XmlReportReader extends XmlAccess
 
         globalXmlToElementMap.clear();
         globalXmlIdToIssueMap.clear();
+        stringPool.clear();
 
         return Optional.of(softwareSystemImpl);
     }
@@ -872,9 +873,9 @@ public final class XmlReportReader extends XmlAccess
         assert element != null : "Element " + ((XsdElement) elementRef).getName() + " not found!";
         assert element instanceof INamedElement : "Unexpected class in method 'addMetricValue': " + element;
 
-        final IMetricValue value = new MetricValueImpl((IMetricId) metricId, level, supplier.get());
-        module.addMetricValueForElement(value, (INamedElement) element);
-        softwareSystem.addMetricValueForElement(value, (INamedElement) element);
+        final Number value = supplier.get();
+        module.addMetricValueForElement((IMetricId) metricId, level, (INamedElement) element, value);
+        softwareSystem.addMetricValueForElement((IMetricId) metricId, level, (INamedElement) element, value);
     }
 
     private void addMetricValue(final SoftwareSystemImpl softwareSystem, final IMetricLevel level, final Object metricIdRef,
@@ -884,8 +885,7 @@ public final class XmlReportReader extends XmlAccess
         assert metricId != null && metricId instanceof IMetricId : "Unexpected class in method 'processMetrics': " + metricId + ", "
                 + ((XsdMetricId) metricIdRef).getName() + "' has not been added";
 
-        final MetricValueImpl value = new MetricValueImpl((MetricIdImpl) metricId, level, supplier.get());
-        softwareSystem.addMetricValueForElement(value, softwareSystem);
+        softwareSystem.addMetricValueForElement((IMetricId) metricId, level, softwareSystem, supplier.get());
     }
 
     private void processIssues(final SoftwareSystemImpl softwareSystem, final XsdSoftwareSystemReport report, final Result result)
@@ -1003,7 +1003,8 @@ public final class XmlReportReader extends XmlAccess
                 occurrences.add(occurrence);
             }
 
-            final DuplicateCodeBlockIssueImpl duplicate = new DuplicateCodeBlockIssueImpl(nextDuplicate.getFqName(), nextDuplicate.getName(),
+            final DuplicateCodeBlockIssueImpl duplicate = new DuplicateCodeBlockIssueImpl(nextDuplicate.getFqName(),
+                    stringPool.get(nextDuplicate.getName()),
                     nextDuplicate.getDescription(), issueType, issueProvider, occurrences);
             duplicate.setBlockSize(nextDuplicate.getBlockSize());
             softwareSystem.addIssue(duplicate);
@@ -1033,7 +1034,7 @@ public final class XmlReportReader extends XmlAccess
                     cyclicElements.add((INamedElement) element);
                 }
 
-                final String name = nextCycle.getName();
+                final String name = stringPool.get(nextCycle.getName());
                 //This name might not not be set -> use the old name 'issueProvider.getPresentationName()' 
                 final CycleGroupIssueImpl cycleGroup = new CycleGroupIssueImpl(nextCycle.getFqName(),
                         name != null && !name.isEmpty() ? name : issueProvider.getPresentationName(), nextCycle.getDescription(), issueType,
@@ -0,0 +1,1696 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.foundation.Utility;
+import com.hello2morrow.sonargraph.integration.access.model.IDuplicateCodeBlockOccurrence;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
+import com.hello2morrow.sonargraph.integration.access.model.Priority;
+import com.hello2morrow.sonargraph.integration.access.model.ResolutionType;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+import com.hello2morrow.sonargraph.integration.access.model.internal.AnalyzerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.CycleGroupIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DependencyIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DuplicateCodeBlockIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.DuplicateCodeBlockOccurrenceImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ExternalImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.FeatureImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IProgrammingElementContainer;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueTypeImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LanguageBasedContainerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalNamespaceImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.LogicalProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricIdImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricLevelImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementContainerImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.PhysicalElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.PhysicalRecursiveElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ResolutionImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.RootDirectoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SourceFileImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ThresholdViolationIssue;
+import com.hello2morrow.sonargraph.integration.access.persistence.ValidationEventHandlerImpl.ValidationMessageCauses;
+
+/**
+ * Reads an XML report with a StAX cursor and builds the model while reading, i.e. without materializing the JAXB object tree first.
+ * The created model is the same as the one created by {@link XmlReportReader}.
+ * References are resolved through a {@link XmlIdTable}; the few references that might point forward (source files and original
+ * locations) are collected and connected once all elements have been created.
+ */
+public final class XmlReportStreamReader extends XmlAccess
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(XmlReportStreamReader.class);
+    private static final String SOFTWARE_SYSTEM_STANDARD_KIND = "SoftwareSystem";
+    private static final String MODULE_STANDARD_KIND_SUFFIX = "Module";
+    private static final String EXTERNAL_STANDARD_KIND_SUFFIX = "External";
+    private static final String REPORT = "report";
+    private static final int PROGRESS_INTERVAL = 1024;
+
+    private static final class ElementKind
+    {
+        private final String standardKind;
+        private final String presentationKind;
+
+        ElementKind(final String standardKind, final String presentationKind)
+        {
+            this.standardKind = standardKind;
+            this.presentationKind = presentationKind;
+        }
+    }
+
+    private static final class IssueTypeDefinition
+    {
+        private final String id;
+        private final String name;
+        private final String presentationName;
+        private final String severity;
+        private final String categoryRef;
+        private final String providerRef;
+        private final String description;
+
+        IssueTypeDefinition(final XMLStreamReader reader)
+        {
+            id = reader.getAttributeValue(null, "id");
+            name = reader.getAttributeValue(null, "name");
+            presentationName = reader.getAttributeValue(null, "presentationName");
+            severity = reader.getAttributeValue(null, "severity");
+            categoryRef = reader.getAttributeValue(null, "category");
+            providerRef = reader.getAttributeValue(null, "provider");
+            description = reader.getAttributeValue(null, "description");
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream
+    {
+        private volatile long count;
+
+        CountingInputStream(final InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            final int next = super.read();
+            if (next >= 0)
+            {
+                count++;
+            }
+            return next;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException
+        {
+            final int read = super.read(b, off, len);
+            if (read > 0)
+            {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException
+        {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount()
+        {
+            return count;
+        }
+    }
+
+    private final ReportLoadOptions options;
+    private final MetaDataRegistry metaDataRegistry;
+    private final IReportLoadListener listener;
+    private final BooleanSupplier isCanceled;
+    private final XmlIdTable idTable = new XmlIdTable();
+    private final StringPool stringPool = new StringPool();
+    private final List<NamedElementImpl> elementsWithSource = new ArrayList<>();
+    private final List<String> sourceRefs = new ArrayList<>();
+    private final List<PhysicalElementImpl> elementsWithOriginal = new ArrayList<>();
+    private final List<String> originalRefs = new ArrayList<>();
+    private final Map<String, IssueProviderImpl> issueProviders = new LinkedHashMap<>();
+    private final Map<String, IssueCategoryImpl> issueCategories = new LinkedHashMap<>();
+    private final List<IssueTypeDefinition> issueTypeDefinitions = new ArrayList<>();
+    private DatatypeFactory datatypeFactory;
+    private SoftwareSystemImpl softwareSystem;
+    private String currentlyReading;
+    private LongSupplier bytesRead;
+    private long totalBytes;
+    private ReportLoadPhase phase;
+    private int numberOfElements;
+    private int numberOfIssues;
+
+    public XmlReportStreamReader()
+    {
+        this(new ReportLoadOptions());
+    }
+
+    /**
+     * @param options Sections excluded by the options are skipped while reading.
+     */
+    public XmlReportStreamReader(final ReportLoadOptions options)
+    {
+        this(options, IReportLoadListener.NONE, () -> false);
+    }
+
+    /**
+     * @param options Sections excluded by the options are skipped while reading.
+     * @param listener Receives the progress of reading.
+     * @param isCanceled Checked whenever a new section of the report is entered. Reading stops with {@link ResultCause#CANCELED} once it
+     *            returns true.
+     */
+    public XmlReportStreamReader(final ReportLoadOptions options, final IReportLoadListener listener, final BooleanSupplier isCanceled)
+    {
+        this(options, new MetaDataRegistry(), listener, isCanceled);
+    }
+
+    /**
+     * @param metaDataRegistry Provides the meta data instances, pass the same registry to readers of related reports to share them.
+     */
+    public XmlReportStreamReader(final ReportLoadOptions options, final MetaDataRegistry metaDataRegistry, final IReportLoadListener listener,
+            final BooleanSupplier isCanceled)
+    {
+        assert options != null : "Parameter 'options' of method 'XmlReportStreamReader' must not be null";
+        assert metaDataRegistry != null : "Parameter 'metaDataRegistry' of method 'XmlReportStreamReader' must not be null";
+        assert listener != null : "Parameter 'listener' of method 'XmlReportStreamReader' must not be null";
+        assert isCanceled != null : "Parameter 'isCanceled' of method 'XmlReportStreamReader' must not be null";
+        this.options = options;
+        this.metaDataRegistry = metaDataRegistry;
+        this.listener = listener;
+        this.isCanceled = isCanceled;
+    }
+
+    /**
+     * Reads an XML report, gzip compressed files and zip archives containing the report are decompressed while reading.
+     * @param reportFile XML file that is expected to exist and be readable.
+     * @param result Contains info about errors.
+     */
+    public Optional<SoftwareSystemImpl> readReportFile(final File reportFile, final Result result)
+    {
+        assert reportFile != null : "Parameter 'reportFile' of method 'readReportFile' must not be null";
+        assert reportFile.exists() : "Parameter 'reportFile' of method 'readReportFile' must be an existing file";
+        assert reportFile.canRead() : "Parameter 'reportFile' of method 'readReportFile' must be a file with read access";
+        assert result != null : "Parameter 'result' of method 'readReportFile' must not be null";
+
+        return read(reportFile.getAbsolutePath(), reportFile.length(), () -> open(reportFile), result);
+    }
+
+    /**
+     * Reads an XML report from a stream, gzip compressed content and zip archives containing the report are decompressed while reading.
+     * @param inputStream Provides the report, it is not closed.
+     * @param identifier Identifies the source in messages, e.g. a file name or URL.
+     * @param result Contains info about errors.
+     */
+    public Optional<SoftwareSystemImpl> readReportStream(final InputStream inputStream, final String identifier, final Result result)
+    {
+        assert inputStream != null : "Parameter 'inputStream' of method 'readReportStream' must not be null";
+        assert identifier != null && identifier.length() > 0 : "Parameter 'identifier' of method 'readReportStream' must not be empty";
+        assert result != null : "Parameter 'result' of method 'readReportStream' must not be null";
+
+        return read(identifier, -1, () ->
+        {
+            final CountingInputStream counting = new CountingInputStream(ReportInput.nonClosing(inputStream));
+            bytesRead = counting::getCount;
+            return ReportInput.decompress(counting);
+        }, result);
+    }
+
+    private Optional<SoftwareSystemImpl> read(final String identifier, final long size, final Callable<InputStream> opener, final Result result)
+    {
+        assert currentlyReading == null : "'currentlyReading' of method 'read' must be null";
+
+        currentlyReading = identifier;
+        totalBytes = size;
+        boolean completed = false;
+        boolean canceled = false;
+        try (InputStream in = opener.call())
+        {
+            final Optional<SoftwareSystemImpl> softwareSystemImpl = readReport(in, result);
+            completed = softwareSystemImpl.isPresent();
+            if (completed)
+            {
+                enterPhase(ReportLoadPhase.COMPLETED);
+            }
+            return softwareSystemImpl;
+        }
+        catch (final CancellationException ex)
+        {
+            LOGGER.info("Canceled reading report from '" + identifier + "'");
+            result.addError(ResultCause.CANCELED,
+                    "Reading has been canceled" + (phase != null ? " in phase '" + phase.getPresentationName() + "'" : ""));
+            canceled = true;
+        }
+        catch (final Exception ex)
+        {
+            LOGGER.error("Failed to read report from '" + identifier + "'", ex);
+            result.addError(ResultCause.READ_ERROR, ex);
+        }
+        finally
+        {
+            if (!canceled && (result.isFailure() || !completed))
+            {
+                result.addError(ResultCause.WRONG_FORMAT,
+                        "Report is corrupt. Ensure that the version of SonargraphBuild used to create the report is compatible with the version of this client.");
+            }
+            reset();
+        }
+
+        return Optional.empty();
+    }
+
+    private InputStream open(final File reportFile) throws IOException
+    {
+        if (options.isUsingSectionIndex())
+        {
+            final Optional<ReportSectionIndex> index = ReportSectionIndex.readSidecar(reportFile);
+            if (index.isPresent())
+            {
+                final List<long[]> ranges = index.get().getIncludedRanges(options);
+                final SectionInputStream sections = new SectionInputStream(reportFile, ranges);
+                bytesRead = sections::getPosition;
+                totalBytes = SectionInputStream.getLength(ranges);
+                return sections;
+            }
+            LOGGER.debug("No up to date section index for '{}', reading the whole report", reportFile.getAbsolutePath());
+        }
+        if (options.isUsingMemoryMappedInput())
+        {
+            final MappedFileInputStream mapped = new MappedFileInputStream(reportFile);
+            bytesRead = mapped::getPosition;
+            return ReportInput.decompress(mapped);
+        }
+        final CountingInputStream counting = new CountingInputStream(new FileInputStream(reportFile));
+        bytesRead = counting::getCount;
+        return ReportInput.decompress(new BufferedInputStream(counting));
+    }
+
+    private void reset()
+    {
+        idTable.clear();
+        stringPool.clear();
+        elementsWithSource.clear();
+        sourceRefs.clear();
+        elementsWithOriginal.clear();
+        originalRefs.clear();
+        issueProviders.clear();
+        issueCategories.clear();
+        issueTypeDefinitions.clear();
+        softwareSystem = null;
+        currentlyReading = null;
+        bytesRead = null;
+        totalBytes = 0;
+        phase = null;
+        numberOfElements = 0;
+        numberOfIssues = 0;
+    }
+
+    private static ReportLoadPhase getPhase(final String sectionName)
+    {
+        switch (sectionName)
+        {
+        case "workspace":
+        case "systemElements":
+        case "moduleElements":
+        case "externalSystemScopeElements":
+        case "externalModuleScopeElements":
+            return ReportLoadPhase.ELEMENTS;
+        case "systemMetricValues":
+        case "moduleMetricValues":
+            return ReportLoadPhase.METRIC_VALUES;
+        case "issues":
+            return ReportLoadPhase.ISSUES;
+        case "resolutions":
+            return ReportLoadPhase.RESOLUTIONS;
+        default:
+            return ReportLoadPhase.META_DATA;
+        }
+    }
+
+    /**
+     * Called at the start of every section, so cancellation is detected between sections.
+     * @throws CancellationException if reading has been canceled.
+     */
+    private void enterPhase(final ReportLoadPhase next)
+    {
+        if (isCanceled.getAsBoolean())
+        {
+            throw new CancellationException();
+        }
+        if (phase != next)
+        {
+            phase = next;
+            reportProgress();
+        }
+    }
+
+    private void reportProgress()
+    {
+        listener.progress(new ReportLoadProgress(phase, bytesRead.getAsLong(), totalBytes, numberOfElements, numberOfIssues));
+    }
+
+    private Optional<SoftwareSystemImpl> readReport(final InputStream in, final Result result) throws Exception
+    {
+        assert in != null : "Parameter 'in' of method 'readReport' must not be null";
+        assert result != null : "Parameter 'result' of method 'readReport' must not be null";
+
+        datatypeFactory = DatatypeFactory.newInstance();
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+
+        final XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try
+        {
+            reader.nextTag();
+            if (!REPORT.equals(reader.getLocalName()))
+            {
+                throw new XMLStreamException("Unexpected root element '" + reader.getLocalName() + "'", reader.getLocation());
+            }
+            enterPhase(ReportLoadPhase.META_DATA);
+            createSoftwareSystem(reader);
+
+            boolean hasMetaData = false;
+            boolean hasWorkspace = false;
+            boolean hasIssues = false;
+            while (nextChild(reader))
+            {
+                enterPhase(getPhase(reader.getLocalName()));
+                switch (reader.getLocalName())
+                {
+                case "metaData":
+                    readMetaData(reader);
+                    hasMetaData = true;
+                    break;
+                case "features":
+                    readFeatures(reader);
+                    break;
+                case "analyzers":
+                    readAnalyzers(reader);
+                    break;
+                case "duplicateCodeConfiguration":
+                    readEntries(reader, e -> softwareSystem.addDuplicateCodeConfigurationEntry(e));
+                    break;
+                case "scriptRunnerConfiguration":
+                    readEntries(reader, e -> softwareSystem.addScriptRunnerConfigurationEntry(e));
+                    break;
+                case "architectureCheckConfiguration":
+                    readEntries(reader, e -> softwareSystem.addArchitectureCheckConfigurationEntry(e));
+                    break;
+                case "metricThresholds":
+                    readMetricThresholds(reader);
+                    break;
+                case "elementKinds":
+                    readElementKinds(reader);
+                    break;
+                case "workspace":
+                    readWorkspace(reader);
+                    hasWorkspace = true;
+                    break;
+                case "systemElements":
+                    readSystemElements(reader);
+                    break;
+                case "moduleElements":
+                    final ModuleImpl module = getReferenced(reader, "ref", ModuleImpl.class);
+                    if (module == null && options.isExcludingModules())
+                    {
+                        skipElement(reader);
+                    }
+                    else
+                    {
+                        readElements(reader, module, MODULE_STANDARD_KIND_SUFFIX);
+                    }
+                    break;
+                case "externalSystemScopeElements":
+                case "externalModuleScopeElements":
+                    if (options.isExcludingExternalElements())
+                    {
+                        skipElement(reader);
+                    }
+                    else
+                    {
+                        readElements(reader, getReferenced(reader, "ref", ExternalImpl.class), EXTERNAL_STANDARD_KIND_SUFFIX);
+                    }
+                    break;
+                case "systemMetricValues":
+                    readSystemMetricValues(reader);
+                    break;
+                case "moduleMetricValues":
+                    readModuleMetricValues(reader);
+                    break;
+                case "issues":
+                    readIssues(reader, result);
+                    hasIssues = true;
+                    break;
+                case "resolutions":
+                    if (options.isExcludingResolutions())
+                    {
+                        skipElement(reader);
+                    }
+                    else
+                    {
+                        readResolutions(reader, result);
+                    }
+                    break;
+                default:
+                    skipElement(reader);
+                    break;
+                }
+            }
+
+            if (!hasMetaData || !hasWorkspace)
+            {
+                throw new XMLStreamException("Report does not contain the required 'metaData' and 'workspace' sections");
+            }
+            if (!hasIssues)
+            {
+                softwareSystem.setNumberOfIssues(0);
+            }
+            enterPhase(ReportLoadPhase.FINISHING);
+            connectSourceFiles();
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        return result.isSuccess() ? Optional.of(softwareSystem) : Optional.empty();
+    }
+
+    private void createSoftwareSystem(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final String systemDescription = reader.getAttributeValue(null, "systemDescription");
+        final XMLGregorianCalendar timestamp = parseDateTime(getRequiredAttribute(reader, "timestamp"));
+        softwareSystem = new SoftwareSystemImpl("SoftwareSystem", "System", getRequiredAttribute(reader, "systemId"),
+                getRequiredAttribute(reader, "name"), systemDescription != null ? systemDescription.trim() : "",
+                getRequiredAttribute(reader, "systemPath"), getRequiredAttribute(reader, "version"),
+                timestamp.toGregorianCalendar().getTimeInMillis(), getRequiredAttribute(reader, "currentVirtualModel"));
+        softwareSystem.addElement(softwareSystem);
+    }
+
+    private void readMetaData(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final List<MetricCategoryImpl> metricCategories = new ArrayList<>();
+        final List<MetricProviderImpl> metricProviders = new ArrayList<>();
+        final List<MetricLevelImpl> metricLevels = new ArrayList<>();
+        final List<MetricIdImpl> metricIds = new ArrayList<>();
+
+        while (nextChild(reader))
+        {
+            final String section = reader.getLocalName();
+            while (nextChild(reader))
+            {
+                final String id = reader.getAttributeValue(null, "id");
+                final String name = reader.getAttributeValue(null, "name");
+                final String presentationName = reader.getAttributeValue(null, "presentationName");
+                switch (section)
+                {
+                case "issueProviders":
+                    final IssueProviderImpl issueProvider = metaDataRegistry.getIssueProvider(name, presentationName);
+                    issueProviders.put(id, issueProvider);
+                    idTable.put(id, issueProvider);
+                    break;
+                case "issueCategories":
+                    final IssueCategoryImpl issueCategory = metaDataRegistry.getIssueCategory(name, presentationName);
+                    issueCategories.put(id, issueCategory);
+                    idTable.put(id, issueCategory);
+                    break;
+                case "issueTypes":
+                    issueTypeDefinitions.add(new IssueTypeDefinition(reader));
+                    break;
+                case "metricProviders":
+                    final MetricProviderImpl metricProvider = metaDataRegistry.getMetricProvider(name, presentationName);
+                    metricProviders.add(metricProvider);
+                    idTable.put(id, metricProvider);
+                    break;
+                case "metricCategories":
+                    final MetricCategoryImpl metricCategory = metaDataRegistry.getMetricCategory(name, presentationName,
+                            parseInt(getRequiredAttribute(reader, "orderNumber")));
+                    metricCategories.add(metricCategory);
+                    idTable.put(id, metricCategory);
+                    break;
+                case "metricLevels":
+                    final MetricLevelImpl metricLevel = metaDataRegistry.getMetricLevel(name, presentationName,
+                            parseInt(getRequiredAttribute(reader, "orderNumber")));
+                    metricLevels.add(metricLevel);
+                    idTable.put(id, metricLevel);
+                    break;
+                case "metricIds":
+                    final MetricIdImpl metricId = createMetricId(reader, name, presentationName);
+                    metricIds.add(metricId);
+                    idTable.put(id, metricId);
+                    break;
+                default:
+                    break;
+                }
+                skipElement(reader);
+            }
+        }
+
+        metricCategories.forEach(c -> softwareSystem.addMetricCategory(c));
+        metricProviders.forEach(p -> softwareSystem.addMetricProvider(p));
+        metricLevels.forEach(l -> softwareSystem.addMetricLevel(l));
+        metricIds.forEach(i -> softwareSystem.addMetricId(i));
+    }
+
+    private MetricIdImpl createMetricId(final XMLStreamReader reader, final String name, final String presentationName)
+            throws XMLStreamException
+    {
+        final List<IMetricCategory> categories = new ArrayList<>();
+        for (final String nextCategoryRef : splitRefs(reader.getAttributeValue(null, "categories")))
+        {
+            final IMetricCategory category = idTable.get(nextCategoryRef, IMetricCategory.class);
+            assert category != null : "'category' for metric '" + name + "' must not be null";
+            categories.add(category);
+        }
+
+        final List<IMetricLevel> levels = new ArrayList<>();
+        for (final String nextLevelRef : splitRefs(reader.getAttributeValue(null, "levels")))
+        {
+            final IMetricLevel level = idTable.get(nextLevelRef, IMetricLevel.class);
+            assert level != null : "Metric level for '" + name + "' must not be null";
+            levels.add(level);
+        }
+
+        final MetricProviderImpl provider = getReferenced(reader, "provider", MetricProviderImpl.class);
+        assert provider != null : "'provider' for metric '" + name + "' must not be null";
+
+        final String bestValue = reader.getAttributeValue(null, "bestValue");
+        final String worstValue = reader.getAttributeValue(null, "worstValue");
+        return metaDataRegistry.getMetricId(name, presentationName, reader.getAttributeValue(null, "description"), categories, levels, provider,
+                Boolean.parseBoolean(getRequiredAttribute(reader, "isFloat").trim()), bestValue != null ? parseDouble(bestValue) : Double.NaN,
+                worstValue != null ? parseDouble(worstValue) : Double.NaN);
+    }
+
+    private void readFeatures(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            softwareSystem.addFeature(new FeatureImpl(reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "presentationName"),
+                    parseBoolean(reader.getAttributeValue(null, "licensed"))));
+            skipElement(reader);
+        }
+    }
+
+    private void readAnalyzers(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            final AnalyzerImpl analyzer = new AnalyzerImpl(reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "presentationName"),
+                    reader.getAttributeValue(null, "description"), parseBoolean(reader.getAttributeValue(null, "licensed")));
+            softwareSystem.addAnalyzer(analyzer);
+            idTable.put(getRequiredAttribute(reader, "id"), analyzer);
+            skipElement(reader);
+        }
+    }
+
+    private static void readEntries(final XMLStreamReader reader, final Consumer<String> consumer) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            consumer.accept(reader.getElementText());
+        }
+    }
+
+    private void readMetricThresholds(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            final IMetricId metricId = getReferenced(reader, "metricId", IMetricId.class);
+            assert metricId != null : "metric id '" + reader.getAttributeValue(null, "metricId") + "' of threshold '"
+                    + reader.getAttributeValue(null, "debugInfo") + "' must exist";
+            final IMetricLevel metricLevel = getReferenced(reader, "metricLevel", IMetricLevel.class);
+            assert metricLevel != null : "metric level '" + reader.getAttributeValue(null, "metricLevel") + "' of threshold '"
+                    + reader.getAttributeValue(null, "debugInfo") + "' must exist";
+
+            final MetricThreshold threshold = new MetricThreshold(metricId, metricLevel,
+                    parseDecimal(reader.getAttributeValue(null, "lowerThreshold")), parseDecimal(reader.getAttributeValue(null, "upperThreshold")));
+            softwareSystem.addMetricThreshold(threshold);
+            idTable.put(getRequiredAttribute(reader, "id"), threshold);
+            skipElement(reader);
+        }
+    }
+
+    private void readElementKinds(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            idTable.put(getRequiredAttribute(reader, "id"),
+                    new ElementKind(getPooledAttribute(reader, "standardKind"), getPooledAttribute(reader, "presentationKind")));
+            skipElement(reader);
+        }
+    }
+
+    private void readWorkspace(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            switch (reader.getLocalName())
+            {
+            case "module":
+                if (options.isModuleIncluded(reader.getAttributeValue(null, "name")))
+                {
+                    readModule(reader);
+                }
+                else
+                {
+                    skipElement(reader);
+                }
+                break;
+            case "external":
+                if (options.isExcludingExternalElements())
+                {
+                    skipElement(reader);
+                }
+                else
+                {
+                    readExternal(reader);
+                }
+                break;
+            default:
+                skipElement(reader);
+                break;
+            }
+        }
+        connectPhysicalElementOriginals();
+    }
+
+    private void readModule(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final ElementKind moduleKind = getElementKind(reader);
+        final ModuleImpl moduleImpl = new ModuleImpl(moduleKind.standardKind, moduleKind.presentationKind, reader.getAttributeValue(null, "name"),
+                reader.getAttributeValue(null, "presentationName"), getRequiredAttribute(reader, "fqName"),
+                reader.getAttributeValue(null, "description"), softwareSystem.getMetaDataAccess(), softwareSystem.getElementRegistry(),
+                reader.getAttributeValue(null, "language"), softwareSystem);
+        softwareSystem.addModule(moduleImpl);
+        moduleImpl.addElement(moduleImpl);
+        register(reader, moduleImpl);
+
+        while (nextChild(reader))
+        {
+            if ("rootDirectory".equals(reader.getLocalName()))
+            {
+                readRootDirectory(reader, moduleImpl, true);
+            }
+            else
+            {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private void readExternal(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final ElementKind externalKind = getElementKind(reader);
+        final ExternalImpl externalImpl = new ExternalImpl(externalKind.standardKind, externalKind.presentationKind,
+                reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "presentationName"), getRequiredAttribute(reader, "fqName"),
+                reader.getAttributeValue(null, "description"), softwareSystem.getMetaDataAccess(), softwareSystem.getElementRegistry(),
+                reader.getAttributeValue(null, "language"));
+        softwareSystem.addExternal(externalImpl);
+        externalImpl.addElement(externalImpl);
+        register(reader, externalImpl);
+
+        while (nextChild(reader))
+        {
+            switch (reader.getLocalName())
+            {
+            case "rootDirectory":
+                readRootDirectory(reader, externalImpl, false);
+                break;
+            case "physicalRecursiveElement":
+                readPhysicalRecursiveElement(reader, externalImpl, externalImpl, null, false);
+                break;
+            case "programmingElement":
+                readProgrammingElement(reader, externalImpl, externalImpl);
+                break;
+            default:
+                skipElement(reader);
+                break;
+            }
+        }
+    }
+
+    private void readRootDirectory(final XMLStreamReader reader, final LanguageBasedContainerImpl languageBasedContainerImpl,
+            final boolean connectOriginals) throws XMLStreamException
+    {
+        final ElementKind kind = getElementKind(reader);
+        final RootDirectoryImpl rootDirectoryImpl = new RootDirectoryImpl(kind.standardKind, kind.presentationKind,
+                reader.getAttributeValue(null, "presentationName"), getRequiredAttribute(reader, "fqName"));
+        languageBasedContainerImpl.addRootDirectory(rootDirectoryImpl);
+        languageBasedContainerImpl.addElement(rootDirectoryImpl);
+        register(reader, rootDirectoryImpl);
+
+        while (nextChild(reader))
+        {
+            switch (reader.getLocalName())
+            {
+            case "physicalRecursiveElement":
+                readPhysicalRecursiveElement(reader, languageBasedContainerImpl, rootDirectoryImpl, rootDirectoryImpl.getRelativePath(),
+                        connectOriginals);
+                break;
+            case "sourceElement":
+                readSourceFile(reader, languageBasedContainerImpl, rootDirectoryImpl, connectOriginals);
+                break;
+            case "programmingElement":
+                readProgrammingElement(reader, languageBasedContainerImpl, rootDirectoryImpl);
+                break;
+            default:
+                skipElement(reader);
+                break;
+            }
+        }
+    }
+
+    private void readPhysicalRecursiveElement(final XMLStreamReader reader, final NamedElementContainerImpl namedElementContainerImpl,
+            final IProgrammingElementContainer programmingElementContainer, final String relativeRootDirectory, final boolean connectOriginal)
+            throws XMLStreamException
+    {
+        //'relativeRootDirectory' might be 'null';
+        final ElementKind kind = getElementKind(reader);
+        final PhysicalRecursiveElementImpl physicalRecursiveElementImpl = new PhysicalRecursiveElementImpl(kind.standardKind,
+                kind.presentationKind, reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "presentationName"),
+                getRequiredAttribute(reader, "fqName"), parseBoolean(reader.getAttributeValue(null, "locationOnly")));
+
+        final String relativeDirectory = reader.getAttributeValue(null, "relativeDirectoryPath");
+        if (relativeDirectory != null)
+        {
+            physicalRecursiveElementImpl.setRelativeDirectory(relativeDirectory);
+        }
+        if (relativeRootDirectory != null)
+        {
+            physicalRecursiveElementImpl.setRelativeRootDirectory(relativeRootDirectory);
+        }
+        register(reader, physicalRecursiveElementImpl);
+        if (connectOriginal)
+        {
+            registerOriginal(reader, physicalRecursiveElementImpl);
+        }
+        programmingElementContainer.addPhysicalRecursiveElement(physicalRecursiveElementImpl);
+        namedElementContainerImpl.addElement(physicalRecursiveElementImpl);
+        skipElement(reader);
+    }
+
+    private void readSourceFile(final XMLStreamReader reader, final NamedElementContainerImpl namedElementContainerImpl,
+            final RootDirectoryImpl rootDirectoryImpl, final boolean connectOriginal) throws XMLStreamException
+    {
+        final ElementKind kind = getElementKind(reader);
+        final SourceFileImpl sourceFileImpl = new SourceFileImpl(kind.standardKind, kind.presentationKind, reader.getAttributeValue(null, "name"),
+                reader.getAttributeValue(null, "presentationName"), getRequiredAttribute(reader, "fqName"),
+                parseBoolean(reader.getAttributeValue(null, "locationOnly")), rootDirectoryImpl.getRelativePath());
+        rootDirectoryImpl.addSourceFile(sourceFileImpl);
+        softwareSystem.addSourceFile(sourceFileImpl, sourceFileImpl);
+        namedElementContainerImpl.addElement(sourceFileImpl);
+        register(reader, sourceFileImpl);
+        if (connectOriginal)
+        {
+            registerOriginal(reader, sourceFileImpl);
+        }
+        skipElement(reader);
+    }
+
+    private void readProgrammingElement(final XMLStreamReader reader, final NamedElementContainerImpl namedElementContainerImpl,
+            final IProgrammingElementContainer programmingElementContainer) throws XMLStreamException
+    {
+        final ElementKind kind = getElementKind(reader);
+        final String line = reader.getAttributeValue(null, "line");
+        final ProgrammingElementImpl programmingElementImpl = new ProgrammingElementImpl(kind.standardKind, kind.presentationKind,
+                reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "presentationName"), getRequiredAttribute(reader, "fqName"),
+                line != null ? parseInt(line) : -1);
+        programmingElementContainer.addProgrammingElement(programmingElementImpl);
+        namedElementContainerImpl.addElement(programmingElementImpl);
+        register(reader, programmingElementImpl);
+        skipElement(reader);
+    }
+
+    private void readSystemElements(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            if ("element".equals(reader.getLocalName()))
+            {
+                final ElementKind kind = getElementKind(reader);
+                if (!SOFTWARE_SYSTEM_STANDARD_KIND.equals(kind.standardKind))
+                {
+                    createNamedElementImpl(reader, softwareSystem, kind);
+                }
+                else
+                {
+                    //We have the software system itself - register it!
+                    register(reader, softwareSystem);
+                }
+                skipElement(reader);
+            }
+            else
+            {
+                readLogicalElement(reader, softwareSystem);
+            }
+        }
+    }
+
+    private void readElements(final XMLStreamReader reader, final NamedElementContainerImpl namedElementContainerImpl,
+            final String skippedStandardKindSuffix) throws XMLStreamException
+    {
+        assert namedElementContainerImpl != null : "Unexpected class in method 'readElements': " + reader.getAttributeValue(null, "ref");
+
+        while (nextChild(reader))
+        {
+            if ("element".equals(reader.getLocalName()))
+            {
+                final ElementKind kind = getElementKind(reader);
+                if (!kind.standardKind.endsWith(skippedStandardKindSuffix))
+                {
+                    createNamedElementImpl(reader, namedElementContainerImpl, kind);
+                }
+                skipElement(reader);
+            }
+            else
+            {
+                readLogicalElement(reader, namedElementContainerImpl);
+            }
+        }
+    }
+
+    private void createNamedElementImpl(final XMLStreamReader reader, final NamedElementContainerImpl namedElementContainerImpl,
+            final ElementKind kind) throws XMLStreamException
+    {
+        final NamedElementImpl namedElementImpl = new NamedElementImpl(kind.standardKind, kind.presentationKind,
+                reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "presentationName"), getRequiredAttribute(reader, "fqName"));
+        namedElementContainerImpl.addElement(namedElementImpl);
+        register(reader, namedElementImpl);
+    }
+
+    private void readLogicalElement(final XMLStreamReader reader, final NamedElementContainerImpl namedElementContainerImpl)
+            throws XMLStreamException
+    {
+        final String localName = reader.getLocalName();
+        final boolean isNamespace = "logicalNamespace".equals(localName);
+        if (!isNamespace && !"logicalProgrammingElement".equals(localName) || options.isExcludingLogicalElements())
+        {
+            skipElement(reader);
+            return;
+        }
+
+        final ElementKind kind = getElementKind(reader);
+        final String name = reader.getAttributeValue(null, "name");
+        final String presentationName = reader.getAttributeValue(null, "presentationName");
+        final String fqName = getRequiredAttribute(reader, "fqName");
+        final LogicalElementImpl logicalElementImpl;
+        if (isNamespace)
+        {
+            final LogicalNamespaceImpl logicalNamespaceImpl = new LogicalNamespaceImpl(kind.standardKind, kind.presentationKind, name,
+                    presentationName, fqName);
+            register(reader, logicalNamespaceImpl);
+            namedElementContainerImpl.addElement(logicalNamespaceImpl);
+            namedElementContainerImpl.addLogicalNamespace(logicalNamespaceImpl);
+            logicalElementImpl = logicalNamespaceImpl;
+        }
+        else
+        {
+            final LogicalProgrammingElementImpl logicalProgrammingElementImpl = new LogicalProgrammingElementImpl(kind.standardKind,
+                    kind.presentationKind, name, presentationName, fqName);
+            register(reader, logicalProgrammingElementImpl);
+            namedElementContainerImpl.addElement(logicalProgrammingElementImpl);
+            namedElementContainerImpl.addLogicalProgrammingElement(logicalProgrammingElementImpl);
+            logicalElementImpl = logicalProgrammingElementImpl;
+        }
+
+        for (final String nextDerivedFrom : splitRefs(reader.getAttributeValue(null, "derivedFrom")))
+        {
+            final Object element = idTable.get(nextDerivedFrom);
+            if (element != null)
+            {
+                if (element instanceof NamedElementImpl)
+                {
+                    logicalElementImpl.addDerivedFrom((NamedElementImpl) element);
+                }
+                else
+                {
+                    LOGGER.warn("Unexpected element class '" + element.getClass().getName() + "' for 'derivedFrom':" + nextDerivedFrom);
+                }
+            }
+            else if (!options.isExcludingElements())
+            {
+                LOGGER.warn("No element has been created for 'derivedFrom':" + nextDerivedFrom);
+            }
+        }
+        skipElement(reader);
+    }
+
+    private void register(final XMLStreamReader reader, final NamedElementImpl namedElementImpl) throws XMLStreamException
+    {
+        idTable.put(getRequiredAttribute(reader, "id"), namedElementImpl);
+        if (options.isUsingCompactFqNames())
+        {
+            namedElementImpl.setCompactFqName(stringPool.getFqName(namedElementImpl.getFqName()));
+        }
+        if (++numberOfElements % PROGRESS_INTERVAL == 0)
+        {
+            reportProgress();
+        }
+        final String sourceRef = reader.getAttributeValue(null, "source");
+        if (sourceRef != null)
+        {
+            elementsWithSource.add(namedElementImpl);
+            sourceRefs.add(sourceRef);
+        }
+    }
+
+    private void registerOriginal(final XMLStreamReader reader, final PhysicalElementImpl physicalElementImpl)
+    {
+        final String originalRef = reader.getAttributeValue(null, "originalLocation");
+        if (originalRef != null)
+        {
+            elementsWithOriginal.add(physicalElementImpl);
+            originalRefs.add(originalRef);
+        }
+    }
+
+    private void connectPhysicalElementOriginals()
+    {
+        for (int i = 0; i < elementsWithOriginal.size(); i++)
+        {
+            final PhysicalElementImpl nextPhysicalElementImpl = elementsWithOriginal.get(i);
+            final Object nextOriginal = idTable.get(originalRefs.get(i));
+            if (nextOriginal instanceof PhysicalElementImpl)
+            {
+                final PhysicalElementImpl original = (PhysicalElementImpl) nextOriginal;
+                if (nextPhysicalElementImpl.getClass().equals(original.getClass()))
+                {
+                    nextPhysicalElementImpl.setOriginalLocation(original);
+                }
+                else
+                {
+                    LOGGER.error("Class info does not match for original connection '{}' vs '{}'.", nextPhysicalElementImpl.getClass().getName(),
+                            original.getClass().getName());
+                }
+            }
+            else if (nextOriginal == null && !options.isExcludingElements())
+            {
+                LOGGER.error("No named element impl found for original xsd named element '{}'.", originalRefs.get(i));
+            }
+            else if (nextOriginal != null)
+            {
+                LOGGER.error("Unexpected class '{}' as original named element impl.", nextOriginal.getClass().getCanonicalName());
+            }
+        }
+        elementsWithOriginal.clear();
+        originalRefs.clear();
+    }
+
+    private void connectSourceFiles()
+    {
+        for (int i = 0; i < elementsWithSource.size(); i++)
+        {
+            final Object nextSourceFile = idTable.get(sourceRefs.get(i));
+            if (nextSourceFile != null)
+            {
+                assert nextSourceFile instanceof SourceFileImpl : "Unexpected class '" + nextSourceFile.getClass().getName() + "'";
+                softwareSystem.addSourceFile(elementsWithSource.get(i), (SourceFileImpl) nextSourceFile);
+            }
+            else
+            {
+                LOGGER.warn("No element created for 'XsdNamedElement.getSource()' reference: " + sourceRefs.get(i));
+            }
+        }
+        elementsWithSource.clear();
+        sourceRefs.clear();
+    }
+
+    private void readSystemMetricValues(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            final IMetricLevel level = getReferenced(reader, "levelRef", IMetricLevel.class);
+            assert level != null : "level has not been created for system level metric values";
+            if (!options.isMetricLevelIncluded(level.getName()))
+            {
+                skipElement(reader);
+                continue;
+            }
+
+            while (nextChild(reader))
+            {
+                final IMetricId metricId = getReferenced(reader, "ref", IMetricId.class);
+                assert metricId != null : "Metric id '" + reader.getAttributeValue(null, "ref") + "' has not been added";
+
+                while (nextChild(reader))
+                {
+                    if (isFloatMetricValue(reader))
+                    {
+                        softwareSystem.addMetricValueForElement(metricId, level, softwareSystem, parseFloat(reader.getElementText()));
+                    }
+                    else
+                    {
+                        softwareSystem.addMetricValueForElement(metricId, level, softwareSystem, parseInt(reader.getElementText()));
+                    }
+                }
+            }
+        }
+    }
+
+    private void readModuleMetricValues(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final ModuleImpl module = getReferenced(reader, "elementRef", ModuleImpl.class);
+        if (module == null && options.isExcludingModules())
+        {
+            skipElement(reader);
+            return;
+        }
+        assert module != null : "module '" + reader.getAttributeValue(null, "elementRef") + "' has not been added";
+        final Map<String, IMetricLevel> metricLevels = module.getAllMetricLevels();
+
+        while (nextChild(reader))
+        {
+            final IMetricLevel level = getReferenced(reader, "levelRef", IMetricLevel.class);
+            assert level != null : "MetricLevel not processed for " + reader.getAttributeValue(null, "levelRef");
+            if (!options.isMetricLevelIncluded(level.getName()))
+            {
+                skipElement(reader);
+                continue;
+            }
+
+            if (!metricLevels.containsKey(level.getName()))
+            {
+                module.addMetricLevel(level);
+            }
+
+            while (nextChild(reader))
+            {
+                final IMetricId metricId = getReferenced(reader, "ref", IMetricId.class);
+                assert metricId != null : "Metric id '" + reader.getAttributeValue(null, "ref") + "' has not been added";
+
+                while (nextChild(reader))
+                {
+                    final INamedElement element = getReferenced(reader, "ref", INamedElement.class);
+                    if (element == null && options.isExcludingElements())
+                    {
+                        skipElement(reader);
+                        continue;
+                    }
+                    assert element != null : "Element " + reader.getAttributeValue(null, "ref") + " not found!";
+                    if (isFloatMetricValue(reader))
+                    {
+                        final float value = parseFloat(reader.getElementText());
+                        module.addMetricValueForElement(metricId, level, element, value);
+                        softwareSystem.addMetricValueForElement(metricId, level, element, value);
+                    }
+                    else
+                    {
+                        final int value = parseInt(reader.getElementText());
+                        module.addMetricValueForElement(metricId, level, element, value);
+                        softwareSystem.addMetricValueForElement(metricId, level, element, value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the cursor is at the start tag of a 'float' metric value element, false for an 'int' one.
+     */
+    private static boolean isFloatMetricValue(final XMLStreamReader reader)
+    {
+        return "float".equals(reader.getLocalName());
+    }
+
+    private void readIssues(final XMLStreamReader reader, final Result result) throws XMLStreamException
+    {
+        softwareSystem.setNumberOfIssues(parseInt(getRequiredAttribute(reader, "numberOfIssues")));
+        registerIssueMetaData(result);
+
+        while (nextChild(reader))
+        {
+            switch (reader.getLocalName())
+            {
+            case "elementIssues":
+                readElementIssues(reader);
+                break;
+            case "depencencyIssues":
+                while (nextChild(reader))
+                {
+                    readDependencyIssue(reader);
+                }
+                break;
+            default:
+                skipElement(reader);
+                break;
+            }
+        }
+
+        if (options.isExcludingIssues())
+        {
+            softwareSystem.setNumberOfIssues(softwareSystem.getIssues().values().stream().mapToInt(List::size).sum());
+        }
+    }
+
+    /**
+     * @return true if the issue at the cursor has been excluded by the options - the cursor has then been moved to its end tag.
+     */
+    private boolean skipExcludedIssue(final XMLStreamReader reader, final IIssueType issueType, final IIssueProvider issueProvider)
+            throws XMLStreamException
+    {
+        if (options.isIssueIncluded(issueType, issueProvider))
+        {
+            return false;
+        }
+        skipElement(reader);
+        return true;
+    }
+
+    /**
+     * @return true if the referenced element has been excluded by the options - the cursor has then been moved to the end tag of the current
+     *         element.
+     */
+    private boolean skipExcludedElementReference(final XMLStreamReader reader, final INamedElement element) throws XMLStreamException
+    {
+        if (element != null || !options.isExcludingElements())
+        {
+            return false;
+        }
+        skipElement(reader);
+        return true;
+    }
+
+    private void registerIssueMetaData(final Result result)
+    {
+        issueProviders.values().forEach(p -> softwareSystem.addIssueProvider(p));
+        issueCategories.values().forEach(c -> softwareSystem.addIssueCategory(c));
+
+        for (final IssueTypeDefinition next : issueTypeDefinitions)
+        {
+            Severity severity;
+            try
+            {
+                severity = Severity.valueOf(Utility.convertStandardNameToConstantName(next.severity));
+            }
+            catch (final Exception e)
+            {
+                LOGGER.error("Failed to process severity type '" + next.severity + "'", e);
+                result.addWarning(ValidationMessageCauses.NOT_SUPPORTED_ENUM_CONSTANT,
+                        "Severity type '" + next.severity + "' is not supported, setting to '" + Severity.ERROR + "'");
+                severity = Severity.ERROR;
+            }
+            final IssueCategoryImpl category = issueCategories.get(next.categoryRef);
+            assert category != null : "Unexpected class in method 'registerIssueMetaData': " + next.categoryRef;
+
+            final IssueTypeImpl issueType = metaDataRegistry.getIssueType(next.name, next.presentationName, severity, category,
+                    next.providerRef != null ? issueProviders.get(next.providerRef) : null, next.description);
+            softwareSystem.addIssueType(issueType);
+            idTable.put(next.id, issueType);
+        }
+    }
+
+    private void readElementIssues(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            switch (reader.getLocalName())
+            {
+            case "issue":
+                readSimpleElementIssue(reader);
+                break;
+            case "duplicate":
+                readDuplicateIssue(reader);
+                break;
+            case "cycleGroups":
+                readCycleGroupIssues(reader);
+                break;
+            case "thresholdViolation":
+                readThresholdIssue(reader);
+                break;
+            default:
+                skipElement(reader);
+                break;
+            }
+        }
+    }
+
+    private void readSimpleElementIssue(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final IIssueType issueType = getIssueType(reader);
+        final IIssueProvider issueProvider = getIssueProvider(reader);
+        final INamedElement affected = getReferenced(reader, "affectedElement", INamedElement.class);
+        if (skipExcludedIssue(reader, issueType, issueProvider) || skipExcludedElementReference(reader, affected))
+        {
+            return;
+        }
+        assert affected != null : "Affected element of issue '" + reader.getAttributeValue(null, "id") + "' has not been processed";
+
+        final String description = reader.getAttributeValue(null, "description");
+        final NamedElementIssueImpl issue = new NamedElementIssueImpl(issueType.getName(), issueType.getPresentationName(),
+                description != null ? description : "", issueType, issueProvider, getIntAttribute(reader, "line", -1),
+                getIntAttribute(reader, "column", -1), affected);
+        addIssue(reader, issue);
+        skipElement(reader);
+    }
+
+    private void readThresholdIssue(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final IIssueType issueType = getIssueType(reader);
+        final IIssueProvider issueProvider = getIssueProvider(reader);
+        final INamedElement affected = getReferenced(reader, "affectedElement", INamedElement.class);
+        if (skipExcludedIssue(reader, issueType, issueProvider) || skipExcludedElementReference(reader, affected))
+        {
+            return;
+        }
+        assert affected != null : "Affected element of issue '" + reader.getAttributeValue(null, "id")
+                + "' has not been processed - xsd element id: " + reader.getAttributeValue(null, "affectedElement");
+        final IMetricThreshold threshold = getReferenced(reader, "thresholdRef", IMetricThreshold.class);
+        assert threshold != null : "threshold has not been added to system for '" + reader.getAttributeValue(null, "description") + "'";
+
+        final String description = reader.getAttributeValue(null, "description");
+        final ThresholdViolationIssue issue = new ThresholdViolationIssue(issueType.getName(), issueType.getPresentationName(),
+                description != null ? description : "", issueType, issueProvider, getIntAttribute(reader, "line", -1),
+                getIntAttribute(reader, "column", -1), affected, parseDecimal(getRequiredAttribute(reader, "metricValue")), threshold);
+        addIssue(reader, issue);
+        skipElement(reader);
+    }
+
+    private void readDuplicateIssue(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final IIssueType issueType = getIssueType(reader);
+        final IIssueProvider issueProvider = getIssueProvider(reader);
+        if (skipExcludedIssue(reader, issueType, issueProvider))
+        {
+            return;
+        }
+        final String id = getRequiredAttribute(reader, "id");
+        final String fqName = reader.getAttributeValue(null, "fqName");
+        final String name = getPooledAttribute(reader, "name");
+        final String description = reader.getAttributeValue(null, "description");
+        final int blockSize = parseInt(getRequiredAttribute(reader, "blockSize"));
+
+        final List<IDuplicateCodeBlockOccurrence> occurrences = new ArrayList<>(parseInt(getRequiredAttribute(reader, "numberOfOccurrences")));
+        while (nextChild(reader))
+        {
+            final ISourceFile sourceFile = getReferenced(reader, "source", ISourceFile.class);
+            if (sourceFile == null && options.isExcludingModules())
+            {
+                //Source file of an excluded module
+                skipElement(reader);
+                continue;
+            }
+            assert sourceFile != null : "Unexpected element for occurrence source: " + reader.getAttributeValue(null, "source");
+            occurrences.add(new DuplicateCodeBlockOccurrenceImpl(sourceFile, parseInt(getRequiredAttribute(reader, "blockSize")),
+                    parseInt(getRequiredAttribute(reader, "startLine")), parseInt(getRequiredAttribute(reader, "tolerance"))));
+            skipElement(reader);
+        }
+        if (occurrences.isEmpty() && options.isExcludingModules())
+        {
+            return;
+        }
+
+        final DuplicateCodeBlockIssueImpl duplicate = new DuplicateCodeBlockIssueImpl(fqName, name, description, issueType, issueProvider,
+                occurrences);
+        duplicate.setBlockSize(blockSize);
+        addIssue(id, duplicate);
+    }
+
+    private void readCycleGroupIssues(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final AnalyzerImpl analyzer = getReferenced(reader, "analyzerRef", AnalyzerImpl.class);
+        assert analyzer != null : "Analyzer '" + reader.getAttributeValue(null, "analyzerRef") + "' does not exist!";
+
+        while (nextChild(reader))
+        {
+            final IIssueType issueType = getIssueType(reader);
+            final IIssueProvider issueProvider = getIssueProvider(reader);
+            if (skipExcludedIssue(reader, issueType, issueProvider))
+            {
+                continue;
+            }
+            final String id = getRequiredAttribute(reader, "id");
+            final String fqName = reader.getAttributeValue(null, "fqName");
+            final String name = getPooledAttribute(reader, "name");
+            final String description = reader.getAttributeValue(null, "description");
+
+            final List<INamedElement> cyclicElements = new ArrayList<>();
+            while (nextChild(reader))
+            {
+                final INamedElement element = getReferenced(reader, "ref", INamedElement.class);
+                if (!skipExcludedElementReference(reader, element))
+                {
+                    assert element != null : "Unexpected cyclic element " + reader.getAttributeValue(null, "ref");
+                    cyclicElements.add(element);
+                    skipElement(reader);
+                }
+            }
+            if (cyclicElements.isEmpty() && options.isExcludingElements())
+            {
+                continue;
+            }
+
+            //This name might not not be set -> use the old name 'issueProvider.getPresentationName()'
+            final CycleGroupIssueImpl cycleGroup = new CycleGroupIssueImpl(fqName,
+                    name != null && !name.isEmpty() ? name : issueProvider.getPresentationName(), description, issueType, issueProvider, analyzer,
+                    cyclicElements);
+            addIssue(id, cycleGroup);
+        }
+    }
+
+    private void readDependencyIssue(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final IIssueType issueType = getIssueType(reader);
+        final IIssueProvider issueProvider = getIssueProvider(reader);
+        final INamedElement from = getReferenced(reader, "from", INamedElement.class);
+        final INamedElement to = getReferenced(reader, "to", INamedElement.class);
+        if (skipExcludedIssue(reader, issueType, issueProvider) || skipExcludedElementReference(reader, from)
+                || skipExcludedElementReference(reader, to))
+        {
+            return;
+        }
+        assert from != null : "'from' element (" + reader.getAttributeValue(null, "from") + ") of dependency issue '"
+                + reader.getAttributeValue(null, "id") + "' not found";
+        assert to != null : "'to' element (" + reader.getAttributeValue(null, "to") + ") of dependency issue '"
+                + reader.getAttributeValue(null, "id") + "' not found";
+
+        final DependencyIssueImpl dependencyIssue = new DependencyIssueImpl(issueType.getName(), issueType.getPresentationName(),
+                reader.getAttributeValue(null, "description"), issueType, issueProvider, getIntAttribute(reader, "line", -1),
+                getIntAttribute(reader, "column", -1), from, to);
+        addIssue(reader, dependencyIssue);
+        skipElement(reader);
+    }
+
+    private void addIssue(final XMLStreamReader reader, final IssueImpl issue) throws XMLStreamException
+    {
+        addIssue(getRequiredAttribute(reader, "id"), issue);
+    }
+
+    private void addIssue(final String id, final IssueImpl issue)
+    {
+        softwareSystem.addIssue(issue);
+        idTable.put(id, issue);
+        if (++numberOfIssues % PROGRESS_INTERVAL == 0)
+        {
+            reportProgress();
+        }
+    }
+
+    private IIssueType getIssueType(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final String issueTypeRef = getRequiredAttribute(reader, "type");
+        final IIssueType issueType = idTable.get(issueTypeRef, IIssueType.class);
+        assert issueType != null : "issueType '" + issueTypeRef + "' has not been added to system";
+        return issueType;
+    }
+
+    private IIssueProvider getIssueProvider(final XMLStreamReader reader) throws XMLStreamException
+    {
+        final String issueProviderRef = getRequiredAttribute(reader, "provider");
+        final IIssueProvider issueProvider = issueProviders.get(issueProviderRef);
+        assert issueProvider != null : "issueProvider '" + issueProviderRef + "' has not been added to system";
+        return issueProvider;
+    }
+
+    private void readResolutions(final XMLStreamReader reader, final Result result) throws XMLStreamException
+    {
+        while (nextChild(reader))
+        {
+            readResolution(reader, result);
+            skipElement(reader);
+        }
+    }
+
+    private void readResolution(final XMLStreamReader reader, final Result result) throws XMLStreamException
+    {
+        final String typeName = reader.getAttributeValue(null, "type");
+        ResolutionType type;
+        if (parseBoolean(reader.getAttributeValue(null, "refactoring")))
+        {
+            type = ResolutionType.REFACTORING;
+        }
+        else
+        {
+            try
+            {
+                type = ResolutionType.valueOf(typeName.toUpperCase());
+            }
+            catch (final Exception e)
+            {
+                LOGGER.error("Failed to process resolution type '" + typeName + "'", e);
+                result.addError(ValidationMessageCauses.NOT_SUPPORTED_ENUM_CONSTANT,
+                        "Resolution type '" + typeName + "' is not supported and will be ignored.");
+                return;
+            }
+        }
+
+        final String priorityName = reader.getAttributeValue(null, "prio");
+        Priority priority;
+        try
+        {
+            priority = Priority.valueOf(Utility.convertStandardNameToConstantName(priorityName));
+        }
+        catch (final Exception e)
+        {
+            LOGGER.error("Failed to process priority type '" + priorityName + "'", e);
+            result.addWarning(ValidationMessageCauses.NOT_SUPPORTED_ENUM_CONSTANT,
+                    "Priority type '" + priorityName + "' is not supported, setting to '" + Priority.NONE + "'");
+            priority = Priority.NONE;
+        }
+
+        final List<IIssue> issues = new ArrayList<>();
+        for (final String nextIssueId : splitRefs(reader.getAttributeValue(null, "issueIds")))
+        {
+            final IssueImpl nextIssueImpl = idTable.get(nextIssueId, IssueImpl.class);
+            if (nextIssueImpl == null && options.isExcludingIssues())
+            {
+                continue;
+            }
+            assert nextIssueImpl != null : "No issue with id '" + nextIssueId + "' exists";
+            nextIssueImpl.setResolutionType(type);
+            issues.add(nextIssueImpl);
+        }
+
+        final ResolutionImpl resolution = new ResolutionImpl(reader.getAttributeValue(null, "fqName"), type, priority, issues,
+                parseBoolean(reader.getAttributeValue(null, "applicable")), getIntAttribute(reader, "numberOfAffectedParserDependencies", -1),
+                reader.getAttributeValue(null, "description"), reader.getAttributeValue(null, "assignee"),
+                parseDateTime(getRequiredAttribute(reader, "date")).toString());
+        softwareSystem.addResolution(resolution);
+    }
+
+    private ElementKind getElementKind(final XMLStreamReader reader) throws XMLStreamException
+    {
+        assert currentlyReading != null : "'currentlyReading' of method 'getElementKind' must not be null";
+
+        final String kindRef = reader.getAttributeValue(null, "kind");
+        final Object kind = idTable.get(kindRef);
+        if (kind == null)
+        {
+            final String msg = "No associated element kind found for named element: " + reader.getAttributeValue(null, "fqName");
+            LOGGER.error(msg);
+            throw new XMLStreamException(msg, reader.getLocation());
+        }
+        if (kind instanceof ElementKind == false)
+        {
+            final String msg = "Associated element kind is of wrong class '" + kind.getClass().getName() + "' for named element: "
+                    + reader.getAttributeValue(null, "fqName");
+            LOGGER.error(msg);
+            throw new XMLStreamException(msg, reader.getLocation());
+        }
+        return (ElementKind) kind;
+    }
+
+    private <T> T getReferenced(final XMLStreamReader reader, final String attribute, final Class<T> clazz) throws XMLStreamException
+    {
+        return idTable.get(getRequiredAttribute(reader, attribute), clazz);
+    }
+
+    private XMLGregorianCalendar parseDateTime(final String value)
+    {
+        return datatypeFactory.newXMLGregorianCalendar(value.trim());
+    }
+
+    /**
+     * For attributes with few distinct values (kinds, issue names) - returns the instance shared with all equal values of the report.
+     */
+    private String getPooledAttribute(final XMLStreamReader reader, final String attribute)
+    {
+        return stringPool.get(reader.getAttributeValue(null, attribute));
+    }
+
+    private static String getRequiredAttribute(final XMLStreamReader reader, final String attribute) throws XMLStreamException
+    {
+        final String value = reader.getAttributeValue(null, attribute);
+        if (value == null)
+        {
+            throw new XMLStreamException("Missing attribute '" + attribute + "' of element '" + reader.getLocalName() + "'", reader.getLocation());
+        }
+        return value;
+    }
+
+    private static int getIntAttribute(final XMLStreamReader reader, final String attribute, final int defaultValue)
+    {
+        final String value = reader.getAttributeValue(null, attribute);
+        return value != null ? parseInt(value) : defaultValue;
+    }
+
+    private static String[] splitRefs(final String refs)
+    {
+        if (refs == null)
+        {
+            return new String[0];
+        }
+        final String trimmed = refs.trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+
+    private static boolean parseBoolean(final String value)
+    {
+        if (value == null)
+        {
+            return false;
+        }
+        final String trimmed = value.trim();
+        return "true".equals(trimmed) || "1".equals(trimmed);
+    }
+
+    private static int parseInt(final String value)
+    {
+        return Integer.parseInt(value.trim());
+    }
+
+    private static float parseFloat(final String value)
+    {
+        final String trimmed = value.trim();
+        if ("INF".equals(trimmed))
+        {
+            return Float.POSITIVE_INFINITY;
+        }
+        if ("-INF".equals(trimmed))
+        {
+            return Float.NEGATIVE_INFINITY;
+        }
+        return Float.parseFloat(trimmed);
+    }
+
+    private static double parseDouble(final String value)
+    {
+        final String trimmed = value.trim();
+        if ("INF".equals(trimmed))
+        {
+            return Double.POSITIVE_INFINITY;
+        }
+        if ("-INF".equals(trimmed))
+        {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return Double.parseDouble(trimmed);
+    }
+
+    private static BigDecimal parseDecimal(final String value)
+    {
+        return value != null ? new BigDecimal(value.trim()) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Moves the cursor to the next child element of the current element.
+     * @return true if the cursor is at the start tag of a child, false if it is at the end tag of the current element.
+     */
+    private static boolean nextChild(final XMLStreamReader reader) throws XMLStreamException
+    {
+        while (reader.hasNext())
+        {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                return false;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+    }
+
+    /**
+     * Moves the cursor from the start tag of the current element to its end tag, ignoring all content.
+     */
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                depth--;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadPhase;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadProgress;
+
+public final class AsyncReportLoadTest
+{
+    @Test
+    public void reportProgressWhileLoading() throws Exception
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final List<ReportLoadProgress> progress = Collections.synchronizedList(new ArrayList<>());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final Result result = controller.loadSystemReportAsync(new File(TestFixture.CPP_REPORT), new ReportLoadOptions(), executor, progress::add)
+                    .get();
+            assertTrue(result.toString(), result.isSuccess());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertTrue("System must be loaded", controller.hasSoftwareSystem());
+
+        ReportLoadPhase previous = null;
+        for (final ReportLoadProgress next : progress)
+        {
+            assertTrue("Phases must not go back: " + progress, previous == null || previous.compareTo(next.getPhase()) <= 0);
+            previous = next.getPhase();
+        }
+        assertTrue("Expected periodic progress while elements are created", progress.size() > ReportLoadPhase.values().length);
+
+        final ReportLoadProgress last = progress.get(progress.size() - 1);
+        assertEquals(ReportLoadPhase.COMPLETED, last.getPhase());
+        assertEquals("All bytes must have been read", last.getTotalBytes(), last.getBytesRead());
+        assertEquals(controller.createSystemInfoProcessor().getIssues(null).size(), last.getNumberOfIssues());
+        assertTrue("Elements must have been counted", last.getNumberOfElements() > 0);
+    }
+
+    @Test
+    public void cancelBetweenPhases()
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final List<Runnable> tasks = new ArrayList<>();
+        final AtomicReference<CompletableFuture<Result>> future = new AtomicReference<>();
+        final List<ReportLoadPhase> phases = new ArrayList<>();
+
+        future.set(controller.loadSystemReportAsync(new File(TestFixture.TEST_REPORT), new ReportLoadOptions(), tasks::add, p ->
+        {
+            phases.add(p.getPhase());
+            if (p.getPhase() == ReportLoadPhase.ELEMENTS)
+            {
+                future.get().cancel(false);
+            }
+        }));
+        assertEquals("Load must run on the given executor", 1, tasks.size());
+        tasks.get(0).run();
+
+        assertTrue("Load must have been canceled", future.get().isCancelled());
+        assertFalse("Load must stop after elements have been entered", phases.contains(ReportLoadPhase.METRIC_VALUES));
+        assertFalse("Canceled load must not set a system", controller.hasSoftwareSystem());
+    }
+
+    @Test
+    public void cancelBeforeStart()
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<ReportLoadProgress> progress = new ArrayList<>();
+        final CompletableFuture<Result> future = controller.loadSystemReportAsync(new File(TestFixture.TEST_REPORT), new ReportLoadOptions(),
+                tasks::add, progress::add);
+        future.cancel(false);
+        tasks.get(0).run();
+
+        assertTrue("Load must not have been started", progress.isEmpty());
+        assertFalse("Canceled load must not set a system", controller.hasSoftwareSystem());
+    }
+
+    @Test
+    public void previousSystemIsKeptOnCancel()
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(new File(TestFixture.TEST_REPORT)).isSuccess());
+        final String systemName = controller.getSoftwareSystem().getName();
+
+        final List<Runnable> tasks = new ArrayList<>();
+        final AtomicReference<CompletableFuture<Result>> future = new AtomicReference<>();
+        future.set(controller.loadSystemReportAsync(new File(TestFixture.CPP_REPORT_HILO), new ReportLoadOptions(), tasks::add, p ->
+        {
+            if (p.getPhase() == ReportLoadPhase.ISSUES)
+            {
+                future.get().cancel(false);
+            }
+        }));
+        tasks.get(0).run();
+
+        assertTrue("Load must have been canceled", future.get().isCancelled());
+        assertEquals("Previous system must be kept", systemName, controller.getSoftwareSystem().getName());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.BatchReportLoader;
+import com.hello2morrow.sonargraph.integration.access.controller.BatchReportLoader.LoadedReport;
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+
+public final class BatchReportLoaderTest
+{
+    private static final List<File> REPORTS = Arrays.asList(new File(TestFixture.TEST_REPORT_RESOLUTIONS_1),
+            new File(TestFixture.TEST_REPORT_RESOLUTIONS_2), new File(TestFixture.CPP_REPORT_HILO), new File("./unknown.xml"),
+            new File(TestFixture.TEST_REPORT_META_DATA_1), new File(TestFixture.TEST_REPORT_META_DATA_2));
+
+    @Test
+    public void loadReportsConcurrently()
+    {
+        final List<LoadedReport> loaded = new BatchReportLoader(3).load(REPORTS);
+        assertEquals("Wrong number of results", REPORTS.size(), loaded.size());
+
+        for (int i = 0; i < REPORTS.size(); i++)
+        {
+            final LoadedReport next = loaded.get(i);
+            assertEquals("Results must be in the order of the files", REPORTS.get(i), next.getReportFile());
+            if (REPORTS.get(i).exists())
+            {
+                assertTrue(next.getResult().toString(), next.getResult().isSuccess());
+
+                final ISonargraphSystemController expected = ControllerAccess.createController();
+                assertTrue(expected.loadSystemReport(REPORTS.get(i)).isSuccess());
+                final ISonargraphSystemController actual = next.getController().get();
+                assertEquals("Different system", expected.getSoftwareSystem().getSystemId(), actual.getSoftwareSystem().getSystemId());
+                assertEquals("Different issues", expected.createSystemInfoProcessor().getIssues(null).size(),
+                        actual.createSystemInfoProcessor().getIssues(null).size());
+                assertEquals("Different metric ids", expected.createSystemInfoProcessor().getMetricIds().size(),
+                        actual.createSystemInfoProcessor().getMetricIds().size());
+            }
+            else
+            {
+                assertTrue("Missing file must fail", next.getResult().isFailure());
+                assertFalse("No controller expected for missing file", next.getController().isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void shareMetaDataBetweenSystems()
+    {
+        final BatchReportLoader loader = new BatchReportLoader(2);
+        final List<LoadedReport> loaded = loader.load(Arrays.asList(new File(TestFixture.TEST_REPORT_RESOLUTIONS_1),
+                new File(TestFixture.TEST_REPORT_RESOLUTIONS_2)));
+        final ISystemInfoProcessor first = loaded.get(0).getController().get().createSystemInfoProcessor();
+        final ISystemInfoProcessor second = loaded.get(1).getController().get().createSystemInfoProcessor();
+
+        final Map<String, IIssueType> issueTypes = new HashMap<>();
+        first.getIssueTypes().forEach(t -> issueTypes.put(t.getName(), t));
+        int shared = 0;
+        for (final IIssueType next : second.getIssueTypes())
+        {
+            final IIssueType other = issueTypes.get(next.getName());
+            if (other != null && other.getSeverity() == next.getSeverity() && other.getPresentationName().equals(next.getPresentationName()))
+            {
+                assertSame("Identical issue types must be shared", other, next);
+                shared++;
+            }
+        }
+        assertTrue("Expected shared issue types", shared > 0);
+
+        for (final IMetricId next : second.getMetricIds())
+        {
+            final IMetricId other = first.getMetricId(next.getName()).orElse(null);
+            if (other != null && other.getLevels().equals(next.getLevels()) && other.getPresentationName().equals(next.getPresentationName())
+                    && other.getDescription().equals(next.getDescription()))
+            {
+                assertSame("Identical metric ids must be shared", other, next);
+            }
+        }
+        assertTrue("Expected interned meta data", loader.getMetaDataRegistry().size() > 0);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IModuleInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportReadMode;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementImpl;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+public final class CompactFqNameTest
+{
+    private static ISonargraphSystemController load(final ReportLoadOptions options)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final File report = new File(TestFixture.CPP_REPORT);
+        assertTrue(options != null ? controller.loadSystemReport(report, options).isSuccess()
+                : controller.loadSystemReport(report, ReportReadMode.STREAMING).isSuccess());
+        return controller;
+    }
+
+    /**
+     * @return the size of the serialized system. Serialization writes each shared object once, so the size reflects the number of distinct
+     *         name instances the model retains - independent of the garbage collector.
+     */
+    private static long getSerializedSize(final ISonargraphSystemController controller) throws IOException
+    {
+        final long[] size = new long[1];
+        final OutputStream counter = new OutputStream()
+        {
+            @Override
+            public void write(final int b)
+            {
+                size[0]++;
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length)
+            {
+                size[0] += length;
+            }
+        };
+        try (ObjectOutputStream out = new ObjectOutputStream(counter))
+        {
+            out.writeObject(controller.getSoftwareSystem());
+        }
+        return size[0];
+    }
+
+    @Test
+    public void compactFqNamesShareNamePrefixes() throws IOException
+    {
+        final ISonargraphSystemController plain = load(null);
+        final ISonargraphSystemController compact = load(new ReportLoadOptions().compactFqNames());
+
+        for (final IModule nextModule : compact.getSoftwareSystem().getModules().values())
+        {
+            for (final String nextKind : nextModule.getElementKinds())
+            {
+                nextModule.getElements(nextKind).forEach(e -> assertTrue("Element must be compact: " + e.getFqName(),
+                        ((NamedElementImpl) e).hasCompactFqName()));
+            }
+        }
+
+        final long plainSize = getSerializedSize(plain);
+        final long compactSize = getSerializedSize(compact);
+        assertTrue("Compact fq names must reduce the model size: " + plainSize + " -> " + compactSize, compactSize < plainSize);
+    }
+
+    @Test
+    public void compactModelEqualsPlainModel()
+    {
+        final ISonargraphSystemController plain = load(null);
+        final ISonargraphSystemController compact = load(new ReportLoadOptions().compactFqNames());
+
+        for (final IModule nextModule : plain.getSoftwareSystem().getModules().values())
+        {
+            final IModule compactModule = compact.getSoftwareSystem().getModules().get(nextModule.getName());
+            for (final String nextKind : nextModule.getElementKinds())
+            {
+                final Map<String, Integer> expected = new HashMap<>();
+                nextModule.getElements(nextKind).forEach(e -> expected.put(e.getFqName(), e.hashCode()));
+                final Map<String, Integer> actual = new HashMap<>();
+                compactModule.getElements(nextKind).forEach(e -> actual.put(e.getFqName(), e.hashCode()));
+                assertEquals("Different elements of kind " + nextKind, expected, actual);
+            }
+        }
+
+        final IModule module = compact.getSoftwareSystem().getModules().values().iterator().next();
+        final IModuleInfoProcessor moduleInfoProcessor = compact.createModuleInfoProcessor(module);
+        final IMetricLevel level = moduleInfoProcessor.getMetricLevel(IMetricLevel.MODULE).get();
+        final List<IMetricId> metricIds = moduleInfoProcessor.getMetricIdsForLevel(level);
+        assertTrue("Module metrics expected", !metricIds.isEmpty());
+        for (final IMetricId nextMetricId : metricIds)
+        {
+            final Optional<IMetricValue> value = moduleInfoProcessor.getMetricValueForElement(nextMetricId, level, module.getFqName());
+            assertTrue("Metric value must be found by fq name: " + nextMetricId.getName(), value.isPresent());
+        }
+
+        final List<IIssue> issues = compact.createSystemInfoProcessor().getIssues(null);
+        assertEquals(plain.createSystemInfoProcessor().getIssues(null).size(), issues.size());
+        final Map<String, String> descriptions = new HashMap<>();
+        for (final IIssue nextIssue : issues)
+        {
+            final String description = descriptions.putIfAbsent(nextIssue.getDescription(), nextIssue.getDescription());
+            if (description != null)
+            {
+                assertSame("Equal descriptions must be shared", description, nextIssue.getDescription());
+            }
+            for (final INamedElement nextElement : nextIssue.getAffectedNamedElements())
+            {
+                final NamedElementImpl element = (NamedElementImpl) nextElement;
+                assertTrue("Affected element must be compact: " + element.getFqName(), element.hasCompactFqName());
+                assertEquals(element.getFqName().hashCode(), element.getFqNameHashCode());
+                assertTrue(element.hasFqName(element.getFqName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportReadMode;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+public final class CompressedReportLoadTest
+{
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final class CloseTrackingInputStream extends FilterInputStream
+    {
+        private boolean closed;
+
+        CloseTrackingInputStream(final InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            closed = true;
+            super.close();
+        }
+    }
+
+    private File createGzip() throws IOException
+    {
+        final File gzip = temporaryFolder.newFile("report.xml.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip.toPath())))
+        {
+            Files.copy(new File(TestFixture.CPP_REPORT).toPath(), out);
+        }
+        return gzip;
+    }
+
+    private File createZip(final boolean withReport) throws IOException
+    {
+        final File zip = temporaryFolder.newFile(withReport ? "artifacts.zip" : "empty.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip.toPath())))
+        {
+            out.putNextEntry(new ZipEntry("reports/"));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("reports/readme.txt"));
+            out.write("Sonargraph report".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            if (withReport)
+            {
+                out.putNextEntry(new ZipEntry("reports/project_2.xml"));
+                Files.copy(new File(TestFixture.CPP_REPORT).toPath(), out);
+                out.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    private static int getNumberOfIssues(final ISonargraphSystemController controller)
+    {
+        return controller.createSystemInfoProcessor().getIssues(null).size();
+    }
+
+    private static int load(final File report, final ReportReadMode readMode)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = controller.loadSystemReport(report, readMode);
+        assertTrue(result.toString(), result.isSuccess());
+        return getNumberOfIssues(controller);
+    }
+
+    @Test
+    public void loadGzipFile() throws IOException
+    {
+        final int expected = load(new File(TestFixture.CPP_REPORT), ReportReadMode.STREAMING);
+        final File gzip = createGzip();
+        assertEquals(expected, load(gzip, ReportReadMode.STREAMING));
+        assertEquals(expected, load(gzip, ReportReadMode.DEFAULT));
+
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(gzip, new ReportLoadOptions().memoryMappedInput()).isSuccess());
+        assertEquals(expected, getNumberOfIssues(controller));
+    }
+
+    @Test
+    public void loadZipFromStream() throws IOException
+    {
+        final File zip = createZip(true);
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        try (CloseTrackingInputStream in = new CloseTrackingInputStream(new FileInputStream(zip)))
+        {
+            final Result result = controller.loadSystemReport(in, zip.getName());
+            assertTrue(result.toString(), result.isSuccess());
+            assertFalse("Stream of caller must not be closed", in.closed);
+        }
+        assertEquals(load(new File(TestFixture.CPP_REPORT), ReportReadMode.STREAMING), getNumberOfIssues(controller));
+        assertEquals("project_2", controller.getSoftwareSystem().getName());
+    }
+
+    @Test
+    public void loadPlainAndGzipFromChannel() throws IOException
+    {
+        for (final File nextReport : new File[] { new File(TestFixture.CPP_REPORT), createGzip() })
+        {
+            final ISonargraphSystemController controller = ControllerAccess.createController();
+            try (ReadableByteChannel channel = Files.newByteChannel(nextReport.toPath(), StandardOpenOption.READ))
+            {
+                final Result result = controller.loadSystemReport(channel, nextReport.getName(), new ReportLoadOptions().excludeResolutions());
+                assertTrue(result.toString(), result.isSuccess());
+                assertTrue("Channel of caller must not be closed", channel.isOpen());
+            }
+            assertEquals(31, getNumberOfIssues(controller));
+        }
+    }
+
+    @Test
+    public void zipWithoutReport() throws IOException
+    {
+        final File zip = createZip(false);
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        assertFalse(controller.loadSystemReport(zip).isSuccess());
+        try (InputStream in = new FileInputStream(zip))
+        {
+            assertFalse(controller.loadSystemReport(in, zip.getName()).isSuccess());
+        }
+        assertFalse(controller.hasSoftwareSystem());
+    }
+}
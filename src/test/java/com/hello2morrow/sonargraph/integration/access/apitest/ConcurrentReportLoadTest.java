@@ -0,0 +1,85 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IMetaDataController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IExportMetaData;
+
+public final class ConcurrentReportLoadTest
+{
+    private static final int NUMBER_OF_LOADS = 16;
+
+    @Test
+    public void loadReportsConcurrently() throws Exception
+    {
+        ControllerAccess.prewarm();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            final List<Future<Integer>> issueCounts = new ArrayList<>();
+            final List<Future<Integer>> metricIdCounts = new ArrayList<>();
+            for (int i = 0; i < NUMBER_OF_LOADS; i++)
+            {
+                issueCounts.add(executor.submit(() ->
+                {
+                    final ISonargraphSystemController controller = ControllerAccess.createController();
+                    final Result result = controller.loadSystemReport(new File(TestFixture.TEST_REPORT));
+                    assertTrue(result.toString(), result.isSuccess());
+                    return controller.createSystemInfoProcessor().getIssues(null).size();
+                }));
+                metricIdCounts.add(executor.submit(() ->
+                {
+                    final IMetaDataController controller = ControllerAccess.createMetaDataController();
+                    final ResultWithOutcome<IExportMetaData> result = controller.loadExportMetaData(new File(TestFixture.META_DATA_PATH));
+                    assertTrue(result.toString(), result.isSuccess());
+                    return result.getOutcome().getMetricIds().size();
+                }));
+            }
+
+            final int expectedIssues = issueCounts.get(0).get();
+            final int expectedMetricIds = metricIdCounts.get(0).get();
+            for (int i = 1; i < NUMBER_OF_LOADS; i++)
+            {
+                assertEquals("Wrong number of issues", expectedIssues, issueCounts.get(i).get().intValue());
+                assertEquals("Wrong number of metric ids", expectedMetricIds, metricIdCounts.get(i).get().intValue());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
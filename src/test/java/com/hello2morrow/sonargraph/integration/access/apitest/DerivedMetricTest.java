@@ -0,0 +1,224 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.MetricExpression;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricStatistics;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.MetricValueOrder;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+public final class DerivedMetricTest
+{
+    private static final double DELTA = 1e-12;
+    private static final String LEVEL = "SourceFile";
+    private ISonargraphSystemController controller;
+
+    @Before
+    public void before()
+    {
+        controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(new File(TestFixture.CPP_REPORT)).isSuccess());
+    }
+
+    private ResultWithOutcome<IMetricId> addDerivedMetric(final String name, final String expression)
+    {
+        final ResultWithOutcome<MetricExpression> parsed = MetricExpression.parse(expression);
+        assertTrue(parsed.toString(), parsed.isSuccess());
+        return controller.addDerivedMetric(name, name, parsed.getOutcome(), Collections.singletonList(LEVEL));
+    }
+
+    @Test
+    public void computeDerivedMetric()
+    {
+        final ResultWithOutcome<IMetricId> result = addDerivedMetric("CommentRatio",
+                "CoreLinesOfCode > 0 ? CoreCommentLines / CoreLinesOfCode : 0");
+        assertTrue(result.toString(), result.isSuccess());
+        final IMetricId metricId = result.getOutcome();
+        assertTrue(metricId.isDerived());
+        final ISystemInfoProcessor processor = controller.createSystemInfoProcessor();
+        assertFalse(processor.getMetricId("CoreLinesOfCode").get().isDerived());
+        assertEquals(metricId, processor.getMetricId("CommentRatio").get());
+
+        final Map<INamedElement, IMetricValue> linesOfCode = processor.getMetricValues(LEVEL, "CoreLinesOfCode");
+        final Map<INamedElement, IMetricValue> commentLines = processor.getMetricValues(LEVEL, "CoreCommentLines");
+        final Map<INamedElement, IMetricValue> ratios = processor.getMetricValues(LEVEL, "CommentRatio");
+        assertEquals(linesOfCode.size(), ratios.size());
+        double maxRatio = 0;
+        for (final Entry<INamedElement, IMetricValue> next : linesOfCode.entrySet())
+        {
+            final double loc = next.getValue().getValue().doubleValue();
+            final double expected = loc > 0 ? commentLines.get(next.getKey()).getValue().doubleValue() / loc : 0;
+            assertEquals(next.getKey().getFqName(), expected, ratios.get(next.getKey()).getValue().doubleValue(), DELTA);
+            maxRatio = Math.max(maxRatio, expected);
+        }
+
+        final Map<INamedElement, IMetricValue> top = processor.getTopElements(LEVEL, "CommentRatio", 1, MetricValueOrder.HIGHEST);
+        assertEquals(maxRatio, top.values().iterator().next().getValue().doubleValue(), DELTA);
+        final IMetricStatistics statistics = controller.getMetricAggregator().getSystemStatistics(LEVEL, "CommentRatio").get();
+        assertEquals(ratios.size(), statistics.getCount());
+        assertEquals(maxRatio, statistics.getMax(), DELTA);
+
+        //Derived metrics can be referenced by subsequent expressions
+        assertTrue(addDerivedMetric("CommentPercentage", "CommentRatio * 100").isSuccess());
+        assertEquals(maxRatio * 100, controller.createSystemInfoProcessor()
+                .getTopElements(LEVEL, "CommentPercentage", 1, MetricValueOrder.HIGHEST).values().iterator().next().getValue().doubleValue(),
+                DELTA);
+    }
+
+    @Test
+    public void derivedValuesKeepDoublePrecision()
+    {
+        final ResultWithOutcome<IMetricId> result = addDerivedMetric("Third", "CoreLinesOfCode / 3 + 1e-9");
+        assertTrue(result.toString(), result.isSuccess());
+        final ISystemInfoProcessor processor = controller.createSystemInfoProcessor();
+        final Map<INamedElement, IMetricValue> linesOfCode = processor.getMetricValues(LEVEL, "CoreLinesOfCode");
+        final Map<INamedElement, IMetricValue> thirds = processor.getMetricValues(LEVEL, "Third");
+        assertFalse(thirds.isEmpty());
+        for (final Entry<INamedElement, IMetricValue> next : linesOfCode.entrySet())
+        {
+            final Number value = thirds.get(next.getKey()).getValue();
+            assertTrue(value instanceof Double);
+            assertEquals(next.getKey().getFqName(), next.getValue().getValue().doubleValue() / 3 + 1e-9, value.doubleValue(), 0.0);
+        }
+    }
+
+    @Test
+    public void loadedModelIsNotModified()
+    {
+        final IMetricLevel level = ((SoftwareSystemImpl) controller.getSoftwareSystem()).getAllMetricLevels().get(LEVEL);
+        final List<IMetricId> before = controller.createSystemInfoProcessor().getMetricIdsForLevel(level);
+        final Map<String, IMetricId> metricIdsBefore = ((SoftwareSystemImpl) controller.getSoftwareSystem()).getMetricIds();
+
+        assertTrue(addDerivedMetric("Double", "CoreLinesOfCode * 2").isSuccess());
+        assertFalse(metricIdsBefore.containsKey("Double"));
+        assertTrue(((SoftwareSystemImpl) controller.getSoftwareSystem()).getMetricIds().containsKey("Double"));
+        final List<IMetricId> after = controller.createSystemInfoProcessor().getMetricIdsForLevel(level);
+        assertEquals(before.size() + 1, after.size());
+        assertEquals(before, after.subList(0, before.size()));
+        assertEquals("Double", after.get(before.size()).getName());
+    }
+
+    @Test
+    public void computeLevelScopedDerivedMetric()
+    {
+        final ResultWithOutcome<IMetricId> result = addDerivedMetric("ModuleShare",
+                "Module.CoreLinesOfCode > 0 ? CoreLinesOfCode / Module.CoreLinesOfCode : 0");
+        assertTrue(result.toString(), result.isSuccess());
+        final ResultWithOutcome<IMetricId> systemResult = addDerivedMetric("SystemShare",
+                "max(0, min(1, CoreLinesOfCode / System.CoreLinesOfCode))");
+        assertTrue(systemResult.toString(), systemResult.isSuccess());
+
+        double systemShare = 0;
+        for (final IModule next : controller.getSoftwareSystem().getModules().values())
+        {
+            final Map<INamedElement, IMetricValue> values = controller.createModuleInfoProcessor(next).getMetricValues(LEVEL, "ModuleShare");
+            assertFalse(values.isEmpty());
+            final double sum = values.values().stream().mapToDouble(v -> v.getValue().doubleValue()).sum();
+            assertEquals(next.getName(), 1.0, sum, 1e-9);
+            systemShare += controller.createModuleInfoProcessor(next).getMetricValues(LEVEL, "SystemShare").values().stream()
+                    .mapToDouble(v -> v.getValue().doubleValue()).sum();
+        }
+        assertEquals(1.0, systemShare, 1e-9);
+    }
+
+    private static String repeat(final String text, final int count)
+    {
+        final StringBuilder builder = new StringBuilder(text.length() * count);
+        for (int i = 0; i < count; i++)
+        {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static void assertTooDeep(final String expression)
+    {
+        final ResultWithOutcome<MetricExpression> result = MetricExpression.parse(expression);
+        assertTrue(result.isFailure());
+        assertEquals(ResultCause.INVALID_METRIC_EXPRESSION, result.getMessages().get(0).getCause());
+    }
+
+    @Test
+    public void rejectDeeplyNestedExpressions()
+    {
+        final int tooDeep = 100000;
+        assertTooDeep(repeat("-", tooDeep) + "1");
+        assertTooDeep(repeat("!", tooDeep) + "1");
+        assertTooDeep(repeat("(", tooDeep) + "1" + repeat(")", tooDeep));
+        assertTooDeep(repeat("abs(", tooDeep) + "1" + repeat(")", tooDeep));
+        assertTooDeep(repeat("1 ? 1 : ", tooDeep) + "1");
+        assertTooDeep("1" + repeat(" + 1", tooDeep));
+
+        final int depth = MetricExpression.MAX_DEPTH - 1;
+        assertTrue(MetricExpression.parse(repeat("-(", depth / 2) + "1" + repeat(")", depth / 2)).isSuccess());
+        assertTrue(MetricExpression.parse("1" + repeat(" + 1", depth - 1)).isSuccess());
+    }
+
+    @Test
+    public void reportInvalidExpressions()
+    {
+        assertTrue(MetricExpression.parse("1 +").isFailure());
+        assertTrue(MetricExpression.parse("(CoreLinesOfCode").isFailure());
+        assertTrue(MetricExpression.parse("min(CoreLinesOfCode)").isFailure());
+        assertTrue(MetricExpression.parse("round(CoreLinesOfCode)").isFailure());
+        assertTrue(MetricExpression.parse("Package.CoreLinesOfCode").isFailure());
+        assertTrue(MetricExpression.parse("CoreLinesOfCode % 2 == 0 && !(CoreCommentLines != 0) || if(1, 2, 3) >= -1.5e1").isSuccess());
+        assertTrue(MetricExpression.parse("IF(1, Min(2, 3), ABS(-4))").isSuccess());
+        assertTrue(MetricExpression.parse("If(1, 2)").isFailure());
+
+        assertTrue(addDerivedMetric("Unknown", "UnknownMetric * 2").isFailure());
+        assertTrue(addDerivedMetric("WrongLevel", "CoreMaxAcd * 2").isFailure());
+        assertTrue(addDerivedMetric("CoreLinesOfCode", "CoreLinesOfCode * 2").isFailure());
+        assertTrue(controller.addDerivedMetric("UnknownLevel", "UnknownLevel", MetricExpression.parse("CoreLinesOfCode").getOutcome(),
+                Collections.singletonList("NoLevel")).isFailure());
+        assertFalse(controller.createSystemInfoProcessor().getMetricId("Unknown").isPresent());
+
+        //Missing values are not stored, coalesce provides defaults
+        final ResultWithOutcome<IMetricId> result = addDerivedMetric("Defaults", "coalesce(CoreLinesOfCode / 0 * 0, -1)");
+        assertTrue(result.toString(), result.isSuccess());
+        final Map<INamedElement, IMetricValue> values = controller.createSystemInfoProcessor().getMetricValues(LEVEL, "Defaults");
+        assertNotNull(values);
+        assertEquals(controller.createSystemInfoProcessor().getMetricValues(LEVEL, "CoreLinesOfCode").size(), values.size());
+        values.values().forEach(v -> assertEquals(-1.0, v.getValue().doubleValue(), DELTA));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IModuleInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportReadMode;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+public final class FrozenModelTest
+{
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int NUMBER_OF_QUERIES = 200;
+
+    private static ISonargraphSystemController load(final ReportReadMode readMode)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(new File(TestFixture.TEST_REPORT_WITH_PACKAGE_TODO), readMode).isSuccess());
+        return controller;
+    }
+
+    @Test
+    public void loadedSystemIsFrozen()
+    {
+        for (final ReportReadMode nextMode : ReportReadMode.values())
+        {
+            final ISoftwareSystem system = load(nextMode).getSoftwareSystem();
+            assertTrue(((SoftwareSystemImpl) system).isFrozen());
+            assertSame("Modules must not be copied", system.getModules(), system.getModules());
+
+            for (final IModule nextModule : system.getModules().values())
+            {
+                for (final String nextKind : nextModule.getElementKinds())
+                {
+                    final Set<INamedElement> elements = nextModule.getElements(nextKind);
+                    assertSame(elements, nextModule.getElements(nextKind));
+                    elements.forEach(e -> assertTrue(elements.contains(e)));
+                    try
+                    {
+                        elements.clear();
+                        fail("Frozen elements must not be modifiable");
+                    }
+                    catch (final UnsupportedOperationException ex)
+                    {
+                        //Expected
+                    }
+                }
+                assertSame(nextModule.getLogicalNamespaces(), nextModule.getLogicalNamespaces());
+            }
+        }
+    }
+
+    private static String query(final ISonargraphSystemController controller, final int query)
+    {
+        final ISystemInfoProcessor systemInfoProcessor = controller.createSystemInfoProcessor();
+        final StringBuilder result = new StringBuilder();
+        result.append(systemInfoProcessor.getIssues(null).size()).append(systemInfoProcessor.getElementKinds().size());
+        final List<IModule> modules = new ArrayList<>(systemInfoProcessor.getModules().values());
+        final IModule module = modules.get(query % modules.size());
+        final IModuleInfoProcessor moduleInfoProcessor = controller.createModuleInfoProcessor(module);
+        result.append(module.getName()).append(moduleInfoProcessor.getIssues(null).size());
+        for (final Map.Entry<?, List<IIssue>> nextEntry : moduleInfoProcessor.getIssuesForSourceFiles(null).entrySet())
+        {
+            result.append(nextEntry.getValue().size());
+        }
+        for (final String nextKind : module.getElementKinds())
+        {
+            for (final INamedElement nextElement : module.getElements(nextKind))
+            {
+                if (!moduleInfoProcessor.isElementContainedInModule(nextElement))
+                {
+                    result.append("missing ").append(nextElement.getFqName());
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void concurrentQueries() throws Exception
+    {
+        final ISonargraphSystemController controller = load(ReportReadMode.STREAMING);
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_QUERIES; i++)
+        {
+            expected.add(query(controller, i));
+        }
+
+        final ISonargraphSystemController shared = load(ReportReadMode.STREAMING);
+        final ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try
+        {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < NUMBER_OF_QUERIES; i++)
+            {
+                final int query = i;
+                results.add(executor.submit(() -> query(shared, query)));
+            }
+            for (int i = 0; i < NUMBER_OF_QUERIES; i++)
+            {
+                assertEquals(expected.get(i), results.get(i).get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+    }
+}
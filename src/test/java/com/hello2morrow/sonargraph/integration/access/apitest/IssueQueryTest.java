@@ -0,0 +1,155 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.IssueQuery;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.ICycleGroupIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueProvider;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueType;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
+import com.hello2morrow.sonargraph.integration.access.model.ResolutionType;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+
+public final class IssueQueryTest
+{
+    private static ISystemInfoProcessor load(final String path)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = controller.loadSystemReport(new File(path));
+        assertTrue("Failed to read report: " + result.toString(), result.isSuccess());
+        return controller.createSystemInfoProcessor();
+    }
+
+    @Test
+    public void singleCriteriaMatchPredicates()
+    {
+        for (final String nextReport : new String[] { TestFixture.TEST_REPORT_REFACTORINGS, TestFixture.CPP_REPORT_HILO,
+                TestFixture.TEST_REPORT_INTEGRATION_ACCESS_WITH_CYCLE_GROUP, TestFixture.TEST_REPORT_RESOLUTIONS_2 })
+        {
+            final ISystemInfoProcessor info = load(nextReport);
+            final List<IIssue> all = info.getIssues(null);
+            assertEquals(all, info.queryIssues(new IssueQuery()));
+
+            final Set<IIssueType> types = all.stream().map(IIssue::getIssueType).collect(Collectors.toSet());
+            for (final IIssueType nextType : types)
+            {
+                assertEquals(info.getIssues(i -> i.getIssueType().equals(nextType)), info.queryIssues(new IssueQuery().withIssueType(nextType)));
+            }
+            final Set<IIssueCategory> categories = types.stream().map(IIssueType::getCategory).collect(Collectors.toSet());
+            for (final IIssueCategory nextCategory : categories)
+            {
+                assertEquals(info.getIssues(i -> i.getIssueType().getCategory().equals(nextCategory)),
+                        info.queryIssues(new IssueQuery().withCategory(nextCategory)));
+            }
+            for (final IIssueProvider nextProvider : info.getIssueProviders())
+            {
+                assertEquals(info.getIssues(i -> nextProvider.equals(i.getIssueProvider())),
+                        info.queryIssues(new IssueQuery().withProvider(nextProvider)));
+            }
+            for (final Severity nextSeverity : Severity.values())
+            {
+                assertEquals(info.getIssues(i -> i.getIssueType().getSeverity() == nextSeverity),
+                        info.queryIssues(new IssueQuery().withSeverity(nextSeverity)));
+            }
+            for (final ResolutionType nextType : ResolutionType.values())
+            {
+                assertEquals(info.getIssues(i -> i.getResolutionType() == nextType), info.queryIssues(new IssueQuery().withResolutionType(nextType)));
+            }
+            for (final INamedElement nextElement : all.stream().flatMap(i -> i.getAffectedNamedElements().stream()).limit(50)
+                    .collect(Collectors.toList()))
+            {
+                assertEquals(info.getIssues(i -> i.getAffectedNamedElements().contains(nextElement)),
+                        info.queryIssues(new IssueQuery().withAffectedElement(nextElement)));
+            }
+
+            assertEquals(info.getIssues(i -> i instanceof ICycleGroupIssue), info.getCycleGroups(null));
+            assertEquals(info.getIssues(i -> i.getIssueType().getCategory().getName().equals("ThresholdViolation")),
+                    info.getThresholdViolationIssues(null));
+        }
+    }
+
+    @Test
+    public void combinedCriteria()
+    {
+        final ISystemInfoProcessor info = load(TestFixture.TEST_REPORT_REFACTORINGS);
+        final List<IIssue> all = info.getIssues(null);
+        final Set<Severity> severities = all.stream().map(i -> i.getIssueType().getSeverity()).collect(Collectors.toCollection(LinkedHashSet::new));
+        final Set<IIssueCategory> categories = all.stream().map(i -> i.getIssueType().getCategory())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        assertTrue("Report must contain issues of several categories", categories.size() > 1);
+
+        final IIssueCategory category = categories.iterator().next();
+        for (final Severity nextSeverity : severities)
+        {
+            final List<IIssue> expected = info
+                    .getIssues(i -> i.getIssueType().getCategory().equals(category) && i.getIssueType().getSeverity() == nextSeverity);
+            assertEquals(expected, info.queryIssues(new IssueQuery().withCategory(category).withSeverity(nextSeverity)));
+        }
+
+        //Several values of the same criterion are or-combined
+        final IIssueCategory[] twoCategories = categories.stream().limit(2).toArray(IIssueCategory[]::new);
+        assertEquals(info.getIssues(i -> i.getIssueType().getCategory().equals(twoCategories[0])
+                || i.getIssueType().getCategory().equals(twoCategories[1])),
+                info.queryIssues(new IssueQuery().withCategory(twoCategories[0]).withCategory(twoCategories[1])));
+
+        final List<IIssue> filtered = info.queryIssues(new IssueQuery().withCategory(category).withFilter(i -> i.getLine() > 10));
+        assertEquals(info.getIssues(i -> i.getIssueType().getCategory().equals(category) && i.getLine() > 10), filtered);
+    }
+
+    @Test
+    public void sourceFileCriterion()
+    {
+        final ISystemInfoProcessor info = load(TestFixture.TEST_REPORT_REFACTORINGS);
+        final ISoftwareSystem system = info.getSoftwareSystem();
+        final Set<ISourceFile> sourceFiles = new LinkedHashSet<>();
+        info.getModules().values().forEach(m -> m.getRootDirectories().forEach(r -> sourceFiles.addAll(r.getSourceFiles())));
+        info.getIssues(null).forEach(i -> i.getAffectedNamedElements().forEach(e -> system.getSourceFile(e).ifPresent(sourceFiles::add)));
+
+        boolean foundIssues = false;
+        for (final ISourceFile nextSourceFile : sourceFiles)
+        {
+            final List<IIssue> issues = info.queryIssues(new IssueQuery().withSourceFile(nextSourceFile));
+            assertEquals(info.getIssues(i -> i.getAffectedNamedElements().stream()
+                    .anyMatch(e -> e.equals(nextSourceFile) || system.getSourceFile(e).filter(nextSourceFile::equals).isPresent())), issues);
+            foundIssues |= !issues.isEmpty();
+        }
+        assertTrue("No issues found for source files", foundIssues);
+        assertFalse(info.queryIssues(new IssueQuery().withSeverity(Severity.ERROR).withSeverity(Severity.WARNING)).isEmpty());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+/**
+ * Compares reading reports through a buffered stream with reading them through memory mapped chunks.
+ * The timings are only printed, so the benchmarks are not part of the regular build.
+ * Model equivalence of both paths is checked in MappedFileInputStreamTest.
+ */
+public final class MappedReportInputBenchmarkTest
+{
+    private static final String[] REPORTS = { TestFixture.CPP_REPORT, TestFixture.TEST_REPORT_WITH_PACKAGE_TODO, TestFixture.CPP_REPORT_HILO,
+            TestFixture.TEST_REPORT_STANDARD };
+    private static final int RUNS = 5;
+    private static final Pattern ISSUE_ID = Pattern.compile("(<issue [^>]*\\bid=\"_)([0-9a-f]+)(\")");
+    private static final Pattern NUMBER_OF_ISSUES = Pattern.compile("numberOfIssues=\"\\d+\" numberOfUnresolvedIssues=\"\\d+\"");
+
+    private static ISonargraphSystemController load(final File report, final ReportLoadOptions options)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = controller.loadSystemReport(report, options);
+        assertTrue(result.toString(), result.isSuccess());
+        return controller;
+    }
+
+    /**
+     * @return the fastest of several runs in ms
+     */
+    private static long measure(final File report, final ReportLoadOptions options)
+    {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++)
+        {
+            final long start = System.nanoTime();
+            load(report, options);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest / 1000000;
+    }
+
+    private static void compare(final File report)
+    {
+        //Warm up
+        load(report, new ReportLoadOptions());
+        load(report, new ReportLoadOptions().memoryMappedInput());
+
+        final long stream = measure(report, new ReportLoadOptions());
+        final long mapped = measure(report, new ReportLoadOptions().memoryMappedInput());
+        System.out.println("Reading '" + report.getName() + "' (" + report.length() / 1024 + " KB): stream " + stream + " ms, memory mapped "
+                + mapped + " ms");
+    }
+
+    @Test
+    @Ignore
+    public void compareOnBundledReports()
+    {
+        for (final String nextReport : REPORTS)
+        {
+            compare(new File(nextReport));
+        }
+    }
+
+    /**
+     * Creates a report of about 'sonargraph.benchmark.report.size' MB (default 300) by repeating the issues of the C++ report.
+     * Run with enough heap, e.g. -Xmx4g.
+     */
+    @Test
+    @Ignore
+    public void compareOnGeneratedReport() throws IOException
+    {
+        final long targetSize = Long.getLong("sonargraph.benchmark.report.size", 300) * 1024 * 1024;
+        final File report = File.createTempFile("GeneratedReport", ".xml");
+        try
+        {
+            generateReport(new File(TestFixture.CPP_REPORT), report, targetSize);
+            compare(report);
+        }
+        finally
+        {
+            Files.delete(report.toPath());
+        }
+    }
+
+    private static void generateReport(final File template, final File report, final long targetSize) throws IOException
+    {
+        final String content = new String(Files.readAllBytes(template.toPath()), StandardCharsets.UTF_8);
+        final int issuesStart = content.indexOf("<elementIssues>");
+        final int issuesEnd = content.indexOf("</elementIssues>");
+        assertTrue("Template must contain element issues", issuesStart > 0 && issuesEnd > issuesStart);
+
+        final StringBuilder issueLines = new StringBuilder();
+        int numberOfTemplateIssues = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(content.substring(issuesStart, issuesEnd))))
+        {
+            String next;
+            while ((next = reader.readLine()) != null)
+            {
+                if (ISSUE_ID.matcher(next).find())
+                {
+                    issueLines.append(next).append('\n');
+                    numberOfTemplateIssues++;
+                }
+            }
+        }
+
+        final int copies = (int) Math.max(1, (targetSize - content.length()) / issueLines.length());
+        final int numberOfIssues = numberOfTemplateIssues * (copies + 1);
+        //Fresh ids above all ids of the template
+        int nextId = 0x1000000;
+        try (BufferedWriter writer = Files.newBufferedWriter(report.toPath(), StandardCharsets.UTF_8))
+        {
+            final String head = content.substring(0, issuesStart + "<elementIssues>".length());
+            writer.write(NUMBER_OF_ISSUES.matcher(head)
+                    .replaceFirst("numberOfIssues=\"" + numberOfIssues + "\" numberOfUnresolvedIssues=\"" + numberOfIssues + "\""));
+            writer.write(content.substring(issuesStart + "<elementIssues>".length(), issuesEnd));
+            final String lines = issueLines.toString();
+            for (int i = 0; i < copies; i++)
+            {
+                final Matcher matcher = ISSUE_ID.matcher(lines);
+                final StringBuffer copy = new StringBuffer(lines.length());
+                while (matcher.find())
+                {
+                    matcher.appendReplacement(copy, "$1" + Integer.toHexString(nextId++) + "$3");
+                }
+                matcher.appendTail(copy);
+                writer.write(copy.toString());
+            }
+            writer.write(content.substring(issuesEnd));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.MetricAggregator;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricStatistics;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+
+public final class MetricAggregatorTest
+{
+    private static final double DELTA = 1e-6;
+    private static final String LEVEL = "SourceFile";
+    private static final String METRIC = "CoreLinesOfCode";
+    private ISonargraphSystemController controller;
+
+    @Before
+    public void before()
+    {
+        controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(new File(TestFixture.CPP_REPORT)).isSuccess());
+    }
+
+    private static double[] toArray(final Collection<IMetricValue> values)
+    {
+        return values.stream().mapToDouble(v -> v.getValue().doubleValue()).sorted().toArray();
+    }
+
+    private static void assertStatistics(final double[] sorted, final IMetricStatistics statistics)
+    {
+        assertEquals(sorted.length, statistics.getCount());
+        final double sum = Arrays.stream(sorted).sum();
+        final double mean = sum / sorted.length;
+        final double variance = Arrays.stream(sorted).map(v -> (v - mean) * (v - mean)).sum() / sorted.length;
+        assertEquals(sum, statistics.getSum(), DELTA);
+        assertEquals(sorted[0], statistics.getMin(), DELTA);
+        assertEquals(sorted[sorted.length - 1], statistics.getMax(), DELTA);
+        assertEquals(mean, statistics.getMean(), DELTA);
+        assertEquals(Math.sqrt(variance), statistics.getStandardDeviation(), DELTA);
+        assertEquals(sorted[0], statistics.getPercentile(0), DELTA);
+        assertEquals(sorted[sorted.length - 1], statistics.getPercentile(100), DELTA);
+        final double median = sorted.length % 2 == 1 ? sorted[sorted.length / 2]
+                : (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2;
+        assertEquals(median, statistics.getMedian(), DELTA);
+    }
+
+    @Test
+    public void aggregateSystemAndModules()
+    {
+        final ISoftwareSystem system = controller.getSoftwareSystem();
+        final MetricAggregator aggregator = controller.getMetricAggregator();
+
+        final Map<IModule, IMetricStatistics> perModule = aggregator.getStatisticsPerModule(LEVEL, METRIC);
+        assertFalse("No module statistics", perModule.isEmpty());
+
+        final List<IMetricValue> allValues = new ArrayList<>(controller.createSystemInfoProcessor().getMetricValues(LEVEL, METRIC).values());
+        for (final IModule nextModule : system.getModules().values())
+        {
+            final Collection<IMetricValue> moduleValues = controller.createModuleInfoProcessor(nextModule).getMetricValues(LEVEL, METRIC).values();
+            if (moduleValues.isEmpty())
+            {
+                assertFalse(perModule.containsKey(nextModule));
+                assertFalse(aggregator.getModuleStatistics(nextModule, LEVEL, METRIC).isPresent());
+                continue;
+            }
+            final IMetricStatistics moduleStatistics = perModule.get(nextModule);
+            assertStatistics(toArray(moduleValues), moduleStatistics);
+            assertSame("Module statistics must be cached", moduleStatistics, aggregator.getModuleStatistics(nextModule, LEVEL, METRIC).get());
+        }
+
+        final Optional<IMetricStatistics> systemStatistics = aggregator.getSystemStatistics(LEVEL, METRIC);
+        assertTrue(systemStatistics.isPresent());
+        assertStatistics(toArray(allValues), systemStatistics.get());
+        assertSame("System statistics must be cached", systemStatistics.get(), aggregator.getSystemStatistics(LEVEL, METRIC).get());
+    }
+
+    @Test
+    public void percentilesAreInterpolated()
+    {
+        final IMetricStatistics statistics = controller.getMetricAggregator().getSystemStatistics(LEVEL, METRIC).get();
+        double previous = statistics.getMin();
+        for (int percent = 0; percent <= 100; percent += 5)
+        {
+            final double next = statistics.getPercentile(percent);
+            assertTrue("Percentiles must be monotonic", next >= previous);
+            previous = next;
+        }
+        assertEquals(statistics.getMax(), previous, DELTA);
+    }
+
+    @Test
+    public void unknownMetricOrLevel()
+    {
+        final MetricAggregator aggregator = controller.getMetricAggregator();
+        assertFalse(aggregator.getSystemStatistics(LEVEL, "Unknown").isPresent());
+        assertFalse(aggregator.getSystemStatistics("Unknown", METRIC).isPresent());
+        assertTrue(aggregator.getStatisticsPerModule("Unknown", METRIC).isEmpty());
+    }
+
+    @Test
+    public void reloadCreatesNewAggregator()
+    {
+        final MetricAggregator aggregator = controller.getMetricAggregator();
+        assertSame(aggregator, controller.getMetricAggregator());
+        assertTrue(controller.loadSystemReport(new File(TestFixture.CPP_REPORT)).isSuccess());
+        assertNotSame(aggregator, controller.getMetricAggregator());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricStatistics;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.MetricQuantileSketch;
+
+public final class MetricQuantileSketchTest
+{
+    private static final String LEVEL = "SourceFile";
+    private static final String METRIC = "CoreLinesOfCode";
+
+    private static ISonargraphSystemController load(final String report)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(new File(report)).isSuccess());
+        return controller;
+    }
+
+    private static double exactQuantile(final double[] sorted, final double fraction)
+    {
+        return sorted[(int) Math.max(0, Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    @Test
+    public void quantilesOfManyValues()
+    {
+        final Random random = new Random(17);
+        final double[] values = new double[200_000];
+        final MetricQuantileSketch sketch = new MetricQuantileSketch(LEVEL, METRIC);
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = random.nextGaussian() * 100 + 500;
+            sketch.add(values[i]);
+        }
+        assertEquals(values.length, sketch.getCount());
+        assertTrue("Sketch must stay small: " + sketch, sketch.getNumberOfRetainedValues() < 4 * MetricQuantileSketch.DEFAULT_K);
+
+        Arrays.sort(values);
+        assertEquals(values[0], sketch.getMin(), 0);
+        assertEquals(values[values.length - 1], sketch.getMax(), 0);
+        for (final double nextFraction : new double[] { 0.01, 0.1, 0.5, 0.9, 0.99 })
+        {
+            final double rank = (double) Math.abs(Arrays.binarySearch(values, sketch.getQuantile(nextFraction))) / values.length;
+            assertEquals("Rank error of quantile " + nextFraction, nextFraction, rank, 0.02);
+        }
+    }
+
+    @Test
+    public void mergeAndSerialize() throws IOException
+    {
+        final ISonargraphSystemController cpp = load(TestFixture.CPP_REPORT);
+        final ISonargraphSystemController hilo = load(TestFixture.CPP_REPORT_HILO);
+        final MetricQuantileSketch cppSketch = cpp.getMetricAggregator().createSketch(LEVEL, METRIC, 16);
+        final MetricQuantileSketch hiloSketch = hilo.getMetricAggregator().createSketch(LEVEL, METRIC, 16);
+        final IMetricStatistics cppStatistics = cpp.getMetricAggregator().getSystemStatistics(LEVEL, METRIC).get();
+        final IMetricStatistics hiloStatistics = hilo.getMetricAggregator().getSystemStatistics(LEVEL, METRIC).get();
+        assertEquals(cppStatistics.getCount(), cppSketch.getCount());
+
+        final MetricQuantileSketch transferred = MetricQuantileSketch.fromByteArray(hiloSketch.toByteArray());
+        assertEquals(hiloSketch.getCount(), transferred.getCount());
+        assertEquals(hiloSketch.getNumberOfRetainedValues(), transferred.getNumberOfRetainedValues());
+        assertEquals(hiloSketch.getQuantile(0.9), transferred.getQuantile(0.9), 0);
+
+        cppSketch.merge(transferred);
+        assertEquals(cppStatistics.getCount() + hiloStatistics.getCount(), cppSketch.getCount());
+        assertEquals(Math.min(cppStatistics.getMin(), hiloStatistics.getMin()), cppSketch.getMin(), 0);
+        assertEquals(Math.max(cppStatistics.getMax(), hiloStatistics.getMax()), cppSketch.getMax(), 0);
+
+        final double[] all = new double[cppStatistics.getCount() + hiloStatistics.getCount()];
+        int index = 0;
+        for (final ISonargraphSystemController next : Arrays.asList(cpp, hilo))
+        {
+            for (final Number nextValue : next.createSystemInfoProcessor().getMetricValues(LEVEL, METRIC).values().stream()
+                    .map(v -> v.getValue()).toArray(Number[]::new))
+            {
+                all[index++] = nextValue.doubleValue();
+            }
+        }
+        Arrays.sort(all);
+        final double median = cppSketch.getQuantile(0.5);
+        assertTrue("Median " + median + " out of range", median >= exactQuantile(all, 0.3) && median <= exactQuantile(all, 0.7));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectInvalidBytes() throws IOException
+    {
+        MetricQuantileSketch.fromByteArray(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+    }
+
+    @Test
+    public void fractionOutsideThreshold()
+    {
+        final ISonargraphSystemController controller = load(TestFixture.TEST_REPORT_THRESHOLD_VIOLATIONS);
+        final IMetricThreshold threshold = controller.createSystemInfoProcessor().getMetricThresholds().stream()
+                .filter(t -> t.getMetricId().getName().equals(METRIC) && t.getMetricLevel().getName().equals(LEVEL)).findAny().get();
+        final MetricQuantileSketch sketch = controller.getMetricAggregator().createSketch(LEVEL, METRIC, MetricQuantileSketch.DEFAULT_K);
+
+        final double[] values = controller.createSystemInfoProcessor().getMetricValues(LEVEL, METRIC).values().stream()
+                .mapToDouble(v -> v.getValue().doubleValue()).toArray();
+        final long violations = Arrays.stream(values).filter(
+                v -> v < threshold.getLowerThreshold().doubleValue() || v > threshold.getUpperThreshold().doubleValue()).count();
+        assertTrue("Threshold must be violated", violations > 0);
+        //Less than k values, the sketch is exact
+        assertEquals((double) violations / values.length, sketch.getFractionOutside(threshold), 1e-9);
+    }
+}
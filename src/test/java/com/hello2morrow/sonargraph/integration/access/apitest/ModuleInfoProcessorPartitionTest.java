@@ -0,0 +1,72 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IModuleInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+
+public final class ModuleInfoProcessorPartitionTest
+{
+    @Test
+    public void partitionedProcessorsMatchOnDemandProcessors()
+    {
+        final Predicate<IIssue> warnings = issue -> issue.getIssueType().getSeverity().getStandardName().equals("Warning");
+        for (final String nextReport : new String[] { TestFixture.TEST_REPORT, TestFixture.TEST_REPORT_REFACTORINGS,
+                TestFixture.TEST_REPORT_REFACTORINGS_DUPLICATE_FQNAMES, TestFixture.TEST_REPORT_WITH_DUPLICATES, TestFixture.TEST_REPORT_RESOLUTIONS_2,
+                TestFixture.TEST_REPORT_THRESHOLD_VIOLATIONS, TestFixture.TEST_REPORT_WITH_PACKAGE_TODO, TestFixture.CPP_REPORT_HILO })
+        {
+            final ISonargraphSystemController controller = ControllerAccess.createController();
+            final Result result = controller.loadSystemReport(new File(nextReport));
+            assertTrue("Failed to read report: " + result.toString(), result.isSuccess());
+
+            final Map<IModule, IModuleInfoProcessor> processors = controller.createModuleInfoProcessors();
+            assertEquals(new ArrayList<>(controller.getSoftwareSystem().getModules().values()), new ArrayList<>(processors.keySet()));
+
+            for (final Map.Entry<IModule, IModuleInfoProcessor> nextEntry : processors.entrySet())
+            {
+                final String message = nextReport + ", module " + nextEntry.getKey().getName();
+                final IModuleInfoProcessor expected = controller.createModuleInfoProcessor(nextEntry.getKey());
+                final IModuleInfoProcessor actual = nextEntry.getValue();
+
+                assertEquals(message, expected.getIssues(null), actual.getIssues(null));
+                assertEquals(message, expected.getIssues(warnings), actual.getIssues(warnings));
+                assertEquals(message, expected.getThresholdViolationIssues(null), actual.getThresholdViolationIssues(null));
+                assertEquals(message, expected.getResolutions(null), actual.getResolutions(null));
+                assertEquals(message, expected.getIssuesForSourceFiles(null), actual.getIssuesForSourceFiles(null));
+                assertEquals(message, expected.getIssuesForSourceFiles(warnings), actual.getIssuesForSourceFiles(warnings));
+                assertEquals(message, expected.getIssuesForDirectories(null), actual.getIssuesForDirectories(null));
+                assertEquals(message, expected.getIssuesForResolutionsForSourceFiles(null), actual.getIssuesForResolutionsForSourceFiles(null));
+            }
+        }
+    }
+}
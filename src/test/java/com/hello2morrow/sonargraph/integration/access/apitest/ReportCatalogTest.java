@@ -0,0 +1,114 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportCatalog;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportReadMode;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultWithOutcome;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystemInfo;
+
+public final class ReportCatalogTest
+{
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static void assertSameInfo(final ISoftwareSystemInfo expected, final ISoftwareSystemInfo info)
+    {
+        assertEquals(expected.getSystemId(), info.getSystemId());
+        assertEquals(expected.getName(), info.getName());
+        assertEquals(expected.getPath(), info.getPath());
+        assertEquals(expected.getVersion(), info.getVersion());
+        assertEquals(expected.getTimestamp(), info.getTimestamp());
+        assertEquals(expected.getVirtualModel(), info.getVirtualModel());
+    }
+
+    @Test
+    public void peekReportInfo() throws IOException
+    {
+        for (final String nextReport : new String[] { TestFixture.TEST_REPORT, TestFixture.CPP_REPORT, TestFixture.TEST_REPORT_9_3 })
+        {
+            final ISonargraphSystemController controller = ControllerAccess.createController();
+            assertTrue(controller.loadSystemReport(new File(nextReport), ReportReadMode.STREAMING).isSuccess());
+            final ISoftwareSystem system = controller.getSoftwareSystem();
+
+            final ResultWithOutcome<ISoftwareSystemInfo> result = ControllerAccess.peekReportInfo(new File(nextReport));
+            assertTrue(result.toString(), result.isSuccess());
+            assertSameInfo(system, result.getOutcome());
+        }
+
+        final File gzip = temporaryFolder.newFile("report.xml.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip.toPath())))
+        {
+            Files.copy(new File(TestFixture.TEST_REPORT).toPath(), out);
+        }
+        final ResultWithOutcome<ISoftwareSystemInfo> plain = ControllerAccess.peekReportInfo(new File(TestFixture.TEST_REPORT));
+        final ResultWithOutcome<ISoftwareSystemInfo> compressed = ControllerAccess.peekReportInfo(gzip);
+        assertTrue(compressed.isSuccess());
+        assertSameInfo(plain.getOutcome(), compressed.getOutcome());
+    }
+
+    @Test
+    public void peekInvalidReport()
+    {
+        assertTrue(ControllerAccess.peekReportInfo(new File(TestFixture.META_DATA_PATH)).isFailure());
+        assertTrue(ControllerAccess.peekReportInfo(new File("./src/test/resources/DoesNotExist.xml")).isFailure());
+    }
+
+    @Test
+    public void scanDirectory()
+    {
+        final File directory = new File("./src/test/resources");
+        final ReportCatalog catalog = ReportCatalog.scan(directory, 4);
+        assertFalse(catalog.getSystemIds().isEmpty());
+        assertTrue("Meta data files are no reports", catalog.getFailures().containsKey(new File(TestFixture.META_DATA_PATH)));
+
+        for (final String nextSystemId : catalog.getSystemIds())
+        {
+            final List<ReportCatalog.Entry> reports = catalog.getReports(nextSystemId);
+            for (int i = 1; i < reports.size(); i++)
+            {
+                assertTrue("Reports must be ordered by timestamp",
+                        reports.get(i - 1).getInfo().getTimestamp() <= reports.get(i).getInfo().getTimestamp());
+            }
+            assertEquals(reports.get(reports.size() - 1), catalog.getLatestReport(nextSystemId).get());
+        }
+
+        final ISoftwareSystemInfo alarmClock = ControllerAccess.peekReportInfo(new File(TestFixture.TEST_REPORT)).getOutcome();
+        assertTrue(catalog.getReports(alarmClock.getSystemId()).stream().anyMatch(e -> e.getReportFile().equals(new File(TestFixture.TEST_REPORT))));
+        assertTrue(catalog.getReports("unknown").isEmpty());
+    }
+}
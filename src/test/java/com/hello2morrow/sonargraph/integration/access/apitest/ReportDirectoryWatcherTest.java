@@ -0,0 +1,146 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.hello2morrow.sonargraph.integration.access.controller.IReportReloadListener;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportDirectoryWatcher;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+public final class ReportDirectoryWatcherTest
+{
+    private static final long DEBOUNCE_MILLIS = 200;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final class RecordingListener implements IReportReloadListener
+    {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private volatile ISonargraphSystemController lastReloaded;
+
+        @Override
+        public void reloaded(final File reportFile, final ISonargraphSystemController controller)
+        {
+            lastReloaded = controller;
+            events.add("reloaded " + reportFile.getName());
+        }
+
+        @Override
+        public void reloadFailed(final File reportFile, final Result result)
+        {
+            events.add("failed " + reportFile.getName());
+        }
+
+        @Override
+        public void removed(final File reportFile)
+        {
+            events.add("removed " + reportFile.getName());
+        }
+
+        String next() throws InterruptedException
+        {
+            final String event = events.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull("No event received", event);
+            return event;
+        }
+    }
+
+    private static void copy(final String reportPath, final File target) throws IOException
+    {
+        final File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        Files.copy(new File(reportPath).toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    public void reportsAreLoadedAndReloaded() throws Exception
+    {
+        final File directory = temporaryFolder.newFolder("reports");
+        final File report = new File(directory, "report.xml");
+        copy(TestFixture.TEST_REPORT, report);
+
+        final RecordingListener listener = new RecordingListener();
+        try (ReportDirectoryWatcher watcher = new ReportDirectoryWatcher(directory, new ReportLoadOptions(), DEBOUNCE_MILLIS, listener))
+        {
+            watcher.start();
+            assertEquals("reloaded report.xml", listener.next());
+            final ISonargraphSystemController controller = watcher.getController(report).get();
+            assertSame("Listeners get the read-only controller", controller, listener.lastReloaded);
+            final ISystemInfoProcessor before = controller.createSystemInfoProcessor();
+            final String systemIdBefore = before.getSoftwareSystem().getSystemId();
+
+            copy(TestFixture.TEST_REPORT_STANDARD, report);
+            assertEquals("reloaded report.xml", listener.next());
+            assertSame(controller, watcher.getController(report).get());
+            assertEquals("Existing processors keep their snapshot", systemIdBefore, before.getSoftwareSystem().getSystemId());
+            assertNotEquals(before.getSoftwareSystem(), controller.createSystemInfoProcessor().getSoftwareSystem());
+            assertEquals(1, watcher.getControllers().size());
+
+            Files.delete(report.toPath());
+            assertEquals("removed report.xml", listener.next());
+            assertFalse(watcher.getController(report).isPresent());
+        }
+    }
+
+    @Test
+    public void failedReloadKeepsPreviousSystem() throws Exception
+    {
+        final File directory = temporaryFolder.newFolder("reports");
+        final RecordingListener listener = new RecordingListener();
+        try (ReportDirectoryWatcher watcher = new ReportDirectoryWatcher(directory, new ReportLoadOptions(), DEBOUNCE_MILLIS, listener))
+        {
+            watcher.start();
+            final File report = new File(directory, "report.xml");
+            copy(TestFixture.TEST_REPORT, report);
+            assertEquals("reloaded report.xml", listener.next());
+            final String systemId = watcher.getController(report).get().getSoftwareSystem().getSystemId();
+
+            final File broken = new File(directory, "broken.xml.tmp");
+            Files.write(broken.toPath(), "<report".getBytes(StandardCharsets.UTF_8));
+            Files.move(broken.toPath(), report.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            assertEquals("failed report.xml", listener.next());
+            assertTrue(watcher.getController(report).isPresent());
+            assertEquals(systemId, watcher.getController(report).get().getSoftwareSystem().getSystemId());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportReadMode;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+
+public final class ReportLoadOptionsTest
+{
+    private static ISonargraphSystemController load(final String reportPath, final ReportLoadOptions options)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = options != null ? controller.loadSystemReport(new File(reportPath), options)
+                : controller.loadSystemReport(new File(reportPath), ReportReadMode.STREAMING);
+        assertTrue(result.toString(), result.isSuccess());
+        return controller;
+    }
+
+    private static List<String> describeIssues(final ISonargraphSystemController controller, final Predicate<IIssue> filter)
+    {
+        return controller.createSystemInfoProcessor().getIssues(filter).stream()
+                .map(i -> i.getKey() + "|" + i.getIssueType().getName() + "|" + i.getLine() + "|" + i.getColumn() + "|"
+                        + i.getAffectedNamedElements().stream().map(INamedElement::getFqName).collect(Collectors.toList()))
+                .sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void excludeIssueCategory()
+    {
+        final ISonargraphSystemController full = load(TestFixture.TEST_REPORT, null);
+        final ISonargraphSystemController reduced = load(TestFixture.TEST_REPORT, new ReportLoadOptions().excludeIssueCategory("CycleGroup"));
+
+        final Predicate<IIssue> isCycleGroup = i -> "CycleGroup".equals(i.getIssueType().getCategory().getName());
+        assertFalse("Report must contain cycle groups", full.createSystemInfoProcessor().getIssues(isCycleGroup).isEmpty());
+        assertTrue("Cycle groups must not be read", reduced.createSystemInfoProcessor().getIssues(isCycleGroup).isEmpty());
+        assertEquals("Other issues must be read", describeIssues(full, isCycleGroup.negate()), describeIssues(reduced, null));
+    }
+
+    @Test
+    public void excludeIssueProvider()
+    {
+        final ISonargraphSystemController full = load(TestFixture.TEST_REPORT, null);
+        final String provider = full.createSystemInfoProcessor().getIssues(null).get(0).getIssueProvider().getName();
+        final ISonargraphSystemController reduced = load(TestFixture.TEST_REPORT, new ReportLoadOptions().excludeIssueProvider(provider));
+
+        final Predicate<IIssue> isFromProvider = i -> provider.equals(i.getIssueProvider().getName());
+        assertTrue("Issues of provider must not be read", reduced.createSystemInfoProcessor().getIssues(isFromProvider).isEmpty());
+        assertEquals("Other issues must be read", describeIssues(full, isFromProvider.negate()), describeIssues(reduced, null));
+    }
+
+    @Test
+    public void excludeResolutions()
+    {
+        final ISonargraphSystemController full = load(TestFixture.TEST_REPORT_RESOLUTIONS_1, null);
+        final ISonargraphSystemController reduced = load(TestFixture.TEST_REPORT_RESOLUTIONS_1, new ReportLoadOptions().excludeResolutions());
+
+        assertFalse("Report must contain resolutions", full.createSystemInfoProcessor().getResolutions(null).isEmpty());
+        assertTrue("Resolutions must not be read", reduced.createSystemInfoProcessor().getResolutions(null).isEmpty());
+        assertEquals("Issues must be read", describeIssues(full, null).size(), describeIssues(reduced, null).size());
+    }
+
+    @Test
+    public void excludeMetricLevel()
+    {
+        final ISonargraphSystemController full = load(TestFixture.TEST_REPORT, null);
+        final ISonargraphSystemController reduced = load(TestFixture.TEST_REPORT, new ReportLoadOptions().excludeMetricLevel(IMetricLevel.MODULE));
+
+        final IModule fullModule = full.getSoftwareSystem().getModules().values().iterator().next();
+        final IInfoProcessor fullModuleInfo = full.createModuleInfoProcessor(fullModule);
+        final List<IMetricId> moduleMetrics = fullModuleInfo.getMetricIdsForLevel(fullModuleInfo.getMetricLevel(IMetricLevel.MODULE).get());
+        assertFalse("Report must contain module metrics", moduleMetrics.isEmpty());
+        final IInfoProcessor reducedModuleInfo = reduced
+                .createModuleInfoProcessor(reduced.getSoftwareSystem().getModules().get(fullModule.getName()));
+        for (final IMetricId nextMetricId : moduleMetrics)
+        {
+            assertTrue("Module level values must not be read",
+                    reducedModuleInfo.getMetricValues(IMetricLevel.MODULE, nextMetricId.getName()).isEmpty());
+        }
+
+        final ISystemInfoProcessor fullInfo = full.createSystemInfoProcessor();
+        final ISystemInfoProcessor reducedInfo = reduced.createSystemInfoProcessor();
+        final List<IMetricId> systemMetrics = fullInfo.getMetricIdsForLevel(fullInfo.getMetricLevel(IMetricLevel.SYSTEM).get());
+        assertFalse("Report must contain system metrics", systemMetrics.isEmpty());
+        for (final IMetricId nextMetricId : systemMetrics)
+        {
+            assertEquals("System metric values must be read", describeValues(fullInfo, nextMetricId),
+                    describeValues(reducedInfo, nextMetricId));
+        }
+    }
+
+    private static List<String> describeValues(final IInfoProcessor info, final IMetricId metricId)
+    {
+        return info.getMetricValues(IMetricLevel.SYSTEM, metricId.getName()).entrySet().stream()
+                .map(e -> e.getKey().getFqName() + "=" + e.getValue().getValue()).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void excludeLogicalAndExternalElements()
+    {
+        final ISonargraphSystemController full = load(TestFixture.TEST_REPORT_WITH_PACKAGE_TODO, null);
+        final ISonargraphSystemController reduced = load(TestFixture.TEST_REPORT_WITH_PACKAGE_TODO,
+                new ReportLoadOptions().excludeLogicalElements().excludeExternalElements());
+
+        final ISoftwareSystem fullSystem = full.getSoftwareSystem();
+        final ISoftwareSystem reducedSystem = reduced.getSoftwareSystem();
+        assertFalse("Report must contain externals", fullSystem.getExternals().isEmpty());
+        assertTrue("Externals must not be read", reducedSystem.getExternals().isEmpty());
+        assertFalse("Report must contain logical elements", fullSystem.getLogicalNamespaces().isEmpty());
+        assertTrue("Logical elements must not be read", reducedSystem.getLogicalNamespaces().isEmpty());
+        assertTrue("Logical elements must not be read", reducedSystem.getLogicalProgrammingElements().isEmpty());
+
+        for (final Map.Entry<String, IModule> nextEntry : fullSystem.getModules().entrySet())
+        {
+            final IModule reducedModule = reducedSystem.getModules().get(nextEntry.getKey());
+            assertTrue("Logical elements must not be read", reducedModule.getLogicalNamespaces().isEmpty());
+            final Set<String> physicalKinds = nextEntry.getValue().getElementKinds().stream().filter(k -> !k.contains("Logical"))
+                    .collect(Collectors.toSet());
+            assertEquals("Physical elements must be read", physicalKinds, new HashSet<>(reducedModule.getElementKinds()));
+        }
+
+        final List<String> reducedIssues = describeIssues(reduced, null);
+        assertFalse("Issues of physical elements must be read", reducedIssues.isEmpty());
+        assertTrue("Unexpected issues", describeIssues(full, null).containsAll(reducedIssues));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.hello2morrow.sonargraph.integration.access.controller.BatchReportLoader.LoadedReport;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.MetricExpression;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportRepository;
+import com.hello2morrow.sonargraph.integration.access.foundation.ResultCause;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+public final class ReportRepositoryTest
+{
+    private static final int NUMBER_OF_THREADS = 8;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static ISonargraphSystemController get(final ReportRepository repository, final String reportPath)
+    {
+        final LoadedReport loaded = repository.get(new File(reportPath));
+        assertTrue(loaded.getResult().toString(), loaded.getResult().isSuccess());
+        return loaded.getController().get();
+    }
+
+    private static long getEstimatedSize(final ISonargraphSystemController controller)
+    {
+        return ((SoftwareSystemImpl) controller.getSoftwareSystem()).estimateRetainedSize();
+    }
+
+    @Test
+    public void cachedSystemIsReused()
+    {
+        final ReportRepository repository = new ReportRepository(Long.MAX_VALUE, false);
+        final ISonargraphSystemController first = get(repository, TestFixture.TEST_REPORT);
+        assertSame(first, get(repository, "./src/test/resources/../resources/AlarmClock.xml"));
+        assertTrue(repository.isResident(new File(TestFixture.TEST_REPORT)));
+        assertEquals(getEstimatedSize(first), repository.getRetainedSize());
+
+        repository.invalidate(new File(TestFixture.TEST_REPORT));
+        assertFalse(repository.isResident(new File(TestFixture.TEST_REPORT)));
+        assertEquals(0, repository.getRetainedSize());
+        assertNotSame(first, get(repository, TestFixture.TEST_REPORT));
+    }
+
+    @Test
+    public void leastRecentlyUsedSystemIsEvicted()
+    {
+        final long cppSize = getEstimatedSize(get(new ReportRepository(Long.MAX_VALUE, false), TestFixture.CPP_REPORT));
+        final long alarmClockSize = getEstimatedSize(get(new ReportRepository(Long.MAX_VALUE, false), TestFixture.TEST_REPORT));
+        final ReportRepository repository = new ReportRepository(cppSize + alarmClockSize, false);
+
+        final ISonargraphSystemController alarmClock = get(repository, TestFixture.TEST_REPORT);
+        final ISonargraphSystemController standard = get(repository, TestFixture.TEST_REPORT_STANDARD);
+        assertSame(alarmClock, get(repository, TestFixture.TEST_REPORT));
+        assertEquals(2, repository.getNumberOfResidentReports());
+
+        get(repository, TestFixture.CPP_REPORT);
+        assertEquals(cppSize + alarmClockSize, repository.getRetainedSize());
+        assertTrue(repository.isResident(new File(TestFixture.CPP_REPORT)));
+        assertFalse("Least recently used must be evicted first", repository.isResident(new File(TestFixture.TEST_REPORT_STANDARD)));
+        assertNotSame(standard, get(repository, TestFixture.TEST_REPORT_STANDARD));
+    }
+
+    @Test
+    public void evictedSystemIsKeptSoftly()
+    {
+        final ReportRepository repository = new ReportRepository(0, true);
+        final ISonargraphSystemController first = get(repository, TestFixture.TEST_REPORT);
+        assertEquals(0, repository.getNumberOfResidentReports());
+        //Strongly reachable through 'first', so the soft reference cannot have been cleared
+        assertSame(first, get(repository, TestFixture.TEST_REPORT));
+
+        final ReportRepository dropping = new ReportRepository(0, false);
+        assertNotSame(get(dropping, TestFixture.TEST_REPORT), get(dropping, TestFixture.TEST_REPORT));
+    }
+
+    @Test
+    public void modifiedReportIsReloaded() throws IOException
+    {
+        final File report = temporaryFolder.newFile("report.xml");
+        Files.copy(new File(TestFixture.TEST_REPORT).toPath(), report.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final ReportRepository repository = new ReportRepository(Long.MAX_VALUE, false);
+        final ISonargraphSystemController first = get(repository, report.getPath());
+
+        assertTrue(report.setLastModified(report.lastModified() - 10_000));
+        assertFalse(repository.isResident(report));
+        assertNotSame(first, get(repository, report.getPath()));
+        assertEquals(1, repository.getNumberOfResidentReports());
+    }
+
+    @Test
+    public void sharedControllerRejectsModification()
+    {
+        final ReportRepository repository = new ReportRepository(Long.MAX_VALUE, false);
+        final ISonargraphSystemController shared = get(repository, TestFixture.TEST_REPORT);
+        final ISoftwareSystem system = shared.getSoftwareSystem();
+        try
+        {
+            shared.loadSystemReport(new File(TestFixture.CPP_REPORT));
+            fail("Loading another report into a shared controller must be rejected");
+        }
+        catch (final UnsupportedOperationException ex)
+        {
+            //Expected
+        }
+        try
+        {
+            shared.addDerivedMetric("Derived", "Derived", MetricExpression.parse("1").getOutcome(), Collections.singletonList("SourceFile"));
+            fail("Adding a derived metric to a shared controller must be rejected");
+        }
+        catch (final UnsupportedOperationException ex)
+        {
+            //Expected
+        }
+        assertSame(system, get(repository, TestFixture.TEST_REPORT).getSoftwareSystem());
+        assertFalse(shared.createSystemInfoProcessor().getIssues(null).isEmpty());
+    }
+
+    @Test
+    public void failedLoadIsNotCached()
+    {
+        final ReportRepository repository = new ReportRepository(Long.MAX_VALUE, false);
+        final LoadedReport loaded = repository.get(new File("./src/test/resources/DoesNotExist.xml"));
+        assertTrue(loaded.getResult().isFailure());
+        assertEquals(ResultCause.FILE_NOT_FOUND, loaded.getResult().getMessages().get(0).getCause());
+        assertEquals(0, repository.getNumberOfResidentReports());
+    }
+
+    @Test
+    public void concurrentLoadsAreCollapsed() throws Exception
+    {
+        final ReportRepository repository = new ReportRepository(Long.MAX_VALUE, false);
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try
+        {
+            final List<Future<ISonargraphSystemController>> futures = new ArrayList<>();
+            for (int i = 0; i < NUMBER_OF_THREADS; i++)
+            {
+                futures.add(executor.submit(() ->
+                {
+                    start.await();
+                    return get(repository, TestFixture.CPP_REPORT);
+                }));
+            }
+            start.countDown();
+            final ISonargraphSystemController expected = futures.get(0).get();
+            for (final Future<ISonargraphSystemController> next : futures)
+            {
+                assertSame("All threads must get the system of a single load", expected, next.get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IModuleInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportReadMode;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportSectionIndex;
+
+public final class ReportSectionIndexTest
+{
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File copyReport(final String reportPath) throws IOException
+    {
+        final File copy = new File(temporaryFolder.getRoot(), new File(reportPath).getName());
+        Files.copy(new File(reportPath).toPath(), copy.toPath());
+        return copy;
+    }
+
+    private static ISonargraphSystemController load(final File reportFile, final ReportLoadOptions options)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = options != null ? controller.loadSystemReport(reportFile, options)
+                : controller.loadSystemReport(reportFile, ReportReadMode.STREAMING);
+        assertTrue(result.toString(), result.isSuccess());
+        return controller;
+    }
+
+    private static List<String> getElements(final IModule module)
+    {
+        final List<String> elements = new ArrayList<>();
+        for (final String nextKind : module.getElementKinds())
+        {
+            for (final INamedElement nextElement : module.getElements(nextKind))
+            {
+                elements.add(nextKind + " " + nextElement.getFqName());
+            }
+        }
+        Collections.sort(elements);
+        return elements;
+    }
+
+    private static List<String> describe(final ISonargraphSystemController controller, final String moduleName)
+    {
+        final IModule module = controller.getSoftwareSystem().getModule(moduleName).get();
+        final List<String> description = getElements(module);
+        final IModuleInfoProcessor processor = controller.createModuleInfoProcessor(module);
+        for (final IMetricLevel nextLevel : processor.getMetricLevels())
+        {
+            for (final IMetricId nextMetricId : processor.getMetricIdsForLevel(nextLevel))
+            {
+                processor.getMetricValues(nextLevel.getName(), nextMetricId.getName()).forEach(
+                        (element, value) -> description.add(nextMetricId.getName() + " " + element.getFqName() + "=" + value.getValue()));
+            }
+        }
+        for (final IIssue nextIssue : controller.createSystemInfoProcessor().getIssues(null))
+        {
+            description.add(nextIssue.getKey() + " " + nextIssue.getDescription());
+        }
+        Collections.sort(description);
+        return description;
+    }
+
+    @Test
+    public void indexSections() throws IOException
+    {
+        final File report = new File(TestFixture.TEST_REPORT_STANDARD);
+        final ReportSectionIndex index = ReportSectionIndex.create(report);
+        final ISonargraphSystemController controller = load(report, null);
+        assertEquals(new ArrayList<>(controller.getSoftwareSystem().getModules().keySet()), index.getModuleNames());
+
+        final String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        assertEquals("Report is expected to be ASCII", report.length(), content.length());
+        for (final ReportSectionIndex.Section next : index.getSections())
+        {
+            final String section = content.substring((int) next.getStart(), (int) next.getEnd());
+            assertTrue(next.toString(), section.matches("(?s)<(\\w+:)?" + next.getName() + "[ >/].*>"));
+        }
+        assertTrue(index.getSections().stream().anyMatch(s -> "issues".equals(s.getName())));
+        assertEquals(2 * index.getModuleNames().size(),
+                index.getSections().stream().filter(s -> s.getName().startsWith("moduleElements") || s.getName().equals("moduleMetricValues")).count());
+    }
+
+    @Test
+    public void loadSingleModule() throws IOException
+    {
+        for (final String nextReport : new String[] { TestFixture.TEST_REPORT_STANDARD, TestFixture.TEST_REPORT, TestFixture.TEST_REPORT_WITH_DERIVED })
+        {
+            final File report = copyReport(nextReport);
+            final ISonargraphSystemController full = load(report, null);
+            assertTrue(ReportSectionIndex.createSidecar(report));
+
+            for (final IModule nextModule : full.getSoftwareSystem().getModules().values())
+            {
+                final String moduleName = nextModule.getName();
+                final ISonargraphSystemController parsed = load(report, new ReportLoadOptions().includeModule(moduleName));
+                final ISonargraphSystemController indexed = load(report, new ReportLoadOptions().includeModule(moduleName).sectionIndex());
+
+                assertEquals(Collections.singleton(moduleName), indexed.getSoftwareSystem().getModules().keySet());
+                assertEquals(describe(parsed, moduleName), describe(indexed, moduleName));
+                assertEquals(getElements(nextModule), getElements(indexed.getSoftwareSystem().getModule(moduleName).get()));
+            }
+        }
+    }
+
+    @Test
+    public void sectionIndexSkipsOtherModules() throws IOException
+    {
+        final File report = copyReport(TestFixture.TEST_REPORT_STANDARD);
+        assertTrue(ReportSectionIndex.createSidecar(report));
+        final String moduleName = ReportSectionIndex.readSidecar(report).get().getModuleNames().get(0);
+
+        final AtomicLong bytesRead = new AtomicLong();
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = controller.loadSystemReportAsync(report, new ReportLoadOptions().includeModule(moduleName).sectionIndex(),
+                Runnable::run, p -> bytesRead.set(p.getBytesRead())).join();
+        assertTrue(result.isSuccess());
+        assertTrue("Only a fraction of the report must be read: " + bytesRead.get(), bytesRead.get() < report.length() / 2);
+    }
+
+    @Test
+    public void outdatedSidecarIsIgnored() throws IOException
+    {
+        final File report = copyReport(TestFixture.TEST_REPORT);
+        assertTrue(ReportSectionIndex.createSidecar(report));
+        assertTrue(ReportSectionIndex.readSidecar(report).isPresent());
+
+        Files.write(report.toPath(), "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertFalse(ReportSectionIndex.readSidecar(report).isPresent());
+        final ISonargraphSystemController controller = load(report, new ReportLoadOptions().includeModule("Model").sectionIndex());
+        assertEquals(Collections.singleton("Model"), controller.getSoftwareSystem().getModules().keySet());
+    }
+
+    @Test
+    public void terminatorsWithOverlappingPrefixes() throws IOException
+    {
+        final File report = temporaryFolder.newFile("overlapping.xml");
+        final String content = "<?xml version=\"1.0\"??>\n<report><systemDescription><![CDATA[a[0]]]]></systemDescription>"
+                + "<!-- comment --->\n<issues/><features><feature name=\"x\"/></features></report>";
+        Files.write(report.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        final List<String> names = new ArrayList<>();
+        for (final ReportSectionIndex.Section next : ReportSectionIndex.create(report).getSections())
+        {
+            names.add(next.getName());
+            assertTrue(next.toString(), content.substring((int) next.getStart(), (int) next.getEnd()).endsWith(">"));
+        }
+        assertEquals(Arrays.asList("systemDescription", "issues", "features"), names);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElementContainer;
+import com.hello2morrow.sonargraph.integration.access.model.IReportDelta;
+import com.hello2morrow.sonargraph.integration.access.model.IRootDirectory;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.model.internal.FqName;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportLoadOptions;
+import com.hello2morrow.sonargraph.integration.access.persistence.ReportSnapshotCache;
+
+public final class ReportSnapshotCacheTest
+{
+    private static final int DEPTH = 100000;
+    private static final long TIMEOUT = 30000;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static ISonargraphSystemController load(final File snapshotDirectory, final File report)
+    {
+        return load(snapshotDirectory, report, null);
+    }
+
+    private static ISonargraphSystemController load(final File snapshotDirectory, final File report, final ReportLoadOptions options)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController(snapshotDirectory);
+        final Result result = options != null ? controller.loadSystemReport(report, options) : controller.loadSystemReport(report);
+        assertTrue("Failed to read report: " + result.toString(), result.isSuccess());
+        return controller;
+    }
+
+    /**
+     * Snapshots are written in the background after loading a report.
+     */
+    private static void waitFor(final String message, final BooleanSupplier condition) throws InterruptedException
+    {
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(message, System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> describe(final INamedElementContainer container)
+    {
+        final List<String> lines = new ArrayList<>();
+        for (final String nextKind : new TreeSet<>(container.getElementKinds()))
+        {
+            for (final INamedElement nextElement : container.getElements(nextKind))
+            {
+                lines.add(nextKind + "|" + nextElement.getFqName() + "|" + nextElement.getPresentationName() + "|" + nextElement.isLocationOnly());
+            }
+        }
+        container.getLogicalNamespaces().forEach(n -> lines.add("namespace|" + n.getFqName() + "|" + n.getDerivedFrom().size()));
+        container.getLogicalProgrammingElements().forEach(n -> lines.add("logical|" + n.getFqName() + "|" + n.getDerivedFrom().size()));
+        if (container instanceof IModule)
+        {
+            for (final IRootDirectory nextRootDirectory : ((IModule) container).getRootDirectories())
+            {
+                nextRootDirectory.getSourceFiles().forEach(f -> lines.add("source|" + f.getFqName() + "|" + f.getOriginalLocation().isPresent()));
+                nextRootDirectory.getProgrammingElements().forEach(e -> lines.add("programming|" + e.getFqName() + "|" + e.getLineNumber()
+                        + "|" + ((IModule) container).getSourceForElement(e).map(INamedElement::getFqName).orElse("")));
+            }
+        }
+        return lines;
+    }
+
+    private static void assertSameSystem(final ISonargraphSystemController parsed, final ISonargraphSystemController fromSnapshot)
+    {
+        final ISoftwareSystem parsedSystem = parsed.getSoftwareSystem();
+        final ISoftwareSystem snapshotSystem = fromSnapshot.getSoftwareSystem();
+        assertEquals(parsedSystem.getSystemId(), snapshotSystem.getSystemId());
+        assertEquals(parsedSystem.getTimestamp(), snapshotSystem.getTimestamp());
+        assertEquals(parsedSystem.getModules().keySet(), snapshotSystem.getModules().keySet());
+        assertEquals(parsedSystem.getExternals().keySet(), snapshotSystem.getExternals().keySet());
+        assertEquals(describe(parsedSystem), describe(snapshotSystem));
+        for (final String nextModule : parsedSystem.getModules().keySet())
+        {
+            assertEquals(describe(parsedSystem.getModules().get(nextModule)), describe(snapshotSystem.getModules().get(nextModule)));
+        }
+        for (final String nextExternal : parsedSystem.getExternals().keySet())
+        {
+            assertEquals(describe(parsedSystem.getExternals().get(nextExternal)), describe(snapshotSystem.getExternals().get(nextExternal)));
+        }
+
+        final ISystemInfoProcessor parsedInfo = parsed.createSystemInfoProcessor();
+        final ISystemInfoProcessor snapshotInfo = fromSnapshot.createSystemInfoProcessor();
+        assertEquals(parsedInfo.getIssues(null), snapshotInfo.getIssues(null));
+        assertEquals(parsedInfo.getResolutions(null), snapshotInfo.getResolutions(null));
+        assertEquals(parsedInfo.getMetricLevels(), snapshotInfo.getMetricLevels());
+        for (final IMetricLevel nextLevel : parsedInfo.getMetricLevels())
+        {
+            assertEquals(parsedInfo.getMetricIdsForLevel(nextLevel), snapshotInfo.getMetricIdsForLevel(nextLevel));
+            for (final IMetricId nextMetricId : parsedInfo.getMetricIdsForLevel(nextLevel))
+            {
+                final Map<String, Number> parsedValues = new HashMap<>();
+                parsedInfo.getMetricValues(nextLevel.getName(), nextMetricId.getName())
+                        .forEach((k, v) -> parsedValues.put(k.getFqName(), v.getValue()));
+                final Map<String, Number> snapshotValues = new HashMap<>();
+                snapshotInfo.getMetricValues(nextLevel.getName(), nextMetricId.getName())
+                        .forEach((k, v) -> snapshotValues.put(k.getFqName(), v.getValue()));
+                assertEquals(parsedValues, snapshotValues);
+            }
+        }
+
+        final IReportDelta delta = parsed.createReportDifferenceProcessor().createReportDelta(snapshotInfo);
+        assertTrue(delta.toString(), delta.isEmpty());
+    }
+
+    @Test
+    public void snapshotContainsSameSystem() throws InterruptedException
+    {
+        final File snapshotDirectory = temporaryFolder.getRoot();
+        final File report = new File(TestFixture.CPP_REPORT);
+        final ReportSnapshotCache cache = new ReportSnapshotCache(snapshotDirectory);
+        final String key = cache.getKey(report).get();
+        assertFalse(cache.hasSnapshot(key));
+
+        final ISonargraphSystemController parsed = load(snapshotDirectory, report);
+        waitFor("Snapshot has not been written", () -> cache.hasSnapshot(key));
+        final ISonargraphSystemController fromSnapshot = load(snapshotDirectory, report);
+        assertSameSystem(parsed, fromSnapshot);
+    }
+
+    @Test
+    public void snapshotContainsAllKindsOfIssuesAndElements() throws IOException, InterruptedException
+    {
+        for (final String nextReport : Arrays.asList(TestFixture.TEST_REPORT_THRESHOLD_VIOLATIONS, TestFixture.TEST_REPORT_WITH_DUPLICATES,
+                TestFixture.TEST_REPORT_INTEGRATION_ACCESS_WITH_CYCLE_GROUP, TestFixture.TEST_REPORT_REFACTORINGS,
+                TestFixture.TEST_REPORT_RESOLUTIONS_1))
+        {
+            final File snapshotDirectory = temporaryFolder.newFolder();
+            final File report = new File(nextReport);
+            final ReportLoadOptions options = new ReportLoadOptions().compactFqNames();
+            final ReportSnapshotCache cache = new ReportSnapshotCache(snapshotDirectory);
+            final String key = cache.getKey(report, options.getKey()).get();
+
+            final ISonargraphSystemController parsed = load(snapshotDirectory, report, options);
+            waitFor("Snapshot of '" + nextReport + "' has not been written", () -> cache.hasSnapshot(key));
+            final ISonargraphSystemController fromSnapshot = load(snapshotDirectory, report, options);
+            assertSameSystem(parsed, fromSnapshot);
+        }
+    }
+
+    @Test
+    public void changedReportGetsNewSnapshot() throws IOException, InterruptedException
+    {
+        final File snapshotDirectory = temporaryFolder.newFolder("snapshots");
+        final File report = temporaryFolder.newFile("report.xml");
+        Files.copy(new File(TestFixture.TEST_REPORT).toPath(), report.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        final ReportSnapshotCache cache = new ReportSnapshotCache(snapshotDirectory);
+        final String key = cache.getKey(report).get();
+        load(snapshotDirectory, report);
+        waitFor("Snapshot has not been written", () -> cache.hasSnapshot(key));
+
+        Files.write(report.toPath(), "\n".getBytes(), StandardOpenOption.APPEND);
+        final String changedKey = cache.getKey(report).get();
+        assertNotEquals(key, changedKey);
+        assertFalse(cache.hasSnapshot(changedKey));
+        load(snapshotDirectory, report);
+        waitFor("Snapshot of changed report has not been written", () -> cache.hasSnapshot(changedKey));
+    }
+
+    @Test
+    public void corruptSnapshotIsIgnored() throws IOException, InterruptedException
+    {
+        final File snapshotDirectory = temporaryFolder.getRoot();
+        final File report = new File(TestFixture.TEST_REPORT);
+        final ReportSnapshotCache cache = new ReportSnapshotCache(snapshotDirectory);
+        final String key = cache.getKey(report).get();
+        final File snapshotFile = new File(snapshotDirectory, key + ".snapshot");
+        Files.write(snapshotFile.toPath(), new byte[] { 1, 2, 3 });
+
+        assertFalse(cache.read(key).isPresent());
+        final ISonargraphSystemController controller = load(snapshotDirectory, report);
+        assertEquals("AlarmClock", controller.getSoftwareSystem().getName());
+        waitFor("Corrupt snapshot has not been replaced", () -> snapshotFile.length() > 3);
+        assertTrue(cache.read(key).isPresent());
+    }
+
+    @Test
+    public void deeplyNestedNamesCanBeStored()
+    {
+        final SoftwareSystemImpl system = new SoftwareSystemImpl("SoftwareSystem", "System", "id", "Deep", "", "./Deep.sonargraph", "9.0",
+                System.currentTimeMillis(), "Modifiable.vm");
+        final ModuleImpl module = new ModuleImpl("JavaModule", "Module", "M", "M", "Workspace:M", "", system.getMetaDataAccess(),
+                system.getElementRegistry(), "Java", system);
+        system.addModule(module);
+        module.addElement(module);
+
+        //Compact names are chains of parent references, stored as flat table
+        final StringBuilder fqName = new StringBuilder("Workspace:M");
+        FqName compactFqName = FqName.create(FqName.create(null, "Workspace"), "M");
+        for (int i = 0; i < DEPTH; i++)
+        {
+            fqName.append(FqName.SEPARATOR).append('d');
+            compactFqName = FqName.create(compactFqName, "d");
+        }
+        final ProgrammingElementImpl element = new ProgrammingElementImpl("JavaType", "Type", "d", "d", fqName.toString(), 1);
+        element.setCompactFqName(compactFqName);
+        module.addElement(element);
+
+        final ReportSnapshotCache cache = new ReportSnapshotCache(temporaryFolder.getRoot());
+        assertTrue(cache.write("deep", system));
+        final Optional<SoftwareSystemImpl> snapshot = cache.read("deep");
+        assertTrue(snapshot.isPresent());
+        assertEquals(fqName.toString(), ((ModuleImpl) snapshot.get().getModules().get("M")).getElements("JavaType").iterator().next().getFqName());
+    }
+}
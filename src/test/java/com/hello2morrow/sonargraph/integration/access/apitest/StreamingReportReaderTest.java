@@ -0,0 +1,172 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ReportReadMode;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.ILogicalElement;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElementContainer;
+import com.hello2morrow.sonargraph.integration.access.model.IResolution;
+import com.hello2morrow.sonargraph.integration.access.model.ISoftwareSystem;
+import com.hello2morrow.sonargraph.integration.access.model.ISourceFile;
+
+public final class StreamingReportReaderTest
+{
+    private static final String[] REPORTS = { TestFixture.TEST_REPORT, TestFixture.TEST_REPORT_THRESHOLD_VIOLATIONS,
+            TestFixture.TEST_REPORT_WITH_DUPLICATES, TestFixture.TEST_REPORT_9_3, TestFixture.TEST_REPORT_CLASSFILE_ISSUES,
+            TestFixture.TEST_REPORT_WITHOUT_ISSUES, TestFixture.TEST_REPORT_WITHOUT_ELEMENTS, TestFixture.CPP_REPORT, TestFixture.CPP_REPORT_HILO,
+            TestFixture.TEST_REPORT_INTEGRATION_ACCESS_WITH_CYCLE_GROUP, TestFixture.ALARM_CLOCK_CLASS_FILE_ISSUES_REPORT,
+            TestFixture.TEST_REPORT_STANDARD, TestFixture.TEST_REPORT_WITH_DERIVED, TestFixture.TEST_REPORT_WITH_PACKAGE_TODO,
+            TestFixture.TEST_REPORT_RESOLUTIONS_1, TestFixture.TEST_REPORT_RESOLUTIONS_2, TestFixture.TEST_REPORT_REFACTORINGS,
+            TestFixture.TEST_REPORT_REFACTORINGS_DUPLICATE_FQNAMES };
+
+    @Test
+    public void streamingModelEqualsDefaultModel()
+    {
+        for (final String next : REPORTS)
+        {
+            final List<String> expected = describe(next, ReportReadMode.DEFAULT);
+            final List<String> actual = describe(next, ReportReadMode.STREAMING);
+            if (!expected.equals(actual))
+            {
+                final Set<String> actualSet = new HashSet<>(actual);
+                final List<String> missing = expected.stream().filter(e -> !actualSet.contains(e)).limit(5).collect(Collectors.toList());
+                fail("Different model for '" + next + "', missing: " + missing);
+            }
+        }
+    }
+
+    @Test
+    public void readInvalidReport()
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = controller.loadSystemReport(new File(TestFixture.INVALID_TEST_REPORT), ReportReadMode.STREAMING);
+        assertTrue("Expect failure, but got success", result.isFailure());
+    }
+
+    private static List<String> describe(final String reportPath, final ReportReadMode mode)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = controller.loadSystemReport(new File(reportPath), mode);
+        assertTrue(result.toString(), result.isSuccess());
+
+        final ISoftwareSystem system = controller.getSoftwareSystem();
+        final ISystemInfoProcessor info = controller.createSystemInfoProcessor();
+        final List<String> lines = new ArrayList<>();
+        lines.add(system.getSystemId() + "|" + system.getName() + "|" + system.getDescription() + "|" + system.getPath() + "|"
+                + system.getVersion() + "|" + system.getTimestamp() + "|" + system.getVirtualModel());
+
+        describeContainer(system, system, lines);
+        for (final IModule nextModule : system.getModules().values())
+        {
+            lines.add("module|" + nextModule.getFqName() + "|" + nextModule.getLanguage() + "|" + nextModule.getRootDirectories().size());
+            describeContainer(system, nextModule, lines);
+            describeMetrics("module " + nextModule.getName(), controller.createModuleInfoProcessor(nextModule), lines);
+        }
+        system.getExternals().values().forEach(e -> describeContainer(system, e, lines));
+        describeMetrics("system", info, lines);
+
+        info.getAnalyzers().forEach(a -> lines.add("analyzer|" + a.getName() + "|" + a.isLicensed()));
+        info.getFeatures().forEach(f -> lines.add("feature|" + f.getName() + "|" + f.isLicensed()));
+        lines.add("config|" + info.getDuplicateCodeConfigurationEntries() + info.getScriptRunnerConfigurationEntries()
+                + info.getArchitectureCheckConfigurationEntries());
+        info.getIssueTypes().forEach(t -> lines.add("issueType|" + t.getName() + "|" + t.getSeverity() + "|" + t.getCategory().getName()));
+        info.getMetricIds().forEach(m -> lines.add("metricId|" + m.getName() + "|"
+                + m.getLevels().stream().map(IMetricLevel::getName).collect(Collectors.toList()) + "|" + m.getBestValue()));
+        info.getMetricThresholds().forEach(t -> lines.add("threshold|" + t.getMetricId().getName() + "|" + t.getMetricLevel().getName() + "|"
+                + t.getLowerThreshold() + "|" + t.getUpperThreshold()));
+
+        for (final IIssue nextIssue : info.getIssues(null))
+        {
+            lines.add("issue|" + nextIssue.getKey() + "|" + nextIssue.getIssueType().getName() + "|" + nextIssue.getIssueProvider().getName() + "|"
+                    + nextIssue.getDescription() + "|" + nextIssue.getLine() + "|" + nextIssue.getColumn() + "|" + nextIssue.getResolutionType()
+                    + "|" + nextIssue.getAffectedNamedElements().stream().map(INamedElement::getFqName).collect(Collectors.toList()));
+        }
+        for (final IResolution nextResolution : info.getResolutions(null))
+        {
+            lines.add("resolution|" + nextResolution.getType() + "|" + nextResolution.getPriority() + "|" + nextResolution.getDate() + "|"
+                    + nextResolution.getAssignee() + "|" + nextResolution.getDescription() + "|" + nextResolution.isApplicable() + "|"
+                    + nextResolution.getNumberOfAffectedParserDependencies() + "|" + nextResolution.getIssues().size());
+        }
+        lines.sort(null);
+        return lines;
+    }
+
+    private static void describeContainer(final ISoftwareSystem system, final INamedElementContainer container, final List<String> lines)
+    {
+        for (final String nextKind : container.getElementKinds())
+        {
+            for (final INamedElement nextElement : container.getElements(nextKind))
+            {
+                final Optional<? extends ISourceFile> source = system.getSourceFile(nextElement);
+                final Optional<? extends INamedElement> original = nextElement.getOriginalLocation();
+                lines.add(container.getFqName() + "|" + nextKind + "|" + nextElement.getFqName() + "|" + nextElement.getName() + "|"
+                        + nextElement.getPresentationName() + "|" + nextElement.isLocationOnly() + "|"
+                        + (source.isPresent() ? source.get().getFqName() : "") + "|" + (original.isPresent() ? original.get().getFqName() : ""));
+            }
+        }
+        final List<ILogicalElement> logicalElements = new ArrayList<>(container.getLogicalNamespaces());
+        logicalElements.addAll(container.getLogicalProgrammingElements());
+        for (final ILogicalElement nextLogicalElement : logicalElements)
+        {
+            lines.add(container.getFqName() + "|logical|" + nextLogicalElement.getFqName() + "|" + nextLogicalElement.getDerivedFrom().stream()
+                    .map(INamedElement::getFqName).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private static void describeMetrics(final String prefix, final IInfoProcessor info, final List<String> lines)
+    {
+        for (final IMetricLevel nextLevel : info.getMetricLevels())
+        {
+            for (final IMetricId nextMetricId : info.getMetricIdsForLevel(nextLevel))
+            {
+                for (final Map.Entry<INamedElement, IMetricValue> nextEntry : info.getMetricValues(nextLevel.getName(), nextMetricId.getName())
+                        .entrySet())
+                {
+                    lines.add(prefix + "|" + nextLevel.getName() + "|" + nextMetricId.getName() + "|" + nextEntry.getKey().getFqName() + "|"
+                            + nextEntry.getValue().getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricId;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricLevel;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.IThresholdViolationIssue;
+import com.hello2morrow.sonargraph.integration.access.model.internal.MetricThreshold;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+public final class ThresholdEvaluationTest
+{
+    private static ISystemInfoProcessor load(final String report)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(new File(report)).isSuccess());
+        return controller.createSystemInfoProcessor();
+    }
+
+    private static Set<String> toKeys(final List<IThresholdViolationIssue> issues)
+    {
+        return issues.stream().map(i -> i.getAffectedNamedElements().get(0).getFqName() + "|" + i.getThreshold().getMetricId().getName() + "|"
+                + i.getThreshold().getMetricLevel().getName() + "|" + i.getMetricValue().doubleValue()).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void reproduceReportedViolations()
+    {
+        final ISystemInfoProcessor processor = load(TestFixture.TEST_REPORT_THRESHOLD_VIOLATIONS);
+        final List<IThresholdViolationIssue> reported = processor.getThresholdViolationIssues(null);
+        assertFalse("No violations in report", reported.isEmpty());
+
+        final List<IThresholdViolationIssue> evaluated = processor.evaluateThresholds(processor.getMetricThresholds());
+        assertEquals(toKeys(reported), toKeys(evaluated));
+        for (final IThresholdViolationIssue next : evaluated)
+        {
+            assertEquals(reported.get(0).getIssueType(), next.getIssueType());
+            assertTrue(next.getDescription().contains("allowed range"));
+        }
+        assertEquals("Evaluated violations must not be added", reported.size(), processor.getThresholdViolationIssues(null).size());
+    }
+
+    @Test
+    public void evaluateStricterThresholds()
+    {
+        final ISystemInfoProcessor processor = load(TestFixture.CPP_REPORT);
+        final IMetricLevel level = ((SoftwareSystemImpl) processor.getSoftwareSystem()).getAllMetricLevels().get("SourceFile");
+        final IMetricId metricId = processor.getMetricId("CoreLinesOfCode").get();
+        final List<IMetricThreshold> thresholds = new ArrayList<>();
+        thresholds.add(new MetricThreshold(metricId, level, 10, 100));
+        thresholds.add(new MetricThreshold(metricId, level, 0, 50));
+
+        final List<Double> values = processor.getMetricValues("SourceFile", "CoreLinesOfCode").values().stream()
+                .map(v -> v.getValue().doubleValue()).collect(Collectors.toList());
+        final long expectedFirst = values.stream().filter(v -> v < 10 || v > 100).count();
+        final long expectedSecond = values.stream().filter(v -> v > 50).count();
+        assertTrue(expectedFirst > 0 && expectedSecond > 0);
+
+        final List<IThresholdViolationIssue> violations = processor.evaluateThresholds(thresholds);
+        assertEquals(expectedFirst + expectedSecond, violations.size());
+        assertEquals(expectedFirst, violations.stream().filter(v -> v.getThreshold() == thresholds.get(0)).count());
+        //Grouped by threshold in the given order
+        assertTrue(violations.subList(0, (int) expectedFirst).stream().allMatch(v -> v.getThreshold() == thresholds.get(0)));
+        violations.forEach(v -> assertTrue(v.getMetricValue().doubleValue() < v.getThreshold().getLowerThreshold().doubleValue()
+                || v.getMetricValue().doubleValue() > v.getThreshold().getUpperThreshold().doubleValue()));
+
+        assertTrue(processor.evaluateThresholds(Collections.emptyList()).isEmpty());
+    }
+}
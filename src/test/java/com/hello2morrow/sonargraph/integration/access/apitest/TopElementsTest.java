@@ -0,0 +1,127 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.apitest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.IModuleInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.controller.ISystemInfoProcessor;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+import com.hello2morrow.sonargraph.integration.access.model.MetricValueOrder;
+
+public final class TopElementsTest
+{
+    private static final String LEVEL = "SourceFile";
+    private static final String METRIC = "CoreLinesOfCode";
+    private ISonargraphSystemController controller;
+
+    @Before
+    public void before()
+    {
+        controller = ControllerAccess.createController();
+        assertTrue(controller.loadSystemReport(new File(TestFixture.CPP_REPORT)).isSuccess());
+    }
+
+    private List<Entry<INamedElement, IMetricValue>> getAllValues(final Predicate<INamedElement> filter)
+    {
+        return controller.createSystemInfoProcessor().getMetricValues(LEVEL, METRIC).entrySet().stream().filter(e -> filter.test(e.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Float> getValues(final Map<INamedElement, IMetricValue> map)
+    {
+        return map.values().stream().map(v -> v.getValue().floatValue()).collect(Collectors.toList());
+    }
+
+    private static List<Float> getSortedValues(final List<Entry<INamedElement, IMetricValue>> entries, final MetricValueOrder order,
+            final int n)
+    {
+        final Comparator<Float> comparator = order == MetricValueOrder.HIGHEST ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        return entries.stream().map(e -> e.getValue().getValue().floatValue()).sorted(comparator).limit(n).collect(Collectors.toList());
+    }
+
+    @Test
+    public void topAndBottomOfSystem()
+    {
+        final ISystemInfoProcessor processor = controller.createSystemInfoProcessor();
+        final List<Entry<INamedElement, IMetricValue>> all = getAllValues(e -> true);
+        assertTrue("Not enough values", all.size() > 50);
+
+        for (final MetricValueOrder nextOrder : MetricValueOrder.values())
+        {
+            final Map<INamedElement, IMetricValue> top = processor.getTopElements(LEVEL, METRIC, 20, nextOrder);
+            assertEquals(20, top.size());
+            assertEquals(getSortedValues(all, nextOrder, 20), getValues(top));
+            for (final Entry<INamedElement, IMetricValue> next : top.entrySet())
+            {
+                assertTrue(all.stream().anyMatch(e -> e.getKey().equals(next.getKey()) && e.getValue().getValue().equals(next.getValue().getValue())));
+            }
+        }
+
+        assertEquals("All values must be returned if n exceeds their number", all.size(),
+                processor.getTopElements(LEVEL, METRIC, Integer.MAX_VALUE, MetricValueOrder.HIGHEST).size());
+        assertTrue(processor.getTopElements(LEVEL, METRIC, 0, MetricValueOrder.HIGHEST).isEmpty());
+        assertTrue(processor.getTopElements(LEVEL, "Unknown", 10, MetricValueOrder.HIGHEST).isEmpty());
+    }
+
+    @Test
+    public void filterByKindAndModule()
+    {
+        final ISystemInfoProcessor processor = controller.createSystemInfoProcessor();
+        final List<Entry<INamedElement, IMetricValue>> all = getAllValues(e -> true);
+        final String kind = all.get(0).getKey().getKind();
+        final Predicate<INamedElement> kindFilter = e -> e.getKind().equals(kind);
+
+        final Map<INamedElement, IMetricValue> byKind = processor.getTopElements(LEVEL, METRIC, 10, MetricValueOrder.HIGHEST, kindFilter);
+        assertFalse(byKind.isEmpty());
+        byKind.keySet().forEach(e -> assertEquals(kind, e.getKind()));
+        assertEquals(getSortedValues(getAllValues(kindFilter), MetricValueOrder.HIGHEST, 10), getValues(byKind));
+
+        for (final IModule nextModule : controller.getSoftwareSystem().getModules().values())
+        {
+            final IModuleInfoProcessor moduleProcessor = controller.createModuleInfoProcessor(nextModule);
+            final List<Entry<INamedElement, IMetricValue>> moduleValues = new ArrayList<>(moduleProcessor.getMetricValues(LEVEL, METRIC).entrySet());
+            final Map<INamedElement, IMetricValue> moduleTop = moduleProcessor.getTopElements(LEVEL, METRIC, 5, MetricValueOrder.LOWEST);
+            assertEquals(getSortedValues(moduleValues, MetricValueOrder.LOWEST, 5), getValues(moduleTop));
+            final Map<INamedElement, IMetricValue> restricted = processor.getTopElements(LEVEL, METRIC, 5, MetricValueOrder.LOWEST,
+                    Collections.singletonList(nextModule), e -> true);
+            assertEquals(new ArrayList<>(moduleTop.keySet()), new ArrayList<>(restricted.keySet()));
+            assertEquals(getValues(moduleTop), getValues(restricted));
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.BaselineCurrent;
+import com.hello2morrow.sonargraph.integration.access.model.IIssue;
+import com.hello2morrow.sonargraph.integration.access.model.IIssueDelta;
+import com.hello2morrow.sonargraph.integration.access.model.IReportDelta;
+import com.hello2morrow.sonargraph.integration.access.model.ResolutionType;
+import com.hello2morrow.sonargraph.integration.access.model.Severity;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueCategoryImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueDeltaImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueProviderImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.IssueTypeImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ModuleImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.NamedElementIssueImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.ProgrammingElementImpl;
+import com.hello2morrow.sonargraph.integration.access.model.internal.SoftwareSystemImpl;
+
+public class ReportDifferenceProcessorImplTest
+{
+    private static final int NUMBER_OF_ISSUES = 10000;
+    private static final int NUMBER_OF_UNCHANGED_POSITIONS = 9000;
+    private static final int NUMBER_OF_NEW_ISSUES = 1100;
+
+    private static final class SyntheticSystem
+    {
+        private final SoftwareSystemImpl system;
+        private final ModuleImpl module;
+        private final ProgrammingElementImpl element;
+        private final IssueProviderImpl provider;
+        private final IssueTypeImpl issueType;
+        private int numberOfIssues;
+
+        SyntheticSystem()
+        {
+            system = new SoftwareSystemImpl("SoftwareSystem", "System", "id", "Test", "", "./Test.sonargraph", "9.0", System.currentTimeMillis(),
+                    "Modifiable.vm");
+            module = new ModuleImpl("JavaModule", "Module", "M", "M", "Workspace:M", "", system.getMetaDataAccess(),
+                    system.getElementRegistry(), "Java", system);
+            system.addModule(module);
+            module.addElement(module);
+            element = addElement("A");
+
+            provider = new IssueProviderImpl("Core", "Core");
+            final IssueCategoryImpl category = new IssueCategoryImpl("Todo", "Todo");
+            issueType = new IssueTypeImpl("Todo", "Todo", Severity.INFO, category, provider, "");
+            system.addIssueProvider(provider);
+            system.addIssueCategory(category);
+            system.addIssueType(issueType);
+        }
+
+        ProgrammingElementImpl addElement(final String name)
+        {
+            final ProgrammingElementImpl next = new ProgrammingElementImpl("JavaType", "Type", name, name, "Workspace:M:" + name, 1);
+            module.addElement(next);
+            return next;
+        }
+
+        NamedElementIssueImpl addIssue(final int line)
+        {
+            return addIssue(element, line);
+        }
+
+        NamedElementIssueImpl addIssue(final ProgrammingElementImpl affectedElement, final int line)
+        {
+            final NamedElementIssueImpl issue = new NamedElementIssueImpl("Todo", "Todo", "", issueType, provider, line, 1, affectedElement);
+            system.addIssue(issue);
+            system.setNumberOfIssues(++numberOfIssues);
+            return issue;
+        }
+    }
+
+    @Test
+    public void matchManyIssuesOfOneElement()
+    {
+        final SyntheticSystem baseline = new SyntheticSystem();
+        final SyntheticSystem current = new SyntheticSystem();
+
+        for (int i = 0; i < NUMBER_OF_ISSUES; i++)
+        {
+            baseline.addIssue(i + 1);
+        }
+        for (int i = 0; i < NUMBER_OF_UNCHANGED_POSITIONS; i++)
+        {
+            final NamedElementIssueImpl issue = current.addIssue(i + 1);
+            if (i % 3 == 0)
+            {
+                issue.setResolutionType(ResolutionType.TODO);
+            }
+        }
+        for (int i = 0; i < NUMBER_OF_NEW_ISSUES; i++)
+        {
+            current.addIssue(2 * NUMBER_OF_ISSUES + i);
+        }
+
+        final IIssueDelta delta = new ReportDifferenceProcessorImpl(new SystemInfoProcessorImpl(baseline.system)).createReportDelta(
+                new SystemInfoProcessorImpl(current.system)).getIssueDelta();
+
+        assertEquals(NUMBER_OF_UNCHANGED_POSITIONS / 3, delta.getChangedResolutionType().size());
+        assertEquals(NUMBER_OF_ISSUES - NUMBER_OF_UNCHANGED_POSITIONS, delta.getRemoved().size());
+        assertEquals(NUMBER_OF_NEW_ISSUES, delta.getAdded().size());
+        delta.getChangedResolutionType().forEach(n -> assertEquals(n.getBaseline().getLine(), n.getCurrent().getLine()));
+    }
+
+    @Test
+    public void matchManyShiftedIssuesOfOneElement()
+    {
+        final SyntheticSystem baseline = new SyntheticSystem();
+        final SyntheticSystem current = new SyntheticSystem();
+
+        //A large block inserted at the top of the file moves every issue, so none can be matched by position
+        for (int i = 0; i < NUMBER_OF_ISSUES; i++)
+        {
+            baseline.addIssue(i + 1);
+            final NamedElementIssueImpl issue = current.addIssue(i + 1 + NUMBER_OF_ISSUES);
+            if (i % 2 == 0)
+            {
+                issue.setResolutionType(ResolutionType.IGNORE);
+            }
+        }
+
+        final IIssueDelta delta = new ReportDifferenceProcessorImpl(new SystemInfoProcessorImpl(baseline.system)).createReportDelta(
+                new SystemInfoProcessorImpl(current.system)).getIssueDelta();
+
+        assertEquals(NUMBER_OF_ISSUES / 2, delta.getChangedResolutionType().size());
+        assertEquals(0, delta.getRemoved().size());
+        assertEquals(0, delta.getAdded().size());
+        delta.getChangedResolutionType().forEach(n -> assertEquals(n.getBaseline().getLine() + NUMBER_OF_ISSUES, n.getCurrent().getLine()));
+    }
+
+    /**
+     * Counts the element accesses of the issue lists, a nested scan would need about n * n / 2 accesses.
+     */
+    private static final class CountingList<T> extends ArrayList<T>
+    {
+        private static final long serialVersionUID = -1577384047622961290L;
+        private int numberOfAccesses;
+
+        CountingList()
+        {
+            super();
+        }
+
+        @Override
+        public T get(final int index)
+        {
+            numberOfAccesses++;
+            return super.get(index);
+        }
+
+        @Override
+        public Iterator<T> iterator()
+        {
+            final Iterator<T> iterator = super.iterator();
+            return new Iterator<T>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public T next()
+                {
+                    numberOfAccesses++;
+                    return iterator.next();
+                }
+            };
+        }
+
+        @Override
+        public Object[] toArray()
+        {
+            numberOfAccesses += size();
+            return super.toArray();
+        }
+
+        @Override
+        public <E> E[] toArray(final E[] array)
+        {
+            numberOfAccesses += size();
+            return super.toArray(array);
+        }
+    }
+
+    @Test
+    public void matchByPositionAccessesEachIssueAConstantNumberOfTimes()
+    {
+        final SyntheticSystem baseline = new SyntheticSystem();
+        final SyntheticSystem current = new SyntheticSystem();
+        final CountingList<IIssue> baselineIssues = new CountingList<>();
+        final CountingList<IIssue> currentIssues = new CountingList<>();
+        for (int i = 0; i < NUMBER_OF_ISSUES; i++)
+        {
+            baselineIssues.add(baseline.addIssue(i + 1));
+            //Every second issue has been moved, so half of the issues cannot be matched
+            currentIssues.add(current.addIssue(i % 2 == 0 ? i + 1 : i + 1 + NUMBER_OF_ISSUES));
+        }
+
+        final IssueDeltaImpl delta = new IssueDeltaImpl();
+        new ReportDifferenceProcessorImpl(new SystemInfoProcessorImpl(baseline.system)).matchIssuesByPosition(currentIssues, baselineIssues,
+                delta);
+
+        assertEquals(NUMBER_OF_ISSUES / 2, currentIssues.size());
+        assertEquals(NUMBER_OF_ISSUES / 2, baselineIssues.size());
+        assertTrue(currentIssues.numberOfAccesses + " accesses", currentIssues.numberOfAccesses <= 2 * NUMBER_OF_ISSUES);
+        assertTrue(baselineIssues.numberOfAccesses + " accesses", baselineIssues.numberOfAccesses <= 3 * NUMBER_OF_ISSUES);
+    }
+
+    @Test
+    public void pairRemainingIssuesInOrderIfCountsAreEqual()
+    {
+        final SyntheticSystem baseline = new SyntheticSystem();
+        final SyntheticSystem current = new SyntheticSystem();
+
+        baseline.addIssue(10);
+        baseline.addIssue(10);
+        baseline.addIssue(20);
+        current.addIssue(10).setResolutionType(ResolutionType.IGNORE);
+        current.addIssue(25).setResolutionType(ResolutionType.FIX);
+        current.addIssue(30);
+
+        final IIssueDelta delta = new ReportDifferenceProcessorImpl(new SystemInfoProcessorImpl(baseline.system)).createReportDelta(
+                new SystemInfoProcessorImpl(current.system)).getIssueDelta();
+
+        assertEquals(0, delta.getAdded().size());
+        assertEquals(0, delta.getRemoved().size());
+        assertEquals(2, delta.getChangedResolutionType().size());
+        assertEquals(10, delta.getChangedResolutionType().get(0).getCurrent().getLine());
+        assertEquals(10, delta.getChangedResolutionType().get(1).getBaseline().getLine());
+        assertEquals(25, delta.getChangedResolutionType().get(1).getCurrent().getLine());
+    }
+
+    private static <T> void assertSameElements(final List<T> expected, final List<T> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static void assertSameDelta(final IReportDelta expected, final IReportDelta actual)
+    {
+        final IIssueDelta expectedIssueDelta = expected.getIssueDelta();
+        final IIssueDelta actualIssueDelta = actual.getIssueDelta();
+        assertSameElements(expectedIssueDelta.getAdded(), actualIssueDelta.getAdded());
+        assertSameElements(expectedIssueDelta.getRemoved(), actualIssueDelta.getRemoved());
+        final List<BaselineCurrent<IIssue>> expectedChanged = expectedIssueDelta.getChangedResolutionType();
+        final List<BaselineCurrent<IIssue>> actualChanged = actualIssueDelta.getChangedResolutionType();
+        assertEquals(expectedChanged.size(), actualChanged.size());
+        for (int i = 0; i < expectedChanged.size(); i++)
+        {
+            assertSame(expectedChanged.get(i).getBaseline(), actualChanged.get(i).getBaseline());
+            assertSame(expectedChanged.get(i).getCurrent(), actualChanged.get(i).getCurrent());
+        }
+        assertEquals(expectedIssueDelta.getImprovedThresholdViolation(), actualIssueDelta.getImprovedThresholdViolation());
+        assertEquals(expectedIssueDelta.getWorsenedThresholdViolation(), actualIssueDelta.getWorsenedThresholdViolation());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void parallelDeltaOfManyElementsIsSameAsSequentialDelta()
+    {
+        final SyntheticSystem baseline = new SyntheticSystem();
+        final SyntheticSystem current = new SyntheticSystem();
+
+        for (int i = 0; i < 2000; i++)
+        {
+            final ProgrammingElementImpl nextBaselineElement = baseline.addElement("T" + i);
+            final ProgrammingElementImpl nextCurrentElement = current.addElement("T" + i);
+            for (int j = 0; j < i % 7; j++)
+            {
+                baseline.addIssue(nextBaselineElement, j * 10);
+            }
+            for (int j = 0; j < i % 5; j++)
+            {
+                final NamedElementIssueImpl nextIssue = current.addIssue(nextCurrentElement, j * 10 + (i % 3 == 0 ? 1 : 0));
+                if (j % 2 == 0)
+                {
+                    nextIssue.setResolutionType(ResolutionType.TODO);
+                }
+            }
+        }
+
+        final ReportDifferenceProcessorImpl processor = new ReportDifferenceProcessorImpl(new SystemInfoProcessorImpl(baseline.system));
+        final IReportDelta sequential = processor.createReportDelta(new SystemInfoProcessorImpl(current.system));
+        final IReportDelta parallel = processor.createReportDelta(new SystemInfoProcessorImpl(current.system), ForkJoinPool.commonPool());
+
+        assertTrue(!sequential.getIssueDelta().getAdded().isEmpty());
+        assertTrue(!sequential.getIssueDelta().getRemoved().isEmpty());
+        assertTrue(!sequential.getIssueDelta().getChangedResolutionType().isEmpty());
+        assertSameDelta(sequential, parallel);
+    }
+
+    @Test
+    public void parallelDeltaOfReportsIsSameAsSequentialDelta()
+    {
+        final String[][] reports = { { TestFixture.TEST_REPORT_RESOLUTIONS_1, TestFixture.TEST_REPORT_RESOLUTIONS_2 },
+                { TestFixture.TEST_REPORT_META_DATA_1, TestFixture.TEST_REPORT_META_DATA_2 },
+                { TestFixture.TEST_REPORT, TestFixture.TEST_REPORT_REFACTORINGS },
+                { TestFixture.TEST_REPORT_INTEGRATION_ACCESS_WITH_CYCLE_GROUP, TestFixture.TEST_REPORT_WITH_DUPLICATES } };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            for (final String[] nextReports : reports)
+            {
+                final ISonargraphSystemController baselineController = ControllerAccess.createController();
+                final Result baselineResult = baselineController.loadSystemReport(new File(nextReports[0]));
+                assertTrue(baselineResult.toString(), baselineResult.isSuccess());
+                final ISonargraphSystemController currentController = ControllerAccess.createController();
+                final Result currentResult = currentController.loadSystemReport(new File(nextReports[1]));
+                assertTrue(currentResult.toString(), currentResult.isSuccess());
+
+                final IReportDifferenceProcessor processor = baselineController.createReportDifferenceProcessor();
+                final ISystemInfoProcessor currentProcessor = currentController.createSystemInfoProcessor();
+                assertSameDelta(processor.createReportDelta(currentProcessor), processor.createReportDelta(currentProcessor, executor));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+
+public class ElementOrdinalTest
+{
+    private SoftwareSystemImpl system;
+    private ModuleImpl module1;
+    private ModuleImpl module2;
+
+    private static SoftwareSystemImpl createSystem()
+    {
+        return new SoftwareSystemImpl("SoftwareSystem", "System", "id", "Test", "", "./Test.sonargraph", "9.0", System.currentTimeMillis(),
+                "Modifiable.vm");
+    }
+
+    private static ModuleImpl createModule(final SoftwareSystemImpl system, final String name)
+    {
+        final ModuleImpl module = new ModuleImpl("JavaModule", "Module", name, name, "Workspace:" + name, "", system.getMetaDataAccess(),
+                system.getElementRegistry(), "Java", system);
+        system.addModule(module);
+        module.addElement(module);
+        return module;
+    }
+
+    private static ProgrammingElementImpl createType(final ModuleImpl module, final String name)
+    {
+        final ProgrammingElementImpl type = new ProgrammingElementImpl("JavaType", "Type", name, name, module.getFqName() + ":" + name, 1);
+        module.addElement(type);
+        return type;
+    }
+
+    @Before
+    public void before()
+    {
+        system = createSystem();
+        system.addElement(system);
+        module1 = createModule(system, "M1");
+        module2 = createModule(system, "M2");
+    }
+
+    @Test
+    public void ordinalsAreDense()
+    {
+        final ProgrammingElementImpl a = createType(module1, "A");
+        final ProgrammingElementImpl b = createType(module2, "B");
+
+        assertEquals(0, system.getOrdinal());
+        assertEquals(1, module1.getOrdinal());
+        assertEquals(2, module2.getOrdinal());
+        assertEquals(3, a.getOrdinal());
+        assertEquals(4, b.getOrdinal());
+        assertEquals(5, system.getElementRegistry().getNumberOfOrdinals());
+        assertSame(a, system.getElementRegistry().getElement(3));
+
+        final BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(3);
+        assertEquals(expected, module1.getElementOrdinals());
+    }
+
+    @Test
+    public void moduleMembership()
+    {
+        final ProgrammingElementImpl a = createType(module1, "A");
+        final ProgrammingElementImpl b = createType(module2, "B");
+
+        assertTrue(module1.hasElement(a));
+        assertFalse(module1.hasElement(b));
+        assertTrue(module2.hasElement(b));
+        assertFalse(module2.hasElement(a));
+
+        //Equal element of another system
+        final SoftwareSystemImpl other = createSystem();
+        final ProgrammingElementImpl otherA = createType(createModule(other, "M1"), "A");
+        assertEquals(a, otherA);
+        assertTrue(module1.hasElement(otherA));
+        assertFalse(module2.hasElement(otherA));
+        assertEquals(a.getOrdinal(), system.getOrdinal(otherA));
+    }
+
+    @Test
+    public void sourceFileLookup()
+    {
+        final RootDirectoryImpl root = new RootDirectoryImpl("JavaRootDirectoryPath", "Root Directory", "./src", "Workspace:M1:./src");
+        module1.addElement(root);
+        final SourceFileImpl source = new SourceFileImpl("JavaSourceFile", "Source File", "A.java", "A.java", "Workspace:M1:./src:A.java",
+                false, "./src");
+        root.addSourceFile(source);
+        final ProgrammingElementImpl a = createType(module1, "A");
+        final ProgrammingElementImpl b = createType(module1, "B");
+        system.addSourceFile(a, source);
+
+        assertSame(source, system.getSourceFile(a).get());
+        assertFalse(system.getSourceFile(b).isPresent());
+        final ProgrammingElementImpl otherA = createType(createModule(createSystem(), "M1"), "A");
+        assertSame(source, system.getSourceFile(otherA).get());
+    }
+
+    @Test
+    public void metricValueOfEqualElement()
+    {
+        final MetricLevelImpl typeLevel = new MetricLevelImpl("Type", "Type", 60);
+        system.addMetricLevel(typeLevel);
+        final MetricIdImpl linesId = new MetricIdImpl("Lines", "Lines", "",
+                Collections.<IMetricCategory> singletonList(new MetricCategoryImpl("Size", "Size", 1)), Collections.singletonList(typeLevel),
+                new MetricProviderImpl("Core", "Core"), false, 0, 0);
+        system.addMetricId(linesId);
+        final ProgrammingElementImpl a = createType(module1, "A");
+        module1.addMetricValueForElement(linesId, typeLevel, a, 42);
+
+        assertEquals(Integer.valueOf(42), module1.getMetricValues(typeLevel, linesId).get(a).getValue());
+        final ProgrammingElementImpl otherA = createType(createModule(createSystem(), "M1"), "A");
+        assertEquals(Integer.valueOf(42), module1.getMetricValues(typeLevel, linesId).get(otherA).getValue());
+    }
+}
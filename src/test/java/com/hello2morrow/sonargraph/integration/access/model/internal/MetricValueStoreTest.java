@@ -0,0 +1,162 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.model.IMetricCategory;
+import com.hello2morrow.sonargraph.integration.access.model.IMetricValue;
+import com.hello2morrow.sonargraph.integration.access.model.INamedElement;
+
+public class MetricValueStoreTest
+{
+    private SoftwareSystemImpl system;
+    private ModuleImpl module1;
+    private ModuleImpl module2;
+    private MetricLevelImpl typeLevel;
+    private MetricIdImpl linesId;
+    private MetricIdImpl acdId;
+
+    @Before
+    public void before()
+    {
+        system = new SoftwareSystemImpl("SoftwareSystem", "System", "id", "Test", "", "./Test.sonargraph", "9.0", System.currentTimeMillis(),
+                "Modifiable.vm");
+        module1 = createModule("M1");
+        module2 = createModule("M2");
+
+        final MetricProviderImpl provider = new MetricProviderImpl("Core", "Core");
+        final List<IMetricCategory> categories = Collections.singletonList(new MetricCategoryImpl("Size", "Size", 1));
+        typeLevel = new MetricLevelImpl("Type", "Type", 60);
+        system.addMetricLevel(typeLevel);
+        linesId = new MetricIdImpl("Lines", "Lines", "", categories, Collections.singletonList(typeLevel), provider, false, 0, 0);
+        acdId = new MetricIdImpl("Acd", "ACD", "", categories, Collections.singletonList(typeLevel), provider, true, 0, 0);
+        system.addMetricId(linesId);
+        system.addMetricId(acdId);
+    }
+
+    private ModuleImpl createModule(final String name)
+    {
+        final ModuleImpl module = new ModuleImpl("JavaModule", "Module", name, name, "Workspace:" + name, "", system.getMetaDataAccess(),
+                system.getElementRegistry(), "Java", system);
+        system.addModule(module);
+        module.addElement(module);
+        return module;
+    }
+
+    private ProgrammingElementImpl createType(final ModuleImpl module, final String name)
+    {
+        final ProgrammingElementImpl type = new ProgrammingElementImpl("JavaType", "Type", name, name, module.getFqName() + ":" + name, 1);
+        module.addElement(type);
+        return type;
+    }
+
+    private void add(final ModuleImpl module, final MetricIdImpl metricId, final INamedElement element, final Number value)
+    {
+        module.addMetricValueForElement(metricId, typeLevel, element, value);
+        system.addMetricValueForElement(metricId, typeLevel, element, value);
+    }
+
+    @Test
+    public void moduleViewsShareColumns()
+    {
+        final ProgrammingElementImpl a = createType(module1, "A");
+        final ProgrammingElementImpl b = createType(module1, "B");
+        final ProgrammingElementImpl c = createType(module2, "C");
+        add(module1, linesId, a, Integer.valueOf(10));
+        add(module1, linesId, b, Integer.valueOf(20));
+        add(module2, linesId, c, Integer.valueOf(30));
+        add(module2, acdId, c, Float.valueOf(1.5f));
+
+        final Map<INamedElement, IMetricValue> systemLines = system.getMetricValues(typeLevel, linesId);
+        assertEquals(3, systemLines.size());
+        assertEquals(Integer.valueOf(20), systemLines.get(b).getValue());
+
+        final Map<INamedElement, IMetricValue> module1Lines = module1.getMetricValues("Type", "Lines");
+        assertEquals(2, module1Lines.size());
+        assertFalse(module1Lines.containsKey(c));
+        final Map<INamedElement, Number> copy = new HashMap<>();
+        module1Lines.forEach((k, v) -> copy.put(k, v.getValue()));
+        assertEquals(Integer.valueOf(10), copy.get(a));
+        assertEquals(Integer.valueOf(20), copy.get(b));
+
+        assertTrue(module1.getMetricValues(typeLevel, acdId).isEmpty());
+        assertEquals(1, module1.getMetricIdsForLevel(typeLevel).size());
+        assertEquals(2, module2.getMetricIdsForLevel(typeLevel).size());
+
+        final IMetricValue acd = module2.getMetricValueForElement(acdId, typeLevel, c.getFqName()).get();
+        assertEquals(Float.valueOf(1.5f), acd.getValue());
+        assertTrue(acd.isFloat());
+        assertFalse(module2.getMetricValueForElement(acdId, typeLevel, a.getFqName()).isPresent());
+        assertNull(system.getMetricValues(typeLevel, acdId).get(a));
+    }
+
+    @Test
+    public void mixedNumberTypesKeepTheirValues()
+    {
+        final ProgrammingElementImpl a = createType(module1, "A");
+        final ProgrammingElementImpl b = createType(module1, "B");
+        add(module1, linesId, a, Integer.valueOf(-1));
+        add(module1, linesId, b, Double.valueOf(2.5));
+
+        final Map<INamedElement, IMetricValue> values = system.getMetricValues(typeLevel, linesId);
+        assertEquals(Integer.valueOf(-1), values.get(a).getValue());
+        assertEquals(Double.valueOf(2.5), values.get(b).getValue());
+    }
+
+    @Test
+    public void doubleValuesKeepTheirPrecision()
+    {
+        final MetricValueStore.MetricColumn column = new MetricValueStore.MetricColumn();
+        column.setValue(0, Double.valueOf(0.1));
+        column.setValue(3, Double.valueOf(1.0 / 3));
+        assertEquals(Double.valueOf(0.1), column.getValue(0));
+        assertEquals(1.0 / 3, column.getDoubleValue(3), 0.0);
+        assertFalse(column.hasValue(1));
+
+        column.setValue(1, Integer.valueOf(7));
+        assertEquals(Integer.valueOf(7), column.getValue(1));
+        assertEquals(Double.valueOf(1.0 / 3), column.getValue(3));
+    }
+
+    @Test
+    public void manyRows()
+    {
+        final int count = 5000;
+        for (int i = 0; i < count; i++)
+        {
+            final ProgrammingElementImpl next = createType(i % 2 == 0 ? module1 : module2, "T" + i);
+            add(i % 2 == 0 ? module1 : module2, linesId, next, Integer.valueOf(i));
+        }
+        assertEquals(count, system.getMetricValues(typeLevel, linesId).size());
+        assertEquals(count / 2, module2.getMetricValues(typeLevel, linesId).size());
+        assertEquals(Integer.valueOf(4711), module2.getMetricValueForElement(linesId, typeLevel, "Workspace:M2:T4711").get().getValue());
+        module2.getMetricValues(typeLevel, linesId).forEach((k, v) -> assertTrue(module2.hasElement(k)));
+    }
+}
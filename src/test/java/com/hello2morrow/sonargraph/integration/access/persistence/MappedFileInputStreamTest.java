@@ -0,0 +1,118 @@
+/*
+ * Sonargraph Integration Access
+ * Copyright (C) 2016-2018 hello2morrow GmbH
+ * mailto: support AT hello2morrow DOT com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hello2morrow.sonargraph.integration.access.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.hello2morrow.sonargraph.integration.access.controller.ControllerAccess;
+import com.hello2morrow.sonargraph.integration.access.controller.ISonargraphSystemController;
+import com.hello2morrow.sonargraph.integration.access.foundation.Result;
+import com.hello2morrow.sonargraph.integration.access.foundation.TestFixture;
+import com.hello2morrow.sonargraph.integration.access.model.IModule;
+
+public class MappedFileInputStreamTest
+{
+    private static final int CHUNK_SIZE = 1000;
+    private static final String[] REPORTS = { TestFixture.CPP_REPORT, TestFixture.TEST_REPORT_WITH_PACKAGE_TODO, TestFixture.CPP_REPORT_HILO,
+            TestFixture.TEST_REPORT_STANDARD };
+
+    private static ISonargraphSystemController load(final File report, final ReportLoadOptions options)
+    {
+        final ISonargraphSystemController controller = ControllerAccess.createController();
+        final Result result = controller.loadSystemReport(report, options);
+        assertTrue(result.toString(), result.isSuccess());
+        return controller;
+    }
+
+    private static Set<String> getFqNames(final ISonargraphSystemController controller)
+    {
+        final Set<String> fqNames = new TreeSet<>();
+        for (final IModule nextModule : controller.getSoftwareSystem().getModules().values())
+        {
+            nextModule.getElementKinds().forEach(k -> nextModule.getElements(k).forEach(e -> fqNames.add(e.getFqName())));
+        }
+        return fqNames;
+    }
+
+    @Test
+    public void readAcrossChunks() throws IOException
+    {
+        final File file = new File(TestFixture.TEST_REPORT);
+        final byte[] expected = Files.readAllBytes(file.toPath());
+
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (MappedFileInputStream in = new MappedFileInputStream(file, CHUNK_SIZE))
+        {
+            final byte[] buffer = new byte[777];
+            int next;
+            while ((next = in.read(buffer, 0, buffer.length)) >= 0)
+            {
+                read.write(buffer, 0, next);
+                assertEquals(read.size(), in.getPosition());
+            }
+            assertEquals(-1, in.read());
+            assertEquals(0, in.available());
+        }
+        assertArrayEquals(expected, read.toByteArray());
+    }
+
+    @Test
+    public void skipAcrossChunks() throws IOException
+    {
+        final File file = new File(TestFixture.TEST_REPORT);
+        final byte[] expected = Files.readAllBytes(file.toPath());
+
+        try (MappedFileInputStream in = new MappedFileInputStream(file, CHUNK_SIZE))
+        {
+            assertEquals(expected[0] & 0xff, in.read());
+            assertEquals(10, in.skip(10));
+            assertEquals(expected[11] & 0xff, in.read());
+            assertEquals(2500, in.skip(2500));
+            assertEquals(2512, in.getPosition());
+            assertEquals(expected[2512] & 0xff, in.read());
+            assertEquals(expected.length - 2513, in.available());
+            assertEquals(expected.length - 2513, in.skip(Long.MAX_VALUE));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void mappedInputCreatesSameModel()
+    {
+        for (final String nextReport : REPORTS)
+        {
+            final File report = new File(nextReport);
+            final ISonargraphSystemController stream = load(report, new ReportLoadOptions());
+            final ISonargraphSystemController mapped = load(report, new ReportLoadOptions().memoryMappedInput());
+            assertEquals(nextReport, getFqNames(stream), getFqNames(mapped));
+            assertEquals(nextReport, stream.createSystemInfoProcessor().getIssues(null).size(),
+                    mapped.createSystemInfoProcessor().getIssues(null).size());
+        }
+    }
+}